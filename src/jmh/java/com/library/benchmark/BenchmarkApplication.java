@@ -0,0 +1,106 @@
+package com.library.benchmark;
+
+import com.library.LibraryManagementApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the library application for benchmarking against one of the supported database backends.
+ * Logging and SQL output are silenced so that the measurements reflect the service and JDBC cost only.
+ */
+public final class BenchmarkApplication {
+
+    /**
+     * Database backend the benchmark runs against.
+     */
+    public enum Backend {
+        /** Embedded H2 in its native mode, as used by the dev and test profiles. */
+        H2("jdbc:h2:mem:bench-%s;DB_CLOSE_DELAY=-1"),
+        /**
+         * Embedded H2 emulating PostgreSQL; point {@code -Dbenchmark.postgres.url} at a real server to use one.
+         * The schema is generated by Hibernate because the Flyway scripts are written for H2.
+         */
+        POSTGRES("jdbc:h2:mem:bench-%s;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+
+        private final String embeddedUrl;
+
+        Backend(String embeddedUrl) {
+            this.embeddedUrl = embeddedUrl;
+        }
+
+        String url(String name) {
+            if (this == POSTGRES && System.getProperty("benchmark.postgres.url") != null) {
+                return System.getProperty("benchmark.postgres.url");
+            }
+            return String.format(embeddedUrl, name);
+        }
+    }
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(Backend backend, String name, String... extraArgs) {
+        return run(WebApplicationType.NONE, backend, name, extraArgs);
+    }
+
+    /**
+     * Starts the application with its embedded web server on a random port, for benchmarks driving the HTTP API.
+     */
+    static ConfigurableApplicationContext startWeb(Backend backend, String name, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(extraArgs));
+        args.add("--server.port=0");
+        return run(WebApplicationType.SERVLET, backend, name, args.toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType webApplicationType, Backend backend,
+                                                      String name, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=benchmark",
+                "--spring.datasource.url=" + backend.url(name),
+                "--spring.datasource.username=" + System.getProperty("benchmark.db.username", "sa"),
+                "--spring.datasource.password=" + System.getProperty("benchmark.db.password", ""),
+                "--spring.datasource.hikari.maximum-pool-size=" + Integer.getInteger("benchmark.pool.size", 16),
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.library=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.hibernate.orm.jdbc.bind=WARN"
+        ));
+        if (backend == Backend.POSTGRES) {
+            args.add("--spring.flyway.enabled=false");
+            if (System.getProperty("benchmark.postgres.url") != null) {
+                args.add("--spring.datasource.driver-class-name=org.postgresql.Driver");
+            }
+        }
+        args.addAll(List.of(extraArgs));
+
+        return new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(webApplicationType)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Builds a syntactically valid ISBN-13 (with check digit) for the given sequence number,
+     * so generated catalogues pass the same validation as real input.
+     */
+    static String isbn13(long sequence) {
+        String body = String.format("978%09d", sequence % 1_000_000_000L);
+        int sum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            int digit = body.charAt(i) - '0';
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return body + ((10 - sum % 10) % 10);
+    }
+}
@@ -0,0 +1,53 @@
+package com.library.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point for {@code ./mvnw -Pbenchmark test-compile exec:exec}.
+ * <p>
+ * Runs the selected benchmarks twice with the GC profiler attached: once in throughput mode (ops/sec)
+ * and once in sample-time mode (latency percentiles including p99). Standard JMH command line options
+ * are accepted through {@code -Djmh.args="..."}, for example {@code -Djmh.args="BookServiceBenchmark.borrow -t 4"}.
+ * JSON results are written to {@code target/jmh}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        File resultDirectory = new File("target/jmh");
+        resultDirectory.mkdirs();
+
+        Options throughput = new OptionsBuilder()
+                .parent(commandLine)
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(resultDirectory, "throughput.json").getPath())
+                .build();
+
+        Options latency = new OptionsBuilder()
+                .parent(commandLine)
+                .mode(Mode.SampleTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(resultDirectory, "latency.json").getPath())
+                .build();
+
+        new Runner(throughput).run();
+        new Runner(latency).run();
+    }
+}
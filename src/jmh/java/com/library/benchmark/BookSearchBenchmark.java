@@ -0,0 +1,94 @@
+package com.library.benchmark;
+
+import com.library.service.impl.BookSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency of {@link BookSearchIndex} as the catalogue grows.
+ * <p>
+ * Titles are built from a small shared vocabulary plus one rare word each, so queries range from
+ * very selective to matching a large share of the catalogue. The index is filled directly, without
+ * starting the application, because it holds one entry per ISBN and never touches the database on reads.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BookSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "java", "python", "practical", "modern", "patterns", "design", "systems", "distributed",
+            "data", "learning", "effective", "clean", "guide", "introduction", "advanced", "programming"
+    };
+    private static final String[] AUTHORS = {
+            "Joshua Bloch", "Robert C. Martin", "Martin Kleppmann", "Brian Goetz", "Eric Freeman", "Kent Beck"
+    };
+
+    /**
+     * Distinct ISBNs in the catalogue; copies of an ISBN share one index entry.
+     */
+    @Param({"10000", "100000", "1000000"})
+    public int isbns;
+
+    private BookSearchIndex searchIndex;
+    private String rareWord;
+
+    @Setup(Level.Trial)
+    public void fillIndex() {
+        searchIndex = new BookSearchIndex(null);
+        Random random = new Random(42);
+        for (int i = 0; i < isbns; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + rareWord(i);
+            String isbn = BenchmarkApplication.isbn13(i);
+            searchIndex.entryAdded(Long.parseLong(isbn), isbn, title, AUTHORS[random.nextInt(AUTHORS.length)]);
+        }
+        rareWord = rareWord(isbns / 2);
+    }
+
+    // A word of letters unique to the given number, e.g. "zbqd"
+    private static String rareWord(int number) {
+        StringBuilder word = new StringBuilder("z");
+        for (int n = number; n > 0; n /= 26) {
+            word.append((char) ('a' + n % 26));
+        }
+        return word.toString();
+    }
+
+    @Benchmark
+    public List<BookSearchIndex.Match> selectiveTerm() {
+        return searchIndex.search(rareWord, 20, isbn13 -> true);
+    }
+
+    @Benchmark
+    public List<BookSearchIndex.Match> titleAndAuthorTerms() {
+        return searchIndex.search("distributed kleppmann " + rareWord, 20, isbn13 -> true);
+    }
+
+    @Benchmark
+    public List<Long> titleSubstring() {
+        return searchIndex.findIsbnsByTitle(rareWord);
+    }
+
+    @Benchmark
+    public List<BookSearchIndex.Match> commonTerms() {
+        return searchIndex.search("effective java", 20, isbn13 -> true);
+    }
+}
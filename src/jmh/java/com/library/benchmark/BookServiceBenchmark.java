@@ -0,0 +1,179 @@
+package com.library.benchmark;
+
+import com.library.dto.BookImportResultDto;
+import com.library.dto.BookRequestDto;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Baseline for the {@link BookService} borrow/return hot paths.
+ * <p>
+ * Every benchmark thread owns a borrower and an ISBN with its own pool of copies, so the numbers describe
+ * the cost of a single operation rather than lock contention between threads. Copies borrowed during a
+ * measured invocation are handed back in an untimed invocation-level tear down.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+
+    @Param({"H2", "POSTGRES"})
+    public BenchmarkApplication.Backend backend;
+
+    /**
+     * Copies per ISBN; with several copies borrowing by ISBN has to pick one of them.
+     */
+    @Param({"1", "16"})
+    public int copiesPerIsbn;
+
+    private final AtomicInteger threadSequence = new AtomicInteger();
+    private final AtomicLong isbnSequence = new AtomicLong(1_000_000);
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BorrowerService borrowerService;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start(backend, "book-service-" + backend.name().toLowerCase());
+        bookService = context.getBean(BookService.class);
+        borrowerService = context.getBean(BorrowerService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    String nextIsbn() {
+        return BenchmarkApplication.isbn13(isbnSequence.incrementAndGet());
+    }
+
+    /**
+     * Per-thread catalogue: one borrower and one ISBN with {@link #copiesPerIsbn} copies.
+     */
+    public abstract static class Catalogue {
+
+        String isbn;
+        Long borrowerId;
+        final List<Long> copyIds = new ArrayList<>();
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void seed(BookServiceBenchmark benchmark) {
+            int thread = benchmark.threadSequence.incrementAndGet();
+            Borrower borrower = benchmark.borrowerService.registerBorrower(
+                    "Benchmark Reader", "reader" + thread + "@bench.example.com");
+            borrowerId = borrower.getId();
+            isbn = benchmark.nextIsbn();
+            for (int i = 0; i < benchmark.copiesPerIsbn; i++) {
+                copyIds.add(benchmark.bookService.addBook(isbn, "Benchmark Title " + thread, "Benchmark Author").getId());
+            }
+        }
+
+        Long nextCopy() {
+            Long id = copyIds.get(cursor);
+            cursor = (cursor + 1) % copyIds.size();
+            return id;
+        }
+    }
+
+    /**
+     * Hands every copy borrowed by the measured invocation back, outside the timed region.
+     */
+    @State(Scope.Thread)
+    public static class BorrowCatalogue extends Catalogue {
+
+        final Deque<Long> onLoan = new ArrayDeque<>();
+
+        @TearDown(Level.Invocation)
+        public void returnBorrowed(BookServiceBenchmark benchmark) {
+            while (!onLoan.isEmpty()) {
+                benchmark.bookService.returnBook(onLoan.pop());
+            }
+        }
+    }
+
+    /**
+     * Puts a copy on loan before each measured return, outside the timed region.
+     */
+    @State(Scope.Thread)
+    public static class ReturnCatalogue extends Catalogue {
+
+        Long bookId;
+
+        @Setup(Level.Invocation)
+        public void borrow(BookServiceBenchmark benchmark) {
+            bookId = nextCopy();
+            benchmark.bookService.borrowBookById(bookId, borrowerId);
+        }
+    }
+
+    @Benchmark
+    public Book borrowBook(BorrowCatalogue catalogue) {
+        Book book = bookService.borrowBook(catalogue.isbn, catalogue.borrowerId);
+        catalogue.onLoan.push(book.getId());
+        return book;
+    }
+
+    @Benchmark
+    public Book borrowBookById(BorrowCatalogue catalogue) {
+        Book book = bookService.borrowBookById(catalogue.nextCopy(), catalogue.borrowerId);
+        catalogue.onLoan.push(book.getId());
+        return book;
+    }
+
+    @Benchmark
+    public Book returnBook(ReturnCatalogue catalogue) {
+        return bookService.returnBook(catalogue.bookId);
+    }
+
+    @Benchmark
+    public Book addBook() {
+        return bookService.addBook(nextIsbn(), "Benchmark Addition", "Benchmark Author");
+    }
+
+    /**
+     * Bulk import of 1000 copies spread over 10 new ISBNs per invocation.
+     */
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public BookImportResultDto importBooks() {
+        List<BookRequestDto> rows = new ArrayList<>(1000);
+        for (int i = 0; i < 10; i++) {
+            String isbn = nextIsbn();
+            for (int copy = 0; copy < 100; copy++) {
+                rows.add(new BookRequestDto(isbn, "Benchmark Import", "Benchmark Author"));
+            }
+        }
+        return bookService.importBooks(rows.iterator());
+    }
+}
@@ -0,0 +1,133 @@
+package com.library.benchmark;
+
+import com.library.dto.BorrowerStatisticsDto;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import com.library.service.BorrowingHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@code GET /api/history/borrowers/{id}/statistics}: the three separate counts it used to run
+ * against {@link BorrowingHistoryService#getBorrowerStatistics}, which returns them from one query.
+ * <p>
+ * The history is written with plain JDBC batches, spread over {@value #BORROWERS} borrowers and two years,
+ * so every borrower has a few thousand rows at the larger sizes. Each invocation asks for a different borrower.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class BorrowerStatisticsBenchmark {
+
+    static final int BORROWERS = 1000;
+    private static final int BOOKS = 200;
+    private static final int BATCH_SIZE = 10_000;
+    // Well above anything the borrowing_history sequence hands out while seeding
+    private static final long FIRST_HISTORY_ID = 1_000_000_000L;
+
+    @Param({"H2", "POSTGRES"})
+    public BenchmarkApplication.Backend backend;
+
+    @Param({"1000000", "10000000"})
+    public int historyRows;
+
+    private ConfigurableApplicationContext context;
+    private BorrowingHistoryService borrowingHistoryService;
+    private final List<Long> borrowerIds = new ArrayList<>(BORROWERS);
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.start(backend, "borrower-statistics-" + backend.name().toLowerCase());
+        borrowingHistoryService = context.getBean(BorrowingHistoryService.class);
+        seed();
+    }
+
+    // Borrowers and books through the services, a few open loans each, then the bulk of the history over JDBC
+    private void seed() {
+        BookService bookService = context.getBean(BookService.class);
+        BorrowerService borrowerService = context.getBean(BorrowerService.class);
+        List<Long> bookIds = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(bookService.addBook(BenchmarkApplication.isbn13(i), "Benchmark Title " + i, "Benchmark Author").getId());
+        }
+        for (int i = 0; i < BORROWERS; i++) {
+            borrowerIds.add(borrowerService.registerBorrower("Benchmark Reader", "reader" + i + "@bench.example.com").getId());
+        }
+        for (int i = 0; i < BOOKS; i++) {
+            bookService.borrowBookById(bookIds.get(i), borrowerIds.get(i % BORROWERS));
+        }
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < historyRows; i++) {
+            boolean borrowed = i % 2 == 0;
+            LocalDateTime actionDate = now.minusMinutes(random.nextInt(2 * 365 * 24 * 60));
+            batch.add(new Object[]{
+                    FIRST_HISTORY_ID + i,
+                    bookIds.get(random.nextInt(BOOKS)),
+                    borrowerIds.get(random.nextInt(BORROWERS)),
+                    borrowed ? "BORROWED" : "RETURNED",
+                    Timestamp.valueOf(actionDate),
+                    borrowed ? Timestamp.valueOf(actionDate.plusWeeks(2)) : null,
+                    Timestamp.valueOf(actionDate)
+            });
+            if (batch.size() == BATCH_SIZE || i == historyRows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO borrowing_history " +
+                        "(id, book_id, borrower_id, actionType, action_date, due_date, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private Long nextBorrower() {
+        Long id = borrowerIds.get(cursor);
+        cursor = (cursor + 1) % borrowerIds.size();
+        return id;
+    }
+
+    @Benchmark
+    public void separateQueries(Blackhole blackhole) {
+        Long borrowerId = nextBorrower();
+        blackhole.consume(borrowingHistoryService.getTotalBorrowingsByBorrower(borrowerId));
+        blackhole.consume(borrowingHistoryService.getCurrentBorrowingCount(borrowerId));
+        blackhole.consume(borrowingHistoryService.hasOverdueBooks(borrowerId));
+    }
+
+    @Benchmark
+    public BorrowerStatisticsDto singleQuery() {
+        return borrowingHistoryService.getBorrowerStatistics(nextBorrower());
+    }
+}
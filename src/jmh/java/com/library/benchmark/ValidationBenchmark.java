@@ -0,0 +1,119 @@
+package com.library.benchmark;
+
+import com.library.validation.BorrowerValidator;
+import com.library.validation.IsbnValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of validating and normalizing the ISBN, name and email of a request: the single-pass validators of
+ * {@code com.library.validation} against the regular expressions the services used before.
+ * <p>
+ * The {@code former*} benchmarks reproduce the replaced code exactly, including {@code String.replaceAll} and
+ * {@code String.matches}, which compile their pattern on every call. Run with the GC profiler (the default of
+ * {@link BenchmarkRunner}) to compare bytes allocated per operation; a canonical ISBN and a valid name or email
+ * allocate nothing with the new validators.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private static final Pattern FORMER_ISBN_PATTERN = Pattern.compile(
+            "^(?:ISBN(?:-1[03])?:? )?(?=[0-9X]{10}$|(?=(?:[0-9]+[- ]){3})[- 0-9X]{13}$|97[89][0-9]{10}$|(?=(?:[0-9]+[- ]){4})[- 0-9]{17}$)(?:97[89][- ]?)?[0-9]{1,5}[- ]?[0-9]+[- ]?[0-9]+[- ]?[0-9X]$"
+    );
+    private static final Pattern FORMER_EMAIL_PATTERN = Pattern.compile(
+            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$"
+    );
+
+    // Non-final so that the JIT cannot fold the inputs into constants
+    private String canonicalIsbn = "9780131103627";
+    private String hyphenatedIsbn = "978-0-13-110362-7";
+    private String name = "Mary-Jane O'Brien";
+    private String email = "mary.jane.obrien@library.example.com";
+
+    @Benchmark
+    public String canonicalIsbn() {
+        return IsbnValidator.normalize(canonicalIsbn);
+    }
+
+    @Benchmark
+    public String formerCanonicalIsbn() {
+        return formerNormalizeIsbn(canonicalIsbn);
+    }
+
+    @Benchmark
+    public String hyphenatedIsbn() {
+        return IsbnValidator.normalize(hyphenatedIsbn);
+    }
+
+    @Benchmark
+    public String formerHyphenatedIsbn() {
+        return formerNormalizeIsbn(hyphenatedIsbn);
+    }
+
+    @Benchmark
+    public void borrower(Blackhole blackhole) {
+        BorrowerValidator.validateName(name);
+        BorrowerValidator.validateEmail(email);
+        blackhole.consume(email);
+    }
+
+    @Benchmark
+    public void formerBorrower(Blackhole blackhole) {
+        formerValidateName(name);
+        formerValidateEmail(email);
+        blackhole.consume(email);
+    }
+
+    // BookServiceImpl.validateIsbn followed by normalizeIsbn, as addBook ran them
+    private static String formerNormalizeIsbn(String isbn) {
+        if (isbn == null || isbn.trim().isEmpty()) {
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+        if (!FORMER_ISBN_PATTERN.matcher(isbn.replaceAll("[^0-9X]", "").toUpperCase()).matches()) {
+            throw new IllegalArgumentException("Invalid ISBN format: " + isbn);
+        }
+        return isbn.replaceAll("[^0-9X]", "").toUpperCase();
+    }
+
+    private static void formerValidateName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Name cannot be null or empty");
+        }
+        String trimmedName = name.trim();
+        if (trimmedName.length() < 2 || trimmedName.length() > 100) {
+            throw new IllegalArgumentException("Invalid name length");
+        }
+        if (!trimmedName.matches("^[a-zA-Z\\s'-]+$")) {
+            throw new IllegalArgumentException("Name can only contain letters, spaces, hyphens, and apostrophes");
+        }
+    }
+
+    private static void formerValidateEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            throw new IllegalArgumentException("Email cannot be null or empty");
+        }
+        String trimmedEmail = email.trim().toLowerCase();
+        if (trimmedEmail.length() > 150) {
+            throw new IllegalArgumentException("Email cannot exceed 150 characters");
+        }
+        if (!FORMER_EMAIL_PATTERN.matcher(trimmedEmail).matches()) {
+            throw new IllegalArgumentException("Email format is invalid: " + email);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.library.benchmark;
+
+import com.library.entity.Book;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request throughput of the HTTP API with {@value #CLIENTS} concurrent clients, with Tomcat running requests
+ * on its pool of 200 platform threads (as configured for production) or on virtual threads
+ * (the {@code virtual-threads} profile).
+ * <p>
+ * Every invocation sends one request per client at the same time and waits for all of them, so one operation
+ * is one request. The Hikari pool is the same size in both modes. Against the embedded backends a query is
+ * cheap and requests spend little time waiting on JDBC; run against PostgreSQL with
+ * {@code -Dbenchmark.postgres.url} to include network round trips. Raise the open file limit
+ * ({@code ulimit -n}) above twice the number of clients before running.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class WebTierBenchmark {
+
+    static final int CLIENTS = 5000;
+
+    /**
+     * Threads Tomcat runs requests on.
+     */
+    public enum Threads {
+        PLATFORM("--server.tomcat.threads.max=200"),
+        VIRTUAL("--spring.profiles.include=virtual-threads");
+
+        private final String arg;
+
+        Threads(String arg) {
+            this.arg = arg;
+        }
+    }
+
+    @Param({"H2", "POSTGRES"})
+    public BenchmarkApplication.Backend backend;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public Threads threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private ExecutorService clients;
+    private URI historyPage;
+    private URI booksPage;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkApplication.startWeb(backend, "web-tier-" + backend.name().toLowerCase(), threads.arg,
+                // Both modes accept and keep every client's connection; only the threads serving them differ
+                "--server.tomcat.max-connections=" + 2 * CLIENTS,
+                "--server.tomcat.accept-count=" + CLIENTS,
+                "--server.tomcat.max-keep-alive-requests=-1");
+        seed();
+        clients = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder().executor(clients).build();
+    }
+
+    // A borrower with a page of history and a catalogue of books, some of them on loan
+    private void seed() {
+        BookService bookService = context.getBean(BookService.class);
+        BorrowerService borrowerService = context.getBean(BorrowerService.class);
+        Long borrowerId = borrowerService.registerBorrower("Benchmark Reader", "reader@bench.example.com").getId();
+        for (int i = 0; i < 200; i++) {
+            Book book = bookService.addBook(BenchmarkApplication.isbn13(i), "Benchmark Title " + i, "Benchmark Author");
+            bookService.borrowBookById(book.getId(), borrowerId);
+            if (i % 4 != 0) {
+                bookService.returnBook(book.getId());
+            }
+        }
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        historyPage = URI.create("http://localhost:" + port + "/api/history/borrowers/" + borrowerId + "/cursor?size=20");
+        booksPage = URI.create("http://localhost:" + port + "/books/cursor?size=20");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        Timer pinned = context.getBean(MeterRegistry.class).find("library.virtual.threads.pinned").timer();
+        if (pinned != null) {
+            System.out.printf("%nVirtual threads pinned: %d times, %.1f ms in total%n",
+                    pinned.count(), pinned.totalTime(TimeUnit.MILLISECONDS));
+        }
+        client.close();
+        clients.close();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public int historyPage() throws Exception {
+        return sendConcurrently(historyPage);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public int booksPage() throws Exception {
+        return sendConcurrently(booksPage);
+    }
+
+    private int sendConcurrently(URI uri) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        List<Future<HttpResponse<Void>>> responses = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            responses.add(clients.submit(() -> client.send(request, HttpResponse.BodyHandlers.discarding())));
+        }
+        int succeeded = 0;
+        for (Future<HttpResponse<Void>> response : responses) {
+            if (response.get().statusCode() != 200) {
+                throw new IllegalStateException("Request failed with status " + response.get().statusCode());
+            }
+            succeeded++;
+        }
+        return succeeded;
+    }
+}
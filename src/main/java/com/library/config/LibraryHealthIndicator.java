@@ -2,49 +2,106 @@ package com.library.config;
 
 import com.library.repository.BookRepository;
 import com.library.repository.BorrowerRepository;
+import com.library.repository.OpenLoanRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
 /**
  * Custom health indicator for the Library Management System.
  * Provides detailed health information about the application's core functionality.
+ * <p>
+ * The counts are taken with COUNT queries every {@code library.health.refresh-interval} (30 seconds by default) on
+ * the scheduler thread, so a health probe only reads the last result and never waits on the database. A failed
+ * refresh reports DOWN until a later one succeeds, and a result older than {@code library.health.max-age}
+ * (two minutes by default), such as when a refresh is stuck on a slow database, reports DOWN as well.
+ * <p>
+ * The indicator belongs to the readiness group and not to liveness, so a slow database takes the instance out of
+ * service without getting it restarted.
  */
 @Component
-public class LibraryHealthIndicator implements HealthIndicator {
+public class LibraryHealthIndicator implements HealthIndicator, SmartInitializingSingleton {
 
     private final BookRepository bookRepository;
     private final BorrowerRepository borrowerRepository;
+    private final OpenLoanRepository openLoanRepository;
+    private final Duration maxAge;
+    private final Clock clock;
+    private volatile Health lastHealth = Health.unknown()
+            .withDetail("status", "Library system has not been checked yet")
+            .build();
+    private volatile Instant checkedAt;
 
     @Autowired
-    public LibraryHealthIndicator(BookRepository bookRepository, BorrowerRepository borrowerRepository) {
+    public LibraryHealthIndicator(BookRepository bookRepository, BorrowerRepository borrowerRepository,
+                                  OpenLoanRepository openLoanRepository,
+                                  @Value("${library.health.max-age:PT2M}") Duration maxAge) {
+        this(bookRepository, borrowerRepository, openLoanRepository, maxAge, Clock.systemDefaultZone());
+    }
+
+    public LibraryHealthIndicator(BookRepository bookRepository, BorrowerRepository borrowerRepository,
+                                  OpenLoanRepository openLoanRepository, Duration maxAge, Clock clock) {
         this.bookRepository = bookRepository;
         this.borrowerRepository = borrowerRepository;
+        this.openLoanRepository = openLoanRepository;
+        this.maxAge = maxAge;
+        this.clock = clock;
     }
 
     @Override
-    public Health health() {
+    public void afterSingletonsInstantiated() {
+        refresh();
+    }
+
+    /**
+     * Count books, borrowers and loans again
+     */
+    @Scheduled(fixedDelayString = "${library.health.refresh-interval:PT30S}",
+               initialDelayString = "${library.health.refresh-interval:PT30S}")
+    public void refresh() {
+        Instant now = clock.instant();
         try {
-            // Check database connectivity by counting records
             long bookCount = bookRepository.count();
             long borrowerCount = borrowerRepository.count();
-            long availableBooks = bookRepository.findAvailableBooks().size();
-            long borrowedBooks = bookRepository.findBorrowedBooks().size();
+            // Every borrowed copy has exactly one open loan
+            long borrowedBooks = openLoanRepository.count();
 
-            return Health.up()
+            lastHealth = Health.up()
                     .withDetail("status", "Library system is operational")
                     .withDetail("database", "Connected")
                     .withDetail("total-books", bookCount)
                     .withDetail("total-borrowers", borrowerCount)
-                    .withDetail("available-books", availableBooks)
+                    .withDetail("available-books", bookCount - borrowedBooks)
                     .withDetail("borrowed-books", borrowedBooks)
+                    .withDetail("checked-at", now.toString())
                     .build();
         } catch (Exception e) {
-            return Health.down()
+            lastHealth = Health.down()
                     .withDetail("status", "Library system is not operational")
                     .withDetail("error", e.getMessage())
+                    .withDetail("checked-at", now.toString())
+                    .build();
+        }
+        checkedAt = now;
+    }
+
+    @Override
+    public Health health() {
+        Instant lastChecked = checkedAt;
+        if (lastChecked != null && Duration.between(lastChecked, clock.instant()).compareTo(maxAge) > 0) {
+            return Health.down()
+                    .withDetail("status", "Library system has not been checked recently")
+                    .withDetail("checked-at", lastChecked.toString())
                     .build();
         }
+        return lastHealth;
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,5 @@
 package com.library.config;
 
-import io.micrometer.core.aop.TimedAspect;
-import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.actuate.info.InfoContributor;
 import org.springframework.boot.actuate.info.Info;
 import org.springframework.context.annotation.Bean;
@@ -45,13 +43,4 @@ public class ProductionConfig {
             }
         };
     }
-
-    /**
-     * Enable @Timed annotations for method-level metrics.
-     * Allows detailed performance monitoring of service methods.
-     */
-    @Bean
-    public TimedAspect timedAspect(MeterRegistry registry) {
-        return new TimedAspect(registry);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.library.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Measures how far the read replica lags behind the primary, so that read-only transactions only go to it while
+ * it is close enough to be useful.
+ * <p>
+ * Every {@code library.datasource.replica.lag-check-interval} the replica runs {@code lag-query}, which returns its
+ * lag in seconds. The replica is usable while the lag is at most {@code max-lag}. A failed check, such as an
+ * unreachable replica, also makes it unusable until the next check succeeds.
+ */
+public class ReplicaLagMonitor {
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        check();
+    }
+
+    @Scheduled(fixedDelayString = "${library.datasource.replica.lag-check-interval:PT5S}",
+               initialDelayString = "${library.datasource.replica.lag-check-interval:PT5S}")
+    public void check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            // No lag reported, e.g. nothing replayed yet, counts as caught up
+            double lag = resultSet.next() ? resultSet.getDouble(1) : 0;
+            lagSeconds = lag;
+            usable = lag <= maxLag.toMillis() / 1000.0;
+        } catch (SQLException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /**
+     * Lag measured by the last check, or NaN if it failed
+     */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.config;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Begins read-only transactions with the second-level and query caches bypassed, so that rows read from the replica
+ * are never put into them. A lagging replica could otherwise refill a region just cleared by a write with the rows
+ * from before that write, which write transactions on the primary would then read.
+ * <p>
+ * Reads bypass the caches as well as writes to them: with reads enabled Hibernate still stores a query result it did
+ * not find in the query cache. The caches are set aside whichever pool the transaction ends up on, because the pool is
+ * only chosen at its first statement; read-only transactions that fall back to the primary simply read the database.
+ */
+public class ReplicaReadJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (definition.isReadOnly()) {
+            // Set as properties rather than as the session's cache mode, which find() would reset from these
+            entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+            entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        }
+        return transactionData;
+    }
+}
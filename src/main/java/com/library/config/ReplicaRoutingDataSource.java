@@ -0,0 +1,50 @@
+package com.library.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Connections for read-only transactions: from the replica pool while {@link ReplicaLagMonitor} considers it
+ * usable, and from the primary pool otherwise. Every connection handed out is counted as
+ * {@code library.datasource.reads}, tagged with the pool it came from.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    MeterRegistry registry) {
+        this.lagMonitor = lagMonitor;
+        this.primaryReads = readCounter(registry, PRIMARY);
+        this.replicaReads = readCounter(registry, REPLICA);
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    private static Counter readCounter(MeterRegistry registry, String pool) {
+        return Counter.builder("library.datasource.reads")
+                .description("Connections handed to read-only transactions")
+                .tag("pool", pool)
+                .register(registry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (lagMonitor.isReplicaUsable()) {
+            replicaReads.increment();
+            return REPLICA;
+        }
+        primaryReads.increment();
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the {@code @Scheduled} background jobs, such as the periodic reload of the borrowing leaderboard
+ * and the overdue loan sweeps.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
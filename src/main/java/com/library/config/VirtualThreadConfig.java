@@ -0,0 +1,40 @@
+package com.library.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Pinning diagnostics for the {@code virtual-threads} profile.
+ * <p>
+ * A virtual thread that blocks while holding a monitor (a {@code synchronized} block, as found in some JDBC
+ * drivers) keeps its carrier thread busy until it is released. Such waits are picked up from the JDK Flight
+ * Recorder's {@code jdk.VirtualThreadPinned} events and timed as {@code library.virtual.threads.pinned}.
+ * Start the JVM with {@code -Djdk.tracePinnedThreads=short} to also print the stack of each pinned thread.
+ */
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfig {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Bean(destroyMethod = "close")
+    public RecordingStream pinnedThreadRecording(MeterRegistry registry,
+                                                 @Value("${library.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        Timer pinned = Timer.builder("library.virtual.threads.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier thread")
+                .register(registry);
+
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold);
+        recording.onEvent(PINNED_EVENT, event -> pinned.record(event.getDuration()));
+        recording.startAsync();
+        return recording;
+    }
+}
@@ -1,8 +1,16 @@
 package com.library.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BatchBorrowRequestDto;
+import com.library.dto.BatchLoanResultDto;
+import com.library.dto.BatchReturnRequestDto;
+import com.library.dto.BookImportResultDto;
 import com.library.dto.BookRequestDto;
 import com.library.dto.BookResponseDto;
+import com.library.dto.BookSearchResultDto;
 import com.library.dto.BorrowRequestDto;
+import com.library.dto.CursorPage;
+import com.library.dto.PageCursor;
 import com.library.entity.Book;
 import com.library.exception.GlobalExceptionHandler;
 import com.library.service.BookService;
@@ -18,22 +26,32 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/books")
 @Tag(name = "Book Management", description = "API endpoints for managing library books, including borrowing and returning")
 public class BookController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final BookService bookService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -123,6 +141,92 @@ public class BookController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Import many books",
+        description = "Creates one book copy per element of a JSON array in a single transaction, with batched inserts. Rows are validated like single additions; invalid rows are skipped and reported with their 1-based position instead of failing the request. Use the NDJSON variant for very large imports."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Import processed; see errors for rejected rows",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BookImportResultDto.class),
+                examples = @ExampleObject(
+                    name = "Partially successful import",
+                    value = """
+                        {
+                          "received": 3,
+                          "imported": 2,
+                          "failed": 1,
+                          "errors": [
+                            {
+                              "row": 2,
+                              "isbn": "not-an-isbn",
+                              "message": "Invalid ISBN format: not-an-isbn"
+                            }
+                          ]
+                        }
+                        """
+                )
+            )
+        )
+    })
+    public ResponseEntity<BookImportResultDto> importBooks(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Books to add, one element per copy",
+                required = true,
+                content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = BookRequestDto.class))
+                )
+            )
+            @RequestBody List<BookRequestDto> books) {
+        return ResponseEntity.ok(bookService.importBooks(books.iterator()));
+    }
+
+    @PostMapping(value = "/bulk", consumes = NDJSON)
+    @Operation(
+        summary = "Import many books from NDJSON",
+        description = "Creates one book copy per line of a newline-delimited JSON body. Lines are imported while the body is still being read, so the request size is not limited by memory. Invalid rows are skipped and reported; a line that is not valid JSON rejects the whole import."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Import processed; see errors for rejected rows",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BookImportResultDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "A line is not valid JSON; nothing was imported",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                examples = @ExampleObject(
+                    name = "Malformed line",
+                    value = """
+                        {
+                          "code": "INVALID_REQUEST",
+                          "message": "Malformed JSON on line 3: Unexpected end-of-input",
+                          "timestamp": "2025-07-31T10:30:00"
+                        }
+                        """
+                )
+            )
+        )
+    })
+    public ResponseEntity<BookImportResultDto> importBooksNdjson(InputStream body) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            NdjsonRequestReader<BookRequestDto> books =
+                    new NdjsonRequestReader<>(reader, objectMapper.readerFor(BookRequestDto.class));
+            return ResponseEntity.ok(bookService.importBooks(books));
+        }
+    }
+
     @GetMapping
     @Operation(
         summary = "Get all books",
@@ -174,11 +278,136 @@ public class BookController {
         )
     })
     public ResponseEntity<List<BookResponseDto>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
-        List<BookResponseDto> response = books.stream()
-                .map(BookResponseDto::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(bookService.getAllBooks());
+    }
+
+    @GetMapping("/cursor")
+    @Operation(
+        summary = "Get books page by page",
+        description = "Retrieves books in ID order using keyset pagination. Pass the nextCursor of a page as cursor to fetch the following page; every page costs the same regardless of how deep it is."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Page retrieved successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class),
+                examples = @ExampleObject(
+                    name = "Books page example",
+                    value = """
+                        {
+                          "items": [
+                            {
+                              "id": 1,
+                              "isbn": "978-0-13-110362-7",
+                              "title": "Effective Java",
+                              "author": "Joshua Bloch",
+                              "available": true,
+                              "borrower": null
+                            }
+                          ],
+                          "nextCursor": "MQ",
+                          "hasNext": true
+                        }
+                        """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor, page size or status",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                examples = @ExampleObject(
+                    name = "Invalid cursor",
+                    value = """
+                        {
+                          "code": "INVALID_REQUEST",
+                          "message": "Invalid page cursor",
+                          "timestamp": "2025-07-31T10:30:00"
+                        }
+                        """
+                )
+            )
+        )
+    })
+    public ResponseEntity<CursorPage<BookResponseDto>> getBooksPage(
+            @Parameter(description = "Which books to list: all, available or borrowed", example = "all")
+            @RequestParam(defaultValue = "all") String status,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of books per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage.validateSize(size);
+        PageCursor position = PageCursor.decode(cursor, false);
+        Long afterId = position == null ? null : position.getId();
+
+        List<BookResponseDto> books = switch (status.toLowerCase(Locale.ROOT)) {
+            case "all" -> bookService.getBooksAfter(afterId, size + 1);
+            case "available" -> bookService.getAvailableBooksAfter(afterId, size + 1);
+            case "borrowed" -> bookService.getBorrowedBooksAfter(afterId, size + 1);
+            default -> throw new IllegalArgumentException(
+                    "Unsupported book status: " + status + ". Supported statuses: all, available, borrowed");
+        };
+        return ResponseEntity.ok(CursorPage.of(books, size, book -> PageCursor.of(book.getId())));
+    }
+
+    @GetMapping("/search")
+    @Operation(
+        summary = "Search books by title and author",
+        description = "Finds catalogue entries whose title or author contains every whitespace separated term of the query, ignoring case and diacritics. Results are ranked: title matches, whole words and prefixes score higher. One result is returned per ISBN with its copy counts."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Search completed",
+            content = @Content(
+                mediaType = "application/json",
+                array = @ArraySchema(schema = @Schema(implementation = BookSearchResultDto.class)),
+                examples = @ExampleObject(
+                    name = "Search results example",
+                    value = """
+                        [
+                          {
+                            "isbn": "9780131103627",
+                            "title": "Effective Java",
+                            "author": "Joshua Bloch",
+                            "totalCopies": 3,
+                            "availableCopies": 1,
+                            "score": 14
+                          }
+                        ]
+                        """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Query missing or too short, or limit out of range",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                examples = @ExampleObject(
+                    name = "Query too short",
+                    value = """
+                        {
+                          "code": "INVALID_REQUEST",
+                          "message": "Search text must contain a word of at least 3 characters",
+                          "timestamp": "2025-07-31T10:30:00"
+                        }
+                        """
+                )
+            )
+        )
+    })
+    public ResponseEntity<List<BookSearchResultDto>> searchBooks(
+            @Parameter(description = "Search terms matched against title and author", example = "effective bloch")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Maximum number of results (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(bookService.searchBooks(q, limit));
     }
 
     @PostMapping("/{bookId}/borrow")
@@ -372,4 +601,93 @@ public class BookController {
         BookResponseDto response = BookResponseDto.fromEntity(returnedBook);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/batch/borrow")
+    @Operation(
+        summary = "Borrow several books",
+        description = "Lends up to 100 book copies to one borrower in a single transaction, for example a stack scanned at a checkout desk. Books that cannot be lent are reported per book instead of failing the request; the others are still lent."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Batch processed; see outcomes for books that were not lent",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BatchLoanResultDto.class),
+                examples = @ExampleObject(
+                    name = "Partially successful batch",
+                    value = """
+                        {
+                          "requested": 2,
+                          "succeeded": 1,
+                          "failed": 1,
+                          "outcomes": [
+                            {
+                              "bookId": 1,
+                              "success": true,
+                              "book": {
+                                "id": 1,
+                                "isbn": "978-0-13-110362-7",
+                                "title": "Effective Java",
+                                "author": "Joshua Bloch",
+                                "available": false,
+                                "borrower": {
+                                  "id": 1,
+                                  "name": "John Doe",
+                                  "email": "john.doe@email.com"
+                                }
+                              },
+                              "message": null
+                            },
+                            {
+                              "bookId": 2,
+                              "success": false,
+                              "book": null,
+                              "message": "Book with ID 2 is not available for borrowing"
+                            }
+                          ]
+                        }
+                        """
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Borrower not found, or no book IDs or more than 100 given",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class)
+            )
+        )
+    })
+    public ResponseEntity<BatchLoanResultDto> borrowBooks(@Valid @RequestBody BatchBorrowRequestDto request) {
+        return ResponseEntity.ok(bookService.borrowBooks(request.getBookIds(), request.getBorrowerId()));
+    }
+
+    @PostMapping("/batch/return")
+    @Operation(
+        summary = "Return several books",
+        description = "Takes back up to 100 borrowed book copies in a single transaction, for example when a returns bin is emptied. Books that cannot be returned are reported per book instead of failing the request; the others are still returned."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Batch processed; see outcomes for books that were not returned",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BatchLoanResultDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No book IDs or more than 100 given",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class)
+            )
+        )
+    })
+    public ResponseEntity<BatchLoanResultDto> returnBooks(@Valid @RequestBody BatchReturnRequestDto request) {
+        return ResponseEntity.ok(bookService.returnBooks(request.getBookIds()));
+    }
+}
@@ -1,36 +1,59 @@
 package com.library.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BorrowerImportProgressDto;
 import com.library.dto.BorrowerRequestDto;
 import com.library.dto.BorrowerResponseDto;
+import com.library.dto.CursorPage;
+import com.library.dto.PageCursor;
 import com.library.entity.Borrower;
 import com.library.exception.GlobalExceptionHandler;
 import com.library.service.BorrowerService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
 @RestController
 @RequestMapping("/borrowers")
 @Tag(name = "Borrower Management", description = "API endpoints for managing library borrowers")
 public class BorrowerController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
     private final BorrowerService borrowerService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public BorrowerController(BorrowerService borrowerService) {
+    public BorrowerController(BorrowerService borrowerService, ObjectMapper objectMapper) {
         this.borrowerService = borrowerService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -134,4 +157,109 @@ public class BorrowerController {
         BorrowerResponseDto response = BorrowerResponseDto.fromEntity(borrower);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
-}
\ No newline at end of file
+
+    @PostMapping(value = "/bulk", consumes = NDJSON, produces = NDJSON)
+    @Operation(
+        summary = "Import many borrowers from NDJSON",
+        description = "Registers one borrower per line of a newline-delimited JSON body, or renames the borrower already registered with the line's email. Lines are imported in chunks of 1000 while the body is still being read, each chunk committed on its own. After every chunk a progress line with the running totals and that chunk's rejected rows is written back, so the response should be read while the body is sent. Invalid or unreadable lines, and lines repeating an email of the same chunk, are skipped and reported. The last progress line has completed set; if it is missing, the import stopped early and only the chunks reported were committed."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Import progress, one JSON document per line",
+            content = @Content(
+                mediaType = NDJSON,
+                schema = @Schema(implementation = BorrowerImportProgressDto.class),
+                examples = @ExampleObject(
+                    name = "Single chunk import",
+                    value = """
+                        {"received":3,"created":1,"updated":1,"unchanged":0,"failed":1,"errors":[{"row":2,"email":"not-an-email","message":"Email format is invalid: not-an-email"}],"completed":true}
+                        """
+                )
+            )
+        )
+    })
+    public void importBorrowersNdjson(InputStream body, HttpServletResponse response) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            importBorrowers(new NdjsonRequestReader<>(reader, objectMapper.readerFor(BorrowerRequestDto.class)), response);
+        }
+    }
+
+    @PostMapping(value = "/bulk", consumes = CSV, produces = NDJSON)
+    @Operation(
+        summary = "Import many borrowers from CSV",
+        description = "Same as the NDJSON import, for a CSV body whose first line names the columns (name and email, in any order). Fields may be quoted; a record that cannot be read is rejected on its own."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Import progress, one JSON document per line",
+            content = @Content(
+                mediaType = NDJSON,
+                schema = @Schema(implementation = BorrowerImportProgressDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "The body has no header line; nothing was imported",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class)
+            )
+        )
+    })
+    public void importBorrowersCsv(InputStream body, HttpServletResponse response) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            importBorrowers(new CsvRequestReader<>(reader, objectMapper.readerFor(BorrowerRequestDto.class)), response);
+        }
+    }
+
+    private void importBorrowers(Iterator<BorrowerRequestDto> borrowers, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream outputStream = response.getOutputStream();
+        borrowerService.importBorrowers(borrowers, progress -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(progress));
+                outputStream.write('\n');
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @GetMapping("/cursor")
+    @Operation(
+        summary = "Get borrowers page by page",
+        description = "Retrieves borrowers in ID order using keyset pagination. Pass the nextCursor of a page as cursor to fetch the following page."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Page retrieved successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class)
+            )
+        )
+    })
+    public ResponseEntity<CursorPage<BorrowerResponseDto>> getBorrowersPage(
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of borrowers per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage.validateSize(size);
+        PageCursor position = PageCursor.decode(cursor, false);
+        List<BorrowerResponseDto> borrowers = borrowerService.getBorrowersAfter(position == null ? null : position.getId(), size + 1);
+        return ResponseEntity.ok(CursorPage.of(borrowers, size, borrower -> PageCursor.of(borrower.getId())));
+    }
+}
@@ -1,7 +1,14 @@
 package com.library.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.ActiveBorrowerDto;
+import com.library.dto.BorrowerStatisticsDto;
 import com.library.dto.BorrowingHistoryResponseDto;
-import com.library.entity.BorrowingHistory;
+import com.library.dto.CursorPage;
+import com.library.dto.PageCursor;
+import com.library.dto.PopularBookDto;
+import com.library.export.BorrowingHistoryExportWriter;
+import com.library.export.ExportFormat;
 import com.library.service.BorrowingHistoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,12 +22,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/history")
@@ -28,10 +40,12 @@ import java.util.stream.Collectors;
 public class BorrowingHistoryController {
 
     private final BorrowingHistoryService borrowingHistoryService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public BorrowingHistoryController(BorrowingHistoryService borrowingHistoryService) {
+    public BorrowingHistoryController(BorrowingHistoryService borrowingHistoryService, ObjectMapper objectMapper) {
         this.borrowingHistoryService = borrowingHistoryService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/borrowers/{borrowerId}")
@@ -48,17 +62,14 @@ public class BorrowingHistoryController {
             @Parameter(description = "ID of the borrower", required = true, example = "1")
             @PathVariable Long borrowerId) {
         
-        List<BorrowingHistory> history = borrowingHistoryService.getHistoryByBorrowerId(borrowerId);
-        List<BorrowingHistoryResponseDto> response = history.stream()
-                .map(BorrowingHistoryResponseDto::fromEntity)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(response);
+        List<BorrowingHistoryResponseDto> history = borrowingHistoryService.getHistoryByBorrowerId(borrowerId);
+        return ResponseEntity.ok(history);
     }
 
     @GetMapping("/borrowers/{borrowerId}/paginated")
     @Operation(summary = "Get paginated borrowing history for a borrower", 
-               description = "Retrieve paginated borrowing history records for a specific borrower")
+               description = "Retrieve paginated borrowing history records for a specific borrower. " +
+                             "Offset based; prefer /borrowers/{borrowerId}/cursor for deep paging")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved paginated borrowing history"),
             @ApiResponse(responseCode = "400", description = "Invalid borrower ID or pagination parameters provided")
@@ -72,10 +83,35 @@ public class BorrowingHistoryController {
             @RequestParam(defaultValue = "20") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<BorrowingHistory> historyPage = borrowingHistoryService.getHistoryByBorrowerId(borrowerId, pageable);
-        Page<BorrowingHistoryResponseDto> response = historyPage.map(BorrowingHistoryResponseDto::fromEntity);
+        return ResponseEntity.ok(borrowingHistoryService.getHistoryByBorrowerId(borrowerId, pageable));
+    }
+
+    @GetMapping("/borrowers/{borrowerId}/cursor")
+    @Operation(summary = "Get borrowing history for a borrower page by page", 
+               description = "Retrieve a borrower's history, newest first, using keyset pagination. " +
+                             "Pass the nextCursor of a page as cursor to fetch the following page; unlike the offset " +
+                             "based /paginated endpoint, deep pages cost the same as the first one")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved borrowing history page",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = CursorPage.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid borrower ID, cursor or page size provided")
+    })
+    public ResponseEntity<CursorPage<BorrowingHistoryResponseDto>> getBorrowerHistoryPage(
+            @Parameter(description = "ID of the borrower", required = true, example = "1")
+            @PathVariable Long borrowerId,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of records per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        
+        CursorPage.validateSize(size);
+        PageCursor position = PageCursor.decode(cursor, true);
+        List<BorrowingHistoryResponseDto> history = position == null
+                ? borrowingHistoryService.getHistoryByBorrowerIdBefore(borrowerId, null, null, size + 1)
+                : borrowingHistoryService.getHistoryByBorrowerIdBefore(borrowerId, position.getTimestamp(), position.getId(), size + 1);
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(CursorPage.of(history, size, BorrowingHistoryController::actionDateCursor));
     }
 
     @GetMapping("/books/{bookId}")
@@ -92,12 +128,35 @@ public class BorrowingHistoryController {
             @Parameter(description = "ID of the book", required = true, example = "1")
             @PathVariable Long bookId) {
         
-        List<BorrowingHistory> history = borrowingHistoryService.getHistoryByBookId(bookId);
-        List<BorrowingHistoryResponseDto> response = history.stream()
-                .map(BorrowingHistoryResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        List<BorrowingHistoryResponseDto> history = borrowingHistoryService.getHistoryByBookId(bookId);
+        return ResponseEntity.ok(history);
+    }
+
+    @GetMapping("/books/{bookId}/cursor")
+    @Operation(summary = "Get borrowing history for a book page by page", 
+               description = "Retrieve a book's history, newest first, using keyset pagination. " +
+                             "Pass the nextCursor of a page as cursor to fetch the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved borrowing history page",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = CursorPage.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid book ID, cursor or page size provided")
+    })
+    public ResponseEntity<CursorPage<BorrowingHistoryResponseDto>> getBookHistoryPage(
+            @Parameter(description = "ID of the book", required = true, example = "1")
+            @PathVariable Long bookId,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of records per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
         
-        return ResponseEntity.ok(response);
+        CursorPage.validateSize(size);
+        PageCursor position = PageCursor.decode(cursor, true);
+        List<BorrowingHistoryResponseDto> history = position == null
+                ? borrowingHistoryService.getHistoryByBookIdBefore(bookId, null, null, size + 1)
+                : borrowingHistoryService.getHistoryByBookIdBefore(bookId, position.getTimestamp(), position.getId(), size + 1);
+        
+        return ResponseEntity.ok(CursorPage.of(history, size, BorrowingHistoryController::actionDateCursor));
     }
 
     @GetMapping("/borrowers/{borrowerId}/current")
@@ -113,12 +172,8 @@ public class BorrowingHistoryController {
             @Parameter(description = "ID of the borrower", required = true, example = "1")
             @PathVariable Long borrowerId) {
         
-        List<BorrowingHistory> currentBorrowings = borrowingHistoryService.getCurrentlyBorrowedBooksByBorrower(borrowerId);
-        List<BorrowingHistoryResponseDto> response = currentBorrowings.stream()
-                .map(BorrowingHistoryResponseDto::fromEntity)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(response);
+        List<BorrowingHistoryResponseDto> currentBorrowings = borrowingHistoryService.getCurrentlyBorrowedBooksByBorrower(borrowerId);
+        return ResponseEntity.ok(currentBorrowings);
     }
 
     @GetMapping("/borrowers/{borrowerId}/overdue")
@@ -134,12 +189,8 @@ public class BorrowingHistoryController {
             @Parameter(description = "ID of the borrower", required = true, example = "1")
             @PathVariable Long borrowerId) {
         
-        List<BorrowingHistory> overdueBooks = borrowingHistoryService.getOverdueBooksByBorrower(borrowerId);
-        List<BorrowingHistoryResponseDto> response = overdueBooks.stream()
-                .map(BorrowingHistoryResponseDto::fromEntity)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(response);
+        List<BorrowingHistoryResponseDto> overdueBooks = borrowingHistoryService.getOverdueBooksByBorrower(borrowerId);
+        return ResponseEntity.ok(overdueBooks);
     }
 
     @GetMapping("/overdue")
@@ -151,12 +202,34 @@ public class BorrowingHistoryController {
                     schema = @Schema(implementation = BorrowingHistoryResponseDto.class)))
     })
     public ResponseEntity<List<BorrowingHistoryResponseDto>> getAllOverdueBooks() {
-        List<BorrowingHistory> overdueBooks = borrowingHistoryService.getAllOverdueBooks();
-        List<BorrowingHistoryResponseDto> response = overdueBooks.stream()
-                .map(BorrowingHistoryResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        List<BorrowingHistoryResponseDto> overdueBooks = borrowingHistoryService.getAllOverdueBooks();
+        return ResponseEntity.ok(overdueBooks);
+    }
+
+    @GetMapping("/overdue/cursor")
+    @Operation(summary = "Get all overdue books page by page", 
+               description = "Retrieve overdue books, earliest due date first, using keyset pagination. " +
+                             "Pass the nextCursor of a page as cursor to fetch the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved overdue books page",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = CursorPage.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size provided")
+    })
+    public ResponseEntity<CursorPage<BorrowingHistoryResponseDto>> getAllOverdueBooksPage(
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of records per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
         
-        return ResponseEntity.ok(response);
+        CursorPage.validateSize(size);
+        PageCursor position = PageCursor.decode(cursor, true);
+        List<BorrowingHistoryResponseDto> overdueBooks = position == null
+                ? borrowingHistoryService.getOverdueBooksAfter(null, null, size + 1)
+                : borrowingHistoryService.getOverdueBooksAfter(position.getTimestamp(), position.getId(), size + 1);
+        
+        return ResponseEntity.ok(CursorPage.of(overdueBooks, size,
+                history -> PageCursor.of(history.getDueDate(), history.getBook().getId())));
     }
 
     @GetMapping("/date-range")
@@ -174,41 +247,117 @@ public class BorrowingHistoryController {
             @Parameter(description = "End date (ISO format)", required = true, example = "2023-07-31T23:59:59")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
         
-        List<BorrowingHistory> history = borrowingHistoryService.getHistoryByDateRange(startDate, endDate);
-        List<BorrowingHistoryResponseDto> response = history.stream()
-                .map(BorrowingHistoryResponseDto::fromEntity)
-                .collect(Collectors.toList());
+        List<BorrowingHistoryResponseDto> history = borrowingHistoryService.getHistoryByDateRange(startDate, endDate);
+        return ResponseEntity.ok(history);
+    }
+
+    @GetMapping("/date-range/cursor")
+    @Operation(summary = "Get borrowing history by date range page by page", 
+               description = "Retrieve borrowing history records within a date range, newest first, using keyset pagination. " +
+                             "Pass the nextCursor of a page as cursor to fetch the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved borrowing history page",
+                    content = @Content(mediaType = "application/json", 
+                    schema = @Schema(implementation = CursorPage.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid date range, cursor or page size provided")
+    })
+    public ResponseEntity<CursorPage<BorrowingHistoryResponseDto>> getHistoryByDateRangePage(
+            @Parameter(description = "Start date (ISO format)", required = true, example = "2023-07-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date (ISO format)", required = true, example = "2023-07-31T23:59:59")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of records per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        
+        CursorPage.validateSize(size);
+        PageCursor position = PageCursor.decode(cursor, true);
+        List<BorrowingHistoryResponseDto> history = position == null
+                ? borrowingHistoryService.getHistoryByDateRangeBefore(startDate, endDate, null, null, size + 1)
+                : borrowingHistoryService.getHistoryByDateRangeBefore(startDate, endDate,
+                        position.getTimestamp(), position.getId(), size + 1);
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(CursorPage.of(history, size, BorrowingHistoryController::actionDateCursor));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export borrowing history by date range", 
+               description = "Stream all borrowing history records within a date range, oldest first, as NDJSON or CSV. " +
+                             "Records are written as they are read from the database, so large ranges are exported with constant memory")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export stream started",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Invalid date range or export format provided")
+    })
+    public ResponseEntity<StreamingResponseBody> exportHistoryByDateRange(
+            @Parameter(description = "Start date (ISO format)", required = true, example = "2023-07-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date (ISO format)", required = true, example = "2023-07-31T23:59:59")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Export format: ndjson or csv", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        // Validate before the response is committed; errors raised while streaming can no longer change the status
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (BorrowingHistoryExportWriter writer = BorrowingHistoryExportWriter.create(exportFormat, outputStream, objectMapper)) {
+                borrowingHistoryService.streamHistoryByDateRange(startDate, endDate, history -> {
+                    try {
+                        writer.write(history);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        String filename = "borrowing-history." + exportFormat.getFileExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
     }
 
     @GetMapping("/statistics/popular-books")
     @Operation(summary = "Get most popular books", 
-               description = "Retrieve the most borrowed books in order of popularity")
+               description = "Retrieve the most borrowed books in order of popularity, of all time or over the last 7 or 30 days")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved popular books statistics"),
-            @ApiResponse(responseCode = "400", description = "Invalid limit parameter")
+            @ApiResponse(responseCode = "400", description = "Invalid limit or days parameter")
     })
-    public ResponseEntity<List<Object[]>> getMostPopularBooks(
+    public ResponseEntity<List<PopularBookDto>> getMostPopularBooks(
             @Parameter(description = "Maximum number of books to return", example = "10")
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Only count borrowings from the last 7 or 30 days (all time when omitted)", example = "7")
+            @RequestParam(required = false) Integer days) {
         
-        List<Object[]> popularBooks = borrowingHistoryService.getMostPopularBooks(limit);
+        List<PopularBookDto> popularBooks = days == null
+                ? borrowingHistoryService.getMostPopularBooks(limit)
+                : borrowingHistoryService.getMostPopularBooks(limit, days);
         return ResponseEntity.ok(popularBooks);
     }
 
     @GetMapping("/statistics/active-borrowers")
     @Operation(summary = "Get most active borrowers", 
-               description = "Retrieve the most active borrowers in order of borrowing activity")
+               description = "Retrieve the most active borrowers in order of borrowing activity, of all time or over the last 7 or 30 days")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved active borrowers statistics"),
-            @ApiResponse(responseCode = "400", description = "Invalid limit parameter")
+            @ApiResponse(responseCode = "400", description = "Invalid limit or days parameter")
     })
-    public ResponseEntity<List<Object[]>> getMostActiveBorrowers(
+    public ResponseEntity<List<ActiveBorrowerDto>> getMostActiveBorrowers(
             @Parameter(description = "Maximum number of borrowers to return", example = "10")
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Only count borrowings from the last 7 or 30 days (all time when omitted)", example = "7")
+            @RequestParam(required = false) Integer days) {
         
-        List<Object[]> activeBorrowers = borrowingHistoryService.getMostActiveBorrowers(limit);
+        List<ActiveBorrowerDto> activeBorrowers = days == null
+                ? borrowingHistoryService.getMostActiveBorrowers(limit)
+                : borrowingHistoryService.getMostActiveBorrowers(limit, days);
         return ResponseEntity.ok(activeBorrowers);
     }
 
@@ -217,53 +366,17 @@ public class BorrowingHistoryController {
                description = "Retrieve borrowing statistics for a specific borrower")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved borrower statistics"),
-            @ApiResponse(responseCode = "400", description = "Invalid borrower ID provided")
+            @ApiResponse(responseCode = "400", description = "Invalid borrower ID provided or borrower not found")
     })
     public ResponseEntity<BorrowerStatisticsDto> getBorrowerStatistics(
             @Parameter(description = "ID of the borrower", required = true, example = "1")
             @PathVariable Long borrowerId) {
         
-        long totalBorrowings = borrowingHistoryService.getTotalBorrowingsByBorrower(borrowerId);
-        long currentBorrowings = borrowingHistoryService.getCurrentBorrowingCount(borrowerId);
-        boolean hasOverdue = borrowingHistoryService.hasOverdueBooks(borrowerId);
-        
-        BorrowerStatisticsDto statistics = new BorrowerStatisticsDto(
-                borrowerId, totalBorrowings, currentBorrowings, hasOverdue);
-        
+        BorrowerStatisticsDto statistics = borrowingHistoryService.getBorrowerStatistics(borrowerId);
         return ResponseEntity.ok(statistics);
     }
 
-    @Schema(description = "Borrower statistics summary")
-    public static class BorrowerStatisticsDto {
-        @Schema(description = "Borrower ID", example = "1")
-        private Long borrowerId;
-
-        @Schema(description = "Total number of books borrowed by this borrower", example = "25")
-        private Long totalBorrowings;
-
-        @Schema(description = "Number of books currently borrowed", example = "3")
-        private Long currentBorrowings;
-
-        @Schema(description = "Whether the borrower has any overdue books", example = "false")
-        private Boolean hasOverdueBooks;
-
-        public BorrowerStatisticsDto() {}
-
-        public BorrowerStatisticsDto(Long borrowerId, Long totalBorrowings, Long currentBorrowings, Boolean hasOverdueBooks) {
-            this.borrowerId = borrowerId;
-            this.totalBorrowings = totalBorrowings;
-            this.currentBorrowings = currentBorrowings;
-            this.hasOverdueBooks = hasOverdueBooks;
-        }
-
-        // Getters and setters
-        public Long getBorrowerId() { return borrowerId; }
-        public void setBorrowerId(Long borrowerId) { this.borrowerId = borrowerId; }
-        public Long getTotalBorrowings() { return totalBorrowings; }
-        public void setTotalBorrowings(Long totalBorrowings) { this.totalBorrowings = totalBorrowings; }
-        public Long getCurrentBorrowings() { return currentBorrowings; }
-        public void setCurrentBorrowings(Long currentBorrowings) { this.currentBorrowings = currentBorrowings; }
-        public Boolean getHasOverdueBooks() { return hasOverdueBooks; }
-        public void setHasOverdueBooks(Boolean hasOverdueBooks) { this.hasOverdueBooks = hasOverdueBooks; }
+    private static PageCursor actionDateCursor(BorrowingHistoryResponseDto history) {
+        return PageCursor.of(history.getActionDate(), history.getId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+package com.library.controller;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a CSV request body one record at a time, so bulk requests are processed while they are still being
+ * received instead of being buffered whole. The first line names the columns; every later record is bound to
+ * a row object by column name, like a JSON document with those properties. Fields may be quoted as in RFC 4180,
+ * including quotes doubled inside quoted fields and line breaks within them. Blank lines are skipped.
+ */
+final class CsvRequestReader<T> implements Iterator<T> {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private final List<String> columns;
+    private long lineNumber;
+    private long recordLine;
+    private List<String> nextRecord;
+    private String malformed;
+
+    /**
+     * @throws IllegalArgumentException if the body has no header line
+     */
+    CsvRequestReader(BufferedReader reader, ObjectReader objectReader) {
+        this.reader = reader;
+        this.objectReader = objectReader;
+        List<String> header = readRecord();
+        if (header == null || malformed != null) {
+            throw new IllegalArgumentException(malformed != null ? malformed : "CSV header line is missing");
+        }
+        this.columns = header.stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRecord != null || malformed != null) {
+            return true;
+        }
+        nextRecord = readRecord();
+        return nextRecord != null || malformed != null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the record has more fields than the header, has an unterminated quote,
+     *                                  or cannot be bound to the row type
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (malformed != null) {
+            String message = malformed;
+            malformed = null;
+            throw new IllegalArgumentException(message);
+        }
+        List<String> fields = nextRecord;
+        nextRecord = null;
+        if (fields.size() > columns.size()) {
+            throw new IllegalArgumentException("Too many fields on line " + recordLine + ": expected " + columns.size()
+                    + " but found " + fields.size());
+        }
+        ObjectNode row = JsonNodeFactory.instance.objectNode();
+        for (int i = 0; i < fields.size(); i++) {
+            row.put(columns.get(i), fields.get(i));
+        }
+        try {
+            return objectReader.readValue(row);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid record on line " + recordLine + ": " + e.getMessage());
+        }
+    }
+
+    // The fields of the next non-blank record, or null at the end of the body; sets malformed instead on a bad quote
+    private List<String> readRecord() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+            recordLine = lineNumber;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    // A quoted field continues on the next line
+                    line = reader.readLine();
+                    if (line == null) {
+                        malformed = "Unterminated quoted field on line " + recordLine;
+                        return null;
+                    }
+                    lineNumber++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "A borrower ranked by the number of books they have borrowed")
+public class ActiveBorrowerDto {
+
+    @Schema(description = "Unique identifier of the borrower", example = "1")
+    private Long borrowerId;
+
+    @Schema(description = "Full name of the borrower", example = "John Doe")
+    private String name;
+
+    @Schema(description = "Email address of the borrower", example = "john.doe@email.com")
+    private String email;
+
+    @Schema(description = "Number of books borrowed in the requested period", example = "17")
+    private long borrowCount;
+
+    public ActiveBorrowerDto() {
+    }
+
+    /**
+     * Projection constructor for JPQL constructor expressions; the borrow count is set afterwards
+     */
+    public ActiveBorrowerDto(Long borrowerId, String name, String email) {
+        this.borrowerId = borrowerId;
+        this.name = name;
+        this.email = email;
+    }
+
+    public Long getBorrowerId() {
+        return borrowerId;
+    }
+
+    public void setBorrowerId(Long borrowerId) {
+        this.borrowerId = borrowerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public void setBorrowCount(long borrowCount) {
+        this.borrowCount = borrowCount;
+    }
+}
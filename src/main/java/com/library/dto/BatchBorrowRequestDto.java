@@ -0,0 +1,44 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+@Schema(description = "Request DTO for borrowing several books at once")
+public class BatchBorrowRequestDto {
+
+    @Schema(description = "Unique identifier of the borrower who takes the books", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "Borrower ID is required")
+    private Long borrowerId;
+
+    @ArraySchema(schema = @Schema(description = "ID of a book copy to borrow", example = "1"))
+    @NotEmpty(message = "Book IDs are required")
+    private List<Long> bookIds;
+
+    public BatchBorrowRequestDto() {
+    }
+
+    public BatchBorrowRequestDto(Long borrowerId, List<Long> bookIds) {
+        this.borrowerId = borrowerId;
+        this.bookIds = bookIds;
+    }
+
+    public Long getBorrowerId() {
+        return borrowerId;
+    }
+
+    public void setBorrowerId(Long borrowerId) {
+        this.borrowerId = borrowerId;
+    }
+
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+
+    public void setBookIds(List<Long> bookIds) {
+        this.bookIds = bookIds;
+    }
+}
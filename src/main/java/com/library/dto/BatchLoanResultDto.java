@@ -0,0 +1,127 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "Outcome of a batch borrow or return, one entry per requested book in request order")
+public class BatchLoanResultDto {
+
+    @Schema(description = "Number of book IDs received", example = "3")
+    private long requested;
+
+    @Schema(description = "Number of books borrowed or returned", example = "2")
+    private long succeeded;
+
+    @Schema(description = "Number of books left unchanged", example = "1")
+    private long failed;
+
+    @Schema(description = "What happened to each requested book")
+    private List<Outcome> outcomes = new ArrayList<>();
+
+    public BatchLoanResultDto() {
+    }
+
+    public void recordSucceeded(BookResponseDto book) {
+        requested++;
+        succeeded++;
+        outcomes.add(new Outcome(book.getId(), true, book, null));
+    }
+
+    public void recordFailed(Long bookId, String message) {
+        requested++;
+        failed++;
+        outcomes.add(new Outcome(bookId, false, null, message));
+    }
+
+    @Schema(description = "Outcome for one requested book")
+    public static class Outcome {
+
+        @Schema(description = "Book ID as given in the request", example = "1")
+        private Long bookId;
+
+        @Schema(description = "Whether the book was borrowed or returned", example = "true")
+        private boolean success;
+
+        @Schema(description = "The book after the operation, when it succeeded")
+        private BookResponseDto book;
+
+        @Schema(description = "Why the book was left unchanged, when it failed", example = "Book with ID 1 is not available for borrowing")
+        private String message;
+
+        public Outcome() {
+        }
+
+        public Outcome(Long bookId, boolean success, BookResponseDto book, String message) {
+            this.bookId = bookId;
+            this.success = success;
+            this.book = book;
+            this.message = message;
+        }
+
+        public Long getBookId() {
+            return bookId;
+        }
+
+        public void setBookId(Long bookId) {
+            this.bookId = bookId;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public void setSuccess(boolean success) {
+            this.success = success;
+        }
+
+        public BookResponseDto getBook() {
+            return book;
+        }
+
+        public void setBook(BookResponseDto book) {
+            this.book = book;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    public long getRequested() {
+        return requested;
+    }
+
+    public void setRequested(long requested) {
+        this.requested = requested;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(long succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public void setOutcomes(List<Outcome> outcomes) {
+        this.outcomes = outcomes;
+    }
+}
@@ -0,0 +1,30 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+@Schema(description = "Request DTO for returning several books at once")
+public class BatchReturnRequestDto {
+
+    @ArraySchema(schema = @Schema(description = "ID of a borrowed book copy", example = "1"))
+    @NotEmpty(message = "Book IDs are required")
+    private List<Long> bookIds;
+
+    public BatchReturnRequestDto() {
+    }
+
+    public BatchReturnRequestDto(List<Long> bookIds) {
+        this.bookIds = bookIds;
+    }
+
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+
+    public void setBookIds(List<Long> bookIds) {
+        this.bookIds = bookIds;
+    }
+}
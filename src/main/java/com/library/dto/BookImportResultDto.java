@@ -0,0 +1,114 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "Outcome of a bulk book import")
+public class BookImportResultDto {
+
+    @Schema(description = "Number of rows received", example = "3")
+    private long received;
+
+    @Schema(description = "Number of book copies created", example = "2")
+    private long imported;
+
+    @Schema(description = "Number of rows rejected", example = "1")
+    private long failed;
+
+    @Schema(description = "Why each rejected row was rejected")
+    private List<RowError> errors = new ArrayList<>();
+
+    public BookImportResultDto() {
+    }
+
+    public void recordImported() {
+        received++;
+        imported++;
+    }
+
+    public void recordFailed(long row, String isbn, String message) {
+        received++;
+        failed++;
+        errors.add(new RowError(row, isbn, message));
+    }
+
+    @Schema(description = "A rejected import row")
+    public static class RowError {
+
+        @Schema(description = "1-based position of the row in the request", example = "2")
+        private long row;
+
+        @Schema(description = "ISBN as given in the row", example = "978-0-13-110362-7")
+        private String isbn;
+
+        @Schema(description = "Reason the row was rejected", example = "Title cannot be null or empty")
+        private String message;
+
+        public RowError() {
+        }
+
+        public RowError(long row, String isbn, String message) {
+            this.row = row;
+            this.isbn = isbn;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public void setRow(long row) {
+            this.row = row;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public void setIsbn(String isbn) {
+            this.isbn = isbn;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+}
@@ -43,6 +43,18 @@ public class BookResponseDto {
         this.updatedAt = updatedAt;
     }
 
+    /**
+     * Projection constructor for JPQL {@code SELECT new} queries: takes the borrower columns of an outer join,
+     * all null when the book is available
+     */
+    public BookResponseDto(Long id, String isbn, String title, String author,
+                           Long borrowerId, String borrowerName, String borrowerEmail, LocalDateTime borrowedAt,
+                           LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, isbn, title, author, borrowerId == null,
+                borrowerId == null ? null : new BorrowerSummaryDto(borrowerId, borrowerName, borrowerEmail),
+                borrowedAt, createdAt, updatedAt);
+    }
+
     public static BookResponseDto fromEntity(Book book) {
         BorrowerSummaryDto borrowerDto = null;
         if (book.getBorrower() != null) {
@@ -0,0 +1,85 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "A catalogue entry matching a search, with its copy counts")
+public class BookSearchResultDto {
+
+    @Schema(description = "ISBN shared by all copies of the book", example = "9780131103627")
+    private String isbn;
+
+    @Schema(description = "Title of the book", example = "Effective Java")
+    private String title;
+
+    @Schema(description = "Author of the book", example = "Joshua Bloch")
+    private String author;
+
+    @Schema(description = "Number of copies in the library", example = "3")
+    private long totalCopies;
+
+    @Schema(description = "Number of copies that can be borrowed now", example = "1")
+    private long availableCopies;
+
+    @Schema(description = "Relevance of the match; higher is better", example = "8")
+    private int score;
+
+    public BookSearchResultDto() {
+    }
+
+    public BookSearchResultDto(String isbn, String title, String author, long totalCopies, long availableCopies, int score) {
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+        this.totalCopies = totalCopies;
+        this.availableCopies = availableCopies;
+        this.score = score;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public long getTotalCopies() {
+        return totalCopies;
+    }
+
+    public void setTotalCopies(long totalCopies) {
+        this.totalCopies = totalCopies;
+    }
+
+    public long getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public void setAvailableCopies(long availableCopies) {
+        this.availableCopies = availableCopies;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,157 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "Progress of a bulk borrower import, reported after every committed chunk of rows")
+public class BorrowerImportProgressDto {
+
+    @Schema(description = "Number of rows received so far", example = "2000")
+    private long received;
+
+    @Schema(description = "Number of borrowers registered so far", example = "1990")
+    private long created;
+
+    @Schema(description = "Number of existing borrowers whose name was updated so far", example = "4")
+    private long updated;
+
+    @Schema(description = "Number of rows matching an existing borrower exactly so far", example = "3")
+    private long unchanged;
+
+    @Schema(description = "Number of rows rejected so far", example = "3")
+    private long failed;
+
+    @Schema(description = "Rows rejected since the previous progress report")
+    private List<RowError> errors = new ArrayList<>();
+
+    @Schema(description = "Whether this is the last report of the import", example = "false")
+    private boolean completed;
+
+    public BorrowerImportProgressDto() {
+    }
+
+    public void recordCreated() {
+        received++;
+        created++;
+    }
+
+    public void recordUpdated() {
+        received++;
+        updated++;
+    }
+
+    public void recordUnchanged() {
+        received++;
+        unchanged++;
+    }
+
+    public void recordFailed(long row, String email, String message) {
+        received++;
+        failed++;
+        errors.add(new RowError(row, email, message));
+    }
+
+    @Schema(description = "A rejected import row")
+    public static class RowError {
+
+        @Schema(description = "1-based position of the row in the request, not counting blank lines or the CSV header", example = "2")
+        private long row;
+
+        @Schema(description = "Email as given in the row", example = "not-an-email")
+        private String email;
+
+        @Schema(description = "Reason the row was rejected", example = "Email format is invalid: not-an-email")
+        private String message;
+
+        public RowError() {
+        }
+
+        public RowError(long row, String email, String message) {
+            this.row = row;
+            this.email = email;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public void setRow(long row) {
+            this.row = row;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(long unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+}
@@ -0,0 +1,76 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Borrower statistics summary")
+public class BorrowerStatisticsDto {
+
+    @Schema(description = "Borrower ID", example = "1")
+    private Long borrowerId;
+
+    @Schema(description = "Total number of books borrowed by this borrower", example = "25")
+    private Long totalBorrowings;
+
+    @Schema(description = "Number of books currently borrowed", example = "3")
+    private Long currentBorrowings;
+
+    @Schema(description = "Number of currently borrowed books that are past their due date", example = "0")
+    private Long overdueBorrowings;
+
+    @Schema(description = "Whether the borrower has any overdue books", example = "false")
+    private Boolean hasOverdueBooks;
+
+    public BorrowerStatisticsDto() {
+    }
+
+    /**
+     * Projection constructor for JPQL constructor expressions
+     */
+    public BorrowerStatisticsDto(Long borrowerId, Long totalBorrowings, Long currentBorrowings, Long overdueBorrowings) {
+        this.borrowerId = borrowerId;
+        this.totalBorrowings = totalBorrowings;
+        this.currentBorrowings = currentBorrowings;
+        this.overdueBorrowings = overdueBorrowings;
+        this.hasOverdueBooks = overdueBorrowings > 0;
+    }
+
+    public Long getBorrowerId() {
+        return borrowerId;
+    }
+
+    public void setBorrowerId(Long borrowerId) {
+        this.borrowerId = borrowerId;
+    }
+
+    public Long getTotalBorrowings() {
+        return totalBorrowings;
+    }
+
+    public void setTotalBorrowings(Long totalBorrowings) {
+        this.totalBorrowings = totalBorrowings;
+    }
+
+    public Long getCurrentBorrowings() {
+        return currentBorrowings;
+    }
+
+    public void setCurrentBorrowings(Long currentBorrowings) {
+        this.currentBorrowings = currentBorrowings;
+    }
+
+    public Long getOverdueBorrowings() {
+        return overdueBorrowings;
+    }
+
+    public void setOverdueBorrowings(Long overdueBorrowings) {
+        this.overdueBorrowings = overdueBorrowings;
+    }
+
+    public Boolean getHasOverdueBooks() {
+        return hasOverdueBooks;
+    }
+
+    public void setHasOverdueBooks(Boolean hasOverdueBooks) {
+        this.hasOverdueBooks = hasOverdueBooks;
+    }
+}
@@ -4,6 +4,7 @@ import com.library.entity.BorrowingHistory;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Schema(description = "Borrowing history response containing borrowing/returning event details")
 public class BorrowingHistoryResponseDto {
@@ -100,6 +101,23 @@ public class BorrowingHistoryResponseDto {
 
     public BorrowingHistoryResponseDto() {}
 
+    /**
+     * Projection constructor for JPQL {@code SELECT new} queries over a history record joined to its book and borrower
+     */
+    public BorrowingHistoryResponseDto(Long id, BorrowingHistory.ActionType actionType, LocalDateTime actionDate,
+                                       LocalDateTime dueDate, LocalDateTime createdAt,
+                                       Long bookId, String isbn, String title, String author,
+                                       Long borrowerId, String borrowerName, String borrowerEmail) {
+        this.id = id;
+        this.actionType = actionType.name();
+        this.actionDate = actionDate;
+        this.dueDate = dueDate;
+        this.createdAt = createdAt;
+        this.book = new BookSummaryDto(bookId, isbn, title, author);
+        this.borrower = new BorrowerSummaryDto(borrowerId, borrowerName, borrowerEmail);
+        setLoanStatus(actionType, dueDate);
+    }
+
     public static BorrowingHistoryResponseDto fromEntity(BorrowingHistory history) {
         BorrowingHistoryResponseDto dto = new BorrowingHistoryResponseDto();
         dto.setId(history.getId());
@@ -127,16 +145,20 @@ public class BorrowingHistoryResponseDto {
             ));
         }
 
-        // Calculate overdue status and days until due
-        if (history.getActionType() == BorrowingHistory.ActionType.BORROWED) {
-            dto.setOverdue(history.isOverdue());
-            dto.setDaysUntilDue(history.getDaysUntilDue());
+        dto.setLoanStatus(history.getActionType(), history.getDueDate());
+        return dto;
+    }
+
+    // Calculate overdue status and days until due, as BorrowingHistory does
+    private void setLoanStatus(BorrowingHistory.ActionType actionType, LocalDateTime dueDate) {
+        if (actionType == BorrowingHistory.ActionType.BORROWED && dueDate != null) {
+            LocalDateTime now = LocalDateTime.now();
+            this.overdue = now.isAfter(dueDate);
+            this.daysUntilDue = ChronoUnit.DAYS.between(now, dueDate);
         } else {
-            dto.setOverdue(false);
-            dto.setDaysUntilDue(0L);
+            this.overdue = false;
+            this.daysUntilDue = 0L;
         }
-
-        return dto;
     }
 
     // Getters and setters
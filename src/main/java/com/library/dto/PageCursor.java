@@ -0,0 +1,75 @@
+package com.library.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: an optional timestamp sort key and the row ID as tie breaker.
+ * <p>
+ * Clients only ever see the {@link #encode() encoded} form, an opaque URL-safe token, so the sort keys
+ * can change without breaking the API.
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime timestamp;
+    private final long id;
+
+    private PageCursor(LocalDateTime timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public static PageCursor of(long id) {
+        return new PageCursor(null, id);
+    }
+
+    public static PageCursor of(LocalDateTime timestamp, long id) {
+        if (timestamp == null) {
+            throw new IllegalArgumentException("Cursor timestamp cannot be null");
+        }
+        return new PageCursor(timestamp, id);
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = timestamp == null ? Long.toString(id) : timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     * @param token the token received from the client, may be null or empty for the first page
+     * @param withTimestamp whether the endpoint sorts by a timestamp before the ID
+     * @return the decoded cursor, or null if no token was given
+     * @throws IllegalArgumentException if the token is malformed or was issued by a different endpoint
+     */
+    public static PageCursor decode(String token, boolean withTimestamp) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (withTimestamp != (separator >= 0)) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            if (!withTimestamp) {
+                return of(Long.parseLong(raw));
+            }
+            return of(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+}
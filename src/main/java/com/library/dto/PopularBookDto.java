@@ -0,0 +1,75 @@
+package com.library.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "A book ranked by the number of times it has been borrowed")
+public class PopularBookDto {
+
+    @Schema(description = "Unique identifier of the book", example = "1")
+    private Long bookId;
+
+    @Schema(description = "ISBN of the book", example = "9780134685991")
+    private String isbn;
+
+    @Schema(description = "Title of the book", example = "Effective Java")
+    private String title;
+
+    @Schema(description = "Author of the book", example = "Joshua Bloch")
+    private String author;
+
+    @Schema(description = "Number of times the book was borrowed in the requested period", example = "42")
+    private long borrowCount;
+
+    public PopularBookDto() {
+    }
+
+    /**
+     * Projection constructor for JPQL constructor expressions; the borrow count is set afterwards
+     */
+    public PopularBookDto(Long bookId, String isbn, String title, String author) {
+        this.bookId = bookId;
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public void setBorrowCount(long borrowCount) {
+        this.borrowCount = borrowCount;
+    }
+}
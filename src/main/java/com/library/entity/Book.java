@@ -1,19 +1,26 @@
 package com.library.entity;
 
+import com.library.validation.IsbnValidator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
 @Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
 public class Book {
 
+    // Sequence IDs (fetched 50 at a time) let Hibernate batch inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "ISBN is required")
@@ -23,6 +30,10 @@ public class Book {
     @Column(nullable = false, length = 20)
     private String isbn;
 
+    // The canonical ISBN-13 of isbn as a number; every ISBN lookup goes through this column and its index
+    @Column(nullable = false)
+    private long isbn13;
+
     @NotBlank(message = "Title is required")
     @Size(min = 1, max = 255, message = "Title must be between 1 and 255 characters")
     @Column(nullable = false, length = 255)
@@ -50,7 +61,7 @@ public class Book {
     }
 
     public Book(String isbn, String title, String author) {
-        this.isbn = isbn;
+        setIsbn(isbn);
         this.title = title;
         this.author = author;
     }
@@ -102,6 +113,11 @@ public class Book {
 
     public void setIsbn(String isbn) {
         this.isbn = isbn;
+        this.isbn13 = IsbnValidator.toIsbn13(isbn);
+    }
+
+    public long getIsbn13() {
+        return isbn13;
     }
 
     public String getTitle() {
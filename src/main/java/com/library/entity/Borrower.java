@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -11,9 +13,17 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "borrowers")
+@Table(name = "borrowers",
+        uniqueConstraints = @UniqueConstraint(name = Borrower.EMAIL_CONSTRAINT, columnNames = "email"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "borrowers")
 public class Borrower {
 
+    /**
+     * Name of the unique constraint on {@code email}
+     */
+    public static final String EMAIL_CONSTRAINT = "uk_borrowers_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -26,7 +36,7 @@ public class Borrower {
     @NotBlank(message = "Email is required")
     @Email(message = "Email must be valid")
     @Size(max = 150, message = "Email must not exceed 150 characters")
-    @Column(nullable = false, unique = true, length = 150)
+    @Column(nullable = false, length = 150)
     private String email;
 
     @Column(name = "created_at", nullable = false, updatable = false)
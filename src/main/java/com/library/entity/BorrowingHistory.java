@@ -6,12 +6,17 @@ import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+// The index mirrors the one created by the V4 migration, so generated schemas count a borrower's loans from it too
 @Entity
-@Table(name = "borrowing_history")
+@Table(name = "borrowing_history", indexes = {
+        @Index(name = "idx_borrowing_history_borrower_action", columnList = "borrower_id, actionType, action_date")
+})
 public class BorrowingHistory {
 
+    // Sequence IDs (fetched 50 at a time) let batch borrows and returns insert their records in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "borrowing_history_seq")
+    @SequenceGenerator(name = "borrowing_history_seq", sequenceName = "borrowing_history_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -0,0 +1,112 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A book copy that is currently on loan. One row exists per borrowed copy: it is inserted in the
+ * same transaction as the BORROWED history record and deleted when the copy is returned, so current
+ * and overdue loan lookups only ever scan active loans instead of the full borrowing history.
+ */
+@Entity
+@Table(name = "open_loans", indexes = {
+        @Index(name = "idx_open_loans_borrower", columnList = "borrower_id, due_date"),
+        @Index(name = "idx_open_loans_due_date", columnList = "due_date, book_id")
+})
+public class OpenLoan {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "borrower_id", nullable = false)
+    private Borrower borrower;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "borrowing_history_id", nullable = false)
+    private BorrowingHistory borrowing;
+
+    @Column(name = "borrowed_at", nullable = false)
+    private LocalDateTime borrowedAt;
+
+    @Column(name = "due_date")
+    private LocalDateTime dueDate;
+
+    public OpenLoan() {
+    }
+
+    public OpenLoan(BorrowingHistory borrowing) {
+        if (borrowing.getActionType() != BorrowingHistory.ActionType.BORROWED) {
+            throw new IllegalArgumentException("An open loan can only be created from a BORROWED record");
+        }
+        this.book = borrowing.getBook();
+        this.borrower = borrowing.getBorrower();
+        this.borrowing = borrowing;
+        this.borrowedAt = borrowing.getActionDate();
+        this.dueDate = borrowing.getDueDate();
+    }
+
+    // Business methods
+    public boolean isOverdue() {
+        return dueDate != null && LocalDateTime.now().isAfter(dueDate);
+    }
+
+    // Getters and Setters
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public Borrower getBorrower() {
+        return borrower;
+    }
+
+    public BorrowingHistory getBorrowing() {
+        return borrowing;
+    }
+
+    public LocalDateTime getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    public LocalDateTime getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(LocalDateTime dueDate) {
+        this.dueDate = dueDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OpenLoan openLoan = (OpenLoan) o;
+        return Objects.equals(bookId, openLoan.bookId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookId);
+    }
+
+    @Override
+    public String toString() {
+        return "OpenLoan{" +
+                "bookId=" + bookId +
+                ", borrowedAt=" + borrowedAt +
+                ", dueDate=" + dueDate +
+                '}';
+    }
+}
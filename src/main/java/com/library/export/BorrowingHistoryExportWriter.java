@@ -0,0 +1,131 @@
+package com.library.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.library.dto.BorrowingHistoryResponseDto;
+import com.library.entity.BorrowingHistory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes borrowing history records to an output stream one at a time, so an export never holds more
+ * than the current record and the write buffer in memory. Closing the writer flushes it but leaves
+ * the underlying stream open for its owner.
+ */
+public abstract class BorrowingHistoryExportWriter implements Closeable {
+
+    static final String[] CSV_HEADER = {
+            "id", "action_type", "action_date", "due_date", "created_at",
+            "book_id", "isbn", "title", "author",
+            "borrower_id", "borrower_name", "borrower_email"
+    };
+
+    public static BorrowingHistoryExportWriter create(ExportFormat format, OutputStream outputStream,
+                                                      ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(outputStream, objectMapper);
+            case CSV -> new CsvWriter(outputStream);
+        };
+    }
+
+    public abstract void write(BorrowingHistory history) throws IOException;
+
+    /**
+     * One {@link BorrowingHistoryResponseDto} JSON document per line.
+     */
+    private static final class NdjsonWriter extends BorrowingHistoryExportWriter {
+
+        private final OutputStream outputStream;
+        private final SequenceWriter sequenceWriter;
+        private boolean empty = true;
+
+        NdjsonWriter(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+            this.outputStream = outputStream;
+            this.sequenceWriter = objectMapper.writer()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream);
+        }
+
+        @Override
+        public void write(BorrowingHistory history) throws IOException {
+            sequenceWriter.write(BorrowingHistoryResponseDto.fromEntity(history));
+            empty = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            sequenceWriter.close();
+            if (!empty) {
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row.
+     */
+    private static final class CsvWriter extends BorrowingHistoryExportWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream outputStream) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writeRow((Object[]) CSV_HEADER);
+        }
+
+        @Override
+        public void write(BorrowingHistory history) throws IOException {
+            writeRow(history.getId(), history.getActionType(), history.getActionDate(), history.getDueDate(),
+                    history.getCreatedAt(),
+                    history.getBook().getId(), history.getBook().getIsbn(), history.getBook().getTitle(),
+                    history.getBook().getAuthor(),
+                    history.getBorrower().getId(), history.getBorrower().getName(), history.getBorrower().getEmail());
+        }
+
+        private void writeRow(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeValue(values[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
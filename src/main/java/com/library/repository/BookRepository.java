@@ -1,23 +1,55 @@
 package com.library.repository;
 
+import com.library.dto.BookResponseDto;
+import com.library.dto.PopularBookDto;
 import com.library.entity.Book;
+import com.library.entity.Borrower;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    /**
+     * Selects straight into {@link BookResponseDto} through its projection constructor, with the borrower
+     * columns of an outer join, so listings load no entities and leave nothing for dirty checking
+     */
+    String RESPONSE = "SELECT new com.library.dto.BookResponseDto(b.id, b.isbn, b.title, b.author, " +
+                      "br.id, br.name, br.email, b.borrowedAt, b.createdAt, b.updatedAt) " +
+                      "FROM Book b LEFT JOIN b.borrower br ";
+
+    /**
+     * Find all books, with their borrowers loaded in the same query
+     * @return list of all books
+     */
+    @Override
+    @EntityGraph(attributePaths = "borrower")
+    List<Book> findAll();
+
     /**
      * Find books by ISBN
-     * @param isbn the ISBN to search for
+     * @param isbn13 the canonical ISBN-13 to search for
      * @return list of books with the given ISBN
      */
-    List<Book> findByIsbn(String isbn);
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "book-queries")
+    })
+    List<Book> findByIsbn13(long isbn13);
 
     /**
      * Find books by title containing the given string (case-insensitive)
@@ -42,64 +74,203 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     /**
      * Find all borrowed books
-     * @return list of borrowed books
+     * @return list of borrowed books, with their borrowers
      */
-    @Query("SELECT b FROM Book b WHERE b.borrower IS NOT NULL")
+    @Query("SELECT b FROM Book b JOIN FETCH b.borrower")
     List<Book> findBorrowedBooks();
 
+    /**
+     * Get every book as a response DTO, in ID order
+     * @return all books with their borrowers
+     */
+    @Query(RESPONSE + "ORDER BY b.id ASC")
+    List<BookResponseDto> findAllResponses();
+
+    /**
+     * Find the next page of books in ID order, with their borrowers (keyset pagination)
+     * @param afterId the ID of the last book on the previous page, 0 for the first page
+     * @param limit maximum number of books to return
+     * @return books with an ID greater than afterId
+     */
+    @Query(RESPONSE + "WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<BookResponseDto> findPageAfterId(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Find the next page of available books in ID order (keyset pagination)
+     * @param afterId the ID of the last book on the previous page, 0 for the first page
+     * @param limit maximum number of books to return
+     * @return available books with an ID greater than afterId
+     */
+    @Query(RESPONSE + "WHERE br.id IS NULL AND b.id > :afterId ORDER BY b.id ASC")
+    List<BookResponseDto> findAvailablePageAfterId(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Find the next page of borrowed books in ID order, with their borrowers (keyset pagination)
+     * @param afterId the ID of the last book on the previous page, 0 for the first page
+     * @param limit maximum number of books to return
+     * @return borrowed books with an ID greater than afterId
+     */
+    @Query(RESPONSE + "WHERE br.id IS NOT NULL AND b.id > :afterId ORDER BY b.id ASC")
+    List<BookResponseDto> findBorrowedPageAfterId(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Get the details shown next to the borrow counts of the most popular books
+     * @param ids the IDs of the ranked books
+     * @return one entry per existing book, in no particular order and with a borrow count of 0
+     */
+    @Query("SELECT new com.library.dto.PopularBookDto(b.id, b.isbn, b.title, b.author) FROM Book b WHERE b.id IN :ids")
+    List<PopularBookDto> findPopularBookDetails(@Param("ids") Collection<Long> ids);
+
     /**
      * Find books borrowed by a specific borrower
      * @param borrowerId the ID of the borrower
-     * @return list of books borrowed by the specified borrower
+     * @return list of books borrowed by the specified borrower, with the borrower
      */
-    @Query("SELECT b FROM Book b WHERE b.borrower.id = :borrowerId")
+    @Query("SELECT b FROM Book b JOIN FETCH b.borrower WHERE b.borrower.id = :borrowerId")
     List<Book> findBooksByBorrowerId(@Param("borrowerId") Long borrowerId);
 
     /**
      * Find available books by ISBN
-     * @param isbn the ISBN to search for
+     * @param isbn13 the canonical ISBN-13 to search for
      * @return list of available books with the given ISBN
      */
-    @Query("SELECT b FROM Book b WHERE b.isbn = :isbn AND b.borrower IS NULL")
-    List<Book> findAvailableBooksByIsbn(@Param("isbn") String isbn);
+    @Query("SELECT b FROM Book b WHERE b.isbn13 = :isbn13 AND b.borrower IS NULL")
+    List<Book> findAvailableBooksByIsbn(@Param("isbn13") long isbn13);
 
     /**
      * Check if any book with the given ISBN exists
-     * @param isbn the ISBN to check
+     * @param isbn13 the canonical ISBN-13 to check
      * @return true if any book exists with this ISBN
      */
-    boolean existsByIsbn(String isbn);
+    boolean existsByIsbn13(long isbn13);
 
     /**
      * Find first available book by ISBN for borrowing
-     * @param isbn the ISBN to search for
+     * @param isbn13 the canonical ISBN-13 to search for
+     * @return Optional containing the first available book with the given ISBN
+     */
+    default Optional<Book> findFirstAvailableBookByIsbn(long isbn13) {
+        return findFirstByIsbn13AndBorrowerIsNullOrderByIdAsc(isbn13);
+    }
+
+    /**
+     * Find the available copy of an ISBN with the lowest ID
+     * @param isbn13 the canonical ISBN-13 to search for
      * @return Optional containing the first available book with the given ISBN
      */
-    @Query("SELECT b FROM Book b WHERE b.isbn = :isbn AND b.borrower IS NULL ORDER BY b.id ASC")
-    Optional<Book> findFirstAvailableBookByIsbn(@Param("isbn") String isbn);
+    Optional<Book> findFirstByIsbn13AndBorrowerIsNullOrderByIdAsc(long isbn13);
+
+    /**
+     * Lock available copies of an ISBN for borrowing. Copies already locked by a concurrent
+     * transaction are skipped (SKIP LOCKED) rather than waited for, so simultaneous borrowers
+     * of the same ISBN each claim a different copy instead of queueing on the first one.
+     * @param isbn13 the canonical ISBN-13 to search for
+     * @param limit the maximum number of copies to lock
+     * @return the locked available books, lowest ID first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT b FROM Book b WHERE b.isbn13 = :isbn13 AND b.borrower IS NULL ORDER BY b.id ASC")
+    List<Book> lockAvailableBooksByIsbn(@Param("isbn13") long isbn13, Limit limit);
+
+    /**
+     * Find a book by ID and lock its row until the end of the current transaction
+     * @param id the ID of the book
+     * @return Optional containing the locked book
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Find books by ID and lock their rows until the end of the current transaction.
+     * Rows are locked in ID order, so concurrent batches over overlapping books cannot deadlock.
+     * @param ids the IDs of the books
+     * @return the locked books that exist, lowest ID first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids ORDER BY b.id ASC")
+    List<Book> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lend the given available books to a borrower in one statement. The persistence context is
+     * cleared afterwards, as the update bypasses any managed copies of the books.
+     * @param ids the IDs of the books to lend
+     * @param borrower the borrower taking the books
+     * @param borrowedAt when the books were lent
+     * @return the number of books lent
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.borrower = :borrower, b.borrowedAt = :borrowedAt, b.updatedAt = :borrowedAt " +
+           "WHERE b.id IN :ids AND b.borrower IS NULL")
+    int lendBooks(@Param("ids") Collection<Long> ids, @Param("borrower") Borrower borrower,
+                  @Param("borrowedAt") LocalDateTime borrowedAt);
+
+    /**
+     * Mark the given borrowed books as returned in one statement. The persistence context is
+     * cleared afterwards, as the update bypasses any managed copies of the books.
+     * @param ids the IDs of the books to take back
+     * @param returnedAt when the books were returned
+     * @return the number of books returned
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.borrower = NULL, b.borrowedAt = NULL, b.updatedAt = :returnedAt " +
+           "WHERE b.id IN :ids AND b.borrower IS NOT NULL")
+    int releaseBooks(@Param("ids") Collection<Long> ids, @Param("returnedAt") LocalDateTime returnedAt);
 
     /**
      * Count total books by ISBN
-     * @param isbn the ISBN to count
+     * @param isbn13 the canonical ISBN-13 to count
      * @return total number of books with the given ISBN
      */
-    long countByIsbn(String isbn);
+    long countByIsbn13(long isbn13);
 
     /**
      * Count available books by ISBN
-     * @param isbn the ISBN to count
+     * @param isbn13 the canonical ISBN-13 to count
      * @return number of available books with the given ISBN
      */
-    @Query("SELECT COUNT(b) FROM Book b WHERE b.isbn = :isbn AND b.borrower IS NULL")
-    long countAvailableBooksByIsbn(@Param("isbn") String isbn);
+    @Query("SELECT COUNT(b) FROM Book b WHERE b.isbn13 = :isbn13 AND b.borrower IS NULL")
+    long countAvailableBooksByIsbn(@Param("isbn13") long isbn13);
+
+    /**
+     * Count total and available copies for every ISBN
+     * @return rows of [ISBN-13, total copies, available copies]
+     */
+    @Query("SELECT b.isbn13, COUNT(b), SUM(CASE WHEN b.borrower IS NULL THEN 1 ELSE 0 END) FROM Book b GROUP BY b.isbn13")
+    List<Object[]> countCopiesGroupedByIsbn();
+
+    /**
+     * Get the catalogue entry (title and author) of each of the given ISBNs that already has copies.
+     * All copies of an ISBN share title and author, so any copy represents the ISBN.
+     * @param isbn13s the canonical ISBN-13s to look up
+     * @return rows of [ISBN-13, isbn, title, author], one per ISBN that exists
+     */
+    @Query("SELECT b.isbn13, MIN(b.isbn), MIN(b.title), MIN(b.author) FROM Book b " +
+           "WHERE b.isbn13 IN :isbn13s GROUP BY b.isbn13")
+    List<Object[]> findCatalogueEntriesByIsbnIn(@Param("isbn13s") Collection<Long> isbn13s);
+
+    /**
+     * Get the catalogue entry (title and author) of every ISBN
+     * @return rows of [ISBN-13, isbn, title, author], one per ISBN
+     */
+    @Query("SELECT b.isbn13, MIN(b.isbn), MIN(b.title), MIN(b.author) FROM Book b GROUP BY b.isbn13")
+    List<Object[]> findAllCatalogueEntries();
+
+    /**
+     * Find all copies of the given ISBNs
+     * @param isbn13s the canonical ISBN-13s to look up
+     * @return list of books with one of the ISBNs, ordered by ID
+     */
+    List<Book> findByIsbn13InOrderByIdAsc(Collection<Long> isbn13s);
 
     /**
      * Validate ISBN consistency - find books with same ISBN but different title/author
-     * @param isbn the ISBN to validate
+     * @param isbn13 the canonical ISBN-13 to validate
      * @param title the expected title
      * @param author the expected author
      * @return list of books with same ISBN but different title or author
      */
-    @Query("SELECT b FROM Book b WHERE b.isbn = :isbn AND (b.title != :title OR b.author != :author)")
-    List<Book> findInconsistentBooksByIsbn(@Param("isbn") String isbn, @Param("title") String title, @Param("author") String author);
+    @Query("SELECT b FROM Book b WHERE b.isbn13 = :isbn13 AND (b.title != :title OR b.author != :author)")
+    List<Book> findInconsistentBooksByIsbn(@Param("isbn13") long isbn13, @Param("title") String title, @Param("author") String author);
 }
\ No newline at end of file
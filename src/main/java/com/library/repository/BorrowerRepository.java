@@ -1,11 +1,19 @@
 package com.library.repository;
 
+import com.library.dto.ActiveBorrowerDto;
+import com.library.dto.BorrowerResponseDto;
+import com.library.dto.BorrowerStatisticsDto;
 import com.library.entity.Borrower;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +25,10 @@ public interface BorrowerRepository extends JpaRepository<Borrower, Long> {
      * @param email the email address to search for
      * @return Optional containing the borrower if found
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "borrower-queries")
+    })
     Optional<Borrower> findByEmail(String email);
 
     /**
@@ -26,6 +38,23 @@ public interface BorrowerRepository extends JpaRepository<Borrower, Long> {
      */
     boolean existsByEmail(String email);
 
+    /**
+     * Get the next batch of borrower emails in ID order (keyset pagination)
+     * @param afterId the ID of the last borrower of the previous batch, 0 for the first batch
+     * @param limit maximum number of emails to return
+     * @return rows of [ID, email] for borrowers with an ID greater than afterId
+     */
+    @Query("SELECT b.id, b.email FROM Borrower b WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<Object[]> findEmailsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Find the names of the borrowers using any of the given emails
+     * @param emails the lower-case email addresses to look up
+     * @return rows of [email, name] for the emails that are taken
+     */
+    @Query("SELECT b.email, b.name FROM Borrower b WHERE b.email IN :emails")
+    List<Object[]> findNamesByEmailIn(@Param("emails") Collection<String> emails);
+
     /**
      * Find borrowers by name containing the given string (case-insensitive)
      * @param name the name pattern to search for
@@ -33,6 +62,39 @@ public interface BorrowerRepository extends JpaRepository<Borrower, Long> {
      */
     List<Borrower> findByNameContainingIgnoreCase(String name);
 
+    /**
+     * Find the next page of borrowers in ID order (keyset pagination), selected straight into response DTOs
+     * @param afterId the ID of the last borrower on the previous page, 0 for the first page
+     * @param limit maximum number of borrowers to return
+     * @return borrowers with an ID greater than afterId
+     */
+    @Query("SELECT new com.library.dto.BorrowerResponseDto(b.id, b.name, b.email, b.createdAt, b.updatedAt) " +
+           "FROM Borrower b WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<BorrowerResponseDto> findByIdGreaterThanOrderByIdAsc(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Get the details shown next to the borrow counts of the most active borrowers
+     * @param ids the IDs of the ranked borrowers
+     * @return one entry per existing borrower, in no particular order and with a borrow count of 0
+     */
+    @Query("SELECT new com.library.dto.ActiveBorrowerDto(b.id, b.name, b.email) FROM Borrower b WHERE b.id IN :ids")
+    List<ActiveBorrowerDto> findActiveBorrowerDetails(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Get a borrower's total, current and overdue borrowing counts in one round trip. Each count is an
+     * index-only range scan: borrowing_history(borrower_id, action_type, ...) and open_loans(borrower_id, due_date)
+     * @param borrowerId the ID of the borrower
+     * @param currentDate loans due before this time are overdue
+     * @return the statistics, or empty if there is no such borrower
+     */
+    @Query("SELECT new com.library.dto.BorrowerStatisticsDto(b.id, " +
+           "(SELECT COUNT(bh) FROM BorrowingHistory bh WHERE bh.borrower.id = b.id AND bh.actionType = 'BORROWED'), " +
+           "(SELECT COUNT(ol) FROM OpenLoan ol WHERE ol.borrower.id = b.id), " +
+           "(SELECT COUNT(ol) FROM OpenLoan ol WHERE ol.borrower.id = b.id AND ol.dueDate < :currentDate)) " +
+           "FROM Borrower b WHERE b.id = :borrowerId")
+    Optional<BorrowerStatisticsDto> findStatisticsById(@Param("borrowerId") Long borrowerId,
+                                                       @Param("currentDate") LocalDateTime currentDate);
+
     /**
      * Find borrowers who have borrowed books
      * @return list of borrowers who currently have borrowed books
@@ -1,47 +1,95 @@
 package com.library.repository;
 
+import com.library.dto.BorrowingHistoryResponseDto;
 import com.library.entity.BorrowingHistory;
 import com.library.entity.BorrowingHistory.ActionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BorrowingHistoryRepository extends JpaRepository<BorrowingHistory, Long> {
 
+    // Response listings select straight into BorrowingHistoryResponseDto through its projection constructor,
+    // so no entity is loaded, proxied or kept in the persistence context for dirty checking
+    String RESPONSE = "SELECT new com.library.dto.BorrowingHistoryResponseDto(bh.id, bh.actionType, bh.actionDate, " +
+                      "bh.dueDate, bh.createdAt, b.id, b.isbn, b.title, b.author, br.id, br.name, br.email) " +
+                      "FROM BorrowingHistory bh JOIN bh.book b JOIN bh.borrower br ";
+
     // Find all history for a specific book
-    List<BorrowingHistory> findByBookIdOrderByActionDateDesc(Long bookId);
+    @Query(RESPONSE + "WHERE b.id = :bookId ORDER BY bh.actionDate DESC")
+    List<BorrowingHistoryResponseDto> findByBookIdOrderByActionDateDesc(@Param("bookId") Long bookId);
 
     // Find all history for a specific borrower
-    List<BorrowingHistory> findByBorrowerIdOrderByActionDateDesc(Long borrowerId);
+    @Query(RESPONSE + "WHERE br.id = :borrowerId ORDER BY bh.actionDate DESC")
+    List<BorrowingHistoryResponseDto> findByBorrowerIdOrderByActionDateDesc(@Param("borrowerId") Long borrowerId);
 
     // Find paginated history for a specific borrower
-    Page<BorrowingHistory> findByBorrowerIdOrderByActionDateDesc(Long borrowerId, Pageable pageable);
+    @Query(value = RESPONSE + "WHERE br.id = :borrowerId ORDER BY bh.actionDate DESC",
+           countQuery = "SELECT COUNT(bh) FROM BorrowingHistory bh WHERE bh.borrower.id = :borrowerId")
+    Page<BorrowingHistoryResponseDto> findByBorrowerIdOrderByActionDateDesc(@Param("borrowerId") Long borrowerId,
+                                                                           Pageable pageable);
 
     // Find all history for a specific book with pagination
-    Page<BorrowingHistory> findByBookIdOrderByActionDateDesc(Long bookId, Pageable pageable);
+    @Query(value = RESPONSE + "WHERE b.id = :bookId ORDER BY bh.actionDate DESC",
+           countQuery = "SELECT COUNT(bh) FROM BorrowingHistory bh WHERE bh.book.id = :bookId")
+    Page<BorrowingHistoryResponseDto> findByBookIdOrderByActionDateDesc(@Param("bookId") Long bookId, Pageable pageable);
+
+    // Keyset pages of a borrower's history, newest first: the first page, then the page before a given record.
+    // The keyset condition bounds action_date on its own, so partitions newer than the given record are skipped
+    @Query(RESPONSE + "WHERE br.id = :borrowerId ORDER BY bh.actionDate DESC, bh.id DESC")
+    List<BorrowingHistoryResponseDto> findFirstPageByBorrowerId(@Param("borrowerId") Long borrowerId, Limit limit);
+
+    @Query(RESPONSE + "WHERE br.id = :borrowerId " +
+           "AND bh.actionDate <= :actionDate AND (bh.actionDate < :actionDate OR bh.id < :id) " +
+           "ORDER BY bh.actionDate DESC, bh.id DESC")
+    List<BorrowingHistoryResponseDto> findPageByBorrowerIdBefore(@Param("borrowerId") Long borrowerId,
+                                                                 @Param("actionDate") LocalDateTime actionDate,
+                                                                 @Param("id") Long id,
+                                                                 Limit limit);
+
+    // Keyset pages of a book's history, newest first: the first page, then the page before a given record
+    @Query(RESPONSE + "WHERE b.id = :bookId ORDER BY bh.actionDate DESC, bh.id DESC")
+    List<BorrowingHistoryResponseDto> findFirstPageByBookId(@Param("bookId") Long bookId, Limit limit);
+
+    @Query(RESPONSE + "WHERE b.id = :bookId " +
+           "AND bh.actionDate <= :actionDate AND (bh.actionDate < :actionDate OR bh.id < :id) " +
+           "ORDER BY bh.actionDate DESC, bh.id DESC")
+    List<BorrowingHistoryResponseDto> findPageByBookIdBefore(@Param("bookId") Long bookId,
+                                                             @Param("actionDate") LocalDateTime actionDate,
+                                                             @Param("id") Long id,
+                                                             Limit limit);
 
     // Find all borrowing records (not returns) for a specific borrower
+    @EntityGraph(attributePaths = {"book", "borrower"})
     List<BorrowingHistory> findByBorrowerIdAndActionTypeOrderByActionDateDesc(Long borrowerId, ActionType actionType);
 
     // Find all borrowing records for a specific book
+    @EntityGraph(attributePaths = {"book", "borrower"})
     List<BorrowingHistory> findByBookIdAndActionTypeOrderByActionDateDesc(Long bookId, ActionType actionType);
 
     // Find currently borrowed books (books that were borrowed but not yet returned)
-    @Query("SELECT bh FROM BorrowingHistory bh WHERE bh.borrower.id = :borrowerId AND bh.actionType = 'BORROWED' " +
+    @Query("SELECT bh FROM BorrowingHistory bh JOIN FETCH bh.book JOIN FETCH bh.borrower WHERE bh.borrower.id = :borrowerId AND bh.actionType = 'BORROWED' " +
            "AND NOT EXISTS (SELECT 1 FROM BorrowingHistory bh2 WHERE bh2.book.id = bh.book.id " +
            "AND bh2.borrower.id = bh.borrower.id AND bh2.actionType = 'RETURNED' AND bh2.actionDate > bh.actionDate)")
     List<BorrowingHistory> findCurrentlyBorrowedBooksByBorrower(@Param("borrowerId") Long borrowerId);
 
     // Find overdue books for a specific borrower
-    @Query("SELECT bh FROM BorrowingHistory bh WHERE bh.borrower.id = :borrowerId AND bh.actionType = 'BORROWED' " +
+    @Query("SELECT bh FROM BorrowingHistory bh JOIN FETCH bh.book JOIN FETCH bh.borrower WHERE bh.borrower.id = :borrowerId AND bh.actionType = 'BORROWED' " +
            "AND bh.dueDate < :currentDate " +
            "AND NOT EXISTS (SELECT 1 FROM BorrowingHistory bh2 WHERE bh2.book.id = bh.book.id " +
            "AND bh2.borrower.id = bh.borrower.id AND bh2.actionType = 'RETURNED' AND bh2.actionDate > bh.actionDate)")
@@ -49,7 +97,7 @@ public interface BorrowingHistoryRepository extends JpaRepository<BorrowingHisto
                                                            @Param("currentDate") LocalDateTime currentDate);
 
     // Find all overdue books
-    @Query("SELECT bh FROM BorrowingHistory bh WHERE bh.actionType = 'BORROWED' " +
+    @Query("SELECT bh FROM BorrowingHistory bh JOIN FETCH bh.book JOIN FETCH bh.borrower WHERE bh.actionType = 'BORROWED' " +
            "AND bh.dueDate < :currentDate " +
            "AND NOT EXISTS (SELECT 1 FROM BorrowingHistory bh2 WHERE bh2.book.id = bh.book.id " +
            "AND bh2.borrower.id = bh.borrower.id AND bh2.actionType = 'RETURNED' AND bh2.actionDate > bh.actionDate)")
@@ -59,14 +107,64 @@ public interface BorrowingHistoryRepository extends JpaRepository<BorrowingHisto
     Optional<BorrowingHistory> findFirstByBookIdOrderByActionDateDesc(Long bookId);
 
     // Find borrowing history within a date range
-    List<BorrowingHistory> findByActionDateBetweenOrderByActionDateDesc(LocalDateTime startDate, LocalDateTime endDate);
+    @Query(RESPONSE + "WHERE bh.actionDate BETWEEN :startDate AND :endDate ORDER BY bh.actionDate DESC")
+    List<BorrowingHistoryResponseDto> findByActionDateBetweenOrderByActionDateDesc(@Param("startDate") LocalDateTime startDate,
+                                                                                   @Param("endDate") LocalDateTime endDate);
+
+    // Stream borrowing history within a date range, oldest first, with book and borrower fetched in the same row.
+    // Rows are read from an open cursor in fetch-size chunks and are not tracked for dirty checking.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT bh FROM BorrowingHistory bh JOIN FETCH bh.book JOIN FETCH bh.borrower " +
+           "WHERE bh.actionDate BETWEEN :startDate AND :endDate ORDER BY bh.actionDate ASC, bh.id ASC")
+    Stream<BorrowingHistory> streamByActionDateBetween(@Param("startDate") LocalDateTime startDate,
+                                                       @Param("endDate") LocalDateTime endDate);
+
+    // Keyset pages of history within a date range, newest first: the first page, then the page before a given record.
+    // Date ranges are compared with action_date directly, so only the partitions of the months in range are scanned
+    @Query(RESPONSE + "WHERE bh.actionDate BETWEEN :startDate AND :endDate ORDER BY bh.actionDate DESC, bh.id DESC")
+    List<BorrowingHistoryResponseDto> findFirstPageByActionDateBetween(@Param("startDate") LocalDateTime startDate,
+                                                                       @Param("endDate") LocalDateTime endDate,
+                                                                       Limit limit);
+
+    @Query(RESPONSE + "WHERE bh.actionDate BETWEEN :startDate AND :endDate " +
+           "AND bh.actionDate <= :actionDate AND (bh.actionDate < :actionDate OR bh.id < :id) " +
+           "ORDER BY bh.actionDate DESC, bh.id DESC")
+    List<BorrowingHistoryResponseDto> findPageByActionDateBetweenBefore(@Param("startDate") LocalDateTime startDate,
+                                                                        @Param("endDate") LocalDateTime endDate,
+                                                                        @Param("actionDate") LocalDateTime actionDate,
+                                                                        @Param("id") Long id,
+                                                                        Limit limit);
+
+    // Stream the history from one time (inclusive) until another (exclusive), such as a whole month, oldest first
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT bh FROM BorrowingHistory bh JOIN FETCH bh.book JOIN FETCH bh.borrower " +
+           "WHERE bh.actionDate >= :from AND bh.actionDate < :until ORDER BY bh.actionDate ASC, bh.id ASC")
+    Stream<BorrowingHistory> streamByActionDateFromUntil(@Param("from") LocalDateTime from,
+                                                         @Param("until") LocalDateTime until);
+
+    // Delete the history from one time (inclusive) until another (exclusive)
+    @Modifying
+    @Query("DELETE FROM BorrowingHistory bh WHERE bh.actionDate >= :from AND bh.actionDate < :until")
+    int deleteByActionDateFromUntil(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+    // Find the time of the oldest record, or null if there is no history
+    @Query("SELECT MIN(bh.actionDate) FROM BorrowingHistory bh")
+    LocalDateTime findEarliestActionDate();
 
     // Find borrowing history for a specific borrower within a date range
+    @EntityGraph(attributePaths = {"book", "borrower"})
     List<BorrowingHistory> findByBorrowerIdAndActionDateBetweenOrderByActionDateDesc(Long borrowerId, 
                                                                                      LocalDateTime startDate, 
                                                                                      LocalDateTime endDate);
 
     // Find borrowing history for a specific book within a date range
+    @EntityGraph(attributePaths = {"book", "borrower"})
     List<BorrowingHistory> findByBookIdAndActionDateBetweenOrderByActionDateDesc(Long bookId, 
                                                                                  LocalDateTime startDate, 
                                                                                  LocalDateTime endDate);
@@ -88,4 +186,16 @@ public interface BorrowingHistoryRepository extends JpaRepository<BorrowingHisto
     @Query("SELECT bh.borrower.id, COUNT(bh) as borrowCount FROM BorrowingHistory bh " +
            "WHERE bh.actionType = 'BORROWED' GROUP BY bh.borrower.id ORDER BY borrowCount DESC")
     List<Object[]> findMostActiveBorrowers(Pageable pageable);
+
+    // Count borrowings per book and day since the given time, as rows of [book ID, date, count]
+    @Query("SELECT bh.book.id, CAST(bh.actionDate AS LocalDate), COUNT(bh) FROM BorrowingHistory bh " +
+           "WHERE bh.actionType = 'BORROWED' AND bh.actionDate >= :since " +
+           "GROUP BY bh.book.id, CAST(bh.actionDate AS LocalDate)")
+    List<Object[]> countBorrowingsPerBookAndDaySince(@Param("since") LocalDateTime since);
+
+    // Count borrowings per borrower and day since the given time, as rows of [borrower ID, date, count]
+    @Query("SELECT bh.borrower.id, CAST(bh.actionDate AS LocalDate), COUNT(bh) FROM BorrowingHistory bh " +
+           "WHERE bh.actionType = 'BORROWED' AND bh.actionDate >= :since " +
+           "GROUP BY bh.borrower.id, CAST(bh.actionDate AS LocalDate)")
+    List<Object[]> countBorrowingsPerBorrowerAndDaySince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.library.repository;
+
+import com.library.dto.BorrowingHistoryResponseDto;
+import com.library.entity.OpenLoan;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OpenLoanRepository extends JpaRepository<OpenLoan, Long> {
+
+    // BORROWED records of open loans, selected straight into BorrowingHistoryResponseDto
+    String RESPONSE = "SELECT new com.library.dto.BorrowingHistoryResponseDto(bh.id, bh.actionType, bh.actionDate, " +
+                      "bh.dueDate, bh.createdAt, b.id, b.isbn, b.title, b.author, br.id, br.name, br.email) " +
+                      "FROM OpenLoan ol JOIN ol.borrowing bh JOIN bh.book b JOIN bh.borrower br ";
+
+    // Find the BORROWED records of the loans a borrower currently holds
+    @Query(RESPONSE + "WHERE ol.borrower.id = :borrowerId")
+    List<BorrowingHistoryResponseDto> findCurrentBorrowingsByBorrower(@Param("borrowerId") Long borrowerId);
+
+    // Find the BORROWED records of the loans on the given books, earliest due first
+    @Query(RESPONSE + "WHERE ol.bookId IN :bookIds ORDER BY ol.dueDate ASC, ol.bookId ASC")
+    List<BorrowingHistoryResponseDto> findBorrowingsByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+
+    // Keyset batches of the loans due before a given date, earliest due first, as [book ID, borrower ID, due date]
+    @Query("SELECT ol.bookId, ol.borrower.id, ol.dueDate FROM OpenLoan ol WHERE ol.dueDate < :until " +
+           "AND (ol.dueDate > :dueDate OR (ol.dueDate = :dueDate AND ol.bookId > :bookId)) " +
+           "ORDER BY ol.dueDate ASC, ol.bookId ASC")
+    List<Object[]> findLoansFallingDue(@Param("dueDate") LocalDateTime afterDueDate,
+                                       @Param("bookId") Long afterBookId,
+                                       @Param("until") LocalDateTime until,
+                                       Limit limit);
+
+    // Find when the oldest open loan was borrowed, or null if no book is on loan
+    @Query("SELECT MIN(ol.borrowedAt) FROM OpenLoan ol")
+    LocalDateTime findEarliestBorrowedAt();
+
+    // Count the loans a borrower currently holds
+    long countByBorrowerId(Long borrowerId);
+
+    // Check whether a borrower holds a loan due before the given date
+    boolean existsByBorrowerIdAndDueDateBefore(Long borrowerId, LocalDateTime dueDate);
+
+    // Close the loan of a returned book
+    @Modifying
+    @Query("DELETE FROM OpenLoan ol WHERE ol.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+
+    // Close the loans of several returned books at once
+    @Modifying
+    @Query("DELETE FROM OpenLoan ol WHERE ol.bookId IN :bookIds")
+    int deleteByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+}
@@ -1,8 +1,14 @@
 package com.library.service;
 
+import com.library.dto.BatchLoanResultDto;
+import com.library.dto.BookImportResultDto;
+import com.library.dto.BookRequestDto;
+import com.library.dto.BookResponseDto;
+import com.library.dto.BookSearchResultDto;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +18,11 @@ import java.util.Optional;
  */
 public interface BookService {
 
+    /**
+     * Maximum number of books a single batch borrow or return may list.
+     */
+    int MAX_BATCH_SIZE = 100;
+
     /**
      * Add a new book to the library system.
      * Validates ISBN format and checks for data consistency if ISBN already exists.
@@ -25,6 +36,19 @@ public interface BookService {
      */
     Book addBook(String isbn, String title, String author);
 
+    /**
+     * Add many book copies in one transaction.
+     * Each row is validated like {@link #addBook}; rows that fail are skipped and reported
+     * instead of aborting the import. Title/author consistency is checked once per distinct ISBN,
+     * against both existing copies and earlier rows of the same import.
+     * Rows are consumed as they are read, so the input may be streamed.
+     * 
+     * @param books the rows to import, in request order
+     * @return counts of imported and rejected rows, with the reason for each rejection
+     * @throws IllegalArgumentException if books is null
+     */
+    BookImportResultDto importBooks(Iterator<BookRequestDto> books);
+
     /**
      * Find a book by its unique ID.
      * 
@@ -43,6 +67,8 @@ public interface BookService {
 
     /**
      * Search for books by title (case-insensitive partial match).
+     * Patterns of three or more characters are answered from the in-memory search index,
+     * which also ignores diacritics.
      * 
      * @param titlePattern the title pattern to search for
      * @return list of books matching the title pattern
@@ -51,18 +77,32 @@ public interface BookService {
 
     /**
      * Search for books by author (case-insensitive partial match).
+     * Patterns of three or more characters are answered from the in-memory search index,
+     * which also ignores diacritics.
      * 
      * @param authorPattern the author pattern to search for
      * @return list of books matching the author pattern
      */
     List<Book> searchBooksByAuthor(String authorPattern);
 
+    /**
+     * Search titles and authors together, ranked by relevance.
+     * Every whitespace separated term must occur in the title or the author; title matches,
+     * whole words and prefixes rank higher. One result is returned per ISBN.
+     * 
+     * @param query the search terms; at least one must have three or more characters
+     * @param limit maximum number of results (1-100)
+     * @return matching catalogue entries, best match first
+     * @throws IllegalArgumentException if the query is empty or too short, or the limit is out of range
+     */
+    List<BookSearchResultDto> searchBooks(String query, int limit);
+
     /**
      * Get all books in the system.
      * 
      * @return list of all books
      */
-    List<Book> getAllBooks();
+    List<BookResponseDto> getAllBooks();
 
     /**
      * Get all available (not borrowed) books.
@@ -78,6 +118,36 @@ public interface BookService {
      */
     List<Book> getBorrowedBooks();
 
+    /**
+     * Get the next page of books in ID order (keyset pagination).
+     * 
+     * @param afterId the ID of the last book on the previous page, or null for the first page
+     * @param limit maximum number of books to return
+     * @return up to limit books with an ID greater than afterId
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    List<BookResponseDto> getBooksAfter(Long afterId, int limit);
+
+    /**
+     * Get the next page of available books in ID order (keyset pagination).
+     * 
+     * @param afterId the ID of the last book on the previous page, or null for the first page
+     * @param limit maximum number of books to return
+     * @return up to limit available books with an ID greater than afterId
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    List<BookResponseDto> getAvailableBooksAfter(Long afterId, int limit);
+
+    /**
+     * Get the next page of borrowed books in ID order (keyset pagination).
+     * 
+     * @param afterId the ID of the last book on the previous page, or null for the first page
+     * @param limit maximum number of books to return
+     * @return up to limit borrowed books with an ID greater than afterId
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    List<BookResponseDto> getBorrowedBooksAfter(Long afterId, int limit);
+
     /**
      * Get available books with a specific ISBN.
      * 
@@ -128,6 +198,31 @@ public interface BookService {
      */
     Book returnBook(Long bookId);
 
+    /**
+     * Lend several books to one borrower in one transaction.
+     * The borrower is loaded once, the requested books are locked with one query and lent with one update,
+     * and their history records are inserted in JDBC batches. Books that cannot be lent (unknown, already
+     * on loan, or listed twice) are reported instead of failing the whole batch.
+     *
+     * @param bookIds the IDs of the books to borrow, at most {@value #MAX_BATCH_SIZE}
+     * @param borrowerId the ID of the borrower
+     * @return one outcome per requested book, in request order
+     * @throws IllegalArgumentException if the borrower doesn't exist or the list is empty or too long
+     */
+    BatchLoanResultDto borrowBooks(List<Long> bookIds, Long borrowerId);
+
+    /**
+     * Take back several borrowed books in one transaction.
+     * The requested books are locked with one query and released with one update; their loans are closed
+     * with one delete and their return records inserted in JDBC batches. Books that cannot be returned
+     * (unknown, not on loan, or listed twice) are reported instead of failing the whole batch.
+     *
+     * @param bookIds the IDs of the books to return, at most {@value #MAX_BATCH_SIZE}
+     * @return one outcome per requested book, in request order
+     * @throws IllegalArgumentException if the list is empty or too long
+     */
+    BatchLoanResultDto returnBooks(List<Long> bookIds);
+
     /**
      * Update book information.
      * ISBN cannot be changed once set to maintain data integrity.
@@ -1,9 +1,14 @@
 package com.library.service;
 
+import com.library.dto.BorrowerImportProgressDto;
+import com.library.dto.BorrowerRequestDto;
+import com.library.dto.BorrowerResponseDto;
 import com.library.entity.Borrower;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing borrowers in the library system.
@@ -23,6 +28,22 @@ public interface BorrowerService {
      */
     Borrower registerBorrower(String name, String email);
 
+    /**
+     * Register or update many borrowers, reading the rows as they are consumed.
+     * Rows are validated like single registrations and written in chunks, each committed on its own with
+     * batched upserts: a row whose email is already registered updates that borrower's name. Invalid rows,
+     * and rows repeating an email earlier in the same chunk, are skipped and reported instead of failing the import.
+     *
+     * @param borrowers the rows to import; an element that cannot be read may throw IllegalArgumentException
+     *                  from next(), which rejects that row only
+     * @param progress receives the running totals and the rejected rows after every committed chunk;
+     *                 the last report is marked completed
+     * @return the final totals, as last passed to progress
+     * @throws IllegalArgumentException if borrowers or progress is null
+     */
+    BorrowerImportProgressDto importBorrowers(Iterator<BorrowerRequestDto> borrowers,
+                                              Consumer<BorrowerImportProgressDto> progress);
+
     /**
      * Find a borrower by their unique ID.
      * 
@@ -54,6 +75,16 @@ public interface BorrowerService {
      */
     List<Borrower> getAllBorrowers();
 
+    /**
+     * Get the next page of borrowers in ID order (keyset pagination).
+     * 
+     * @param afterId the ID of the last borrower on the previous page, or null for the first page
+     * @param limit maximum number of borrowers to return
+     * @return up to limit borrowers with an ID greater than afterId
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    List<BorrowerResponseDto> getBorrowersAfter(Long afterId, int limit);
+
     /**
      * Get borrowers who currently have borrowed books.
      * 
@@ -1,5 +1,9 @@
 package com.library.service;
 
+import com.library.dto.ActiveBorrowerDto;
+import com.library.dto.BorrowerStatisticsDto;
+import com.library.dto.BorrowingHistoryResponseDto;
+import com.library.dto.PopularBookDto;
 import com.library.entity.BorrowingHistory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,43 +11,62 @@ import org.springframework.data.domain.Pageable;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BorrowingHistoryService {
 
     /**
      * Get all borrowing history for a specific book
      */
-    List<BorrowingHistory> getHistoryByBookId(Long bookId);
+    List<BorrowingHistoryResponseDto> getHistoryByBookId(Long bookId);
 
     /**
      * Get all borrowing history for a specific borrower
      */
-    List<BorrowingHistory> getHistoryByBorrowerId(Long borrowerId);
+    List<BorrowingHistoryResponseDto> getHistoryByBorrowerId(Long borrowerId);
 
     /**
      * Get paginated borrowing history for a specific borrower
      */
-    Page<BorrowingHistory> getHistoryByBorrowerId(Long borrowerId, Pageable pageable);
+    Page<BorrowingHistoryResponseDto> getHistoryByBorrowerId(Long borrowerId, Pageable pageable);
 
     /**
      * Get paginated borrowing history for a specific book
      */
-    Page<BorrowingHistory> getHistoryByBookId(Long bookId, Pageable pageable);
+    Page<BorrowingHistoryResponseDto> getHistoryByBookId(Long bookId, Pageable pageable);
+
+    /**
+     * Get the next page of a borrower's history, newest first (keyset pagination).
+     * Pass the action date and ID of the last record on the previous page, or nulls for the first page.
+     */
+    List<BorrowingHistoryResponseDto> getHistoryByBorrowerIdBefore(Long borrowerId, LocalDateTime beforeDate, Long beforeId, int limit);
+
+    /**
+     * Get the next page of a book's history, newest first (keyset pagination).
+     * Pass the action date and ID of the last record on the previous page, or nulls for the first page.
+     */
+    List<BorrowingHistoryResponseDto> getHistoryByBookIdBefore(Long bookId, LocalDateTime beforeDate, Long beforeId, int limit);
 
     /**
      * Get currently borrowed books by a borrower
      */
-    List<BorrowingHistory> getCurrentlyBorrowedBooksByBorrower(Long borrowerId);
+    List<BorrowingHistoryResponseDto> getCurrentlyBorrowedBooksByBorrower(Long borrowerId);
 
     /**
-     * Get overdue books for a specific borrower
+     * Get overdue books for a specific borrower, as found by the last overdue sweep
      */
-    List<BorrowingHistory> getOverdueBooksByBorrower(Long borrowerId);
+    List<BorrowingHistoryResponseDto> getOverdueBooksByBorrower(Long borrowerId);
 
     /**
-     * Get all overdue books in the system
+     * Get all overdue books in the system, earliest due date first, as found by the last overdue sweep
      */
-    List<BorrowingHistory> getAllOverdueBooks();
+    List<BorrowingHistoryResponseDto> getAllOverdueBooks();
+
+    /**
+     * Get the next page of overdue books, earliest due date first (keyset pagination).
+     * Pass the due date and book ID of the last record on the previous page, or nulls for the first page.
+     */
+    List<BorrowingHistoryResponseDto> getOverdueBooksAfter(LocalDateTime afterDueDate, Long afterBookId, int limit);
 
     /**
      * Get the most recent borrowing record for a book
@@ -53,7 +76,22 @@ public interface BorrowingHistoryService {
     /**
      * Get borrowing history within a date range
      */
-    List<BorrowingHistory> getHistoryByDateRange(LocalDateTime startDate, LocalDateTime endDate);
+    List<BorrowingHistoryResponseDto> getHistoryByDateRange(LocalDateTime startDate, LocalDateTime endDate);
+
+    /**
+     * Get the next page of history within a date range, newest first (keyset pagination).
+     * Pass the action date and ID of the last record on the previous page, or nulls for the first page.
+     */
+    List<BorrowingHistoryResponseDto> getHistoryByDateRangeBefore(LocalDateTime startDate, LocalDateTime endDate,
+                                                       LocalDateTime beforeDate, Long beforeId, int limit);
+
+    /**
+     * Stream borrowing history within a date range, oldest first, to the given consumer.
+     * Records are read through a database cursor and released as soon as the consumer returns,
+     * so memory use does not grow with the size of the range.
+     * @return the number of records passed to the consumer
+     */
+    long streamHistoryByDateRange(LocalDateTime startDate, LocalDateTime endDate, Consumer<BorrowingHistory> consumer);
 
     /**
      * Get borrowing history for a borrower within a date range
@@ -76,17 +114,32 @@ public interface BorrowingHistoryService {
     long getTotalBorrowingsForBook(Long bookId);
 
     /**
-     * Get most popular books (most borrowed)
+     * Get most popular books (most borrowed), with their details
+     */
+    List<PopularBookDto> getMostPopularBooks(int limit);
+
+    /**
+     * Get most popular books over the last 7 or 30 days, with their details
+     */
+    List<PopularBookDto> getMostPopularBooks(int limit, int days);
+
+    /**
+     * Get most active borrowers, with their details
+     */
+    List<ActiveBorrowerDto> getMostActiveBorrowers(int limit);
+
+    /**
+     * Get most active borrowers over the last 7 or 30 days, with their details
      */
-    List<Object[]> getMostPopularBooks(int limit);
+    List<ActiveBorrowerDto> getMostActiveBorrowers(int limit, int days);
 
     /**
-     * Get most active borrowers
+     * Get a borrower's total, current and overdue borrowing counts with a single query
      */
-    List<Object[]> getMostActiveBorrowers(int limit);
+    BorrowerStatisticsDto getBorrowerStatistics(Long borrowerId);
 
     /**
-     * Check if a borrower has any overdue books
+     * Check if a borrower has any overdue books, as found by the last overdue sweep
      */
     boolean hasOverdueBooks(Long borrowerId);
 
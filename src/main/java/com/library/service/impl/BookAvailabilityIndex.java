@@ -0,0 +1,126 @@
+package com.library.service.impl;
+
+import com.library.repository.BookRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.library.service.impl.TransactionCallbacks.afterCommit;
+
+/**
+ * In-memory copy counts per canonical ISBN-13, so that availability lookups and "no copies left"
+ * rejections do not need a database round trip.
+ * <p>
+ * Each ISBN maps to a single {@link AtomicLong} packing the total number of copies in the upper
+ * 32 bits and the number of available copies in the lower 32 bits, so both counts are read and
+ * updated together with one CAS and without boxing. Both halves are signed and deltas are applied
+ * as they are, so commits of a concurrent borrow and return add up to the same counts in either
+ * order; only reads clamp a count that is briefly negative to zero. The map itself is a {@link ConcurrentHashMap},
+ * whose bins are locked independently, so updates to different ISBNs do not contend.
+ * <p>
+ * The index is built from {@link BookRepository} once all singletons are created, which is before
+ * the web server starts accepting requests. Changes made by {@link BookServiceImpl} are applied only
+ * after their transaction commits, so rolled back borrows never leak into the counts. Changes made
+ * by other instances or outside this application are not seen, so the counts are reloaded every
+ * {@code library.availability.reconcile-interval} (five minutes by default), which also corrects
+ * changes committed while a reload was running. The counts are therefore a hint: the database remains
+ * authoritative for the borrow itself, which never rejects on the index alone.
+ */
+@Component
+public class BookAvailabilityIndex implements SmartInitializingSingleton {
+
+    private static final long AVAILABLE_MASK = 0xFFFF_FFFFL;
+
+    private final BookRepository bookRepository;
+    private final ConcurrentHashMap<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookAvailabilityIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Replace all counts with the ones in the database. Entries are overwritten in place rather than
+     * cleared first, so lookups during a reload never see a book as missing
+     */
+    @Scheduled(fixedDelayString = "${library.availability.reconcile-interval:PT5M}",
+               initialDelayString = "${library.availability.reconcile-interval:PT5M}")
+    public void rebuild() {
+        List<Object[]> rows = bookRepository.countCopiesGroupedByIsbn();
+        Set<Long> loaded = new HashSet<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            long isbn13 = ((Number) row[0]).longValue();
+            long packed = pack(((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+            counts.computeIfAbsent(isbn13, key -> new AtomicLong()).set(packed);
+            loaded.add(isbn13);
+        }
+        counts.keySet().retainAll(loaded);
+    }
+
+    public long getTotalCopies(long isbn13) {
+        AtomicLong entry = counts.get(isbn13);
+        return entry == null ? 0 : Math.max(0, total(entry.get()));
+    }
+
+    public long getAvailableCopies(long isbn13) {
+        AtomicLong entry = counts.get(isbn13);
+        return entry == null ? 0 : Math.max(0, available(entry.get()));
+    }
+
+    public boolean hasAvailableCopy(long isbn13) {
+        return getAvailableCopies(isbn13) > 0;
+    }
+
+    public boolean contains(long isbn13) {
+        return getTotalCopies(isbn13) > 0;
+    }
+
+    public void copyAdded(long isbn13) {
+        afterCommit(() -> adjust(isbn13, 1, 1));
+    }
+
+    public void copiesAdded(long isbn13, int count) {
+        afterCommit(() -> adjust(isbn13, count, count));
+    }
+
+    public void copyRemoved(long isbn13, boolean wasAvailable) {
+        afterCommit(() -> adjust(isbn13, -1, wasAvailable ? -1 : 0));
+    }
+
+    public void copyBorrowed(long isbn13) {
+        afterCommit(() -> adjust(isbn13, 0, -1));
+    }
+
+    public void copyReturned(long isbn13) {
+        afterCommit(() -> adjust(isbn13, 0, 1));
+    }
+
+    private void adjust(long isbn13, long totalDelta, long availableDelta) {
+        counts.computeIfAbsent(isbn13, key -> new AtomicLong())
+                .updateAndGet(packed -> pack(total(packed) + totalDelta, available(packed) + availableDelta));
+    }
+
+    private static long pack(long total, long available) {
+        return (total << 32) | (available & AVAILABLE_MASK);
+    }
+
+    private static long total(long packed) {
+        return packed >> 32;
+    }
+
+    private static long available(long packed) {
+        return (int) packed;
+    }
+}
@@ -0,0 +1,412 @@
+package com.library.service.impl;
+
+import com.library.repository.BookRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+
+import static com.library.service.impl.TransactionCallbacks.afterCommit;
+
+/**
+ * In-memory trigram index over the title and author of every ISBN in the catalogue, used instead of
+ * {@code LOWER(title) LIKE '%x%'} scans that no database index can serve.
+ * <p>
+ * All copies of an ISBN share title and author, so the index holds one entry per canonical ISBN-13 rather
+ * than per copy. Each entry gets a dense int ID and every distinct trigram of its normalized title and author
+ * maps to the ascending list of entry IDs containing it. A query is answered by intersecting the posting
+ * lists of its trigrams, starting from the shortest, and checking the remaining candidates for the actual
+ * substring; the work therefore depends on how selective the query is, not on the size of the catalogue.
+ * <p>
+ * Text is compared case-insensitively and without diacritics. Terms shorter than {@link #GRAM_LENGTH}
+ * characters have no trigram, so a query needs at least one term of that length.
+ * <p>
+ * Like {@link BookAvailabilityIndex}, the index is built once all singletons are created and changes from
+ * {@link BookServiceImpl} are applied after their transaction commits. Removed entries leave their IDs in
+ * the posting lists until enough of them pile up to compact the index.
+ */
+@Component
+public class BookSearchIndex implements SmartInitializingSingleton {
+
+    public static final int GRAM_LENGTH = 3;
+
+    // Relative weight of a match in the title over one in the author
+    private static final int TITLE_WEIGHT = 2;
+    private static final int COMPACTION_THRESHOLD = 1024;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Best score first, then the shorter (closer) title
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::getScore).reversed()
+            .thenComparingInt(match -> match.getTitle().length())
+            .thenComparing(Match::getIsbn);
+
+    private final BookRepository bookRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<Long, Integer> entryIds = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int removedEntries;
+
+    @Autowired
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Discard all entries and reload them from the database
+     */
+    public void rebuild() {
+        List<Object[]> rows = bookRepository.findAllCatalogueEntries();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            entryIds.clear();
+            postings.clear();
+            removedEntries = 0;
+            for (Object[] row : rows) {
+                put(((Number) row[0]).longValue(), (String) row[1], (String) row[2], (String) row[3]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index the title and author of an ISBN, replacing any previous entry for it
+     * @param isbn13 the canonical ISBN-13 the entry is kept under
+     * @param isbn the ISBN as shown in search results
+     */
+    public void entryAdded(long isbn13, String isbn, String title, String author) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                put(isbn13, isbn, title, author);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Drop the entry of an ISBN that no longer has any copies
+     */
+    public void entryRemoved(long isbn13) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(isbn13);
+                if (removedEntries > COMPACTION_THRESHOLD && removedEntries > entryIds.size()) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entryIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the text is long enough to be looked up as a single substring
+     */
+    public static boolean isSearchable(String text) {
+        return text != null && normalize(text).length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Rank the entries matching every term of the query in their title or author.
+     * Title matches outweigh author matches, and whole words and prefixes outweigh matches inside a word.
+     *
+     * @param query whitespace separated terms
+     * @param limit maximum number of matches to return
+     * @param include filter applied to the ISBN-13 of each candidate before ranking
+     * @return best matches first
+     */
+    public List<Match> search(String query, int limit, LongPredicate include) {
+        String normalizedQuery = normalize(query);
+        String[] terms = terms(normalizedQuery);
+
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.max(1, limit), RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            for (int id : candidates(String.join(" ", terms).replace(' ', '\0'))) {
+                Entry entry = entries.get(id);
+                if (entry == null || !include.test(entry.isbn13)) {
+                    continue;
+                }
+                int score = score(entry, normalizedQuery, terms);
+                if (score == 0) {
+                    continue;
+                }
+                best.add(new Match(entry.isbn13, entry.isbn, entry.title, entry.author, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return ranked;
+    }
+
+    /**
+     * ISBN-13s whose title contains the text, compared like {@link #search}
+     */
+    public List<Long> findIsbnsByTitle(String text) {
+        return findIsbns(normalize(text), true);
+    }
+
+    /**
+     * ISBN-13s whose author contains the text, compared like {@link #search}
+     */
+    public List<Long> findIsbnsByAuthor(String text) {
+        return findIsbns(normalize(text), false);
+    }
+
+    private List<Long> findIsbns(String normalizedText, boolean title) {
+        List<Long> isbns = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int id : candidates(normalizedText)) {
+                Entry entry = entries.get(id);
+                if (entry != null && (title ? entry.titleKey : entry.authorKey).contains(normalizedText)) {
+                    isbns.add(entry.isbn13);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return isbns;
+    }
+
+    // Entry IDs holding every trigram of the text, in ascending order; '\0' separates parts that must not form grams
+    private int[] candidates(String text) {
+        List<Postings> lists = new ArrayList<>();
+        for (String part : text.split("\0")) {
+            for (int i = 0; i + GRAM_LENGTH <= part.length(); i++) {
+                Postings list = postings.get(gram(part, i));
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+        }
+        if (lists.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Search text must contain a word of at least " + GRAM_LENGTH + " characters");
+        }
+
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            Postings list = lists.get(i);
+            int kept = 0;
+            for (int j = 0; j < size; j++) {
+                if (Arrays.binarySearch(list.ids, 0, list.size, result[j]) >= 0) {
+                    result[kept++] = result[j];
+                }
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int score(Entry entry, String normalizedQuery, String[] terms) {
+        int score = 0;
+        for (String term : terms) {
+            int termScore = Math.max(TITLE_WEIGHT * fieldScore(entry.titleKey, term), fieldScore(entry.authorKey, term));
+            if (termScore == 0) {
+                return 0;
+            }
+            score += termScore;
+        }
+        if (terms.length > 1 && entry.titleKey.contains(normalizedQuery)) {
+            score += TITLE_WEIGHT * terms.length;
+        }
+        return score;
+    }
+
+    // 4 for the whole field, 3 for a prefix of it, 2 for the start of a later word, 1 inside a word
+    private static int fieldScore(String field, String term) {
+        int index = field.indexOf(term);
+        if (index < 0) {
+            return 0;
+        }
+        if (index == 0) {
+            return field.length() == term.length() ? 4 : 3;
+        }
+        for (; index > 0; index = field.indexOf(term, index + 1)) {
+            if (!Character.isLetterOrDigit(field.charAt(index - 1))) {
+                return 2;
+            }
+        }
+        return 1;
+    }
+
+    private void put(long isbn13, String isbn, String title, String author) {
+        Integer existing = entryIds.get(isbn13);
+        if (existing != null) {
+            Entry entry = entries.get(existing);
+            if (entry.title.equals(title) && entry.author.equals(author)) {
+                return;
+            }
+            remove(isbn13);
+        }
+        Entry entry = new Entry(isbn13, isbn, title, author);
+        int id = entries.size();
+        entries.add(entry);
+        entryIds.put(isbn13, id);
+        index(entry, id);
+    }
+
+    private void remove(long isbn13) {
+        Integer id = entryIds.remove(isbn13);
+        if (id != null) {
+            entries.set(id, null);
+            removedEntries++;
+        }
+    }
+
+    // Renumber the live entries densely and rebuild the posting lists without removed IDs
+    private void compact() {
+        List<Entry> live = entries.stream().filter(Objects::nonNull).toList();
+        entries.clear();
+        entryIds.clear();
+        postings.clear();
+        removedEntries = 0;
+        for (Entry entry : live) {
+            int id = entries.size();
+            entries.add(entry);
+            entryIds.put(entry.isbn13, id);
+            index(entry, id);
+        }
+    }
+
+    // IDs are handed out in increasing order, so appending keeps every posting list sorted
+    private void index(Entry entry, int id) {
+        for (String field : new String[]{entry.titleKey, entry.authorKey}) {
+            for (int i = 0; i + GRAM_LENGTH <= field.length(); i++) {
+                Postings list = postings.computeIfAbsent(gram(field, i), key -> new Postings());
+                if (list.size == 0 || list.ids[list.size - 1] != id) {
+                    list.add(id);
+                }
+            }
+        }
+    }
+
+    private static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    static String normalize(String text) {
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static String[] terms(String normalizedText) {
+        return normalizedText.isEmpty() ? new String[0] : normalizedText.split(" ");
+    }
+
+    private static final class Entry {
+        final long isbn13;
+        final String isbn;
+        final String title;
+        final String author;
+        final String titleKey;
+        final String authorKey;
+
+        Entry(long isbn13, String isbn, String title, String author) {
+            this.isbn13 = isbn13;
+            this.isbn = isbn;
+            this.title = title;
+            this.author = author;
+            this.titleKey = normalize(title);
+            this.authorKey = normalize(author);
+        }
+    }
+
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * A ranked search result; higher scores are better matches
+     */
+    public static final class Match {
+        private final long isbn13;
+        private final String isbn;
+        private final String title;
+        private final String author;
+        private final int score;
+
+        public Match(long isbn13, String isbn, String title, String author, int score) {
+            this.isbn13 = isbn13;
+            this.isbn = isbn;
+            this.title = title;
+            this.author = author;
+            this.score = score;
+        }
+
+        public long getIsbn13() {
+            return isbn13;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+}
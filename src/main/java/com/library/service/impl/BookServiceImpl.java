@@ -1,38 +1,80 @@
 package com.library.service.impl;
 
+import com.library.dto.BatchLoanResultDto;
+import com.library.dto.BookImportResultDto;
+import com.library.dto.BookRequestDto;
+import com.library.dto.BookResponseDto;
+import com.library.dto.BookSearchResultDto;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
 import com.library.entity.BorrowingHistory;
+import com.library.entity.OpenLoan;
 import com.library.repository.BookRepository;
 import com.library.repository.BorrowerRepository;
 import com.library.repository.BorrowingHistoryRepository;
+import com.library.repository.OpenLoanRepository;
 import com.library.service.BookService;
+import com.library.service.impl.LibraryMetrics.Rejection;
+import com.library.validation.IsbnValidator;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 @Service
 @Transactional
+@Timed(value = "library.service", histogram = true)
 public class BookServiceImpl implements BookService {
 
-    private static final Pattern ISBN_PATTERN = Pattern.compile(
-            "^(?:ISBN(?:-1[03])?:? )?(?=[0-9X]{10}$|(?=(?:[0-9]+[- ]){3})[- 0-9X]{13}$|97[89][0-9]{10}$|(?=(?:[0-9]+[- ]){4})[- 0-9]{17}$)(?:97[89][- ]?)?[0-9]{1,5}[- ]?[0-9]+[- ]?[0-9]+[- ]?[0-9X]$"
-    );
+    // Rows validated and inserted together during a bulk import, bounding the persistence context
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
+    private static final int MAX_SEARCH_LIMIT = 100;
 
     private final BookRepository bookRepository;
     private final BorrowerRepository borrowerRepository;
     private final BorrowingHistoryRepository borrowingHistoryRepository;
+    private final OpenLoanRepository openLoanRepository;
+    private final BookAvailabilityIndex availabilityIndex;
+    private final BookSearchIndex searchIndex;
+    private final BorrowingLeaderboard leaderboard;
+    private final OverdueLoanIndex overdueLoans;
+    private final LibraryMetrics metrics;
+    private final EntityManager entityManager;
 
     @Autowired
     public BookServiceImpl(BookRepository bookRepository, BorrowerRepository borrowerRepository, 
-                          BorrowingHistoryRepository borrowingHistoryRepository) {
+                          BorrowingHistoryRepository borrowingHistoryRepository,
+                          OpenLoanRepository openLoanRepository,
+                          BookAvailabilityIndex availabilityIndex,
+                          BookSearchIndex searchIndex,
+                          BorrowingLeaderboard leaderboard,
+                          OverdueLoanIndex overdueLoans,
+                          LibraryMetrics metrics,
+                          EntityManager entityManager) {
         this.bookRepository = bookRepository;
         this.borrowerRepository = borrowerRepository;
         this.borrowingHistoryRepository = borrowingHistoryRepository;
+        this.openLoanRepository = openLoanRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.searchIndex = searchIndex;
+        this.leaderboard = leaderboard;
+        this.overdueLoans = overdueLoans;
+        this.metrics = metrics;
+        this.entityManager = entityManager;
     }
 
     @Override
@@ -40,14 +82,16 @@ public class BookServiceImpl implements BookService {
         validateBookData(isbn, title, author);
         
         String normalizedIsbn = normalizeIsbn(isbn);
+        long isbn13 = IsbnValidator.toIsbn13(normalizedIsbn);
         String trimmedTitle = title.trim();
         String trimmedAuthor = author.trim();
 
-        // Check for data consistency if ISBN already exists
-        List<Book> existingBooks = bookRepository.findByIsbn(normalizedIsbn);
+        // Check for data consistency if ISBN already exists, in either its ISBN-10 or ISBN-13 form
+        List<Book> existingBooks = bookRepository.findByIsbn13(isbn13);
         if (!existingBooks.isEmpty()) {
             Book firstBook = existingBooks.get(0);
             if (!firstBook.getTitle().equals(trimmedTitle) || !firstBook.getAuthor().equals(trimmedAuthor)) {
+                metrics.rejected(Rejection.ISBN_CONFLICT);
                 throw new IllegalStateException(
                         String.format("ISBN %s already exists with different title/author. Expected: '%s' by '%s', but found: '%s' by '%s'",
                                 normalizedIsbn, trimmedTitle, trimmedAuthor, firstBook.getTitle(), firstBook.getAuthor())
@@ -56,7 +100,98 @@ public class BookServiceImpl implements BookService {
         }
 
         Book book = new Book(normalizedIsbn, trimmedTitle, trimmedAuthor);
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        availabilityIndex.copyAdded(isbn13);
+        if (existingBooks.isEmpty()) {
+            searchIndex.entryAdded(isbn13, normalizedIsbn, trimmedTitle, trimmedAuthor);
+        }
+        return savedBook;
+    }
+
+    @Override
+    public BookImportResultDto importBooks(Iterator<BookRequestDto> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books cannot be null");
+        }
+
+        BookImportResultDto result = new BookImportResultDto();
+        // Title, author and displayed ISBN per ISBN-13, from the database or from the first row that introduced it
+        Map<Long, String[]> catalogue = new HashMap<>();
+        Map<Long, Integer> copiesAdded = new HashMap<>();
+        List<BookRequestDto> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        long row = 0;
+
+        while (books.hasNext()) {
+            chunk.add(books.next());
+            if (chunk.size() == IMPORT_CHUNK_SIZE || !books.hasNext()) {
+                importChunk(chunk, row, catalogue, copiesAdded, result);
+                row += chunk.size();
+                chunk.clear();
+            }
+        }
+
+        copiesAdded.forEach(availabilityIndex::copiesAdded);
+        for (Long isbn13 : copiesAdded.keySet()) {
+            String[] entry = catalogue.get(isbn13);
+            searchIndex.entryAdded(isbn13, entry[2], entry[0], entry[1]);
+        }
+        return result;
+    }
+
+    private void importChunk(List<BookRequestDto> chunk, long firstRow, Map<Long, String[]> catalogue,
+                             Map<Long, Integer> copiesAdded, BookImportResultDto result) {
+        // One lookup for all ISBNs this chunk introduces
+        Set<Long> unknownIsbns = new HashSet<>();
+        for (BookRequestDto request : chunk) {
+            long isbn13 = request == null ? IsbnValidator.NO_ISBN13 : IsbnValidator.toIsbn13(request.getIsbn());
+            if (isbn13 != IsbnValidator.NO_ISBN13 && !catalogue.containsKey(isbn13)) {
+                unknownIsbns.add(isbn13);
+            }
+        }
+        if (!unknownIsbns.isEmpty()) {
+            for (Object[] entry : bookRepository.findCatalogueEntriesByIsbnIn(unknownIsbns)) {
+                catalogue.put(((Number) entry[0]).longValue(),
+                        new String[]{(String) entry[2], (String) entry[3], (String) entry[1]});
+            }
+        }
+
+        List<Book> batch = new ArrayList<>(chunk.size());
+        long row = firstRow;
+        for (BookRequestDto request : chunk) {
+            row++;
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Book cannot be null");
+                }
+                validateBookData(request.getIsbn(), request.getTitle(), request.getAuthor());
+                String normalizedIsbn = normalizeIsbn(request.getIsbn());
+                long isbn13 = IsbnValidator.toIsbn13(normalizedIsbn);
+                String trimmedTitle = request.getTitle().trim();
+                String trimmedAuthor = request.getAuthor().trim();
+
+                String[] expected = catalogue.putIfAbsent(isbn13,
+                        new String[]{trimmedTitle, trimmedAuthor, normalizedIsbn});
+                if (expected != null && (!expected[0].equals(trimmedTitle) || !expected[1].equals(trimmedAuthor))) {
+                    metrics.rejected(Rejection.ISBN_CONFLICT);
+                    throw new IllegalStateException(
+                            String.format("ISBN %s already exists with different title/author. Expected: '%s' by '%s', but found: '%s' by '%s'",
+                                    normalizedIsbn, trimmedTitle, trimmedAuthor, expected[0], expected[1])
+                    );
+                }
+
+                batch.add(new Book(normalizedIsbn, trimmedTitle, trimmedAuthor));
+                copiesAdded.merge(isbn13, 1, Integer::sum);
+                result.recordImported();
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                result.recordFailed(row, request == null ? null : request.getIsbn(), e.getMessage());
+            }
+        }
+
+        // Sequence IDs are allocated in blocks, so the flush goes out as JDBC batches;
+        // clearing afterwards keeps the persistence context from growing with the import
+        bookRepository.saveAll(batch);
+        entityManager.flush();
+        entityManager.clear();
     }
 
     @Override
@@ -74,7 +209,7 @@ public class BookServiceImpl implements BookService {
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
-        return bookRepository.findByIsbn(normalizeIsbn(isbn));
+        return bookRepository.findByIsbn13(IsbnValidator.toIsbn13(isbn));
     }
 
     @Override
@@ -83,7 +218,10 @@ public class BookServiceImpl implements BookService {
         if (titlePattern == null || titlePattern.trim().isEmpty()) {
             throw new IllegalArgumentException("Title pattern cannot be null or empty");
         }
-        return bookRepository.findByTitleContainingIgnoreCase(titlePattern.trim());
+        if (!BookSearchIndex.isSearchable(titlePattern)) {
+            return bookRepository.findByTitleContainingIgnoreCase(titlePattern.trim());
+        }
+        return findCopiesOf(searchIndex.findIsbnsByTitle(titlePattern));
     }
 
     @Override
@@ -92,13 +230,39 @@ public class BookServiceImpl implements BookService {
         if (authorPattern == null || authorPattern.trim().isEmpty()) {
             throw new IllegalArgumentException("Author pattern cannot be null or empty");
         }
-        return bookRepository.findByAuthorContainingIgnoreCase(authorPattern.trim());
+        if (!BookSearchIndex.isSearchable(authorPattern)) {
+            return bookRepository.findByAuthorContainingIgnoreCase(authorPattern.trim());
+        }
+        return findCopiesOf(searchIndex.findIsbnsByAuthor(authorPattern));
+    }
+
+    private List<Book> findCopiesOf(List<Long> isbn13s) {
+        return isbn13s.isEmpty() ? List.of() : bookRepository.findByIsbn13InOrderByIdAsc(isbn13s);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    public List<BookSearchResultDto> searchBooks(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Search query cannot be null or empty");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Search limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+
+        // Entries are dropped lazily, so skip ISBNs whose last copy is already gone
+        return searchIndex.search(query, limit, availabilityIndex::contains).stream()
+                .map(match -> new BookSearchResultDto(match.getIsbn(), match.getTitle(), match.getAuthor(),
+                        availabilityIndex.getTotalCopies(match.getIsbn13()),
+                        availabilityIndex.getAvailableCopies(match.getIsbn13()),
+                        match.getScore()))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookResponseDto> getAllBooks() {
+        return bookRepository.findAllResponses();
     }
 
     @Override
@@ -113,13 +277,38 @@ public class BookServiceImpl implements BookService {
         return bookRepository.findBorrowedBooks();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookResponseDto> getBooksAfter(Long afterId, int limit) {
+        validatePageLimit(limit);
+        return bookRepository.findPageAfterId(afterId == null ? 0L : afterId, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookResponseDto> getAvailableBooksAfter(Long afterId, int limit) {
+        validatePageLimit(limit);
+        return bookRepository.findAvailablePageAfterId(afterId == null ? 0L : afterId, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookResponseDto> getBorrowedBooksAfter(Long afterId, int limit) {
+        validatePageLimit(limit);
+        return bookRepository.findBorrowedPageAfterId(afterId == null ? 0L : afterId, Limit.of(limit));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Book> getAvailableBooksByIsbn(String isbn) {
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
-        return bookRepository.findAvailableBooksByIsbn(normalizeIsbn(isbn));
+        long isbn13 = IsbnValidator.toIsbn13(isbn);
+        if (!availabilityIndex.hasAvailableCopy(isbn13)) {
+            return List.of();
+        }
+        return bookRepository.findAvailableBooksByIsbn(isbn13);
     }
 
     @Override
@@ -141,24 +330,30 @@ public class BookServiceImpl implements BookService {
         }
 
         String normalizedIsbn = normalizeIsbn(isbn);
+        long isbn13 = IsbnValidator.toIsbn13(normalizedIsbn);
         
         // Verify borrower exists
         Borrower borrower = borrowerRepository.findById(borrowerId)
                 .orElseThrow(() -> new IllegalArgumentException("Borrower not found with ID: " + borrowerId));
 
-        // Find first available book with the ISBN
-        Optional<Book> availableBook = bookRepository.findFirstAvailableBookByIsbn(normalizedIsbn);
-        if (availableBook.isEmpty()) {
+        // Claim the first available copy that no concurrent borrow is holding. The availability index may lag behind
+        // returns committed on another instance, so a copy count of zero there is confirmed here before rejecting
+        List<Book> availableBooks = bookRepository.lockAvailableBooksByIsbn(isbn13, Limit.of(1));
+        if (availableBooks.isEmpty()) {
+            metrics.rejected(Rejection.NO_AVAILABLE_COPIES);
             throw new IllegalStateException("No available books found with ISBN: " + normalizedIsbn);
         }
 
-        Book book = availableBook.get();
+        Book book = availableBooks.get(0);
         book.borrowBy(borrower);
         Book savedBook = bookRepository.save(book);
+        availabilityIndex.copyBorrowed(isbn13);
         
         // Record borrowing history
         BorrowingHistory history = new BorrowingHistory(savedBook, borrower, BorrowingHistory.ActionType.BORROWED);
-        borrowingHistoryRepository.save(history);
+        openLoanRepository.save(new OpenLoan(borrowingHistoryRepository.save(history)));
+        leaderboard.bookBorrowed(savedBook.getId(), borrowerId);
+        metrics.bookBorrowed();
         
         return savedBook;
     }
@@ -176,20 +371,24 @@ public class BookServiceImpl implements BookService {
         Borrower borrower = borrowerRepository.findById(borrowerId)
                 .orElseThrow(() -> new IllegalArgumentException("Borrower not found with ID: " + borrowerId));
 
-        // Find the specific book
-        Book book = bookRepository.findById(bookId)
+        // Find and lock the specific book
+        Book book = bookRepository.findByIdForUpdate(bookId)
                 .orElseThrow(() -> new IllegalArgumentException("Book not found with ID: " + bookId));
 
         if (!book.isAvailable()) {
+            metrics.rejected(Rejection.BOOK_NOT_AVAILABLE);
             throw new IllegalStateException("Book with ID " + bookId + " is not available for borrowing");
         }
 
         book.borrowBy(borrower);
         Book savedBook = bookRepository.save(book);
+        availabilityIndex.copyBorrowed(savedBook.getIsbn13());
         
         // Record borrowing history
         BorrowingHistory history = new BorrowingHistory(savedBook, borrower, BorrowingHistory.ActionType.BORROWED);
-        borrowingHistoryRepository.save(history);
+        openLoanRepository.save(new OpenLoan(borrowingHistoryRepository.save(history)));
+        leaderboard.bookBorrowed(savedBook.getId(), borrowerId);
+        metrics.bookBorrowed();
         
         return savedBook;
     }
@@ -200,10 +399,11 @@ public class BookServiceImpl implements BookService {
             throw new IllegalArgumentException("Book ID cannot be null");
         }
 
-        Book book = bookRepository.findById(bookId)
+        Book book = bookRepository.findByIdForUpdate(bookId)
                 .orElseThrow(() -> new IllegalArgumentException("Book not found with ID: " + bookId));
 
         if (book.isAvailable()) {
+            metrics.rejected(Rejection.BOOK_NOT_BORROWED);
             throw new IllegalStateException("Book with ID " + bookId + " is not currently borrowed");
         }
 
@@ -212,14 +412,165 @@ public class BookServiceImpl implements BookService {
         
         book.returnBook();
         Book savedBook = bookRepository.save(book);
+        availabilityIndex.copyReturned(savedBook.getIsbn13());
         
         // Record return history
         BorrowingHistory history = new BorrowingHistory(savedBook, currentBorrower, BorrowingHistory.ActionType.RETURNED);
         borrowingHistoryRepository.save(history);
+        openLoanRepository.deleteByBookId(bookId);
+        overdueLoans.bookReturned(bookId);
+        metrics.bookReturned();
         
         return savedBook;
     }
 
+    @Override
+    public BatchLoanResultDto borrowBooks(List<Long> bookIds, Long borrowerId) {
+        validateBatch(bookIds);
+        if (borrowerId == null) {
+            throw new IllegalArgumentException("Borrower ID cannot be null");
+        }
+
+        Borrower borrower = borrowerRepository.findById(borrowerId)
+                .orElseThrow(() -> new IllegalArgumentException("Borrower not found with ID: " + borrowerId));
+        Map<Long, Book> books = lockBooks(bookIds);
+
+        // Decide every requested book before changing any of them
+        String[] failures = new String[bookIds.size()];
+        Set<Long> lendable = new LinkedHashSet<>();
+        for (int i = 0; i < bookIds.size(); i++) {
+            Long bookId = bookIds.get(i);
+            failures[i] = batchFailure(bookId, books, lendable);
+            if (failures[i] == null && !books.get(bookId).isAvailable()) {
+                metrics.rejected(Rejection.BOOK_NOT_AVAILABLE);
+                failures[i] = "Book with ID " + bookId + " is not available for borrowing";
+            }
+            if (failures[i] == null) {
+                lendable.add(bookId);
+            }
+        }
+
+        if (!lendable.isEmpty()) {
+            LocalDateTime borrowedAt = LocalDateTime.now();
+            bookRepository.lendBooks(lendable, borrower, borrowedAt);
+
+            // The update cleared the persistence context: the detached copies only carry the new state to the
+            // response, and the new rows point at managed references instead
+            Borrower borrowerReference = entityManager.getReference(Borrower.class, borrowerId);
+            List<BorrowingHistory> histories = new ArrayList<>(lendable.size());
+            for (Long bookId : lendable) {
+                Book book = books.get(bookId);
+                book.setBorrower(borrower);
+                book.setBorrowedAt(borrowedAt);
+                book.setUpdatedAt(borrowedAt);
+                histories.add(new BorrowingHistory(entityManager.getReference(Book.class, bookId), borrowerReference,
+                        BorrowingHistory.ActionType.BORROWED));
+                availabilityIndex.copyBorrowed(book.getIsbn13());
+                leaderboard.bookBorrowed(bookId, borrowerId);
+                metrics.bookBorrowed();
+            }
+            borrowingHistoryRepository.saveAll(histories);
+            openLoanRepository.saveAll(histories.stream().map(OpenLoan::new).toList());
+        }
+
+        return batchResult(bookIds, books, failures);
+    }
+
+    @Override
+    public BatchLoanResultDto returnBooks(List<Long> bookIds) {
+        validateBatch(bookIds);
+
+        Map<Long, Book> books = lockBooks(bookIds);
+
+        // Decide every requested book before changing any of them
+        String[] failures = new String[bookIds.size()];
+        Set<Long> returnable = new LinkedHashSet<>();
+        for (int i = 0; i < bookIds.size(); i++) {
+            Long bookId = bookIds.get(i);
+            failures[i] = batchFailure(bookId, books, returnable);
+            if (failures[i] == null && books.get(bookId).isAvailable()) {
+                metrics.rejected(Rejection.BOOK_NOT_BORROWED);
+                failures[i] = "Book with ID " + bookId + " is not currently borrowed";
+            }
+            if (failures[i] == null) {
+                returnable.add(bookId);
+            }
+        }
+
+        if (!returnable.isEmpty()) {
+            LocalDateTime returnedAt = LocalDateTime.now();
+            bookRepository.releaseBooks(returnable, returnedAt);
+            openLoanRepository.deleteByBookIdIn(returnable);
+            overdueLoans.booksReturned(returnable);
+
+            // The update cleared the persistence context: the detached copies only carry the new state to the
+            // response, and the new rows point at managed references instead
+            List<BorrowingHistory> histories = new ArrayList<>(returnable.size());
+            for (Long bookId : returnable) {
+                Book book = books.get(bookId);
+                histories.add(new BorrowingHistory(entityManager.getReference(Book.class, bookId),
+                        entityManager.getReference(Borrower.class, book.getBorrower().getId()),
+                        BorrowingHistory.ActionType.RETURNED));
+                book.setBorrower(null);
+                book.setBorrowedAt(null);
+                book.setUpdatedAt(returnedAt);
+                availabilityIndex.copyReturned(book.getIsbn13());
+                metrics.bookReturned();
+            }
+            borrowingHistoryRepository.saveAll(histories);
+        }
+
+        return batchResult(bookIds, books, failures);
+    }
+
+    private void validateBatch(List<Long> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            throw new IllegalArgumentException("Book IDs cannot be null or empty");
+        }
+        if (bookIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " books can be processed at once");
+        }
+    }
+
+    // Lock all requested books with one query, in ID order
+    private Map<Long, Book> lockBooks(List<Long> bookIds) {
+        Set<Long> ids = new HashSet<>(bookIds);
+        ids.remove(null);
+        Map<Long, Book> books = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Book book : bookRepository.findAllByIdForUpdate(ids)) {
+                books.put(book.getId(), book);
+            }
+        }
+        return books;
+    }
+
+    // Why a requested book cannot take part in a batch at all, or null if it can
+    private String batchFailure(Long bookId, Map<Long, Book> books, Set<Long> accepted) {
+        if (bookId == null) {
+            return "Book ID cannot be null";
+        }
+        if (accepted.contains(bookId)) {
+            return "Book with ID " + bookId + " is listed more than once";
+        }
+        if (!books.containsKey(bookId)) {
+            return "Book not found with ID: " + bookId;
+        }
+        return null;
+    }
+
+    private BatchLoanResultDto batchResult(List<Long> bookIds, Map<Long, Book> books, String[] failures) {
+        BatchLoanResultDto result = new BatchLoanResultDto();
+        for (int i = 0; i < bookIds.size(); i++) {
+            if (failures[i] == null) {
+                result.recordSucceeded(BookResponseDto.fromEntity(books.get(bookIds.get(i))));
+            } else {
+                result.recordFailed(bookIds.get(i), failures[i]);
+            }
+        }
+        return result;
+    }
+
     @Override
     public Book updateBook(Long bookId, String title, String author) {
         if (bookId == null) {
@@ -237,9 +588,10 @@ public class BookServiceImpl implements BookService {
             if (!trimmedTitle.equals(book.getTitle())) {
                 // Check for ISBN consistency
                 List<Book> inconsistentBooks = bookRepository.findInconsistentBooksByIsbn(
-                        book.getIsbn(), trimmedTitle, book.getAuthor()
+                        book.getIsbn13(), trimmedTitle, book.getAuthor()
                 );
                 if (!inconsistentBooks.isEmpty()) {
+                    metrics.rejected(Rejection.ISBN_CONFLICT);
                     throw new IllegalStateException(
                             "Cannot update title. Other books with ISBN " + book.getIsbn() + 
                             " have different title. All books with same ISBN must have identical title and author."
@@ -256,9 +608,10 @@ public class BookServiceImpl implements BookService {
             if (!trimmedAuthor.equals(book.getAuthor())) {
                 // Check for ISBN consistency
                 List<Book> inconsistentBooks = bookRepository.findInconsistentBooksByIsbn(
-                        book.getIsbn(), book.getTitle(), trimmedAuthor
+                        book.getIsbn13(), book.getTitle(), trimmedAuthor
                 );
                 if (!inconsistentBooks.isEmpty()) {
+                    metrics.rejected(Rejection.ISBN_CONFLICT);
                     throw new IllegalStateException(
                             "Cannot update author. Other books with ISBN " + book.getIsbn() + 
                             " have different author. All books with same ISBN must have identical title and author."
@@ -270,7 +623,9 @@ public class BookServiceImpl implements BookService {
         }
 
         if (updated) {
-            return bookRepository.save(book);
+            Book savedBook = bookRepository.save(book);
+            searchIndex.entryAdded(savedBook.getIsbn13(), savedBook.getIsbn(), savedBook.getTitle(), savedBook.getAuthor());
+            return savedBook;
         }
 
         return book;
@@ -286,12 +641,17 @@ public class BookServiceImpl implements BookService {
                 .orElseThrow(() -> new IllegalArgumentException("Book not found with ID: " + bookId));
 
         if (!book.isAvailable()) {
+            metrics.rejected(Rejection.BOOK_ON_LOAN);
             throw new IllegalStateException(
                     "Cannot delete borrowed book with ID " + bookId + ". Book must be returned first."
             );
         }
 
         bookRepository.delete(book);
+        availabilityIndex.copyRemoved(book.getIsbn13(), true);
+        if (bookRepository.countByIsbn13(book.getIsbn13()) == 0) {
+            searchIndex.entryRemoved(book.getIsbn13());
+        }
     }
 
     @Override
@@ -309,7 +669,7 @@ public class BookServiceImpl implements BookService {
         if (isbn == null || isbn.trim().isEmpty()) {
             return false;
         }
-        return bookRepository.existsByIsbn(normalizeIsbn(isbn));
+        return availabilityIndex.contains(IsbnValidator.toIsbn13(isbn));
     }
 
     @Override
@@ -329,7 +689,7 @@ public class BookServiceImpl implements BookService {
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
-        return bookRepository.countByIsbn(normalizeIsbn(isbn));
+        return availabilityIndex.getTotalCopies(IsbnValidator.toIsbn13(isbn));
     }
 
     @Override
@@ -338,7 +698,7 @@ public class BookServiceImpl implements BookService {
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
-        return bookRepository.countAvailableBooksByIsbn(normalizeIsbn(isbn));
+        return availabilityIndex.getAvailableCopies(IsbnValidator.toIsbn13(isbn));
     }
 
     @Override
@@ -347,12 +707,12 @@ public class BookServiceImpl implements BookService {
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
-        return bookRepository.findFirstAvailableBookByIsbn(normalizeIsbn(isbn));
+        return bookRepository.findFirstAvailableBookByIsbn(IsbnValidator.toIsbn13(isbn));
     }
 
     @Override
     public void validateBookData(String isbn, String title, String author) {
-        validateIsbn(isbn);
+        IsbnValidator.normalize(isbn);
         validateTitle(title);
         validateAuthor(author);
     }
@@ -371,18 +731,13 @@ public class BookServiceImpl implements BookService {
         }
         
         return bookRepository.findInconsistentBooksByIsbn(
-                normalizeIsbn(isbn), expectedTitle.trim(), expectedAuthor.trim()
+                IsbnValidator.toIsbn13(isbn), expectedTitle.trim(), expectedAuthor.trim()
         );
     }
 
-    private void validateIsbn(String isbn) {
-        if (isbn == null || isbn.trim().isEmpty()) {
-            throw new IllegalArgumentException("ISBN cannot be null or empty");
-        }
-        
-        String normalizedIsbn = normalizeIsbn(isbn);
-        if (!ISBN_PATTERN.matcher(normalizedIsbn).matches()) {
-            throw new IllegalArgumentException("Invalid ISBN format: " + isbn);
+    private void validatePageLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
         }
     }
 
@@ -417,10 +772,6 @@ public class BookServiceImpl implements BookService {
     }
 
     private String normalizeIsbn(String isbn) {
-        if (isbn == null) {
-            return null;
-        }
-        // Remove all non-digit and non-X characters, then convert to uppercase
-        return isbn.replaceAll("[^0-9X]", "").toUpperCase();
+        return IsbnValidator.strip(isbn);
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.library.service.impl;
+
+import com.library.repository.BorrowerRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.library.service.impl.TransactionCallbacks.afterCommit;
+
+/**
+ * Bloom filter over the email addresses of all borrowers, so that registering or switching to an email that is
+ * not taken, which is nearly every case, skips the lookup by email.
+ * <p>
+ * {@link #mightBeTaken} never answers false for an email in use, but answers true for about
+ * {@code library.borrower.email-filter.false-positive-rate} (1% by default) of the emails that are free; only
+ * those need the lookup. The unique constraint on {@code borrowers.email} remains the authority, for example for
+ * two registrations of the same email racing each other.
+ * <p>
+ * Emails are added once the transaction that registered or updated them commits. A Bloom filter cannot forget an
+ * email, so the emails of deleted borrowers, and the old email after an update, keep costing a lookup until the
+ * filter is rebuilt from the database. That happens once all singletons are created and every
+ * {@code library.borrower.email-filter.rebuild-interval} (one hour by default), sized for twice the current number
+ * of borrowers and at least {@code library.borrower.email-filter.expected-emails} (100,000 by default).
+ */
+@Component
+public class BorrowerEmailFilter implements SmartInitializingSingleton {
+
+    private static final int REBUILD_BATCH_SIZE = 10_000;
+
+    private final BorrowerRepository borrowerRepository;
+    private final long expectedEmails;
+    private final double falsePositiveRate;
+
+    // Guarded by this: emails are added to the filter being rebuilt as well as to the current one
+    private volatile Bits bits;
+    private Bits rebuilding;
+
+    @Autowired
+    public BorrowerEmailFilter(BorrowerRepository borrowerRepository,
+                               @Value("${library.borrower.email-filter.expected-emails:100000}") long expectedEmails,
+                               @Value("${library.borrower.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (expectedEmails < 1) {
+            throw new IllegalArgumentException("Expected emails must be at least 1");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        this.borrowerRepository = borrowerRepository;
+        this.expectedEmails = expectedEmails;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bits = new Bits(expectedEmails, falsePositiveRate);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Discard the filter and add the email of every borrower again
+     */
+    @Scheduled(fixedDelayString = "${library.borrower.email-filter.rebuild-interval:PT1H}",
+               initialDelayString = "${library.borrower.email-filter.rebuild-interval:PT1H}")
+    public void rebuild() {
+        Bits rebuilt = new Bits(Math.max(expectedEmails, 2 * borrowerRepository.count()), falsePositiveRate);
+        synchronized (this) {
+            rebuilding = rebuilt;
+        }
+        try {
+            Long afterId = 0L;
+            List<Object[]> batch;
+            do {
+                batch = borrowerRepository.findEmailsAfter(afterId, Limit.of(REBUILD_BATCH_SIZE));
+                for (Object[] row : batch) {
+                    rebuilt.add(normalize((String) row[1]));
+                }
+                if (!batch.isEmpty()) {
+                    afterId = (Long) batch.get(batch.size() - 1)[0];
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            bits = rebuilt;
+        } finally {
+            synchronized (this) {
+                rebuilding = null;
+            }
+        }
+    }
+
+    /**
+     * Whether a borrower may already use the email: false means it is certainly free
+     */
+    public boolean mightBeTaken(String email) {
+        return bits.mightContain(normalize(email));
+    }
+
+    public void emailAdded(String email) {
+        String normalized = normalize(email);
+        afterCommit(() -> add(normalized));
+    }
+
+    private synchronized void add(String email) {
+        bits.add(email);
+        if (rebuilding != null) {
+            rebuilding.add(email);
+        }
+    }
+
+    // Emails are looked up in lower case, so they are filtered in lower case
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Bit array and hash functions of one filter, sized for a number of emails and a false positive rate
+     */
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+
+        Bits(long expected, double falsePositiveRate) {
+            long optimalSize = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact((optimalSize + 63) / 64));
+            this.size = words.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / expected * Math.log(2)));
+        }
+
+        void add(String email) {
+            long hash = hash(email);
+            long step = (hash >>> 32) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash + i * step, size);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String email) {
+            long hash = hash(email);
+            long step = (hash >>> 32) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash + i * step, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a over the UTF-8 bytes, then the MurmurHash3 finalizer to spread the bits
+        private static long hash(String email) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
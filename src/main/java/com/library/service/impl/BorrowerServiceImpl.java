@@ -1,44 +1,249 @@
 package com.library.service.impl;
 
+import com.library.dto.BorrowerImportProgressDto;
+import com.library.dto.BorrowerRequestDto;
+import com.library.dto.BorrowerResponseDto;
 import com.library.entity.Borrower;
 import com.library.repository.BookRepository;
 import com.library.repository.BorrowerRepository;
 import com.library.service.BorrowerService;
+import com.library.service.impl.LibraryMetrics.Rejection;
+import com.library.validation.BorrowerValidator;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static com.library.service.impl.TransactionCallbacks.afterCommit;
 
 @Service
 @Transactional
+@Timed(value = "library.service", histogram = true)
 public class BorrowerServiceImpl implements BorrowerService {
 
-    private static final Pattern EMAIL_PATTERN = Pattern.compile(
-            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$"
-    );
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
+    // Insert a new borrower, or rename the borrower already registered with the email
+    private static final String POSTGRESQL_UPSERT =
+            "INSERT INTO borrowers (name, email, created_at, updated_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (email) DO UPDATE SET name = EXCLUDED.name, updated_at = EXCLUDED.updated_at " +
+            "WHERE borrowers.name <> EXCLUDED.name";
+    private static final String MERGE_UPSERT =
+            "MERGE INTO borrowers b USING (VALUES (CAST(? AS VARCHAR(100)), CAST(? AS VARCHAR(150)), " +
+            "CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))) AS s (name, email, created_at, updated_at) " +
+            "ON b.email = s.email " +
+            "WHEN MATCHED AND b.name <> s.name THEN UPDATE SET name = s.name, updated_at = s.updated_at " +
+            "WHEN NOT MATCHED THEN INSERT (name, email, created_at, updated_at) " +
+            "VALUES (s.name, s.email, s.created_at, s.updated_at)";
 
     private final BorrowerRepository borrowerRepository;
     private final BookRepository bookRepository;
+    private final LibraryMetrics metrics;
+    private final BorrowerEmailFilter emailFilter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private volatile String upsertSql;
 
     @Autowired
-    public BorrowerServiceImpl(BorrowerRepository borrowerRepository, BookRepository bookRepository) {
+    public BorrowerServiceImpl(BorrowerRepository borrowerRepository, BookRepository bookRepository,
+                               LibraryMetrics metrics, BorrowerEmailFilter emailFilter, JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               EntityManagerFactory entityManagerFactory) {
         this.borrowerRepository = borrowerRepository;
         this.bookRepository = bookRepository;
+        this.metrics = metrics;
+        this.emailFilter = emailFilter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     @Override
     public Borrower registerBorrower(String name, String email) {
         validateBorrowerData(name, email);
         
-        if (existsByEmail(email)) {
+        // Only an email the filter may have seen is looked up; a new one goes straight to the insert
+        if (emailFilter.mightBeTaken(email) && existsByEmail(email)) {
+            metrics.rejected(Rejection.EMAIL_TAKEN);
             throw new IllegalStateException("Email already exists: " + email);
         }
 
-        Borrower borrower = new Borrower(name, email);
-        return borrowerRepository.save(borrower);
+        Borrower borrower = saveWithUniqueEmail(new Borrower(name, email));
+        emailFilter.emailAdded(borrower.getEmail());
+        return borrower;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BorrowerImportProgressDto importBorrowers(Iterator<BorrowerRequestDto> borrowers,
+                                                     Consumer<BorrowerImportProgressDto> progress) {
+        if (borrowers == null) {
+            throw new IllegalArgumentException("Borrowers cannot be null");
+        }
+        if (progress == null) {
+            throw new IllegalArgumentException("Progress cannot be null");
+        }
+
+        BorrowerImportProgressDto result = new BorrowerImportProgressDto();
+        List<ImportRow> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        long row = 0;
+        do {
+            result.getErrors().clear();
+            chunk.clear();
+            while (chunk.size() < IMPORT_CHUNK_SIZE && borrowers.hasNext()) {
+                row++;
+                try {
+                    chunk.add(new ImportRow(row, borrowers.next()));
+                } catch (IllegalArgumentException e) {
+                    result.recordFailed(row, null, e.getMessage());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> importChunk(chunk, result));
+            }
+            // Reported once the chunk is committed, so a slow reader of the progress never holds a transaction open
+            result.setCompleted(!borrowers.hasNext());
+            progress.accept(result);
+        } while (!result.isCompleted());
+        return result;
+    }
+
+    private void importChunk(List<ImportRow> chunk, BorrowerImportProgressDto result) {
+        // Validation is independent per row, so the chunk is checked on all cores
+        IntStream.range(0, chunk.size()).parallel().forEach(i -> chunk.get(i).validate());
+
+        // The first row with an email wins; later ones in the chunk are reported
+        Map<String, ImportRow> accepted = new LinkedHashMap<>();
+        List<String> maybeTaken = new ArrayList<>();
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                result.recordFailed(row.number, row.givenEmail(), row.error);
+                continue;
+            }
+            ImportRow first = accepted.putIfAbsent(row.email, row);
+            if (first != null) {
+                result.recordFailed(row.number, row.givenEmail(),
+                        "Duplicate email in import: " + row.email + " (first on row " + first.number + ")");
+                continue;
+            }
+            if (emailFilter.mightBeTaken(row.email)) {
+                maybeTaken.add(row.email);
+            }
+        }
+
+        // One lookup for the emails the filter cannot rule out, to tell new borrowers from existing ones
+        Map<String, String> registeredNames = new HashMap<>();
+        if (!maybeTaken.isEmpty()) {
+            for (Object[] registered : borrowerRepository.findNamesByEmailIn(maybeTaken)) {
+                registeredNames.put((String) registered[0], (String) registered[1]);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> upserts = new ArrayList<>(accepted.size());
+        List<String> createdEmails = new ArrayList<>();
+        boolean renamed = false;
+        for (ImportRow row : accepted.values()) {
+            String registeredName = registeredNames.get(row.email);
+            if (registeredName == null) {
+                createdEmails.add(row.email);
+                result.recordCreated();
+            } else if (registeredName.equals(row.name)) {
+                result.recordUnchanged();
+                continue;
+            } else {
+                renamed = true;
+                result.recordUpdated();
+            }
+            upserts.add(new Object[]{row.name, row.email, now, now});
+        }
+        if (upserts.isEmpty()) {
+            return;
+        }
+
+        // A single upsert statement sent in JDBC batches; an email registered since the lookup is renamed, not rejected
+        jdbcTemplate.batchUpdate(upsertSql(), upserts);
+        createdEmails.forEach(emailFilter::emailAdded);
+        boolean evictBorrowers = renamed;
+        afterCommit(() -> evictCachedBorrowers(evictBorrowers));
+    }
+
+    // The upserts bypass Hibernate, so cached borrowers and email lookups may no longer match the table
+    private void evictCachedBorrowers(boolean evictBorrowers) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictQueryRegion("borrower-queries");
+        if (evictBorrowers) {
+            cache.evictEntityData(Borrower.class);
+        }
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            sql = "PostgreSQL".equals(database) ? POSTGRESQL_UPSERT : MERGE_UPSERT;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * One row of an import, with its trimmed name and normalized email once validated
+     */
+    private final class ImportRow {
+
+        private final long number;
+        private final BorrowerRequestDto request;
+        private String name;
+        private String email;
+        private String error;
+
+        ImportRow(long number, BorrowerRequestDto request) {
+            this.number = number;
+            this.request = request;
+        }
+
+        void validate() {
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Borrower cannot be null");
+                }
+                validateBorrowerData(request.getName(), request.getEmail());
+                name = request.getName().trim();
+                email = request.getEmail().trim().toLowerCase();
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+        }
+
+        String givenEmail() {
+            return request == null ? null : request.getEmail();
+        }
     }
 
     @Override
@@ -74,6 +279,15 @@ public class BorrowerServiceImpl implements BorrowerService {
         return borrowerRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorrowerResponseDto> getBorrowersAfter(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return borrowerRepository.findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, Limit.of(limit));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Borrower> getBorrowersWithBooks() {
@@ -98,7 +312,7 @@ public class BorrowerServiceImpl implements BorrowerService {
         boolean updated = false;
 
         if (name != null && !name.trim().isEmpty()) {
-            validateName(name);
+            BorrowerValidator.validateName(name);
             if (!name.trim().equals(borrower.getName())) {
                 borrower.setName(name.trim());
                 updated = true;
@@ -107,24 +321,57 @@ public class BorrowerServiceImpl implements BorrowerService {
 
         if (email != null && !email.trim().isEmpty()) {
             String normalizedEmail = email.trim().toLowerCase();
-            validateEmail(normalizedEmail);
+            BorrowerValidator.validateEmail(normalizedEmail);
             
             if (!normalizedEmail.equals(borrower.getEmail())) {
-                if (existsByEmail(normalizedEmail)) {
+                if (emailFilter.mightBeTaken(normalizedEmail) && existsByEmail(normalizedEmail)) {
+                    metrics.rejected(Rejection.EMAIL_TAKEN);
                     throw new IllegalStateException("Email already exists: " + normalizedEmail);
                 }
                 borrower.setEmail(normalizedEmail);
+                emailFilter.emailAdded(normalizedEmail);
                 updated = true;
             }
         }
 
         if (updated) {
-            return borrowerRepository.save(borrower);
+            return saveWithUniqueEmail(borrower);
         }
 
         return borrower;
     }
 
+    /**
+     * Save and flush the borrower, so that an email taken in the meantime, or one the filter let through,
+     * fails on the unique constraint here rather than at commit
+     * @throws IllegalStateException if another borrower has the email
+     * @throws DataIntegrityViolationException if any other constraint is violated
+     */
+    private Borrower saveWithUniqueEmail(Borrower borrower) {
+        try {
+            Borrower saved = borrowerRepository.save(borrower);
+            borrowerRepository.flush();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            if (!violatesEmailConstraint(e)) {
+                throw e;
+            }
+            metrics.rejected(Rejection.EMAIL_TAKEN);
+            throw new IllegalStateException("Email already exists: " + borrower.getEmail());
+        }
+    }
+
+    // Databases report the constraint name in their own case, H2 also with its schema and index suffix
+    private static boolean violatesEmailConstraint(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Borrower.EMAIL_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void deleteBorrower(Long id) {
         if (id == null) {
@@ -137,6 +384,7 @@ public class BorrowerServiceImpl implements BorrowerService {
 
         long borrowedBooksCount = getBorrowedBookCount(id);
         if (borrowedBooksCount > 0) {
+            metrics.rejected(Rejection.BORROWER_HAS_LOANS);
             throw new IllegalStateException(
                     "Cannot delete borrower with ID " + id + ". They have " + borrowedBooksCount + " borrowed books."
             );
@@ -174,42 +422,7 @@ public class BorrowerServiceImpl implements BorrowerService {
 
     @Override
     public void validateBorrowerData(String name, String email) {
-        validateName(name);
-        validateEmail(email);
-    }
-
-    private void validateName(String name) {
-        if (name == null || name.trim().isEmpty()) {
-            throw new IllegalArgumentException("Name cannot be null or empty");
-        }
-        
-        String trimmedName = name.trim();
-        if (trimmedName.length() < 2) {
-            throw new IllegalArgumentException("Name must be at least 2 characters long");
-        }
-        
-        if (trimmedName.length() > 100) {
-            throw new IllegalArgumentException("Name cannot exceed 100 characters");
-        }
-        
-        // Check for valid characters (letters, spaces, hyphens, apostrophes)
-        if (!trimmedName.matches("^[a-zA-Z\\s'-]+$")) {
-            throw new IllegalArgumentException("Name can only contain letters, spaces, hyphens, and apostrophes");
-        }
-    }
-
-    private void validateEmail(String email) {
-        if (email == null || email.trim().isEmpty()) {
-            throw new IllegalArgumentException("Email cannot be null or empty");
-        }
-        
-        String trimmedEmail = email.trim().toLowerCase();
-        if (trimmedEmail.length() > 150) {
-            throw new IllegalArgumentException("Email cannot exceed 150 characters");
-        }
-        
-        if (!EMAIL_PATTERN.matcher(trimmedEmail).matches()) {
-            throw new IllegalArgumentException("Email format is invalid: " + email);
-        }
+        BorrowerValidator.validateName(name);
+        BorrowerValidator.validateEmail(email);
     }
 }
\ No newline at end of file
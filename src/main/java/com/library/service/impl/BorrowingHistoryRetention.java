@@ -0,0 +1,245 @@
+package com.library.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.BorrowingHistory;
+import com.library.export.BorrowingHistoryExportWriter;
+import com.library.export.ExportFormat;
+import com.library.repository.BorrowingHistoryRepository;
+import com.library.repository.OpenLoanRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the borrowing history partitioned by month and moves months past their retention period out of the
+ * database.
+ * <p>
+ * Every {@code library.history.maintenance-interval} (one day by default), and once all singletons are created,
+ * the partitions for the current month and the next {@code library.history.partitions-ahead} (3 by default) are
+ * created, so that new records never land in the default partition. This only applies to PostgreSQL, where the
+ * V9 migration partitions the table; H2 keeps a single table.
+ * <p>
+ * If {@code library.history.retention-months} is set, each run then archives the months that ended more than that
+ * many months ago: the month is written as gzip-compressed NDJSON to
+ * {@code library.history.archive-directory}/borrowing-history-YYYY-MM.ndjson.gz and removed from the database, by
+ * dropping its partition where it has one and by deleting its rows otherwise. Months from the oldest open loan on
+ * are kept, as the loan refers to its BORROWED record. A month is archived before it is removed, and a month
+ * archived again is appended to its file as another gzip member, so a failed run can repeat records in an archive
+ * but never lose them. By default nothing is archived.
+ * <p>
+ * Statistics computed from the history, such as borrow counts, only cover the months still in the database.
+ */
+@Component
+public class BorrowingHistoryRetention implements SmartInitializingSingleton {
+
+    // Number of archived records after which the persistence context is cleared
+    private static final int STREAM_CLEAR_INTERVAL = 1000;
+
+    private final BorrowingHistoryRepository borrowingHistoryRepository;
+    private final OpenLoanRepository openLoanRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int partitionsAhead;
+    private final int retentionMonths;
+    private final Path archiveDirectory;
+    private final Clock clock;
+    private volatile boolean partitioned;
+
+    @Autowired
+    public BorrowingHistoryRetention(BorrowingHistoryRepository borrowingHistoryRepository,
+                                     OpenLoanRepository openLoanRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     EntityManager entityManager,
+                                     ObjectMapper objectMapper,
+                                     @Value("${library.history.partitions-ahead:3}") int partitionsAhead,
+                                     @Value("${library.history.retention-months:0}") int retentionMonths,
+                                     @Value("${library.history.archive-directory:archive}") String archiveDirectory) {
+        this(borrowingHistoryRepository, openLoanRepository, jdbcTemplate, transactionManager, entityManager,
+                objectMapper, partitionsAhead, retentionMonths, Path.of(archiveDirectory), Clock.systemDefaultZone());
+    }
+
+    public BorrowingHistoryRetention(BorrowingHistoryRepository borrowingHistoryRepository,
+                                     OpenLoanRepository openLoanRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     EntityManager entityManager,
+                                     ObjectMapper objectMapper,
+                                     int partitionsAhead,
+                                     int retentionMonths,
+                                     Path archiveDirectory,
+                                     Clock clock) {
+        if (partitionsAhead < 0) {
+            throw new IllegalArgumentException("Partitions ahead cannot be negative");
+        }
+        if (retentionMonths < 0) {
+            throw new IllegalArgumentException("Retention months cannot be negative");
+        }
+        this.borrowingHistoryRepository = borrowingHistoryRepository;
+        this.openLoanRepository = openLoanRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.partitionsAhead = partitionsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDirectory = archiveDirectory;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        partitioned = isPartitioned();
+        createPartitions();
+    }
+
+    /**
+     * Create the upcoming partitions, then archive the months past their retention period
+     */
+    @Scheduled(fixedDelayString = "${library.history.maintenance-interval:P1D}",
+               initialDelayString = "${library.history.maintenance-interval:P1D}")
+    public void maintain() {
+        createPartitions();
+        archive();
+    }
+
+    /**
+     * Create the partitions of the current month and the months ahead that do not exist yet
+     */
+    public void createPartitions() {
+        if (!partitioned) {
+            return;
+        }
+        YearMonth current = YearMonth.now(clock);
+        for (int i = 0; i <= partitionsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) +
+                    " PARTITION OF borrowing_history FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" +
+                    month.plusMonths(1).atDay(1) + "')");
+        }
+    }
+
+    /**
+     * Archive and remove every month past its retention period, oldest first
+     * @return the number of records archived
+     */
+    public long archive() {
+        if (retentionMonths == 0) {
+            return 0;
+        }
+        YearMonth keepFrom = YearMonth.now(clock).minusMonths(retentionMonths);
+        LocalDateTime oldestLoan = openLoanRepository.findEarliestBorrowedAt();
+        if (oldestLoan != null && YearMonth.from(oldestLoan).isBefore(keepFrom)) {
+            keepFrom = YearMonth.from(oldestLoan);
+        }
+        LocalDateTime oldest = borrowingHistoryRepository.findEarliestActionDate();
+        if (oldest == null) {
+            return 0;
+        }
+
+        long archived = 0;
+        for (YearMonth month = YearMonth.from(oldest); month.isBefore(keepFrom); month = month.plusMonths(1)) {
+            YearMonth archivedMonth = month;
+            archived += transactionTemplate.execute(status -> archive(archivedMonth));
+        }
+        return archived;
+    }
+
+    private long archive(YearMonth month) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime until = month.plusMonths(1).atDay(1).atStartOfDay();
+        long count = 0;
+        try {
+            Files.createDirectories(archiveDirectory);
+            Path file = archiveDirectory.resolve("borrowing-history-" + month + ".ndjson.gz");
+            Path part = Files.createTempFile(archiveDirectory, "borrowing-history-" + month, ".part");
+            try {
+                try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(part));
+                     BorrowingHistoryExportWriter writer =
+                             BorrowingHistoryExportWriter.create(ExportFormat.NDJSON, outputStream, objectMapper);
+                     Stream<BorrowingHistory> history =
+                             borrowingHistoryRepository.streamByActionDateFromUntil(from, until)) {
+                    for (BorrowingHistory record : (Iterable<BorrowingHistory>) history::iterator) {
+                        writer.write(record);
+                        // Release written records so the persistence context stays bounded
+                        if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+                if (count > 0) {
+                    publish(part, file);
+                }
+            } finally {
+                Files.deleteIfExists(part);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        entityManager.clear();
+        if (partitioned && hasPartition(month)) {
+            jdbcTemplate.execute("ALTER TABLE borrowing_history DETACH PARTITION " + partitionName(month));
+            jdbcTemplate.execute("DROP TABLE " + partitionName(month));
+        } else {
+            borrowingHistoryRepository.deleteByActionDateFromUntil(from, until);
+        }
+        return count;
+    }
+
+    // A gzip file may hold several members, which readers decompress as one stream
+    private static void publish(Path part, Path file) throws IOException {
+        if (Files.notExists(file)) {
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+            return;
+        }
+        try (OutputStream outputStream = Files.newOutputStream(file, StandardOpenOption.APPEND)) {
+            Files.copy(part, outputStream);
+        }
+    }
+
+    private boolean isPartitioned() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table p " +
+                "JOIN pg_class c ON c.oid = p.partrelid WHERE c.relname = 'borrowing_history'", Integer.class);
+        return count != null && count > 0;
+    }
+
+    private boolean hasPartition(YearMonth month) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'borrowing_history'::regclass AND c.relname = ?", Integer.class, partitionName(month));
+        return count != null && count > 0;
+    }
+
+    // Named as by the V9 migration
+    private static String partitionName(YearMonth month) {
+        return String.format("borrowing_history_%d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
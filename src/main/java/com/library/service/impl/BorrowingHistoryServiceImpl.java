@@ -1,33 +1,74 @@
 package com.library.service.impl;
 
+import com.library.dto.ActiveBorrowerDto;
+import com.library.dto.BorrowerStatisticsDto;
+import com.library.dto.BorrowingHistoryResponseDto;
+import com.library.dto.PopularBookDto;
 import com.library.entity.BorrowingHistory;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
 import com.library.repository.BorrowingHistoryRepository;
+import com.library.repository.OpenLoanRepository;
 import com.library.service.BorrowingHistoryService;
+import com.library.service.impl.BorrowingLeaderboard.Entry;
+import com.library.service.impl.BorrowingLeaderboard.Window;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
+@Timed(value = "library.service", histogram = true)
 public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
 
+    // Number of streamed records after which the persistence context is cleared
+    private static final int STREAM_CLEAR_INTERVAL = 1000;
+    // Books per query when selecting the records of overdue loans, to keep IN lists short
+    private static final int OVERDUE_CHUNK_SIZE = 1000;
+
     private final BorrowingHistoryRepository borrowingHistoryRepository;
+    private final OpenLoanRepository openLoanRepository;
+    private final BookRepository bookRepository;
+    private final BorrowerRepository borrowerRepository;
+    private final BorrowingLeaderboard leaderboard;
+    private final OverdueLoanIndex overdueLoans;
+    private final EntityManager entityManager;
 
     @Autowired
-    public BorrowingHistoryServiceImpl(BorrowingHistoryRepository borrowingHistoryRepository) {
+    public BorrowingHistoryServiceImpl(BorrowingHistoryRepository borrowingHistoryRepository,
+                                       OpenLoanRepository openLoanRepository,
+                                       BookRepository bookRepository,
+                                       BorrowerRepository borrowerRepository,
+                                       BorrowingLeaderboard leaderboard,
+                                       OverdueLoanIndex overdueLoans,
+                                       EntityManager entityManager) {
         this.borrowingHistoryRepository = borrowingHistoryRepository;
+        this.openLoanRepository = openLoanRepository;
+        this.bookRepository = bookRepository;
+        this.borrowerRepository = borrowerRepository;
+        this.leaderboard = leaderboard;
+        this.overdueLoans = overdueLoans;
+        this.entityManager = entityManager;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorrowingHistory> getHistoryByBookId(Long bookId) {
+    public List<BorrowingHistoryResponseDto> getHistoryByBookId(Long bookId) {
         if (bookId == null) {
             throw new IllegalArgumentException("Book ID cannot be null");
         }
@@ -36,7 +77,7 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorrowingHistory> getHistoryByBorrowerId(Long borrowerId) {
+    public List<BorrowingHistoryResponseDto> getHistoryByBorrowerId(Long borrowerId) {
         if (borrowerId == null) {
             throw new IllegalArgumentException("Borrower ID cannot be null");
         }
@@ -45,7 +86,7 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<BorrowingHistory> getHistoryByBorrowerId(Long borrowerId, Pageable pageable) {
+    public Page<BorrowingHistoryResponseDto> getHistoryByBorrowerId(Long borrowerId, Pageable pageable) {
         if (borrowerId == null) {
             throw new IllegalArgumentException("Borrower ID cannot be null");
         }
@@ -57,7 +98,7 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<BorrowingHistory> getHistoryByBookId(Long bookId, Pageable pageable) {
+    public Page<BorrowingHistoryResponseDto> getHistoryByBookId(Long bookId, Pageable pageable) {
         if (bookId == null) {
             throw new IllegalArgumentException("Book ID cannot be null");
         }
@@ -69,26 +110,70 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorrowingHistory> getCurrentlyBorrowedBooksByBorrower(Long borrowerId) {
+    public List<BorrowingHistoryResponseDto> getHistoryByBorrowerIdBefore(Long borrowerId, LocalDateTime beforeDate, Long beforeId, int limit) {
         if (borrowerId == null) {
             throw new IllegalArgumentException("Borrower ID cannot be null");
         }
-        return borrowingHistoryRepository.findCurrentlyBorrowedBooksByBorrower(borrowerId);
+        if (validateKeyset(beforeDate, beforeId, limit)) {
+            return borrowingHistoryRepository.findPageByBorrowerIdBefore(borrowerId, beforeDate, beforeId, Limit.of(limit));
+        }
+        return borrowingHistoryRepository.findFirstPageByBorrowerId(borrowerId, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorrowingHistoryResponseDto> getHistoryByBookIdBefore(Long bookId, LocalDateTime beforeDate, Long beforeId, int limit) {
+        if (bookId == null) {
+            throw new IllegalArgumentException("Book ID cannot be null");
+        }
+        if (validateKeyset(beforeDate, beforeId, limit)) {
+            return borrowingHistoryRepository.findPageByBookIdBefore(bookId, beforeDate, beforeId, Limit.of(limit));
+        }
+        return borrowingHistoryRepository.findFirstPageByBookId(bookId, Limit.of(limit));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorrowingHistory> getOverdueBooksByBorrower(Long borrowerId) {
+    public List<BorrowingHistoryResponseDto> getCurrentlyBorrowedBooksByBorrower(Long borrowerId) {
         if (borrowerId == null) {
             throw new IllegalArgumentException("Borrower ID cannot be null");
         }
-        return borrowingHistoryRepository.findOverdueBorrowingsByBorrower(borrowerId, LocalDateTime.now());
+        return openLoanRepository.findCurrentBorrowingsByBorrower(borrowerId);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorrowingHistory> getAllOverdueBooks() {
-        return borrowingHistoryRepository.findAllOverdueBorrowings(LocalDateTime.now());
+    public List<BorrowingHistoryResponseDto> getOverdueBooksByBorrower(Long borrowerId) {
+        if (borrowerId == null) {
+            throw new IllegalArgumentException("Borrower ID cannot be null");
+        }
+        return overdueBorrowings(overdueLoans.getOverdueBookIdsByBorrower(borrowerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorrowingHistoryResponseDto> getAllOverdueBooks() {
+        return overdueBorrowings(overdueLoans.getOverdueBookIds());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorrowingHistoryResponseDto> getOverdueBooksAfter(LocalDateTime afterDueDate, Long afterBookId, int limit) {
+        if (validateKeyset(afterDueDate, afterBookId, limit)) {
+            return overdueBorrowings(overdueLoans.getOverdueBookIdsAfter(afterDueDate, afterBookId, limit));
+        }
+        return overdueBorrowings(overdueLoans.getOverdueBookIds(limit));
+    }
+
+    // Which loans are overdue comes from the index, their records from open_loans. Loans returned since the
+    // index was read have no open loan and are left out.
+    private List<BorrowingHistoryResponseDto> overdueBorrowings(List<Long> bookIds) {
+        List<BorrowingHistoryResponseDto> borrowings = new ArrayList<>(bookIds.size());
+        for (int from = 0; from < bookIds.size(); from += OVERDUE_CHUNK_SIZE) {
+            List<Long> chunk = bookIds.subList(from, Math.min(from + OVERDUE_CHUNK_SIZE, bookIds.size()));
+            borrowings.addAll(openLoanRepository.findBorrowingsByBookIdIn(chunk));
+        }
+        return borrowings;
     }
 
     @Override
@@ -102,7 +187,7 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorrowingHistory> getHistoryByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+    public List<BorrowingHistoryResponseDto> getHistoryByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         if (startDate == null) {
             throw new IllegalArgumentException("Start date cannot be null");
         }
@@ -115,6 +200,54 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
         return borrowingHistoryRepository.findByActionDateBetweenOrderByActionDateDesc(startDate, endDate);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorrowingHistoryResponseDto> getHistoryByDateRangeBefore(LocalDateTime startDate, LocalDateTime endDate,
+                                                              LocalDateTime beforeDate, Long beforeId, int limit) {
+        if (startDate == null) {
+            throw new IllegalArgumentException("Start date cannot be null");
+        }
+        if (endDate == null) {
+            throw new IllegalArgumentException("End date cannot be null");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+        if (validateKeyset(beforeDate, beforeId, limit)) {
+            return borrowingHistoryRepository.findPageByActionDateBetweenBefore(startDate, endDate, beforeDate, beforeId, Limit.of(limit));
+        }
+        return borrowingHistoryRepository.findFirstPageByActionDateBetween(startDate, endDate, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long streamHistoryByDateRange(LocalDateTime startDate, LocalDateTime endDate, Consumer<BorrowingHistory> consumer) {
+        if (startDate == null) {
+            throw new IllegalArgumentException("Start date cannot be null");
+        }
+        if (endDate == null) {
+            throw new IllegalArgumentException("End date cannot be null");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+
+        long count = 0;
+        try (Stream<BorrowingHistory> history = borrowingHistoryRepository.streamByActionDateBetween(startDate, endDate)) {
+            for (BorrowingHistory record : (Iterable<BorrowingHistory>) history::iterator) {
+                consumer.accept(record);
+                // Release written records so the persistence context stays bounded
+                if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<BorrowingHistory> getHistoryByBorrowerAndDateRange(Long borrowerId, LocalDateTime startDate, LocalDateTime endDate) {
@@ -171,20 +304,83 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<Object[]> getMostPopularBooks(int limit) {
+    public List<PopularBookDto> getMostPopularBooks(int limit) {
+        return withBookDetails(leaderboard.getMostPopularBooks(Window.ALL_TIME, validateLimit(limit)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PopularBookDto> getMostPopularBooks(int limit, int days) {
+        return withBookDetails(leaderboard.getMostPopularBooks(Window.ofDays(days), validateLimit(limit)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ActiveBorrowerDto> getMostActiveBorrowers(int limit) {
+        return withBorrowerDetails(leaderboard.getMostActiveBorrowers(Window.ALL_TIME, validateLimit(limit)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ActiveBorrowerDto> getMostActiveBorrowers(int limit, int days) {
+        return withBorrowerDetails(leaderboard.getMostActiveBorrowers(Window.ofDays(days), validateLimit(limit)));
+    }
+
+    private static int validateLimit(int limit) {
         if (limit <= 0) {
             throw new IllegalArgumentException("Limit must be positive");
         }
-        return borrowingHistoryRepository.findMostPopularBooks(PageRequest.of(0, limit));
+        return limit;
+    }
+
+    // Counts come from the leaderboard and details from one query for the whole ranking. Books deleted since
+    // the leaderboard was last reconciled have no details and are left out.
+    private List<PopularBookDto> withBookDetails(List<Entry> ranking) {
+        if (ranking.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PopularBookDto> details = bookRepository.findPopularBookDetails(ids(ranking)).stream()
+                .collect(Collectors.toMap(PopularBookDto::getBookId, Function.identity()));
+        List<PopularBookDto> books = new ArrayList<>(ranking.size());
+        for (Entry entry : ranking) {
+            PopularBookDto book = details.get(entry.id());
+            if (book != null) {
+                book.setBorrowCount(entry.borrowCount());
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    private List<ActiveBorrowerDto> withBorrowerDetails(List<Entry> ranking) {
+        if (ranking.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ActiveBorrowerDto> details = borrowerRepository.findActiveBorrowerDetails(ids(ranking)).stream()
+                .collect(Collectors.toMap(ActiveBorrowerDto::getBorrowerId, Function.identity()));
+        List<ActiveBorrowerDto> borrowers = new ArrayList<>(ranking.size());
+        for (Entry entry : ranking) {
+            ActiveBorrowerDto borrower = details.get(entry.id());
+            if (borrower != null) {
+                borrower.setBorrowCount(entry.borrowCount());
+                borrowers.add(borrower);
+            }
+        }
+        return borrowers;
+    }
+
+    private static List<Long> ids(List<Entry> ranking) {
+        return ranking.stream().map(Entry::id).toList();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Object[]> getMostActiveBorrowers(int limit) {
-        if (limit <= 0) {
-            throw new IllegalArgumentException("Limit must be positive");
+    public BorrowerStatisticsDto getBorrowerStatistics(Long borrowerId) {
+        if (borrowerId == null) {
+            throw new IllegalArgumentException("Borrower ID cannot be null");
         }
-        return borrowingHistoryRepository.findMostActiveBorrowers(PageRequest.of(0, limit));
+        return borrowerRepository.findStatisticsById(borrowerId, LocalDateTime.now())
+                .orElseThrow(() -> new IllegalArgumentException("Borrower not found with ID: " + borrowerId));
     }
 
     @Override
@@ -193,7 +389,7 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
         if (borrowerId == null) {
             throw new IllegalArgumentException("Borrower ID cannot be null");
         }
-        return !borrowingHistoryRepository.findOverdueBorrowingsByBorrower(borrowerId, LocalDateTime.now()).isEmpty();
+        return overdueLoans.hasOverdueLoans(borrowerId);
     }
 
     @Override
@@ -202,6 +398,20 @@ public class BorrowingHistoryServiceImpl implements BorrowingHistoryService {
         if (borrowerId == null) {
             throw new IllegalArgumentException("Borrower ID cannot be null");
         }
-        return borrowingHistoryRepository.findCurrentlyBorrowedBooksByBorrower(borrowerId).size();
+        return openLoanRepository.countByBorrowerId(borrowerId);
+    }
+
+    /**
+     * Validate the keyset position and page limit of a cursor query
+     * @return true if a position was given, false for the first page
+     */
+    private boolean validateKeyset(LocalDateTime date, Long id, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if ((date == null) != (id == null)) {
+            throw new IllegalArgumentException("Cursor date and ID must be given together");
+        }
+        return date != null;
     }
-}
\ No newline at end of file
+}
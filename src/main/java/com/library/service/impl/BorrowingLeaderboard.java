@@ -0,0 +1,235 @@
+package com.library.service.impl;
+
+import com.library.repository.BorrowingHistoryRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static com.library.service.impl.TransactionCallbacks.afterCommit;
+
+/**
+ * In-memory borrow counts per book and per borrower, so that the popular books and active borrowers
+ * statistics do not aggregate the whole borrowing history on every request.
+ * <p>
+ * Each board holds one ranking for all time and one for each {@link Window}. A ranking keeps the count
+ * per ID next to a {@link TreeSet} ordered by count, so a borrow moves a single entry and the top N are
+ * read in O(N) whatever the size of the history. Windowed rankings are fed from per-day buckets: once a
+ * day falls out of a window, that day's counts are subtracted from its ranking.
+ * <p>
+ * Borrows made through {@link BookServiceImpl} are counted after their transaction commits. The boards
+ * are loaded from the database once all singletons are created and reloaded every
+ * {@code library.leaderboard.reconcile-interval} (one hour by default), which corrects any drift such as
+ * history written outside this application or borrows committed while a reload was running.
+ */
+@Component
+public class BorrowingLeaderboard implements SmartInitializingSingleton {
+
+    /**
+     * Period a ranking counts borrowings over, ending today
+     */
+    public enum Window {
+        ALL_TIME(0),
+        LAST_7_DAYS(7),
+        LAST_30_DAYS(30);
+
+        private final int days;
+
+        Window(int days) {
+            this.days = days;
+        }
+
+        public int getDays() {
+            return days;
+        }
+
+        /**
+         * The window covering the given number of days
+         */
+        public static Window ofDays(int days) {
+            for (Window window : values()) {
+                if (window != ALL_TIME && window.days == days) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Days must be 7 or 30");
+        }
+    }
+
+    /**
+     * Number of borrowings of one book, or by one borrower
+     */
+    public record Entry(Long id, long borrowCount) {
+    }
+
+    private static final int BUCKET_DAYS = Window.LAST_30_DAYS.days;
+
+    private final BorrowingHistoryRepository borrowingHistoryRepository;
+    private final Clock clock;
+    private volatile Board books;
+    private volatile Board borrowers;
+
+    @Autowired
+    public BorrowingLeaderboard(BorrowingHistoryRepository borrowingHistoryRepository) {
+        this(borrowingHistoryRepository, Clock.systemDefaultZone());
+    }
+
+    public BorrowingLeaderboard(BorrowingHistoryRepository borrowingHistoryRepository, Clock clock) {
+        this.borrowingHistoryRepository = borrowingHistoryRepository;
+        this.clock = clock;
+        this.books = new Board(LocalDate.now(clock));
+        this.borrowers = new Board(LocalDate.now(clock));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconcile();
+    }
+
+    /**
+     * Discard all counts and reload them from the database
+     */
+    @Scheduled(fixedDelayString = "${library.leaderboard.reconcile-interval:PT1H}",
+               initialDelayString = "${library.leaderboard.reconcile-interval:PT1H}")
+    public void reconcile() {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate since = today.minusDays(BUCKET_DAYS - 1);
+        books = Board.load(today,
+                borrowingHistoryRepository.findMostPopularBooks(Pageable.unpaged()),
+                borrowingHistoryRepository.countBorrowingsPerBookAndDaySince(since.atStartOfDay()));
+        borrowers = Board.load(today,
+                borrowingHistoryRepository.findMostActiveBorrowers(Pageable.unpaged()),
+                borrowingHistoryRepository.countBorrowingsPerBorrowerAndDaySince(since.atStartOfDay()));
+    }
+
+    public void bookBorrowed(Long bookId, Long borrowerId) {
+        afterCommit(() -> {
+            LocalDate today = LocalDate.now(clock);
+            books.record(bookId, today);
+            borrowers.record(borrowerId, today);
+        });
+    }
+
+    public List<Entry> getMostPopularBooks(Window window, int limit) {
+        return books.top(window, limit, LocalDate.now(clock));
+    }
+
+    public List<Entry> getMostActiveBorrowers(Window window, int limit) {
+        return borrowers.top(window, limit, LocalDate.now(clock));
+    }
+
+    private static final class Board {
+
+        private final Map<Window, Ranking> rankings = new EnumMap<>(Window.class);
+        // Counts per day and ID for the last BUCKET_DAYS days, up to and including today
+        private final NavigableMap<LocalDate, Map<Long, Long>> buckets = new TreeMap<>();
+        private LocalDate today;
+
+        Board(LocalDate today) {
+            this.today = today;
+            for (Window window : Window.values()) {
+                rankings.put(window, new Ranking());
+            }
+        }
+
+        // Rows are [ID, count] for all time and [ID, date, count] per day
+        static Board load(LocalDate today, List<Object[]> totals, List<Object[]> daily) {
+            Board board = new Board(today);
+            for (Object[] row : totals) {
+                board.rankings.get(Window.ALL_TIME).add((Long) row[0], ((Number) row[1]).longValue());
+            }
+            for (Object[] row : daily) {
+                Long id = (Long) row[0];
+                LocalDate day = (LocalDate) row[1];
+                long count = ((Number) row[2]).longValue();
+                if (day.isAfter(today)) {
+                    continue;
+                }
+                board.buckets.computeIfAbsent(day, key -> new HashMap<>()).merge(id, count, Long::sum);
+                for (Window window : Window.values()) {
+                    if (window != Window.ALL_TIME && day.isAfter(today.minusDays(window.days))) {
+                        board.rankings.get(window).add(id, count);
+                    }
+                }
+            }
+            return board;
+        }
+
+        synchronized void record(Long id, LocalDate day) {
+            advanceTo(day);
+            buckets.computeIfAbsent(today, key -> new HashMap<>()).merge(id, 1L, Long::sum);
+            for (Ranking ranking : rankings.values()) {
+                ranking.add(id, 1);
+            }
+        }
+
+        synchronized List<Entry> top(Window window, int limit, LocalDate day) {
+            advanceTo(day);
+            return rankings.get(window).top(limit);
+        }
+
+        // Subtract the days that have left each window since the board was last used
+        private void advanceTo(LocalDate day) {
+            if (!day.isAfter(today)) {
+                return;
+            }
+            for (Window window : Window.values()) {
+                if (window == Window.ALL_TIME) {
+                    continue;
+                }
+                Ranking ranking = rankings.get(window);
+                for (Map<Long, Long> bucket : buckets.subMap(today.minusDays(window.days), false,
+                        day.minusDays(window.days), true).values()) {
+                    bucket.forEach((id, count) -> ranking.add(id, -count));
+                }
+            }
+            buckets.headMap(day.minusDays(BUCKET_DAYS), true).clear();
+            today = day;
+        }
+    }
+
+    private static final class Ranking {
+
+        private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::borrowCount).reversed()
+                .thenComparing(Entry::id);
+
+        private final Map<Long, Long> counts = new HashMap<>();
+        private final TreeSet<Entry> ranked = new TreeSet<>(ORDER);
+
+        void add(Long id, long delta) {
+            Long previous = counts.remove(id);
+            long count = delta;
+            if (previous != null) {
+                ranked.remove(new Entry(id, previous));
+                count += previous;
+            }
+            if (count > 0) {
+                counts.put(id, count);
+                ranked.add(new Entry(id, count));
+            }
+        }
+
+        List<Entry> top(int limit) {
+            List<Entry> top = new ArrayList<>(Math.min(limit, ranked.size()));
+            Iterator<Entry> entries = ranked.iterator();
+            while (top.size() < limit && entries.hasNext()) {
+                top.add(entries.next());
+            }
+            return top;
+        }
+    }
+}
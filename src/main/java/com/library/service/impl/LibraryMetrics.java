@@ -0,0 +1,92 @@
+package com.library.service.impl;
+
+import com.library.repository.OpenLoanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.library.service.impl.TransactionCallbacks.afterCommit;
+
+/**
+ * Business metrics of the library services, next to the {@code library.service} timers that
+ * {@code @Timed} puts on every service method.
+ * <ul>
+ *   <li>{@code library.books.borrowed} and {@code library.books.returned}: loans opened and closed,
+ *       counted once their transaction commits</li>
+ *   <li>{@code library.rejections}: requests refused with an {@link IllegalStateException}, tagged with the
+ *       {@link Rejection} reason</li>
+ *   <li>{@code library.loans.open}: current loans, counted from the {@code open_loans} table whenever the
+ *       registry is scraped</li>
+ *   <li>{@code library.loans.overdue} and {@code library.loans.overdue.borrowers}: overdue loans and the
+ *       borrowers holding them, read from the {@link OverdueLoanIndex}</li>
+ * </ul>
+ */
+@Component
+public class LibraryMetrics {
+
+    /**
+     * Why a request was refused
+     */
+    public enum Rejection {
+        ISBN_CONFLICT,
+        NO_AVAILABLE_COPIES,
+        BOOK_NOT_AVAILABLE,
+        BOOK_NOT_BORROWED,
+        BOOK_ON_LOAN,
+        EMAIL_TAKEN,
+        BORROWER_HAS_LOANS;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Counter borrowed;
+    private final Counter returned;
+    private final Map<Rejection, Counter> rejections = new EnumMap<>(Rejection.class);
+
+    @Autowired
+    public LibraryMetrics(MeterRegistry registry, OpenLoanRepository openLoanRepository,
+                          OverdueLoanIndex overdueLoans) {
+        borrowed = Counter.builder("library.books.borrowed")
+                .description("Book copies lent out")
+                .register(registry);
+        returned = Counter.builder("library.books.returned")
+                .description("Book copies handed back")
+                .register(registry);
+        for (Rejection rejection : Rejection.values()) {
+            rejections.put(rejection, Counter.builder("library.rejections")
+                    .description("Requests refused because they break a business rule")
+                    .tag("reason", rejection.tag())
+                    .register(registry));
+        }
+
+        Gauge.builder("library.loans.open", openLoanRepository, OpenLoanRepository::count)
+                .description("Book copies currently on loan")
+                .register(registry);
+        Gauge.builder("library.loans.overdue", overdueLoans, OverdueLoanIndex::getOverdueLoanCount)
+                .description("Loans past their due date, as of the last overdue sweep")
+                .register(registry);
+        Gauge.builder("library.loans.overdue.borrowers", overdueLoans, OverdueLoanIndex::getBorrowerCount)
+                .description("Borrowers holding at least one overdue loan, as of the last overdue sweep")
+                .register(registry);
+    }
+
+    public void bookBorrowed() {
+        afterCommit(borrowed::increment);
+    }
+
+    public void bookReturned() {
+        afterCommit(returned::increment);
+    }
+
+    public void rejected(Rejection rejection) {
+        rejections.get(rejection).increment();
+    }
+}
@@ -0,0 +1,257 @@
+package com.library.service.impl;
+
+import com.library.repository.OpenLoanRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.library.service.impl.TransactionCallbacks.afterCommit;
+
+/**
+ * In-memory set of the open loans past their due date, so that overdue listings and checks read a small
+ * precomputed set instead of comparing every open loan with the current time.
+ * <p>
+ * Loans are added by sweeps of the {@code open_loans} due date index. A sweep only reads the loans that fell due
+ * since the previous one, in batches of {@code library.overdue.sweep-batch-size} (500 by default) ordered by due
+ * date, and runs every {@code library.overdue.sweep-interval} (one minute by default), which bounds how late a
+ * loan shows up as overdue. Returns made through {@link BookServiceImpl} remove their loan once the transaction
+ * commits. The set is rebuilt with a full sweep once all singletons are created and every
+ * {@code library.overdue.reconcile-interval} (ten minutes by default), which corrects any drift such as due dates
+ * changed outside this application.
+ * <p>
+ * With several instances, each sweeps the shared {@code open_loans} table and so sees every loan fall due, but a
+ * return only leaves the set of the instance that handled it before the next reconcile. Until then the listings
+ * drop such loans as they read their records from {@code open_loans}, and {@link #hasOverdueLoans} confirms a
+ * positive answer there; only the {@code library.loans.overdue} gauges may count them.
+ */
+@Component
+public class OverdueLoanIndex implements SmartInitializingSingleton {
+
+    /**
+     * An open loan past its due date
+     */
+    public record Loan(Long bookId, Long borrowerId, LocalDateTime dueDate) {
+    }
+
+    // Earliest due date first, as the overdue listings are ordered
+    private static final Comparator<Loan> ORDER = Comparator.comparing(Loan::dueDate).thenComparing(Loan::bookId);
+    // Lower bound of a full sweep; every due date is after it
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final OpenLoanRepository openLoanRepository;
+    private final int batchSize;
+    private final Clock clock;
+
+    // Guarded by this
+    private final Map<Long, Loan> loansByBook = new HashMap<>();
+    private final NavigableSet<Loan> loans = new TreeSet<>(ORDER);
+    private final Map<Long, NavigableSet<Loan>> loansByBorrower = new HashMap<>();
+    // Books returned while a sweep is running, so that loans it has already read are not added back
+    private Set<Long> returnedDuringSweep;
+
+    // Guarded by the sweep lock: due dates before this have been swept
+    private final Object sweepLock = new Object();
+    private LocalDateTime sweptUntil = BEGINNING;
+
+    @Autowired
+    public OverdueLoanIndex(OpenLoanRepository openLoanRepository,
+                            @Value("${library.overdue.sweep-batch-size:500}") int batchSize) {
+        this(openLoanRepository, batchSize, Clock.systemDefaultZone());
+    }
+
+    public OverdueLoanIndex(OpenLoanRepository openLoanRepository, int batchSize, Clock clock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Sweep batch size must be at least 1");
+        }
+        this.openLoanRepository = openLoanRepository;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconcile();
+    }
+
+    /**
+     * Add the loans that fell due since the previous sweep
+     */
+    @Scheduled(fixedDelayString = "${library.overdue.sweep-interval:PT1M}",
+               initialDelayString = "${library.overdue.sweep-interval:PT1M}")
+    public void sweep() {
+        synchronized (sweepLock) {
+            sweep(sweptUntil, false);
+        }
+    }
+
+    /**
+     * Discard all loans and sweep every open loan again
+     */
+    @Scheduled(fixedDelayString = "${library.overdue.reconcile-interval:PT10M}",
+               initialDelayString = "${library.overdue.reconcile-interval:PT10M}")
+    public void reconcile() {
+        synchronized (sweepLock) {
+            sweep(BEGINNING, true);
+        }
+    }
+
+    // Reads the loans due in [since, now) a batch at a time, then applies them in one step
+    private void sweep(LocalDateTime since, boolean replace) {
+        LocalDateTime until = LocalDateTime.now(clock);
+        startSweep();
+        List<Loan> found = new ArrayList<>();
+        try {
+            LocalDateTime afterDueDate = since;
+            Long afterBookId = Long.MIN_VALUE;
+            List<Object[]> batch;
+            do {
+                batch = openLoanRepository.findLoansFallingDue(afterDueDate, afterBookId, until, Limit.of(batchSize));
+                for (Object[] row : batch) {
+                    found.add(new Loan((Long) row[0], (Long) row[1], (LocalDateTime) row[2]));
+                }
+                if (!batch.isEmpty()) {
+                    Loan last = found.get(found.size() - 1);
+                    afterDueDate = last.dueDate();
+                    afterBookId = last.bookId();
+                }
+            } while (batch.size() == batchSize);
+        } finally {
+            finishSweep(found, replace);
+        }
+        sweptUntil = until;
+    }
+
+    private synchronized void startSweep() {
+        returnedDuringSweep = new HashSet<>();
+    }
+
+    private synchronized void finishSweep(List<Loan> found, boolean replace) {
+        if (replace) {
+            loansByBook.clear();
+            loans.clear();
+            loansByBorrower.clear();
+        }
+        for (Loan loan : found) {
+            if (!returnedDuringSweep.contains(loan.bookId())) {
+                add(loan);
+            }
+        }
+        returnedDuringSweep = null;
+    }
+
+    public void bookReturned(Long bookId) {
+        afterCommit(() -> remove(List.of(bookId)));
+    }
+
+    public void booksReturned(Collection<Long> bookIds) {
+        List<Long> returned = List.copyOf(bookIds);
+        afterCommit(() -> remove(returned));
+    }
+
+    private synchronized void add(Loan loan) {
+        Loan previous = loansByBook.put(loan.bookId(), loan);
+        if (previous != null) {
+            unlink(previous);
+        }
+        loans.add(loan);
+        loansByBorrower.computeIfAbsent(loan.borrowerId(), key -> new TreeSet<>(ORDER)).add(loan);
+    }
+
+    private synchronized void remove(Collection<Long> bookIds) {
+        for (Long bookId : bookIds) {
+            if (returnedDuringSweep != null) {
+                returnedDuringSweep.add(bookId);
+            }
+            Loan loan = loansByBook.remove(bookId);
+            if (loan != null) {
+                unlink(loan);
+            }
+        }
+    }
+
+    private void unlink(Loan loan) {
+        loans.remove(loan);
+        NavigableSet<Loan> borrowerLoans = loansByBorrower.get(loan.borrowerId());
+        borrowerLoans.remove(loan);
+        if (borrowerLoans.isEmpty()) {
+            loansByBorrower.remove(loan.borrowerId());
+        }
+    }
+
+    /**
+     * IDs of the books on overdue loans, earliest due first
+     */
+    public List<Long> getOverdueBookIds() {
+        return getOverdueBookIds(Integer.MAX_VALUE);
+    }
+
+    public synchronized List<Long> getOverdueBookIds(int limit) {
+        return bookIds(loans, limit);
+    }
+
+    /**
+     * Like {@link #getOverdueBookIds()}, starting after the given loan
+     */
+    public synchronized List<Long> getOverdueBookIdsAfter(LocalDateTime afterDueDate, Long afterBookId, int limit) {
+        return bookIds(loans.tailSet(new Loan(afterBookId, null, afterDueDate), false), limit);
+    }
+
+    public synchronized List<Long> getOverdueBookIdsByBorrower(Long borrowerId) {
+        return bookIds(loansByBorrower.getOrDefault(borrowerId, new TreeSet<>()), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Whether the borrower holds an overdue loan. The loans this instance knows of may have been returned on another
+     * one, so a positive answer is confirmed with an indexed lookup of {@code open_loans}; loans it finds closed are
+     * dropped as if returned here
+     */
+    public boolean hasOverdueLoans(Long borrowerId) {
+        List<Long> bookIds;
+        synchronized (this) {
+            NavigableSet<Loan> borrowerLoans = loansByBorrower.get(borrowerId);
+            if (borrowerLoans == null) {
+                return false;
+            }
+            bookIds = bookIds(borrowerLoans, Integer.MAX_VALUE);
+        }
+        if (openLoanRepository.existsByBorrowerIdAndDueDateBefore(borrowerId, LocalDateTime.now(clock))) {
+            return true;
+        }
+        remove(bookIds);
+        return false;
+    }
+
+    public synchronized int getOverdueLoanCount() {
+        return loans.size();
+    }
+
+    public synchronized int getBorrowerCount() {
+        return loansByBorrower.size();
+    }
+
+    private static List<Long> bookIds(Collection<Loan> loans, int limit) {
+        List<Long> bookIds = new ArrayList<>(Math.min(limit, loans.size()));
+        Iterator<Loan> iterator = loans.iterator();
+        while (bookIds.size() < limit && iterator.hasNext()) {
+            bookIds.add(iterator.next().bookId());
+        }
+        return bookIds;
+    }
+}
@@ -0,0 +1,150 @@
+package com.library.validation;
+
+/**
+ * Validates borrower names and emails with a single forward scan over the trimmed characters, without regular
+ * expressions, so a long or hostile value costs time linear in its length and nothing is allocated unless it
+ * is rejected.
+ * <p>
+ * The rules are the ones the service has always applied: a name is 2 to 100 letters, whitespace, hyphens and
+ * apostrophes; an email is at most 150 characters, a local part of dot-separated atoms of letters, digits and
+ * {@code _+&*-}, and a domain of at least two dot-separated labels whose last label is 2 to 7 letters.
+ */
+public final class BorrowerValidator {
+
+    private static final int NAME_MIN_LENGTH = 2;
+    private static final int NAME_MAX_LENGTH = 100;
+    private static final int EMAIL_MAX_LENGTH = 150;
+    private static final int TLD_MIN_LENGTH = 2;
+    private static final int TLD_MAX_LENGTH = 7;
+
+    private BorrowerValidator() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is blank, too short or long, or has a character other than
+     *                                  a letter, whitespace, hyphen or apostrophe
+     */
+    public static void validateName(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Name cannot be null or empty");
+        }
+        int start = trimStart(name);
+        int end = trimEnd(name, start);
+        if (start == end) {
+            throw new IllegalArgumentException("Name cannot be null or empty");
+        }
+        if (end - start < NAME_MIN_LENGTH) {
+            throw new IllegalArgumentException("Name must be at least 2 characters long");
+        }
+        if (end - start > NAME_MAX_LENGTH) {
+            throw new IllegalArgumentException("Name cannot exceed 100 characters");
+        }
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if (!isAsciiLetter(c) && !isWhitespace(c) && c != '-' && c != '\'') {
+                throw new IllegalArgumentException("Name can only contain letters, spaces, hyphens, and apostrophes");
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the email is blank, too long or not a valid address
+     */
+    public static void validateEmail(String email) {
+        if (email == null) {
+            throw new IllegalArgumentException("Email cannot be null or empty");
+        }
+        int start = trimStart(email);
+        int end = trimEnd(email, start);
+        if (start == end) {
+            throw new IllegalArgumentException("Email cannot be null or empty");
+        }
+        if (end - start > EMAIL_MAX_LENGTH) {
+            throw new IllegalArgumentException("Email cannot exceed 150 characters");
+        }
+        if (!isValidAddress(email, start, end)) {
+            throw new IllegalArgumentException("Email format is invalid: " + email);
+        }
+    }
+
+    private static boolean isValidAddress(String email, int start, int end) {
+        // Local part: atoms separated by single dots
+        int i = start;
+        int atomLength = 0;
+        for (; i < end; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                break;
+            }
+            if (c == '.') {
+                if (atomLength == 0) {
+                    return false;
+                }
+                atomLength = 0;
+            } else if (isAtomCharacter(c)) {
+                atomLength++;
+            } else {
+                return false;
+            }
+        }
+        if (i == end || atomLength == 0) {
+            return false;
+        }
+
+        // Domain: labels each followed by a dot, then a top-level domain of letters only
+        int labels = 0;
+        int labelLength = 0;
+        boolean lettersOnly = true;
+        for (i++; i < end; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (labelLength == 0) {
+                    return false;
+                }
+                labels++;
+                labelLength = 0;
+                lettersOnly = true;
+            } else if (isAsciiLetter(c) || isAsciiDigit(c) || c == '-') {
+                labelLength++;
+                lettersOnly &= isAsciiLetter(c);
+            } else {
+                return false;
+            }
+        }
+        return labels > 0 && lettersOnly && labelLength >= TLD_MIN_LENGTH && labelLength <= TLD_MAX_LENGTH;
+    }
+
+    private static boolean isAtomCharacter(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || c == '_' || c == '+' || c == '&' || c == '*' || c == '-';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // The whitespace the former \s pattern matched
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Bounds of the value without the leading and trailing characters String.trim() would remove
+    private static int trimStart(String value) {
+        int start = 0;
+        while (start < value.length() && value.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String value, int start) {
+        int end = value.length();
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,216 @@
+package com.library.validation;
+
+/**
+ * Normalizes and validates ISBN-10 and ISBN-13 values in a single pass over the characters, without regular
+ * expressions.
+ * <p>
+ * An ISBN may be written with an {@code ISBN}, {@code ISBN-10} or {@code ISBN-13} prefix, optionally followed by a
+ * colon, and with hyphens or spaces anywhere between its digits. The normalized form keeps only the digits and a
+ * trailing {@code X} check character of an ISBN-10, so {@code 978-0-13-110362-7} becomes {@code 9780131103627}.
+ * An input that is already normalized is returned as is, so the common case allocates nothing.
+ */
+public final class IsbnValidator {
+
+    /**
+     * Returned by {@link #toIsbn13} for a value that cannot be an ISBN
+     */
+    public static final long NO_ISBN13 = -1;
+
+    private static final String PREFIX = "ISBN";
+    // 978 followed by the nine digits of an ISBN-10 body
+    private static final long ISBN10_BOOKLAND = 978_000_000_000L;
+
+    private IsbnValidator() {
+    }
+
+    /**
+     * Normalize an ISBN and check its format and check digit
+     * @return the normalized ISBN
+     * @throws IllegalArgumentException if the ISBN is blank, not ten or thirteen digits in a valid layout,
+     *                                  or its check digit does not match
+     */
+    public static String normalize(String isbn) {
+        if (isbn == null || isbn.isBlank()) {
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+
+        int length = isbn.length();
+        int i = skipPrefix(isbn);
+        boolean canonical = i == 0;
+        // Digits are accumulated as a number; a check character X is kept apart as 10
+        long digits = 0;
+        int count = 0;
+        int checkValue = -1;
+        int sum10 = 0;
+        int sum13 = 0;
+        for (; i < length; i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (count == 13 || checkValue >= 0) {
+                    throw invalidFormat(isbn);
+                }
+                int digit = c - '0';
+                digits = digits * 10 + digit;
+                sum10 += (10 - count) * digit;
+                sum13 += (count % 2 == 0) ? digit : 3 * digit;
+                count++;
+            } else if ((c == 'X' || c == 'x') && count == 9 && checkValue < 0) {
+                checkValue = 10;
+                sum10 += 10;
+                canonical &= c == 'X';
+            } else if (c == '-' || c == ' ') {
+                canonical = false;
+            } else {
+                throw invalidFormat(isbn);
+            }
+        }
+
+        if (checkValue == 10) {
+            count++;
+        }
+        if (count == 10) {
+            if (sum10 % 11 != 0) {
+                throw invalidCheckDigit(isbn);
+            }
+        } else if (count == 13) {
+            long bookland = digits / 10_000_000_000L;
+            if (bookland != 978 && bookland != 979) {
+                throw invalidFormat(isbn);
+            }
+            if (sum13 % 10 != 0) {
+                throw invalidCheckDigit(isbn);
+            }
+        } else {
+            throw invalidFormat(isbn);
+        }
+
+        if (canonical) {
+            return isbn;
+        }
+        return checkValue == 10 ? pad(digits, 9) + 'X' : pad(digits, count);
+    }
+
+    /**
+     * Normalize an ISBN used as a lookup key without validating it: for a valid ISBN this is the same as
+     * {@link #normalize}, and any other value is reduced to its digits and X characters, which simply match nothing
+     * @return the normalized ISBN, or null for null
+     */
+    public static String strip(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        int start = skipPrefix(isbn);
+        int length = isbn.length();
+        int kept = 0;
+        boolean canonical = start == 0;
+        for (int i = start; i < length; i++) {
+            char c = isbn.charAt(i);
+            if ((c >= '0' && c <= '9') || c == 'X') {
+                kept++;
+            } else {
+                canonical = false;
+                if (c == 'x') {
+                    kept++;
+                }
+            }
+        }
+        if (canonical) {
+            return isbn;
+        }
+        char[] stripped = new char[kept];
+        int j = 0;
+        for (int i = start; i < length; i++) {
+            char c = isbn.charAt(i);
+            if ((c >= '0' && c <= '9') || c == 'X' || c == 'x') {
+                stripped[j++] = Character.toUpperCase(c);
+            }
+        }
+        return new String(stripped);
+    }
+
+    /**
+     * The canonical ISBN-13 of an ISBN as a number, the key books are stored and looked up by. An ISBN-10 is
+     * converted by prefixing {@code 978} and recomputing the check digit, so both forms of a book share one key.
+     * Like {@link #strip}, the ISBN is not validated: any value that is not ten or thirteen digits, or nine digits
+     * and an X, gives {@link #NO_ISBN13}, which no stored book has
+     * @return the ISBN-13 as a number, or {@link #NO_ISBN13}
+     */
+    public static long toIsbn13(String isbn) {
+        if (isbn == null) {
+            return NO_ISBN13;
+        }
+        int length = isbn.length();
+        long digits = 0;
+        int count = 0;
+        boolean checkX = false;
+        for (int i = skipPrefix(isbn); i < length; i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (checkX || count == 13) {
+                    return NO_ISBN13;
+                }
+                digits = digits * 10 + (c - '0');
+                count++;
+            } else if (c == 'X' || c == 'x') {
+                if (checkX || count != 9) {
+                    return NO_ISBN13;
+                }
+                checkX = true;
+            }
+        }
+
+        if (count == 13 && !checkX) {
+            return digits;
+        }
+        if (count == 10 || (count == 9 && checkX)) {
+            long body = ISBN10_BOOKLAND + (checkX ? digits : digits / 10);
+            int sum = 0;
+            long rest = body;
+            for (int position = 12; position > 0; position--) {
+                int digit = (int) (rest % 10);
+                sum += (position % 2 == 0) ? 3 * digit : digit;
+                rest /= 10;
+            }
+            return body * 10 + (10 - sum % 10) % 10;
+        }
+        return NO_ISBN13;
+    }
+
+    // Index of the first character after an optional "ISBN", "ISBN-10" or "ISBN-13" prefix, its colon and spaces
+    private static int skipPrefix(String isbn) {
+        int i = 0;
+        int length = isbn.length();
+        while (i < length && isbn.charAt(i) == ' ') {
+            i++;
+        }
+        if (!isbn.regionMatches(true, i, PREFIX, 0, PREFIX.length())) {
+            return i;
+        }
+        i += PREFIX.length();
+        if (isbn.startsWith("-10", i) || isbn.startsWith("-13", i)) {
+            i += 3;
+        }
+        if (i < length && isbn.charAt(i) == ':') {
+            i++;
+        }
+        return i;
+    }
+
+    // The number written with exactly the given count of digits, keeping the leading zeros of an ISBN-10
+    private static String pad(long digits, int count) {
+        char[] chars = new char[count];
+        for (int i = count - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + digits % 10);
+            digits /= 10;
+        }
+        return new String(chars);
+    }
+
+    private static IllegalArgumentException invalidFormat(String isbn) {
+        return new IllegalArgumentException("Invalid ISBN format: " + isbn);
+    }
+
+    private static IllegalArgumentException invalidCheckDigit(String isbn) {
+        return new IllegalArgumentException("Invalid ISBN check digit: " + isbn);
+    }
+}
@@ -0,0 +1,84 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Store the canonical ISBN-13 of every book as a {@code BIGINT} and index it in place of the {@code VARCHAR} ISBN,
+ * so that ISBN lookups compare eight byte integers and an ISBN-10 finds the copies stored under its ISBN-13.
+ * <p>
+ * Written in Java because converting an ISBN-10 means recomputing its check digit. The conversion is a private copy
+ * of what {@code IsbnValidator.toIsbn13} did when this migration was written, so that later changes to the
+ * application cannot change what the migration writes; Flyway keeps no checksum of Java migrations to catch that.
+ * Stored ISBNs carry no {@code ISBN} prefix, so only their digits and a check character X are looked at.
+ * <p>
+ * The conversion runs once per distinct ISBN, as copies repeat it, and the updates are found through
+ * {@code idx_books_isbn} before that index is dropped. The {@code isbn} column is kept as the form books are shown
+ * with.
+ */
+public class V10__Add_books_isbn13 extends BaseJavaMigration {
+
+    // Written for values that cannot be an ISBN, matching no lookup
+    private static final long NO_ISBN13 = -1;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            statement.execute("ALTER TABLE books ADD COLUMN isbn13 BIGINT");
+
+            try (ResultSet rs = statement.executeQuery("SELECT DISTINCT isbn FROM books");
+                 PreparedStatement update = context.getConnection()
+                         .prepareStatement("UPDATE books SET isbn13 = ? WHERE isbn = ?")) {
+                while (rs.next()) {
+                    String isbn = rs.getString(1);
+                    update.setLong(1, toIsbn13(isbn));
+                    update.setString(2, isbn);
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+
+            statement.execute("ALTER TABLE books ALTER COLUMN isbn13 SET NOT NULL");
+            statement.execute("DROP INDEX idx_books_isbn");
+            statement.execute("CREATE INDEX idx_books_isbn13 ON books(isbn13)");
+        }
+    }
+
+    // Thirteen digits as they are; nine digits and a check digit or X prefixed with 978 and given a new check digit
+    private static long toIsbn13(String isbn) {
+        long digits = 0;
+        int count = 0;
+        boolean checkX = false;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9' && !checkX && count < 13) {
+                digits = digits * 10 + (c - '0');
+                count++;
+            } else if ((c == 'X' || c == 'x') && count == 9 && !checkX) {
+                checkX = true;
+            } else if ((c >= '0' && c <= '9') || c == 'X' || c == 'x') {
+                return NO_ISBN13;
+            }
+        }
+
+        if (count == 13 && !checkX) {
+            return digits;
+        }
+        if (count == 10 || (count == 9 && checkX)) {
+            long body = 978_000_000_000L + (checkX ? digits : digits / 10);
+            int sum = 0;
+            long rest = body;
+            for (int position = 12; position > 0; position--) {
+                int digit = (int) (rest % 10);
+                sum += (position % 2 == 0) ? 3 * digit : digit;
+                rest /= 10;
+            }
+            return body * 10 + (10 - sum % 10) % 10;
+        }
+        return NO_ISBN13;
+    }
+}
@@ -0,0 +1,35 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Give the unique constraint on {@code borrowers.email} the fixed name {@code uk_borrowers_email}, so that a
+ * violation of it can be told apart from any other constraint violation.
+ * <p>
+ * Written in Java because V1 declared the constraint inline and each database generated its own name for it,
+ * which is looked up here before the rename.
+ */
+public class V11__Name_borrowers_email_constraint extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            String name;
+            try (ResultSet rs = statement.executeQuery("""
+                    SELECT tc.constraint_name
+                    FROM information_schema.table_constraints tc
+                    JOIN information_schema.key_column_usage kcu
+                      ON kcu.constraint_schema = tc.constraint_schema AND kcu.constraint_name = tc.constraint_name
+                    WHERE tc.table_schema = CURRENT_SCHEMA AND LOWER(tc.table_name) = 'borrowers'
+                      AND tc.constraint_type = 'UNIQUE' AND LOWER(kcu.column_name) = 'email'""")) {
+                rs.next();
+                name = rs.getString(1);
+            }
+            statement.execute("ALTER TABLE borrowers RENAME CONSTRAINT \"" + name + "\" TO uk_borrowers_email");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Create the sequence that book IDs are now drawn from, starting after the highest existing ID.
+ * <p>
+ * Written in Java because neither H2 nor PostgreSQL accept a subquery as the start value of a sequence.
+ * The increment matches the allocation size of the {@code Book} ID generator, which reserves 50 IDs per call
+ * so that inserts can be sent to the database in JDBC batches.
+ */
+public class V7__Create_books_id_sequence extends BaseJavaMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long start;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM books")) {
+                rs.next();
+                start = rs.getLong(1);
+            }
+            statement.execute("CREATE SEQUENCE books_seq START WITH " + start + " INCREMENT BY " + ALLOCATION_SIZE);
+        }
+    }
+}
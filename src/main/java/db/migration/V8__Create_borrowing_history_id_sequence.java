@@ -0,0 +1,30 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Create the sequence that borrowing history IDs are now drawn from, starting after the highest existing ID.
+ * <p>
+ * As with {@code books_seq}, the increment matches the allocation size of the {@code BorrowingHistory} ID
+ * generator, so that the records written by batch borrows and returns can be inserted in JDBC batches.
+ */
+public class V8__Create_borrowing_history_id_sequence extends BaseJavaMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long start;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM borrowing_history")) {
+                rs.next();
+                start = rs.getLong(1);
+            }
+            statement.execute("CREATE SEQUENCE borrowing_history_seq START WITH " + start + " INCREMENT BY " + ALLOCATION_SIZE);
+        }
+    }
+}
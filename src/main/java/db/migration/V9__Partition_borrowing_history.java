@@ -0,0 +1,105 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+
+/**
+ * Partition borrowing history by month of {@code action_date} on PostgreSQL, so that date range queries only
+ * scan the months they cover and a month past its retention period is archived by dropping its partition.
+ * <p>
+ * The table is rebuilt as a range-partitioned table with one partition per month, from the month of the oldest
+ * record to {@value #PARTITIONS_AHEAD} months ahead, plus a default partition for anything later. Partitions for
+ * the months after that are created by {@code BorrowingHistoryRetention}. PostgreSQL requires the primary key of a
+ * partitioned table to include the partition key, so it becomes {@code (id, action_date)}; IDs stay unique as they
+ * are drawn from {@code borrowing_history_seq}. For the same reason {@code open_loans} can no longer declare a
+ * foreign key on {@code borrowing_history(id)}, and that constraint is dropped.
+ * <p>
+ * H2 has no table partitioning, so there the table is kept and old months are deleted row by row instead.
+ * On both databases the indexes on {@code book_id}, {@code borrower_id} and {@code action_date}, which the composite
+ * indexes already lead with, and those on {@code action_type} and {@code due_date}, which no query filters on alone,
+ * are dropped.
+ * On PostgreSQL every other index, including the keyset pagination indexes of V6, is recreated on the partitioned
+ * table, which propagates it to each partition.
+ */
+public class V9__Partition_borrowing_history extends BaseJavaMigration {
+
+    private static final int PARTITIONS_AHEAD = 3;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        boolean postgres = "PostgreSQL".equals(context.getConnection().getMetaData().getDatabaseProductName());
+        try (Statement statement = context.getConnection().createStatement()) {
+            if (postgres) {
+                partition(statement);
+            } else {
+                statement.execute("DROP INDEX idx_borrowing_history_book_id");
+                statement.execute("DROP INDEX idx_borrowing_history_borrower_id");
+                statement.execute("DROP INDEX idx_borrowing_history_action_type");
+                statement.execute("DROP INDEX idx_borrowing_history_due_date");
+                statement.execute("DROP INDEX idx_borrowing_history_action_date");
+            }
+        }
+    }
+
+    private void partition(Statement statement) throws Exception {
+        statement.execute("ALTER TABLE open_loans DROP CONSTRAINT fk_open_loans_borrowing_history");
+        statement.execute("ALTER TABLE borrowing_history RENAME TO borrowing_history_unpartitioned");
+        statement.execute("""
+                CREATE TABLE borrowing_history (
+                    id BIGINT NOT NULL,
+                    book_id BIGINT NOT NULL,
+                    borrower_id BIGINT NOT NULL,
+                    action_type VARCHAR(20) NOT NULL,
+                    action_date TIMESTAMP NOT NULL,
+                    due_date TIMESTAMP,
+                    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                    CONSTRAINT chk_action_type CHECK (action_type IN ('BORROWED', 'RETURNED'))
+                ) PARTITION BY RANGE (action_date)""");
+
+        YearMonth current = YearMonth.now();
+        YearMonth first = current;
+        try (ResultSet rs = statement.executeQuery("SELECT MIN(action_date) FROM borrowing_history_unpartitioned")) {
+            rs.next();
+            Timestamp oldest = rs.getTimestamp(1);
+            if (oldest != null && YearMonth.from(oldest.toLocalDateTime()).isBefore(current)) {
+                first = YearMonth.from(oldest.toLocalDateTime());
+            }
+        }
+        for (YearMonth month = first; !month.isAfter(current.plusMonths(PARTITIONS_AHEAD)); month = month.plusMonths(1)) {
+            statement.execute("CREATE TABLE " + partitionName(month) + " PARTITION OF borrowing_history " +
+                    "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        statement.execute("CREATE TABLE borrowing_history_default PARTITION OF borrowing_history DEFAULT");
+
+        statement.execute("INSERT INTO borrowing_history " +
+                "(id, book_id, borrower_id, action_type, action_date, due_date, created_at) " +
+                "SELECT id, book_id, borrower_id, action_type, action_date, due_date, created_at " +
+                "FROM borrowing_history_unpartitioned");
+        statement.execute("DROP TABLE borrowing_history_unpartitioned");
+
+        statement.execute("ALTER TABLE borrowing_history ADD CONSTRAINT borrowing_history_pkey PRIMARY KEY (id, action_date)");
+        statement.execute("ALTER TABLE borrowing_history ADD CONSTRAINT fk_borrowing_history_book " +
+                "FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE");
+        statement.execute("ALTER TABLE borrowing_history ADD CONSTRAINT fk_borrowing_history_borrower " +
+                "FOREIGN KEY (borrower_id) REFERENCES borrowers(id) ON DELETE CASCADE");
+        statement.execute("CREATE INDEX idx_borrowing_history_borrower_action " +
+                "ON borrowing_history(borrower_id, action_type, action_date)");
+        statement.execute("CREATE INDEX idx_borrowing_history_book_action " +
+                "ON borrowing_history(book_id, action_type, action_date)");
+        // Keyset pagination indexes of V6, matching the (action_date, id) order of the cursor queries
+        statement.execute("CREATE INDEX idx_borrowing_history_borrower_date_id " +
+                "ON borrowing_history(borrower_id, action_date, id)");
+        statement.execute("CREATE INDEX idx_borrowing_history_book_date_id " +
+                "ON borrowing_history(book_id, action_date, id)");
+        statement.execute("CREATE INDEX idx_borrowing_history_date_id ON borrowing_history(action_date, id)");
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("borrowing_history_%d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,34 @@
+-- Create open_loans table holding one row per book copy that is currently on loan.
+-- Rows are written together with the BORROWED history record and removed on return,
+-- so current and overdue lookups no longer scan the full borrowing_history table.
+CREATE TABLE open_loans (
+    book_id BIGINT PRIMARY KEY,
+    borrower_id BIGINT NOT NULL,
+    borrowing_history_id BIGINT NOT NULL,
+    borrowed_at TIMESTAMP NOT NULL,
+    due_date TIMESTAMP,
+
+    -- Foreign key constraints
+    CONSTRAINT fk_open_loans_book
+        FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,
+    CONSTRAINT fk_open_loans_borrower
+        FOREIGN KEY (borrower_id) REFERENCES borrowers(id) ON DELETE CASCADE,
+    CONSTRAINT fk_open_loans_borrowing_history
+        FOREIGN KEY (borrowing_history_id) REFERENCES borrowing_history(id) ON DELETE CASCADE,
+    CONSTRAINT uk_open_loans_borrowing_history UNIQUE (borrowing_history_id)
+);
+
+-- Indexes for current and overdue loan lookups
+CREATE INDEX idx_open_loans_borrower ON open_loans(borrower_id, due_date);
+CREATE INDEX idx_open_loans_due_date ON open_loans(due_date);
+
+-- Backfill: every borrowed copy gets its latest BORROWED record by the current borrower
+INSERT INTO open_loans (book_id, borrower_id, borrowing_history_id, borrowed_at, due_date)
+SELECT b.id, b.borrower_id, bh.id, bh.action_date, bh.due_date
+FROM books b
+JOIN borrowing_history bh ON bh.book_id = b.id
+WHERE b.borrower_id IS NOT NULL
+  AND bh.id = (SELECT MAX(bh2.id) FROM borrowing_history bh2
+               WHERE bh2.book_id = b.id
+                 AND bh2.borrower_id = b.borrower_id
+                 AND bh2.action_type = 'BORROWED');
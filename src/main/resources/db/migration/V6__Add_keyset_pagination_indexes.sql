@@ -0,0 +1,14 @@
+-- Composite indexes matching the ORDER BY of the keyset (cursor) pagination queries,
+-- so every page is an index range scan starting at the cursor instead of an offset scan.
+
+-- Available books in ID order (borrower_id IS NULL AND id > ?)
+CREATE INDEX idx_books_borrower_id_id ON books(borrower_id, id);
+
+-- History per borrower / per book / per date range, newest first with the ID as tie breaker
+CREATE INDEX idx_borrowing_history_borrower_date_id ON borrowing_history(borrower_id, action_date, id);
+CREATE INDEX idx_borrowing_history_book_date_id ON borrowing_history(book_id, action_date, id);
+CREATE INDEX idx_borrowing_history_date_id ON borrowing_history(action_date, id);
+
+-- Overdue loans ordered by due date with the book ID as tie breaker
+DROP INDEX idx_open_loans_due_date;
+CREATE INDEX idx_open_loans_due_date ON open_loans(due_date, book_id);
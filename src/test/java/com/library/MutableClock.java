@@ -0,0 +1,41 @@
+package com.library;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A UTC clock for tests that stands still until it is advanced
+ */
+public final class MutableClock extends Clock {
+
+    private Instant instant;
+
+    public MutableClock(Instant instant) {
+        this.instant = instant;
+    }
+
+    public void advanceMinutes(int minutes) {
+        instant = instant.plusSeconds(minutes * 60L);
+    }
+
+    public void advanceDays(int days) {
+        instant = instant.plusSeconds(days * 86_400L);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
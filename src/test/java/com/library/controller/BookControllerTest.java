@@ -1,8 +1,15 @@
 package com.library.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BatchBorrowRequestDto;
+import com.library.dto.BatchLoanResultDto;
+import com.library.dto.BatchReturnRequestDto;
+import com.library.dto.BookImportResultDto;
 import com.library.dto.BookRequestDto;
+import com.library.dto.BookResponseDto;
+import com.library.dto.BookSearchResultDto;
 import com.library.dto.BorrowRequestDto;
+import com.library.dto.PageCursor;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
 import com.library.service.BookService;
@@ -172,7 +179,7 @@ class BookControllerTest {
     @Test
     void getAllBooks_WithBooksExist_ShouldReturn200Ok() throws Exception {
         // Given
-        List<Book> books = Arrays.asList(testBook, borrowedBook);
+        List<BookResponseDto> books = Arrays.asList(BookResponseDto.fromEntity(testBook), BookResponseDto.fromEntity(borrowedBook));
         when(bookService.getAllBooks()).thenReturn(books);
 
         // When & Then
@@ -202,6 +209,165 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    // ========== POST /books/bulk Tests ==========
+
+    @Test
+    void importBooks_WithJsonArray_ShouldReturnImportSummary() throws Exception {
+        // Given
+        BookImportResultDto summary = new BookImportResultDto();
+        summary.recordImported();
+        summary.recordFailed(2, "bad", "Invalid ISBN format: bad");
+        when(bookService.importBooks(any())).thenReturn(summary);
+
+        List<BookRequestDto> books = Arrays.asList(
+                new BookRequestDto("978-0-13-110362-7", "Effective Java", "Joshua Bloch"),
+                new BookRequestDto("bad", "Effective Java", "Joshua Bloch"));
+
+        // When & Then
+        mockMvc.perform(post("/books/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(books)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Invalid ISBN format: bad"));
+    }
+
+    @Test
+    void importBooks_WithNdjson_ShouldPassEveryNonBlankLineToService() throws Exception {
+        // Given
+        List<String> isbns = new java.util.ArrayList<>();
+        when(bookService.importBooks(any())).thenAnswer(invocation -> {
+            java.util.Iterator<BookRequestDto> rows = invocation.getArgument(0);
+            BookImportResultDto summary = new BookImportResultDto();
+            rows.forEachRemaining(row -> {
+                isbns.add(row.getIsbn());
+                summary.recordImported();
+            });
+            return summary;
+        });
+        String body = """
+                {"isbn":"9780131103627","title":"Effective Java","author":"Joshua Bloch"}
+
+                {"isbn":"9780321356680","title":"Clean Code","author":"Robert C. Martin"}
+                """;
+
+        // When & Then
+        mockMvc.perform(post("/books/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+        org.assertj.core.api.Assertions.assertThat(isbns).containsExactly("9780131103627", "9780321356680");
+    }
+
+    @Test
+    void importBooks_WithMalformedNdjsonLine_ShouldReturn400BadRequest() throws Exception {
+        // Given
+        when(bookService.importBooks(any())).thenAnswer(invocation -> {
+            java.util.Iterator<BookRequestDto> rows = invocation.getArgument(0);
+            rows.forEachRemaining(row -> { });
+            return new BookImportResultDto();
+        });
+        String body = """
+                {"isbn":"9780131103627","title":"Effective Java","author":"Joshua Bloch"}
+                {"isbn":"9780321356680","title":
+                """;
+
+        // When & Then
+        mockMvc.perform(post("/books/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.startsWith("Malformed JSON on line 2")));
+    }
+
+    // ========== GET /books/search Tests ==========
+
+    @Test
+    void searchBooks_ShouldReturnRankedResults() throws Exception {
+        // Given
+        when(bookService.searchBooks("effective bloch", 20)).thenReturn(List.of(
+                new BookSearchResultDto("9780131103627", "Effective Java", "Joshua Bloch", 3, 1, 10)));
+
+        // When & Then
+        mockMvc.perform(get("/books/search").param("q", "effective bloch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].isbn").value("9780131103627"))
+                .andExpect(jsonPath("$[0].totalCopies").value(3))
+                .andExpect(jsonPath("$[0].availableCopies").value(1))
+                .andExpect(jsonPath("$[0].score").value(10));
+    }
+
+    @Test
+    void searchBooks_WithoutQuery_ShouldReturn400BadRequest() throws Exception {
+        // Given
+        when(bookService.searchBooks(null, 5))
+                .thenThrow(new IllegalArgumentException("Search query cannot be null or empty"));
+
+        // When & Then
+        mockMvc.perform(get("/books/search").param("limit", "5"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Search query cannot be null or empty"));
+    }
+
+    // ========== GET /books/cursor Tests ==========
+
+    @Test
+    void getBooksPage_WithMoreBooksThanPageSize_ShouldReturnNextCursor() throws Exception {
+        // Given - the service is asked for one extra row to detect the next page
+        when(bookService.getBooksAfter(null, 2)).thenReturn(Arrays.asList(BookResponseDto.fromEntity(testBook), BookResponseDto.fromEntity(borrowedBook)));
+
+        // When & Then
+        mockMvc.perform(get("/books/cursor").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value(PageCursor.of(1L).encode()));
+    }
+
+    @Test
+    void getBooksPage_WithCursorAndStatus_ShouldContinueAfterCursor() throws Exception {
+        // Given
+        when(bookService.getBorrowedBooksAfter(1L, 21)).thenReturn(List.of(BookResponseDto.fromEntity(borrowedBook)));
+
+        // When & Then
+        mockMvc.perform(get("/books/cursor")
+                        .param("status", "borrowed")
+                        .param("cursor", PageCursor.of(1L).encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(2L))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getBooksPage_WithMalformedCursor_ShouldReturn400BadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/books/cursor").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid page cursor"));
+    }
+
+    @Test
+    void getBooksPage_WithUnsupportedStatus_ShouldReturn400BadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/books/cursor").param("status", "lost"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getBooksPage_WithPageSizeAboveMaximum_ShouldReturn400BadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/books/cursor").param("size", "101"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Page size must be between 1 and 100"));
+    }
+
     // ========== POST /books/{bookId}/borrow Tests ==========
 
     @Test
@@ -348,6 +514,89 @@ class BookControllerTest {
         // Note: Spring Boot returns 500 for invalid path variables in this configuration
     }
 
+    // ========== POST /books/batch/borrow and /books/batch/return Tests ==========
+
+    @Test
+    void borrowBooks_WithValidData_ShouldReturnOutcomePerBook() throws Exception {
+        // Given
+        BatchLoanResultDto result = new BatchLoanResultDto();
+        result.recordSucceeded(BookResponseDto.fromEntity(borrowedBook));
+        result.recordFailed(3L, "Book with ID 3 is not available for borrowing");
+        when(bookService.borrowBooks(List.of(2L, 3L), 1L)).thenReturn(result);
+
+        BatchBorrowRequestDto request = new BatchBorrowRequestDto();
+        request.setBorrowerId(1L);
+        request.setBookIds(List.of(2L, 3L));
+
+        // When & Then
+        mockMvc.perform(post("/books/batch/borrow")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(2))
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.outcomes[0].bookId").value(2L))
+                .andExpect(jsonPath("$.outcomes[0].success").value(true))
+                .andExpect(jsonPath("$.outcomes[0].book.borrower.id").value(1L))
+                .andExpect(jsonPath("$.outcomes[1].bookId").value(3L))
+                .andExpect(jsonPath("$.outcomes[1].success").value(false))
+                .andExpect(jsonPath("$.outcomes[1].message").value("Book with ID 3 is not available for borrowing"));
+    }
+
+    @Test
+    void borrowBooks_WithoutBookIds_ShouldReturn400BadRequest() throws Exception {
+        // Given
+        BatchBorrowRequestDto request = new BatchBorrowRequestDto();
+        request.setBorrowerId(1L);
+        request.setBookIds(List.of());
+
+        // When & Then
+        mockMvc.perform(post("/books/batch/borrow")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("VALIDATION_FAILED"));
+    }
+
+    @Test
+    void borrowBooks_WithTooManyBookIds_ShouldReturn400BadRequest() throws Exception {
+        // Given
+        when(bookService.borrowBooks(anyList(), eq(1L)))
+                .thenThrow(new IllegalArgumentException("At most 100 books can be processed at once"));
+
+        BatchBorrowRequestDto request = new BatchBorrowRequestDto();
+        request.setBorrowerId(1L);
+        request.setBookIds(List.of(1L, 2L));
+
+        // When & Then
+        mockMvc.perform(post("/books/batch/borrow")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"))
+                .andExpect(jsonPath("$.message").value("At most 100 books can be processed at once"));
+    }
+
+    @Test
+    void returnBooks_WithValidData_ShouldReturnOutcomePerBook() throws Exception {
+        // Given
+        BatchLoanResultDto result = new BatchLoanResultDto();
+        result.recordSucceeded(BookResponseDto.fromEntity(testBook));
+        when(bookService.returnBooks(List.of(1L))).thenReturn(result);
+
+        BatchReturnRequestDto request = new BatchReturnRequestDto();
+        request.setBookIds(List.of(1L));
+
+        // When & Then
+        mockMvc.perform(post("/books/batch/return")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.outcomes[0].book.available").value(true));
+    }
+
     // ========== General Error Handling Tests ==========
 
     @Test
@@ -1,8 +1,10 @@
 package com.library.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BorrowerImportProgressDto;
 import com.library.dto.BorrowerRequestDto;
 import com.library.dto.BorrowerResponseDto;
+import com.library.dto.PageCursor;
 import com.library.entity.Borrower;
 import com.library.service.BorrowerService;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,11 +12,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -156,6 +163,22 @@ class BorrowerControllerTest {
                 .andExpect(jsonPath("$.message").value("Email already exists: john.doe@email.com"));
     }
 
+    @Test
+    void registerBorrower_WithUniqueConstraintViolation_ShouldReturn409Conflict() throws Exception {
+        // Given
+        when(borrowerService.registerBorrower(anyString(), anyString()))
+                .thenThrow(new DataIntegrityViolationException("Unique index or primary key violation: PUBLIC.BORROWERS(EMAIL)"));
+
+        // When & Then
+        mockMvc.perform(post("/borrowers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isConflict())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value("DATA_CONFLICT"))
+                .andExpect(jsonPath("$.message").value("The request conflicts with existing data"));
+    }
+
     @Test
     void registerBorrower_WithMalformedJson_ShouldReturn400BadRequest() throws Exception {
         // Given
@@ -220,4 +243,112 @@ class BorrowerControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.code").value("VALIDATION_FAILED"));
     }
-}
\ No newline at end of file
+
+    // ========== POST /borrowers/bulk Tests ==========
+
+    @Test
+    void importBorrowers_WithNdjson_ShouldStreamProgressOfEveryNonBlankLine() throws Exception {
+        // Given
+        List<String> emails = mockImport();
+        String body = """
+                {"name":"John Doe","email":"john.doe@email.com"}
+
+                {"name":"Jane Smith","email":
+                {"name":"Bob Wilson","email":"bob.wilson@email.com"}
+                """;
+
+        // When & Then
+        mockMvc.perform(post("/borrowers/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(jsonPath("$.received").value(3))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value(org.hamcrest.Matchers.startsWith("Malformed JSON on line 3")))
+                .andExpect(jsonPath("$.completed").value(true));
+        org.assertj.core.api.Assertions.assertThat(emails).containsExactly("john.doe@email.com", "bob.wilson@email.com");
+    }
+
+    @Test
+    void importBorrowers_WithCsv_ShouldBindFieldsByHeaderName() throws Exception {
+        // Given
+        List<String> emails = mockImport();
+        String body = """
+                email,name
+                john.doe@email.com,John Doe
+                "o'brien@email.com","Mary ""Molly"" O'Brien"
+                jane.smith@email.com,Jane Smith,extra
+                """;
+
+        // When & Then
+        mockMvc.perform(post("/borrowers/bulk")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Too many fields on line 4: expected 2 but found 3"));
+        org.assertj.core.api.Assertions.assertThat(emails).containsExactly("john.doe@email.com", "o'brien@email.com");
+    }
+
+    @Test
+    void importBorrowers_WithEmptyCsv_ShouldReturn400BadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/borrowers/bulk")
+                        .contentType("text/csv")
+                        .content(""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("CSV header line is missing"));
+    }
+
+    // Reads every row like the service would, recording each readable row as created
+    private List<String> mockImport() {
+        List<String> emails = new java.util.ArrayList<>();
+        when(borrowerService.importBorrowers(any(), any())).thenAnswer(invocation -> {
+            java.util.Iterator<BorrowerRequestDto> rows = invocation.getArgument(0);
+            java.util.function.Consumer<BorrowerImportProgressDto> progress = invocation.getArgument(1);
+            BorrowerImportProgressDto result = new BorrowerImportProgressDto();
+            long row = 0;
+            while (rows.hasNext()) {
+                row++;
+                try {
+                    emails.add(rows.next().getEmail());
+                    result.recordCreated();
+                } catch (IllegalArgumentException e) {
+                    result.recordFailed(row, null, e.getMessage());
+                }
+            }
+            result.setCompleted(true);
+            progress.accept(result);
+            return result;
+        });
+        return emails;
+    }
+
+    @Test
+    void getBorrowersPage_WithCursor_ShouldReturnBorrowersAfterCursor() throws Exception {
+        // Given
+        Borrower nextBorrower = new Borrower("Jane Smith", "jane.smith@email.com");
+        nextBorrower.setId(2L);
+        when(borrowerService.getBorrowersAfter(1L, 2)).thenReturn(List.of(BorrowerResponseDto.fromEntity(nextBorrower)));
+
+        // When & Then
+        mockMvc.perform(get("/borrowers/cursor")
+                        .param("cursor", PageCursor.of(1L).encode())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].email").value("jane.smith@email.com"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void getBorrowersPage_WithZeroPageSize_ShouldReturn400BadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/borrowers/cursor").param("size", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Page size must be between 1 and 100"));
+    }
+}
@@ -1,5 +1,10 @@
 package com.library.controller;
 
+import com.library.dto.ActiveBorrowerDto;
+import com.library.dto.BorrowerStatisticsDto;
+import com.library.dto.BorrowingHistoryResponseDto;
+import com.library.dto.PageCursor;
+import com.library.dto.PopularBookDto;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
 import com.library.entity.BorrowingHistory;
@@ -14,17 +19,24 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -64,7 +76,7 @@ class BorrowingHistoryControllerTest {
     void getBorrowerHistory_ShouldReturnHistory_WhenValidBorrowerId() throws Exception {
         // Arrange
         Long borrowerId = 1L;
-        List<BorrowingHistory> history = Arrays.asList(returnHistory, borrowingHistory);
+        List<BorrowingHistoryResponseDto> history = responses(returnHistory, borrowingHistory);
         when(borrowingHistoryService.getHistoryByBorrowerId(borrowerId)).thenReturn(history);
 
         // Act & Assert
@@ -100,8 +112,8 @@ class BorrowingHistoryControllerTest {
     void getBorrowerHistoryPaginated_ShouldReturnPagedHistory_WhenValidParameters() throws Exception {
         // Arrange
         Long borrowerId = 1L;
-        List<BorrowingHistory> historyList = Arrays.asList(returnHistory, borrowingHistory);
-        Page<BorrowingHistory> historyPage = new PageImpl<>(historyList, PageRequest.of(0, 20), historyList.size());
+        List<BorrowingHistoryResponseDto> historyList = responses(returnHistory, borrowingHistory);
+        Page<BorrowingHistoryResponseDto> historyPage = new PageImpl<>(historyList, PageRequest.of(0, 20), historyList.size());
         when(borrowingHistoryService.getHistoryByBorrowerId(eq(borrowerId), any(PageRequest.class))).thenReturn(historyPage);
 
         // Act & Assert
@@ -121,7 +133,7 @@ class BorrowingHistoryControllerTest {
     void getBookHistory_ShouldReturnHistory_WhenValidBookId() throws Exception {
         // Arrange
         Long bookId = 1L;
-        List<BorrowingHistory> history = Arrays.asList(returnHistory, borrowingHistory);
+        List<BorrowingHistoryResponseDto> history = responses(returnHistory, borrowingHistory);
         when(borrowingHistoryService.getHistoryByBookId(bookId)).thenReturn(history);
 
         // Act & Assert
@@ -139,7 +151,7 @@ class BorrowingHistoryControllerTest {
     void getCurrentlyBorrowedBooks_ShouldReturnCurrentBorrowings_WhenValidBorrowerId() throws Exception {
         // Arrange
         Long borrowerId = 1L;
-        List<BorrowingHistory> currentBorrowings = Collections.singletonList(borrowingHistory);
+        List<BorrowingHistoryResponseDto> currentBorrowings = responses(borrowingHistory);
         when(borrowingHistoryService.getCurrentlyBorrowedBooksByBorrower(borrowerId)).thenReturn(currentBorrowings);
 
         // Act & Assert
@@ -160,7 +172,7 @@ class BorrowingHistoryControllerTest {
         overdueHistory.setId(3L);
         overdueHistory.setActionDate(LocalDateTime.now().minusDays(20));
         overdueHistory.setDueDate(LocalDateTime.now().minusDays(6)); // Overdue
-        List<BorrowingHistory> overdueBooks = Collections.singletonList(overdueHistory);
+        List<BorrowingHistoryResponseDto> overdueBooks = responses(overdueHistory);
         when(borrowingHistoryService.getOverdueBooksByBorrower(borrowerId)).thenReturn(overdueBooks);
 
         // Act & Assert
@@ -180,7 +192,7 @@ class BorrowingHistoryControllerTest {
         overdueHistory.setId(3L);
         overdueHistory.setActionDate(LocalDateTime.now().minusDays(20));
         overdueHistory.setDueDate(LocalDateTime.now().minusDays(6)); // Overdue
-        List<BorrowingHistory> overdueBooks = Collections.singletonList(overdueHistory);
+        List<BorrowingHistoryResponseDto> overdueBooks = responses(overdueHistory);
         when(borrowingHistoryService.getAllOverdueBooks()).thenReturn(overdueBooks);
 
         // Act & Assert
@@ -196,7 +208,7 @@ class BorrowingHistoryControllerTest {
     @Test
     void getHistoryByDateRange_ShouldReturnHistory_WhenValidDateRange() throws Exception {
         // Arrange
-        List<BorrowingHistory> history = Arrays.asList(returnHistory, borrowingHistory);
+        List<BorrowingHistoryResponseDto> history = responses(returnHistory, borrowingHistory);
         when(borrowingHistoryService.getHistoryByDateRange(any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(history);
 
@@ -211,12 +223,173 @@ class BorrowingHistoryControllerTest {
                 .andExpect(jsonPath("$[1].id", is(1)));
     }
 
+    @Test
+    void getBorrowerHistoryPage_ShouldReturnNextCursor_WhenMoreRecordsExist() throws Exception {
+        // Arrange
+        when(borrowingHistoryService.getHistoryByBorrowerIdBefore(1L, null, null, 2))
+                .thenReturn(responses(returnHistory, borrowingHistory));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/history/borrowers/{borrowerId}/cursor", 1L).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(2)))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.nextCursor", is(PageCursor.of(returnHistory.getActionDate(), 2L).encode())));
+    }
+
+    @Test
+    void getBorrowerHistoryPage_ShouldContinueBeforeCursor() throws Exception {
+        // Arrange
+        String cursor = PageCursor.of(returnHistory.getActionDate(), 2L).encode();
+        when(borrowingHistoryService.getHistoryByBorrowerIdBefore(1L, returnHistory.getActionDate(), 2L, 2))
+                .thenReturn(responses(borrowingHistory));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/history/borrowers/{borrowerId}/cursor", 1L)
+                .param("size", "1")
+                .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(1)))
+                .andExpect(jsonPath("$.hasNext", is(false)));
+    }
+
+    @Test
+    void getBookHistoryPage_ShouldReturnBadRequest_WhenCursorBelongsToAnotherListing() throws Exception {
+        // Act & Assert - an ID-only cursor from the books listing cannot continue a history listing
+        mockMvc.perform(get("/api/history/books/{bookId}/cursor", 1L)
+                .param("cursor", PageCursor.of(5L).encode()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Invalid page cursor")));
+    }
+
+    @Test
+    void getAllOverdueBooksPage_ShouldUseDueDateAndBookIdAsCursor() throws Exception {
+        // Arrange
+        borrowingHistory.setDueDate(LocalDateTime.now().minusDays(2));
+        BorrowingHistory laterOverdue = new BorrowingHistory(testBook, testBorrower, BorrowingHistory.ActionType.BORROWED);
+        laterOverdue.setId(3L);
+        laterOverdue.setDueDate(LocalDateTime.now().minusDays(1));
+        when(borrowingHistoryService.getOverdueBooksAfter(null, null, 2))
+                .thenReturn(responses(borrowingHistory, laterOverdue));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/history/overdue/cursor").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor", is(PageCursor.of(borrowingHistory.getDueDate(), 1L).encode())));
+    }
+
+    @Test
+    void getHistoryByDateRangePage_ShouldReturnBadRequest_WhenStartDateIsAfterEndDate() throws Exception {
+        // Arrange
+        when(borrowingHistoryService.getHistoryByDateRangeBefore(any(LocalDateTime.class), any(LocalDateTime.class), any(), any(), eq(21)))
+                .thenThrow(new IllegalArgumentException("Start date cannot be after end date"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/history/date-range/cursor")
+                .param("startDate", "2023-08-01T00:00:00")
+                .param("endDate", "2023-07-31T23:59:59"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Start date cannot be after end date")));
+    }
+
+    @Test
+    void exportHistoryByDateRange_ShouldStreamNdjson_ByDefault() throws Exception {
+        // Arrange
+        streamHistory(borrowingHistory, returnHistory);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/history/export")
+                .param("startDate", "2023-07-01T00:00:00")
+                .param("endDate", "2023-07-31T23:59:59"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", containsString("borrowing-history.ndjson")))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"id\":1").contains("\"actionType\":\"BORROWED\"");
+        assertThat(lines[1]).contains("\"id\":2").contains("\"actionType\":\"RETURNED\"");
+    }
+
+    @Test
+    void exportHistoryByDateRange_ShouldStreamCsv_WhenRequested() throws Exception {
+        // Arrange
+        streamHistory(borrowingHistory);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/history/export")
+                .param("startDate", "2023-07-01T00:00:00")
+                .param("endDate", "2023-07-31T23:59:59")
+                .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("id,action_type,action_date");
+        assertThat(lines[1]).startsWith("1,BORROWED,").contains(",9780131103627,Effective Java,Joshua Bloch,1,John Doe,john.doe@email.com");
+    }
+
+    @Test
+    void exportHistoryByDateRange_ShouldReturnBadRequest_WhenFormatIsUnsupported() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/history/export")
+                .param("startDate", "2023-07-01T00:00:00")
+                .param("endDate", "2023-07-31T23:59:59")
+                .param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Unsupported export format")));
+
+        verify(borrowingHistoryService, never()).streamHistoryByDateRange(any(), any(), any());
+    }
+
+    @Test
+    void exportHistoryByDateRange_ShouldReturnBadRequest_WhenStartDateIsAfterEndDate() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/history/export")
+                .param("startDate", "2023-08-01T00:00:00")
+                .param("endDate", "2023-07-31T23:59:59"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Start date cannot be after end date")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<BorrowingHistoryResponseDto> responses(BorrowingHistory... records) {
+        return Arrays.stream(records).map(BorrowingHistoryResponseDto::fromEntity).toList();
+    }
+
+    private void streamHistory(BorrowingHistory... records) {
+        when(borrowingHistoryService.streamHistoryByDateRange(any(LocalDateTime.class), any(LocalDateTime.class), any()))
+                .thenAnswer(invocation -> {
+                    Consumer<BorrowingHistory> consumer = invocation.getArgument(2);
+                    for (BorrowingHistory record : records) {
+                        consumer.accept(record);
+                    }
+                    return (long) records.length;
+                });
+    }
+
     @Test
     void getMostPopularBooks_ShouldReturnPopularBooks_WhenValidLimit() throws Exception {
         // Arrange
-        List<Object[]> popularBooks = Arrays.asList(
-                new Object[]{1L, 5L},
-                new Object[]{2L, 3L}
+        List<PopularBookDto> popularBooks = Arrays.asList(
+                popularBook(1L, "The C Programming Language", 5L),
+                popularBook(2L, "Effective Java", 3L)
         );
         when(borrowingHistoryService.getMostPopularBooks(10)).thenReturn(popularBooks);
 
@@ -226,18 +399,21 @@ class BorrowingHistoryControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0][0]", is(1))) // Book ID
-                .andExpect(jsonPath("$[0][1]", is(5))) // Borrow count
-                .andExpect(jsonPath("$[1][0]", is(2))) // Book ID
-                .andExpect(jsonPath("$[1][1]", is(3))); // Borrow count
+                .andExpect(jsonPath("$[0].bookId", is(1)))
+                .andExpect(jsonPath("$[0].title", is("The C Programming Language")))
+                .andExpect(jsonPath("$[0].isbn", is("9780131103627")))
+                .andExpect(jsonPath("$[0].author", is("Author")))
+                .andExpect(jsonPath("$[0].borrowCount", is(5)))
+                .andExpect(jsonPath("$[1].bookId", is(2)))
+                .andExpect(jsonPath("$[1].borrowCount", is(3)));
     }
 
     @Test
     void getMostActiveBorrowers_ShouldReturnActiveBorrowers_WhenValidLimit() throws Exception {
         // Arrange
-        List<Object[]> activeBorrowers = Arrays.asList(
-                new Object[]{1L, 8L},
-                new Object[]{2L, 5L}
+        List<ActiveBorrowerDto> activeBorrowers = Arrays.asList(
+                activeBorrower(1L, "John Doe", 8L),
+                activeBorrower(2L, "Jane Smith", 5L)
         );
         when(borrowingHistoryService.getMostActiveBorrowers(10)).thenReturn(activeBorrowers);
 
@@ -247,19 +423,20 @@ class BorrowingHistoryControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0][0]", is(1))) // Borrower ID
-                .andExpect(jsonPath("$[0][1]", is(8))) // Borrow count
-                .andExpect(jsonPath("$[1][0]", is(2))) // Borrower ID
-                .andExpect(jsonPath("$[1][1]", is(5))); // Borrow count
+                .andExpect(jsonPath("$[0].borrowerId", is(1)))
+                .andExpect(jsonPath("$[0].name", is("John Doe")))
+                .andExpect(jsonPath("$[0].borrowCount", is(8)))
+                .andExpect(jsonPath("$[1].borrowerId", is(2)))
+                .andExpect(jsonPath("$[1].name", is("Jane Smith")))
+                .andExpect(jsonPath("$[1].borrowCount", is(5)));
     }
 
     @Test
     void getBorrowerStatistics_ShouldReturnStatistics_WhenValidBorrowerId() throws Exception {
         // Arrange
         Long borrowerId = 1L;
-        when(borrowingHistoryService.getTotalBorrowingsByBorrower(borrowerId)).thenReturn(25L);
-        when(borrowingHistoryService.getCurrentBorrowingCount(borrowerId)).thenReturn(3L);
-        when(borrowingHistoryService.hasOverdueBooks(borrowerId)).thenReturn(false);
+        when(borrowingHistoryService.getBorrowerStatistics(borrowerId))
+                .thenReturn(new BorrowerStatisticsDto(borrowerId, 25L, 3L, 0L));
 
         // Act & Assert
         mockMvc.perform(get("/api/history/borrowers/{borrowerId}/statistics", borrowerId))
@@ -268,6 +445,7 @@ class BorrowingHistoryControllerTest {
                 .andExpect(jsonPath("$.borrowerId", is(1)))
                 .andExpect(jsonPath("$.totalBorrowings", is(25)))
                 .andExpect(jsonPath("$.currentBorrowings", is(3)))
+                .andExpect(jsonPath("$.overdueBorrowings", is(0)))
                 .andExpect(jsonPath("$.hasOverdueBooks", is(false)));
     }
 
@@ -275,9 +453,8 @@ class BorrowingHistoryControllerTest {
     void getBorrowerStatistics_ShouldReturnStatisticsWithOverdue_WhenBorrowerHasOverdueBooks() throws Exception {
         // Arrange
         Long borrowerId = 1L;
-        when(borrowingHistoryService.getTotalBorrowingsByBorrower(borrowerId)).thenReturn(15L);
-        when(borrowingHistoryService.getCurrentBorrowingCount(borrowerId)).thenReturn(2L);
-        when(borrowingHistoryService.hasOverdueBooks(borrowerId)).thenReturn(true);
+        when(borrowingHistoryService.getBorrowerStatistics(borrowerId))
+                .thenReturn(new BorrowerStatisticsDto(borrowerId, 15L, 2L, 1L));
 
         // Act & Assert
         mockMvc.perform(get("/api/history/borrowers/{borrowerId}/statistics", borrowerId))
@@ -286,15 +463,28 @@ class BorrowingHistoryControllerTest {
                 .andExpect(jsonPath("$.borrowerId", is(1)))
                 .andExpect(jsonPath("$.totalBorrowings", is(15)))
                 .andExpect(jsonPath("$.currentBorrowings", is(2)))
+                .andExpect(jsonPath("$.overdueBorrowings", is(1)))
                 .andExpect(jsonPath("$.hasOverdueBooks", is(true)));
     }
 
+    @Test
+    void getBorrowerStatistics_ShouldReturn400_WhenBorrowerNotFound() throws Exception {
+        // Arrange
+        when(borrowingHistoryService.getBorrowerStatistics(999L))
+                .thenThrow(new IllegalArgumentException("Borrower not found with ID: 999"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/history/borrowers/{borrowerId}/statistics", 999L))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Borrower not found with ID: 999")));
+    }
+
     @Test
     void getBorrowerHistoryPaginated_ShouldUseDefaultPagination_WhenNoParametersProvided() throws Exception {
         // Arrange
         Long borrowerId = 1L;
-        List<BorrowingHistory> historyList = Collections.singletonList(borrowingHistory);
-        Page<BorrowingHistory> historyPage = new PageImpl<>(historyList, PageRequest.of(0, 20), historyList.size());
+        List<BorrowingHistoryResponseDto> historyList = responses(borrowingHistory);
+        Page<BorrowingHistoryResponseDto> historyPage = new PageImpl<>(historyList, PageRequest.of(0, 20), historyList.size());
         when(borrowingHistoryService.getHistoryByBorrowerId(eq(borrowerId), any(PageRequest.class))).thenReturn(historyPage);
 
         // Act & Assert
@@ -309,7 +499,7 @@ class BorrowingHistoryControllerTest {
     @Test
     void getMostPopularBooks_ShouldUseDefaultLimit_WhenNoLimitProvided() throws Exception {
         // Arrange
-        List<Object[]> popularBooks = Collections.singletonList(new Object[]{1L, 5L});
+        List<PopularBookDto> popularBooks = Collections.singletonList(popularBook(1L, "Effective Java", 5L));
         when(borrowingHistoryService.getMostPopularBooks(10)).thenReturn(popularBooks); // Default limit is 10
 
         // Act & Assert
@@ -322,7 +512,7 @@ class BorrowingHistoryControllerTest {
     @Test
     void getMostActiveBorrowers_ShouldUseDefaultLimit_WhenNoLimitProvided() throws Exception {
         // Arrange
-        List<Object[]> activeBorrowers = Collections.singletonList(new Object[]{1L, 8L});
+        List<ActiveBorrowerDto> activeBorrowers = Collections.singletonList(activeBorrower(1L, "John Doe", 8L));
         when(borrowingHistoryService.getMostActiveBorrowers(10)).thenReturn(activeBorrowers); // Default limit is 10
 
         // Act & Assert
@@ -331,4 +521,43 @@ class BorrowingHistoryControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMostPopularBooks_ShouldUseWindowedRanking_WhenDaysProvided() throws Exception {
+        // Arrange
+        List<PopularBookDto> popularBooks = Collections.singletonList(popularBook(2L, "Effective Java", 4L));
+        when(borrowingHistoryService.getMostPopularBooks(10, 7)).thenReturn(popularBooks);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/history/statistics/popular-books")
+                .param("days", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookId", is(2)))
+                .andExpect(jsonPath("$[0].borrowCount", is(4)));
+    }
+
+    @Test
+    void getMostActiveBorrowers_ShouldReturn400_WhenDaysNotSupported() throws Exception {
+        // Arrange
+        when(borrowingHistoryService.getMostActiveBorrowers(10, 14))
+                .thenThrow(new IllegalArgumentException("Days must be 7 or 30"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/history/statistics/active-borrowers")
+                .param("days", "14"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Days must be 7 or 30")));
+    }
+
+    private static PopularBookDto popularBook(Long id, String title, long borrowCount) {
+        PopularBookDto book = new PopularBookDto(id, "9780131103627", title, "Author");
+        book.setBorrowCount(borrowCount);
+        return book;
+    }
+
+    private static ActiveBorrowerDto activeBorrower(Long id, String name, long borrowCount) {
+        ActiveBorrowerDto borrower = new ActiveBorrowerDto(id, name, name.toLowerCase().replace(' ', '.') + "@email.com");
+        borrower.setBorrowCount(borrowCount);
+        return borrower;
+    }
+}
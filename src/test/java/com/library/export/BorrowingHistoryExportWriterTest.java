@@ -0,0 +1,79 @@
+package com.library.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.entity.BorrowingHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BorrowingHistoryExportWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private BorrowingHistory history;
+
+    @BeforeEach
+    void setUp() {
+        Book book = new Book("9780131103627", "Patterns, \"Practices\" and More", "Joshua Bloch");
+        book.setId(7L);
+        Borrower borrower = new Borrower("John Doe", "john.doe@email.com");
+        borrower.setId(3L);
+        history = new BorrowingHistory(book, borrower, BorrowingHistory.ActionType.BORROWED,
+                LocalDateTime.of(2023, 8, 13, 14, 30));
+        history.setId(11L);
+        history.setActionDate(LocalDateTime.of(2023, 7, 30, 14, 30));
+    }
+
+    @Test
+    void csv_ShouldWriteHeaderAndQuoteFieldsContainingSeparatorsOrQuotes() throws Exception {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        try (BorrowingHistoryExportWriter writer = BorrowingHistoryExportWriter.create(ExportFormat.CSV, output, objectMapper)) {
+            writer.write(history);
+        }
+
+        // Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines[0]).isEqualTo(String.join(",", BorrowingHistoryExportWriter.CSV_HEADER));
+        assertThat(lines[1]).isEqualTo("11,BORROWED,2023-07-30T14:30,2023-08-13T14:30,,7,9780131103627,"
+                + "\"Patterns, \"\"Practices\"\" and More\",Joshua Bloch,3,John Doe,john.doe@email.com");
+    }
+
+    @Test
+    void ndjson_ShouldWriteOneDocumentPerLine() throws Exception {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        try (BorrowingHistoryExportWriter writer = BorrowingHistoryExportWriter.create(ExportFormat.NDJSON, output, objectMapper)) {
+            writer.write(history);
+            writer.write(history);
+        }
+
+        // Assert
+        String body = output.toString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[1]).get("book").get("id").asLong()).isEqualTo(7L);
+    }
+
+    @Test
+    void fromParameter_ShouldIgnoreCase_AndRejectUnknownFormats() {
+        assertThat(ExportFormat.fromParameter("CSV")).isEqualTo(ExportFormat.CSV);
+        assertThat(ExportFormat.fromParameter("ndjson")).isEqualTo(ExportFormat.NDJSON);
+        assertThatThrownBy(() -> ExportFormat.fromParameter("xml"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unsupported export format: xml");
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.integration;
+
+import com.library.dto.BatchLoanResultDto;
+import com.library.entity.BorrowingHistory.ActionType;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowingHistoryRepository;
+import com.library.repository.OpenLoanRepository;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import com.library.service.impl.BookAvailabilityIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BatchLoanIntegrationTest {
+
+    private static final String ISBN = "9780131103627";
+    private static final long ISBN13 = 9780131103627L;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowingHistoryRepository borrowingHistoryRepository;
+
+    @Autowired
+    private OpenLoanRepository openLoanRepository;
+
+    @Autowired
+    private BookAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long borrowerId;
+
+    @BeforeEach
+    void setUp() {
+        borrowerId = borrowerService.registerBorrower("John Doe", "john.doe@email.com").getId();
+    }
+
+    @Test
+    void borrowBooksAndReturnBooks_ShouldKeepBooksLoansHistoryAndIndexInStep() {
+        // Arrange
+        List<Long> bookIds = addCopies(3);
+        Long otherBorrowerId = borrowerService.registerBorrower("Jane Smith", "jane.smith@email.com").getId();
+        bookService.borrowBookById(bookIds.get(2), otherBorrowerId);
+
+        // Act
+        BatchLoanResultDto borrowed = bookService.borrowBooks(bookIds, borrowerId);
+
+        // Assert
+        assertThat(borrowed.getSucceeded()).isEqualTo(2);
+        assertThat(borrowed.getOutcomes().get(2).getMessage())
+                .isEqualTo("Book with ID " + bookIds.get(2) + " is not available for borrowing");
+        assertThat(bookRepository.findById(bookIds.get(0)).orElseThrow().getBorrower().getId()).isEqualTo(borrowerId);
+        assertThat(bookRepository.findById(bookIds.get(2)).orElseThrow().getBorrower().getId()).isEqualTo(otherBorrowerId);
+        assertThat(openLoanRepository.countByBorrowerId(borrowerId)).isEqualTo(2);
+        assertThat(borrowingHistoryRepository.countBorrowingsByBorrower(borrowerId)).isEqualTo(2);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN13)).isZero();
+
+        // Act
+        BatchLoanResultDto returned = bookService.returnBooks(bookIds);
+
+        // Assert
+        assertThat(returned.getSucceeded()).isEqualTo(3);
+        assertThat(bookRepository.findAll()).allSatisfy(book -> assertThat(book.isAvailable()).isTrue());
+        assertThat(openLoanRepository.count()).isZero();
+        assertThat(borrowingHistoryRepository.findByBorrowerIdAndActionTypeOrderByActionDateDesc(borrowerId, ActionType.RETURNED))
+                .hasSize(2);
+        assertThat(borrowingHistoryRepository.findByBorrowerIdAndActionTypeOrderByActionDateDesc(otherBorrowerId, ActionType.RETURNED))
+                .hasSize(1);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN13)).isEqualTo(3);
+    }
+
+    @Test
+    void borrowBooks_ShouldPrepareTheSameNumberOfStatementsWhateverTheBatchSize() {
+        // Arrange
+        List<Long> fewBooks = addCopies(2);
+        List<Long> manyBooks = addCopies(40);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Act
+        statistics.clear();
+        bookService.borrowBooks(fewBooks, borrowerId);
+        long fewStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        bookService.borrowBooks(manyBooks, borrowerId);
+        long manyStatements = statistics.getPrepareStatementCount();
+
+        // Assert - history IDs come from the sequence in blocks, so at most one more block may be fetched
+        assertThat(manyStatements).isLessThanOrEqualTo(fewStatements + 1);
+    }
+
+    private List<Long> addCopies(int copies) {
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            bookIds.add(bookService.addBook(ISBN, "Effective Java", "Joshua Bloch").getId());
+        }
+        return bookIds;
+    }
+}
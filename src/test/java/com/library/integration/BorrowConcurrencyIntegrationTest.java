@@ -0,0 +1,188 @@
+package com.library.integration;
+
+import com.library.entity.Book;
+import com.library.entity.BorrowingHistory.ActionType;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowingHistoryRepository;
+import com.library.repository.OpenLoanRepository;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import com.library.service.impl.BookAvailabilityIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BorrowConcurrencyIntegrationTest {
+
+    private static final String ISBN = "9780131103627";
+    private static final long ISBN13 = 9780131103627L;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowingHistoryRepository borrowingHistoryRepository;
+
+    @Autowired
+    private OpenLoanRepository openLoanRepository;
+
+    @Autowired
+    private BookAvailabilityIndex availabilityIndex;
+
+    @Test
+    void borrowBook_ShouldNeverAllocateACopyTwice_WhenManyBorrowersRaceForOneIsbn() throws Exception {
+        // Arrange
+        int copies = 50;
+        int attempts = 2_000;
+        for (int i = 0; i < copies; i++) {
+            bookService.addBook(ISBN, "Effective Java", "Joshua Bloch");
+        }
+        List<Long> borrowerIds = registerBorrowers(THREADS);
+
+        Set<Long> claimedBookIds = ConcurrentHashMap.newKeySet();
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+
+        // Act
+        runConcurrently(attempts, attempt -> {
+            try {
+                Book book = bookService.borrowBook(ISBN, borrowerIds.get(attempt % borrowerIds.size()));
+                successes.incrementAndGet();
+                claimedBookIds.add(book.getId());
+            } catch (IllegalStateException e) {
+                rejections.incrementAndGet();
+            }
+        });
+
+        // Assert
+        assertThat(successes.get()).isEqualTo(copies);
+        assertThat(claimedBookIds).hasSize(copies);
+        assertThat(rejections.get()).isEqualTo(attempts - copies);
+        assertThat(bookRepository.countAvailableBooksByIsbn(ISBN13)).isZero();
+        assertThat(availabilityIndex.getAvailableCopies(ISBN13)).isZero();
+        assertThat(availabilityIndex.getTotalCopies(ISBN13)).isEqualTo(copies);
+        assertThat(openLoanRepository.count()).isEqualTo(copies);
+        for (Long bookId : claimedBookIds) {
+            assertThat(borrowingHistoryRepository.findByBookIdAndActionTypeOrderByActionDateDesc(bookId, ActionType.BORROWED))
+                    .hasSize(1);
+        }
+    }
+
+    @Test
+    void borrowBookById_ShouldHaveExactlyOneWinner_WhenManyBorrowersRaceForOneCopy() throws Exception {
+        // Arrange
+        Long bookId = bookService.addBook(ISBN, "Effective Java", "Joshua Bloch").getId();
+        List<Long> borrowerIds = registerBorrowers(THREADS);
+
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+
+        // Act
+        runConcurrently(500, attempt -> {
+            try {
+                bookService.borrowBookById(bookId, borrowerIds.get(attempt % borrowerIds.size()));
+                successes.incrementAndGet();
+            } catch (IllegalStateException e) {
+                rejections.incrementAndGet();
+            }
+        });
+
+        // Assert
+        assertThat(successes.get()).isEqualTo(1);
+        assertThat(rejections.get()).isEqualTo(499);
+        assertThat(borrowingHistoryRepository.findByBookIdAndActionTypeOrderByActionDateDesc(bookId, ActionType.BORROWED))
+                .hasSize(1);
+    }
+
+    @Test
+    void borrowAndReturn_ShouldKeepHistoryBalanced_WhenCopiesChurnConcurrently() throws Exception {
+        // Arrange
+        int copies = 8;
+        for (int i = 0; i < copies; i++) {
+            bookService.addBook(ISBN, "Effective Java", "Joshua Bloch");
+        }
+        List<Long> borrowerIds = registerBorrowers(THREADS);
+
+        // Act - every successful borrow is immediately followed by a return of the same copy
+        runConcurrently(1_000, attempt -> {
+            try {
+                Book book = bookService.borrowBook(ISBN, borrowerIds.get(attempt % borrowerIds.size()));
+                bookService.returnBook(book.getId());
+            } catch (IllegalStateException e) {
+                // all copies were claimed by other threads at that moment
+            }
+        });
+
+        // Assert
+        assertThat(bookRepository.countAvailableBooksByIsbn(ISBN13)).isEqualTo(copies);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN13)).isEqualTo(copies);
+        assertThat(openLoanRepository.count()).isZero();
+        for (Book book : bookRepository.findByIsbn13(ISBN13)) {
+            int borrowed = borrowingHistoryRepository
+                    .findByBookIdAndActionTypeOrderByActionDateDesc(book.getId(), ActionType.BORROWED).size();
+            int returned = borrowingHistoryRepository
+                    .findByBookIdAndActionTypeOrderByActionDateDesc(book.getId(), ActionType.RETURNED).size();
+            assertThat(borrowed).isEqualTo(returned);
+        }
+    }
+
+    private List<Long> registerBorrowers(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(borrowerService.registerBorrower("Concurrent Reader", "reader" + i + "@example.com").getId());
+        }
+        return ids;
+    }
+
+    private void runConcurrently(int attempts, AttemptAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                int attempt = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    action.run(attempt);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface AttemptAction {
+        void run(int attempt);
+    }
+}
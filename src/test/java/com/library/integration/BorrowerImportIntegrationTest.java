@@ -0,0 +1,117 @@
+package com.library.integration;
+
+import com.library.dto.BorrowerImportProgressDto;
+import com.library.dto.BorrowerRequestDto;
+import com.library.entity.Borrower;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BorrowerService;
+import com.library.service.impl.BorrowerEmailFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BorrowerImportIntegrationTest {
+
+    private static final int ROWS = 2_500;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private BorrowerEmailFilter emailFilter;
+
+    @Test
+    void importBorrowers_ShouldRegisterEveryRowAndReportProgressPerChunk() {
+        // Arrange
+        List<BorrowerRequestDto> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new BorrowerRequestDto("Student Reader", "student" + i + "@university.edu"));
+        }
+        long borrowersBefore = borrowerRepository.count();
+        List<Long> received = new ArrayList<>();
+
+        // Act
+        BorrowerImportProgressDto result = borrowerService.importBorrowers(rows.iterator(),
+                progress -> received.add(progress.getReceived()));
+
+        // Assert
+        assertThat(received).containsExactly(1000L, 2000L, 2500L);
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getCreated()).isEqualTo(ROWS);
+        assertThat(result.getFailed()).isZero();
+        assertThat(borrowerRepository.count()).isEqualTo(borrowersBefore + ROWS);
+        assertThat(emailFilter.mightBeTaken("student2499@university.edu")).isTrue();
+    }
+
+    @Test
+    void importBorrowers_ShouldUpdateExistingBorrowersAndReportRejectedRows() {
+        // Arrange
+        Long renamedId = borrowerService.registerBorrower("Jon Doe", "john.doe@email.com").getId();
+        borrowerService.registerBorrower("Jane Smith", "jane.smith@email.com");
+        // Cache the borrower and the lookup of an email that is still free
+        borrowerService.findBorrowerById(renamedId);
+        assertThat(borrowerService.findBorrowerByEmail("new.reader@email.com")).isEmpty();
+        Iterator<BorrowerRequestDto> rows = rows(
+                new BorrowerRequestDto("John Doe", " John.Doe@Email.com "),
+                new BorrowerRequestDto("Jane Smith", "jane.smith@email.com"),
+                new BorrowerRequestDto("New Reader", "new.reader@email.com"),
+                new BorrowerRequestDto("Other Reader", "NEW.READER@email.com"),
+                new BorrowerRequestDto("Bad Email", "not-an-email"),
+                null);
+        List<BorrowerImportProgressDto.RowError> errors = new ArrayList<>();
+
+        // Act
+        BorrowerImportProgressDto result = borrowerService.importBorrowers(rows,
+                progress -> errors.addAll(progress.getErrors()));
+
+        // Assert
+        assertThat(result.getReceived()).isEqualTo(7);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(errors).extracting(BorrowerImportProgressDto.RowError::getRow).containsExactly(6L, 4L, 5L, 7L);
+        assertThat(errors).extracting(BorrowerImportProgressDto.RowError::getMessage).containsExactly(
+                "Malformed JSON on line 6",
+                "Duplicate email in import: new.reader@email.com (first on row 3)",
+                "Email format is invalid: not-an-email",
+                "Borrower cannot be null");
+        assertThat(borrowerService.findBorrowerById(renamedId)).map(Borrower::getName).contains("John Doe");
+        assertThat(borrowerService.findBorrowerByEmail("new.reader@email.com")).map(Borrower::getName)
+                .contains("New Reader");
+    }
+
+    // Yields the rows in order, failing to read the sixth like a malformed request line
+    private static Iterator<BorrowerRequestDto> rows(BorrowerRequestDto... borrowers) {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next <= borrowers.length;
+            }
+
+            @Override
+            public BorrowerRequestDto next() {
+                if (next++ == 5) {
+                    throw new IllegalArgumentException("Malformed JSON on line 6");
+                }
+                return borrowers[next > 5 ? next - 2 : next - 1];
+            }
+        };
+    }
+}
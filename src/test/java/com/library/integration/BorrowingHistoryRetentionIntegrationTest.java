@@ -0,0 +1,185 @@
+package com.library.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.entity.BorrowingHistory;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.repository.BorrowingHistoryRepository;
+import com.library.repository.OpenLoanRepository;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import com.library.service.impl.BorrowingHistoryRetention;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BorrowingHistoryRetentionIntegrationTest {
+
+    private static final YearMonth THREE_YEARS_AGO = YearMonth.now().minusYears(3);
+    private static final YearMonth TWO_YEARS_AGO = YearMonth.now().minusYears(2);
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void retentionProperties(DynamicPropertyRegistry registry) {
+        registry.add("library.history.retention-months", () -> "12");
+        registry.add("library.history.archive-directory", () -> archiveDirectory.toString());
+    }
+
+    @Autowired
+    private BorrowingHistoryRetention retention;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private BorrowingHistoryRepository borrowingHistoryRepository;
+
+    @Autowired
+    private OpenLoanRepository openLoanRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Book book;
+    private Borrower borrower;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (var files = Files.list(archiveDirectory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Long borrowerId = borrowerService.registerBorrower("Regular Reader", "regular.reader@email.com").getId();
+        Long bookId = bookService.addBook("9780131103627", "Effective Java", "Joshua Bloch").getId();
+        borrower = borrowerRepository.findById(borrowerId).orElseThrow();
+        book = bookRepository.findById(bookId).orElseThrow();
+    }
+
+    @Test
+    void archive_ShouldMoveMonthsPastRetentionToCompressedFiles() throws IOException {
+        // Arrange
+        BorrowingHistory borrowed = record(BorrowingHistory.ActionType.BORROWED, THREE_YEARS_AGO.atDay(10).atTime(9, 0));
+        BorrowingHistory returned = record(BorrowingHistory.ActionType.RETURNED, THREE_YEARS_AGO.atDay(20).atTime(9, 0));
+        BorrowingHistory later = record(BorrowingHistory.ActionType.BORROWED, TWO_YEARS_AGO.atDay(1).atStartOfDay());
+        bookService.borrowBookById(book.getId(), borrower.getId());
+
+        // Act
+        long archived = retention.archive();
+
+        // Assert
+        assertThat(archived).isEqualTo(3);
+        assertThat(readArchive(THREE_YEARS_AGO)).extracting(record -> record.get("id").asLong())
+                .containsExactly(borrowed.getId(), returned.getId());
+        assertThat(readArchive(TWO_YEARS_AGO)).extracting(record -> record.get("id").asLong())
+                .containsExactly(later.getId());
+        assertThat(readArchive(THREE_YEARS_AGO).get(0).get("book").get("title").asText()).isEqualTo("Effective Java");
+        assertThat(borrowingHistoryRepository.findAll()).hasSize(1)
+                .allSatisfy(record -> assertThat(record.getActionDate()).isAfter(LocalDateTime.now().minusDays(1)));
+    }
+
+    @Test
+    void archive_ShouldKeepMonthsFromTheOldestOpenLoan() throws IOException {
+        // Arrange
+        BorrowingHistory returned = record(BorrowingHistory.ActionType.RETURNED, THREE_YEARS_AGO.atDay(15).atStartOfDay());
+        bookService.borrowBookById(book.getId(), borrower.getId());
+        LocalDateTime borrowedAt = TWO_YEARS_AGO.atDay(15).atStartOfDay();
+        Long borrowedId = openLoanRepository.findAll().get(0).getBorrowing().getId();
+        jdbcTemplate.update("UPDATE borrowing_history SET action_date = ? WHERE id = ?", borrowedAt, borrowedId);
+        jdbcTemplate.update("UPDATE open_loans SET borrowed_at = ?", borrowedAt);
+
+        // Act
+        long archived = retention.archive();
+
+        // Assert
+        assertThat(archived).isEqualTo(1);
+        assertThat(readArchive(THREE_YEARS_AGO)).extracting(record -> record.get("id").asLong())
+                .containsExactly(returned.getId());
+        assertThat(archiveFile(TWO_YEARS_AGO)).doesNotExist();
+        assertThat(borrowingHistoryRepository.findById(borrowedId)).isPresent();
+        assertThat(openLoanRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void archive_ShouldAppendToTheArchiveOfAMonthArchivedBefore() throws IOException {
+        // Arrange
+        BorrowingHistory first = record(BorrowingHistory.ActionType.BORROWED, THREE_YEARS_AGO.atDay(10).atStartOfDay());
+        retention.archive();
+        BorrowingHistory second = record(BorrowingHistory.ActionType.RETURNED, THREE_YEARS_AGO.atDay(20).atStartOfDay());
+
+        // Act
+        long archived = retention.archive();
+
+        // Assert
+        assertThat(archived).isEqualTo(1);
+        assertThat(readArchive(THREE_YEARS_AGO)).extracting(record -> record.get("id").asLong())
+                .containsExactly(first.getId(), second.getId());
+        assertThat(borrowingHistoryRepository.count()).isZero();
+    }
+
+    private BorrowingHistory record(BorrowingHistory.ActionType actionType, LocalDateTime actionDate) {
+        BorrowingHistory history = new BorrowingHistory(book, borrower, actionType);
+        history.setActionDate(actionDate);
+        if (actionType == BorrowingHistory.ActionType.BORROWED) {
+            history.setDueDate(actionDate.plusWeeks(2));
+        }
+        return borrowingHistoryRepository.save(history);
+    }
+
+    private Path archiveFile(YearMonth month) {
+        return archiveDirectory.resolve("borrowing-history-" + month + ".ndjson.gz");
+    }
+
+    private List<JsonNode> readArchive(YearMonth month) throws IOException {
+        List<JsonNode> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archiveFile(month))), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                records.add(objectMapper.readTree(line));
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.integration;
+
+import com.library.dto.BookImportResultDto;
+import com.library.dto.BookRequestDto;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.service.BookService;
+import com.library.service.impl.BookAvailabilityIndex;
+import com.library.validation.IsbnValidator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BulkImportIntegrationTest {
+
+    private static final int ROWS = 5_000;
+    private static final int ISBNS = 50;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void importBooks_ShouldInsertEveryRowInJdbcBatches() {
+        // Arrange
+        List<BookRequestDto> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new BookRequestDto(isbn13(i % ISBNS), "Bulk Title " + (i % ISBNS), "Bulk Author"));
+        }
+        long booksBefore = bookRepository.count();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        BookImportResultDto result = bookService.importBooks(rows.iterator());
+
+        // Assert
+        assertThat(result.getImported()).isEqualTo(ROWS);
+        assertThat(result.getFailed()).isZero();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        // one statement per JDBC batch and per sequence allocation, not one per row
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(ROWS / 5);
+        assertThat(bookRepository.count()).isEqualTo(booksBefore + ROWS);
+        assertThat(availabilityIndex.getTotalCopies(IsbnValidator.toIsbn13(isbn13(0)))).isEqualTo(ROWS / ISBNS);
+        assertThat(availabilityIndex.getAvailableCopies(IsbnValidator.toIsbn13(isbn13(0)))).isEqualTo(ROWS / ISBNS);
+    }
+
+    @Test
+    void importBooks_ShouldKeepIdsUniqueAcrossImportsAndSingleAdds() {
+        // Arrange
+        List<BookRequestDto> rows = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            rows.add(new BookRequestDto(isbn13(i), "Bulk Title " + i, "Bulk Author"));
+        }
+
+        // Act
+        Book before = bookService.addBook(isbn13(1_000), "Single Title", "Single Author");
+        bookService.importBooks(rows.iterator());
+        Book after = bookService.addBook(isbn13(1_001), "Single Title", "Single Author");
+
+        // Assert
+        List<Long> ids = bookRepository.findAll().stream().map(Book::getId).toList();
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(after.getId()).isGreaterThan(before.getId());
+        assertThat(bookRepository.findByIsbn13(IsbnValidator.toIsbn13(isbn13(1_001)))).extracting(Book::getId).containsExactly(after.getId());
+    }
+
+    private static String isbn13(long sequence) {
+        String body = String.format("978%09d", 500_000_000L + sequence);
+        int sum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            int digit = body.charAt(i) - '0';
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return body + ((10 - sum % 10) % 10);
+    }
+}
@@ -0,0 +1,136 @@
+package com.library.integration;
+
+import com.library.MutableClock;
+import com.library.config.LibraryHealthIndicator;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.repository.OpenLoanRepository;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "management.endpoint.health.show-details=always")
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class HealthProbesIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private LibraryHealthIndicator libraryHealthIndicator;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private OpenLoanRepository openLoanRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    void readiness_ShouldReportTheCountsOfTheLastRefresh() throws Exception {
+        // Arrange
+        Long bookId = bookService.addBook("9780131103627", "Effective Java", "Joshua Bloch").getId();
+        bookService.addBook("9780132350884", "Clean Code", "Robert C. Martin");
+        Long borrowerId = borrowerService.registerBorrower("John Doe", "john.doe@email.com").getId();
+        bookService.borrowBookById(bookId, borrowerId);
+        libraryHealthIndicator.refresh();
+        bookService.addBook("9780201633610", "Design Patterns", "Erich Gamma");
+
+        // Act & Assert - the book added after the refresh is not counted yet
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.components.library.details.total-books").value(2))
+                .andExpect(jsonPath("$.components.library.details.total-borrowers").value(1))
+                .andExpect(jsonPath("$.components.library.details.available-books").value(1))
+                .andExpect(jsonPath("$.components.library.details.borrowed-books").value(1))
+                .andExpect(jsonPath("$.components.db.status").value("UP"));
+
+        libraryHealthIndicator.refresh();
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(jsonPath("$.components.library.details.total-books").value(3));
+    }
+
+    @Test
+    void liveness_ShouldNotDependOnTheDatabase() throws Exception {
+        mockMvc.perform(get("/actuator/health/liveness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.components").doesNotExist());
+    }
+
+    @Test
+    void health_ShouldBeDown_WhenTheRefreshFails() {
+        // Arrange
+        BookRepository failingRepository = mock(BookRepository.class);
+        when(failingRepository.count()).thenThrow(new IllegalStateException("Connection refused"));
+        LibraryHealthIndicator indicator = new LibraryHealthIndicator(failingRepository, borrowerRepository,
+                openLoanRepository, Duration.ofMinutes(2), Clock.systemUTC());
+
+        // Act
+        indicator.refresh();
+        Health health = indicator.health();
+
+        // Assert
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("error", "Connection refused");
+    }
+
+    @Test
+    void health_ShouldBeDown_WhenTheLastRefreshIsTooOld() {
+        // Arrange
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-15T10:00:00Z"));
+        LibraryHealthIndicator indicator = new LibraryHealthIndicator(bookRepository, borrowerRepository,
+                openLoanRepository, Duration.ofMinutes(2), clock);
+        indicator.refresh();
+
+        // Act
+        Status fresh = indicator.health().getStatus();
+        clock.advanceMinutes(3);
+        Health stale = indicator.health();
+
+        // Assert
+        assertThat(fresh).isEqualTo(Status.UP);
+        assertThat(stale.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(stale.getDetails()).containsEntry("checked-at", "2024-01-15T10:00:00Z");
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -34,6 +35,9 @@ public class LibraryManagementIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -276,6 +280,21 @@ public class LibraryManagementIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Email already exists: john.doe@email.com"));
     }
 
+    @Test
+    void duplicateEmailRegistration_ShouldFailOnUniqueConstraint_WhenFilterHasNotSeenEmail() throws Exception {
+        // Inserted behind the service's back, so only the unique constraint catches the duplicate
+        jdbcTemplate.update("INSERT INTO borrowers (name, email, created_at) VALUES (?, ?, CURRENT_TIMESTAMP)",
+                "John Doe", "john.doe@email.com");
+
+        BorrowerRequestDto borrowerRequest = new BorrowerRequestDto("Jane Smith", "john.doe@email.com");
+        mockMvc.perform(post("/borrowers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(borrowerRequest)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("BUSINESS_RULE_VIOLATION"))
+                .andExpect(jsonPath("$.message").value("Email already exists: john.doe@email.com"));
+    }
+
     @Test
     void isbnConsistencyValidation_ShouldFailWithDifferentTitleOrAuthor() throws Exception {
         // Add first book
@@ -362,4 +381,33 @@ public class LibraryManagementIntegrationTest {
                 .andExpect(jsonPath("$.code").value("INVALID_REQUEST"))
                 .andExpect(jsonPath("$.message").value("Book not found with ID: 999"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void bookSearch_ShouldRankAddedBooksWithTheirCopyCounts() throws Exception {
+        // Add two copies of one book and one copy of another
+        for (BookRequestDto request : new BookRequestDto[]{
+                new BookRequestDto("978-0-13-110362-7", "Effective Java", "Joshua Bloch"),
+                new BookRequestDto("978-0-13-110362-7", "Effective Java", "Joshua Bloch"),
+                new BookRequestDto("978-0-321-35668-0", "Clean Code", "Robert C. Martin")}) {
+            mockMvc.perform(post("/books")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/books/search").param("q", "effective BLOCH"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].isbn").value("9780131103627"))
+                .andExpect(jsonPath("$[0].totalCopies").value(2))
+                .andExpect(jsonPath("$[0].availableCopies").value(2));
+
+        mockMvc.perform(get("/books/search").param("q", "code"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Clean Code"));
+
+        mockMvc.perform(get("/books/search").param("q", "co"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.library.integration;
+
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MetricsIntegrationTest {
+
+    private static final String ISBN = "9780131103627";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void borrowAndReturn_ShouldRecordServiceTimersCountersAndGauges() {
+        // Arrange
+        Long bookId = bookService.addBook(ISBN, "Effective Java", "Joshua Bloch").getId();
+        Long borrowerId = borrowerService.registerBorrower("John Doe", "john.doe@email.com").getId();
+
+        // Act
+        bookService.borrowBookById(bookId, borrowerId);
+        double openWhileBorrowed = meterRegistry.get("library.loans.open").gauge().value();
+        assertThatThrownBy(() -> bookService.borrowBook(ISBN, borrowerId)).isInstanceOf(IllegalStateException.class);
+        bookService.returnBook(bookId);
+
+        // Assert
+        Timer borrowTimer = meterRegistry.get("library.service")
+                .tag("class", "com.library.service.impl.BookServiceImpl")
+                .tag("method", "borrowBookById")
+                .timer();
+        assertThat(borrowTimer.count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.service")
+                .tag("method", "borrowBook")
+                .tag("exception", "IllegalStateException")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.service")
+                .tag("class", "com.library.service.impl.BorrowerServiceImpl")
+                .tag("method", "registerBorrower")
+                .timer().count()).isEqualTo(1);
+
+        assertThat(meterRegistry.get("library.books.borrowed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.books.returned").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.rejections").tag("reason", "no_available_copies").counter().count())
+                .isEqualTo(1);
+
+        assertThat(openWhileBorrowed).isEqualTo(1);
+        assertThat(meterRegistry.get("library.loans.open").gauge().value()).isZero();
+        assertThat(meterRegistry.get("library.loans.overdue").gauge().value()).isZero();
+    }
+
+    @Test
+    void repositoryCalls_ShouldBeTimedPerMethod() {
+        // Act
+        bookService.addBook(ISBN, "Effective Java", "Joshua Bloch");
+
+        // Assert
+        assertThat(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "BookRepository")
+                .tag("method", "save")
+                .timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.library.integration;
+
+import com.library.config.ReplicaLagMonitor;
+import com.library.dto.BorrowerResponseDto;
+import com.library.entity.Borrower;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BorrowerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles({"test", "read-replica"})
+@TestPropertySource(properties = {
+        "library.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica.username=sa",
+        "library.datasource.replica.password=",
+        "library.datasource.replica.lag-query=SELECT lag_seconds FROM replica_status",
+        "library.datasource.replica.max-lag=PT10S",
+        "library.datasource.replica.lag-check-interval=PT1H",
+        "library.health.refresh-interval=PT1H"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReadReplicaIntegrationTest {
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        // The replica is a second, empty database: give it the schema Hibernate generated on the primary
+        replica.execute("DROP ALL OBJECTS");
+        for (String statement : primary.queryForList("SCRIPT NODATA", String.class)) {
+            if (!statement.startsWith("CREATE USER")) {
+                replica.execute(statement);
+            }
+        }
+        replica.execute("CREATE TABLE replica_status (lag_seconds DOUBLE PRECISION)");
+        replica.execute("INSERT INTO replica_status VALUES (0)");
+        replicaLagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldReadFromReplica_AndWritesGoToPrimary() {
+        // Arrange - only the replica knows this borrower
+        replica.update("INSERT INTO borrowers (id, name, email, created_at) VALUES (1000, 'Replica Reader', " +
+                "'replica.reader@email.com', CURRENT_TIMESTAMP)");
+
+        double replicaReadsBefore = reads("replica");
+
+        // Act
+        Long registeredId = borrowerService.registerBorrower("Primary Reader", "primary.reader@email.com").getId();
+        List<BorrowerResponseDto> borrowers = borrowerService.getBorrowersAfter(null, 10);
+
+        // Assert
+        assertThat(borrowers).extracting(BorrowerResponseDto::getEmail).containsExactly("replica.reader@email.com");
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM borrowers WHERE id = ?", Long.class, registeredId))
+                .isEqualTo(1);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM borrowers WHERE id = ?", Long.class, registeredId))
+                .isZero();
+        assertThat(reads("replica") - replicaReadsBefore).isEqualTo(1);
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldFallBackToPrimary_WhenReplicaLagsTooFarBehind() {
+        // Arrange
+        borrowerService.registerBorrower("Primary Reader", "primary.reader@email.com");
+        replica.update("UPDATE replica_status SET lag_seconds = 60");
+
+        double primaryReadsBefore = reads("primary");
+
+        // Act
+        replicaLagMonitor.check();
+        List<BorrowerResponseDto> borrowers = borrowerService.getBorrowersAfter(null, 10);
+
+        // Assert
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+        assertThat(meterRegistry.get("library.datasource.replica.lag").gauge().value()).isEqualTo(60);
+        assertThat(borrowers).extracting(BorrowerResponseDto::getEmail).containsExactly("primary.reader@email.com");
+        assertThat(reads("primary") - primaryReadsBefore).isEqualTo(1);
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldFallBackToPrimary_WhenLagCannotBeMeasured() {
+        // Arrange
+        borrowerService.registerBorrower("Primary Reader", "primary.reader@email.com");
+        replica.execute("DROP TABLE replica_status");
+
+        // Act
+        replicaLagMonitor.check();
+
+        // Assert
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+        assertThat(replicaLagMonitor.getLagSeconds()).isNaN();
+        assertThat(borrowerService.getBorrowersAfter(null, 10)).hasSize(1);
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldNotCacheReplicaRows_ForWritesOnThePrimary() {
+        // Arrange - the replica has not yet replayed the rename, and the caches were just cleared
+        Long id = borrowerService.registerBorrower("Renamed Reader", "lagging.reader@email.com").getId();
+        replica.update("INSERT INTO borrowers (id, name, email, created_at) VALUES (?, 'Original Reader', " +
+                "'lagging.reader@email.com', CURRENT_TIMESTAMP)", id);
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+
+        // Act - reads on the replica see the stale row
+        assertThat(borrowerService.findBorrowerById(id)).map(Borrower::getName).contains("Original Reader");
+        assertThat(borrowerService.findBorrowerByEmail("lagging.reader@email.com"))
+                .map(Borrower::getName).contains("Original Reader");
+
+        // Assert - the caches were not filled with it, so the primary's fresh row is read and cached instead
+        assertThat(entityManagerFactory.getCache().contains(Borrower.class, id)).isFalse();
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+        String nameById = writeTransaction.execute(status -> borrowerRepository.findById(id).orElseThrow().getName());
+        String nameByEmail = writeTransaction.execute(status ->
+                borrowerRepository.findByEmail("lagging.reader@email.com").orElseThrow().getName());
+        assertThat(nameById).isEqualTo("Renamed Reader");
+        assertThat(nameByEmail).isEqualTo("Renamed Reader");
+        assertThat(entityManagerFactory.getCache().contains(Borrower.class, id)).isTrue();
+    }
+
+    @Test
+    void connectionPools_ShouldBeMeasuredSeparately() {
+        // Act
+        borrowerService.getBorrowersAfter(null, 10);
+
+        // Assert
+        assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "primary").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "replica").gauge()).isNotNull();
+    }
+
+    // Read-only connections handed out so far, including those of background jobs such as the health refresh
+    private double reads(String pool) {
+        return meterRegistry.get("library.datasource.reads").tag("pool", pool).counter().count();
+    }
+}
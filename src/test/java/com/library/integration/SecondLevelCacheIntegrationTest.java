@@ -0,0 +1,137 @@
+package com.library.integration;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SecondLevelCacheIntegrationTest {
+
+    private static final String ISBN = "9780131103627";
+    private static final long ISBN13 = 9780131103627L;
+    private static final String EMAIL = "john.doe@email.com";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findById_ShouldServeRepeatedReadsFromTheEntityCache() {
+        // Arrange
+        Long borrowerId = borrowerService.registerBorrower("John Doe", EMAIL).getId();
+        Long bookId = bookService.addBook(ISBN, "Effective Java", "Joshua Bloch").getId();
+        statistics.clear();
+
+        // Act
+        borrowerRepository.findById(borrowerId);
+        bookRepository.findById(bookId);
+        long statementsAfterFirstRead = statistics.getPrepareStatementCount();
+        Borrower borrower = borrowerRepository.findById(borrowerId).orElseThrow();
+        Book book = bookRepository.findById(bookId).orElseThrow();
+
+        // Assert
+        assertThat(borrower.getEmail()).isEqualTo(EMAIL);
+        assertThat(book.getIsbn()).isEqualTo(ISBN);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsAfterFirstRead);
+        assertThat(statistics.getCacheRegionStatistics("borrowers").getHitCount()).isGreaterThanOrEqualTo(1);
+        assertThat(statistics.getCacheRegionStatistics("books").getHitCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void findByEmailAndIsbn_ShouldServeRepeatedQueriesFromTheQueryCache() {
+        // Arrange
+        borrowerService.registerBorrower("John Doe", EMAIL);
+        bookService.addBook(ISBN, "Effective Java", "Joshua Bloch");
+        bookService.addBook(ISBN, "Effective Java", "Joshua Bloch");
+        borrowerRepository.findByEmail(EMAIL);
+        bookRepository.findByIsbn13(ISBN13);
+        statistics.clear();
+
+        // Act
+        Borrower borrower = borrowerRepository.findByEmail(EMAIL).orElseThrow();
+        int copies = bookRepository.findByIsbn13(ISBN13).size();
+
+        // Assert
+        assertThat(borrower.getName()).isEqualTo("John Doe");
+        assertThat(copies).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getCacheRegionStatistics("borrower-queries").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getCacheRegionStatistics("book-queries").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void writes_ShouldInvalidateCachedEntitiesAndQueryResults() {
+        // Arrange
+        Long borrowerId = borrowerService.registerBorrower("John Doe", EMAIL).getId();
+        bookService.addBook(ISBN, "Effective Java", "Joshua Bloch");
+        borrowerRepository.findByEmail(EMAIL);
+        assertThat(bookRepository.findByIsbn13(ISBN13)).hasSize(1);
+
+        // Act
+        borrowerService.updateBorrower(borrowerId, "Jane Doe", "jane.doe@email.com");
+        bookService.addBook(ISBN, "Effective Java", "Joshua Bloch");
+
+        // Assert
+        assertThat(borrowerRepository.findByEmail(EMAIL)).isEmpty();
+        assertThat(borrowerRepository.findById(borrowerId)).get().extracting(Borrower::getName).isEqualTo("Jane Doe");
+        assertThat(bookRepository.findByIsbn13(ISBN13)).hasSize(2);
+    }
+
+    @Test
+    void cacheRegions_ShouldPublishHitRatioAndRequestMetrics() {
+        // Arrange
+        Long borrowerId = borrowerService.registerBorrower("John Doe", EMAIL).getId();
+        statistics.clear();
+
+        // Act
+        borrowerRepository.findById(borrowerId);
+        borrowerRepository.findById(borrowerId);
+
+        // Assert: the first read loads the row into the region, the second is answered from it
+        assertThat(meterRegistry.get("library.cache.hit.ratio").tag("region", "borrowers").gauge().value())
+                .isEqualTo(0.5);
+        assertThat(meterRegistry.get("library.cache.hit.ratio").tag("region", "books").gauge().value()).isNaN();
+        assertThat(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "borrowers")
+                .tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+}
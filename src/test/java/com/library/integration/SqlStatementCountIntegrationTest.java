@@ -0,0 +1,152 @@
+package com.library.integration;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import com.library.service.impl.OverdueLoanIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Counts the SQL statements each list endpoint prepares, so that lazy associations loaded row by row
+ * (N+1 queries) show up as a count that grows with the number of rows returned.
+ */
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SqlStatementCountIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.now().minusYears(1);
+    private static final LocalDateTime END = LocalDateTime.now().plusYears(1);
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OverdueLoanIndex overdueLoanIndex;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private Long borrowerId;
+    private Long bookId;
+    private int seeded;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        borrowerId = borrowerService.registerBorrower("Regular Reader", "regular.reader@email.com").getId();
+        bookId = bookService.addBook("9780131103627", "Effective Java", "Joshua Bloch").getId();
+    }
+
+    @Test
+    void listEndpoints_ShouldPrepareTheSameNumberOfStatementsWhateverTheResultSize() throws Exception {
+        // Arrange
+        seed(2);
+        Map<String, Long> fewRows = countStatementsPerEndpoint();
+        seed(20);
+
+        // Act
+        Map<String, Long> manyRows = countStatementsPerEndpoint();
+
+        // Assert
+        assertThat(manyRows).isEqualTo(fewRows);
+    }
+
+    // Each round lends the regular borrower one more copy and hands it back, lends it the shared book again,
+    // and lends a copy to a new borrower, so every listing below grows by at least one distinct book and borrower
+    private void seed(int rounds) {
+        for (int i = 0; i < rounds; i++, seeded++) {
+            Borrower other = borrowerService.registerBorrower("Other Reader", "reader" + seeded + "@email.com");
+            Book kept = bookService.addBook(isbn13(seeded * 2L), "Kept Title " + seeded, "Author " + seeded);
+            Book lent = bookService.addBook(isbn13(seeded * 2L + 1), "Lent Title " + seeded, "Author " + seeded);
+            bookService.borrowBookById(kept.getId(), borrowerId);
+            bookService.borrowBookById(lent.getId(), other.getId());
+            bookService.borrowBookById(bookId, borrowerId);
+            bookService.returnBook(bookId);
+        }
+        // Make every open loan overdue so the overdue listings grow too
+        LocalDateTime past = LocalDateTime.now().minusDays(1);
+        jdbcTemplate.update("UPDATE open_loans SET due_date = ?", past);
+        jdbcTemplate.update("UPDATE borrowing_history SET due_date = ? WHERE actionType = 'BORROWED'", past);
+        // Due dates changed behind the application's back are only picked up by a full sweep
+        overdueLoanIndex.reconcile();
+    }
+
+    private Map<String, Long> countStatementsPerEndpoint() throws Exception {
+        List<String> urls = List.of(
+                "/books",
+                "/books/cursor?size=100",
+                "/books/cursor?status=borrowed&size=100",
+                "/borrowers/cursor?size=100",
+                "/api/history/borrowers/" + borrowerId,
+                "/api/history/borrowers/" + borrowerId + "/paginated?size=100",
+                "/api/history/borrowers/" + borrowerId + "/cursor?size=100",
+                "/api/history/borrowers/" + borrowerId + "/current",
+                "/api/history/borrowers/" + borrowerId + "/overdue",
+                "/api/history/books/" + bookId,
+                "/api/history/books/" + bookId + "/cursor?size=100",
+                "/api/history/overdue",
+                "/api/history/overdue/cursor?size=100",
+                "/api/history/date-range?startDate=" + START + "&endDate=" + END,
+                "/api/history/date-range/cursor?startDate=" + START + "&endDate=" + END + "&size=100",
+                "/api/history/statistics/popular-books?limit=100",
+                "/api/history/statistics/active-borrowers?limit=100",
+                "/api/history/borrowers/" + borrowerId + "/statistics");
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String url : urls) {
+            // Start from a cold second-level cache so cached rows cannot hide per-row loads
+            entityManagerFactory.getCache().evictAll();
+            statistics.clear();
+            int status = mockMvc.perform(get(url)).andReturn().getResponse().getStatus();
+            assertThat(status).as(url).isEqualTo(200);
+            counts.put(url, statistics.getPrepareStatementCount());
+        }
+        return counts;
+    }
+
+    private static String isbn13(long sequence) {
+        String body = String.format("978%09d", 600_000_000L + sequence);
+        int sum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            int digit = body.charAt(i) - '0';
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return body + ((10 - sum % 10) % 10);
+    }
+}
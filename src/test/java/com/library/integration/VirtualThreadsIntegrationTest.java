@@ -0,0 +1,68 @@
+package com.library.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "virtual-threads"})
+@TestPropertySource(properties = "library.virtual-threads.pinned-threshold=5ms")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class VirtualThreadsIntegrationTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext webServerContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void tomcat_ShouldHandleRequestsOnVirtualThreads() {
+        // Act
+        TomcatWebServer webServer = (TomcatWebServer) webServerContext.getWebServer();
+
+        // Assert
+        assertThat(webServer.getTomcat().getConnector().getProtocolHandler().getExecutor())
+                .isInstanceOf(VirtualThreadExecutor.class);
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_23) // JEP 491 stops monitors from pinning virtual threads in JDK 24
+    void pinnedVirtualThread_ShouldBeTimed() throws Exception {
+        // Arrange
+        Object monitor = new Object();
+        Timer pinned = meterRegistry.get("library.virtual.threads.pinned").timer();
+
+        // Act - sleeping while holding a monitor pins the virtual thread to its carrier
+        Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        // Assert - recorded events are delivered to the stream about once a second
+        for (int i = 0; i < 100 && pinned.count() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(pinned.count()).isGreaterThanOrEqualTo(1);
+        assertThat(pinned.totalTime(TimeUnit.MILLISECONDS)).isGreaterThan(25);
+    }
+}
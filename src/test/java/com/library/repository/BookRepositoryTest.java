@@ -1,12 +1,18 @@
 package com.library.repository;
 
+import com.library.config.CacheConfig;
+import com.library.dto.BookResponseDto;
+import com.library.dto.PopularBookDto;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;  
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
@@ -16,8 +22,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
 @ActiveProfiles("test")
+@Import(CacheConfig.class)
 class BookRepositoryTest {
 
+    private static final long EFFECTIVE_JAVA = 9780131103627L;
+    private static final long CLEAN_CODE = 9780321356680L;
+
     @Autowired
     private TestEntityManager entityManager;
 
@@ -47,9 +57,9 @@ class BookRepositoryTest {
     }
 
     @Test
-    void findByIsbn_ShouldReturnAllBooksWithSameIsbn() {
+    void findByIsbn13_ShouldReturnAllBooksWithSameIsbn() {
         // Act
-        List<Book> results = bookRepository.findByIsbn("978-0-13-110362-7");
+        List<Book> results = bookRepository.findByIsbn13(EFFECTIVE_JAVA);
 
         // Assert
         assertThat(results).hasSize(2);
@@ -57,6 +67,20 @@ class BookRepositoryTest {
         assertThat(results).allMatch(book -> book.getTitle().equals("Effective Java"));
     }
 
+    @Test
+    void findByIsbn13_ShouldMatchCopiesStoredAsIsbn10() {
+        // Arrange
+        Book isbn10Copy = new Book("0-13-110362-8", "Effective Java", "Joshua Bloch");
+        entityManager.persistAndFlush(isbn10Copy);
+
+        // Act
+        List<Book> results = bookRepository.findByIsbn13(EFFECTIVE_JAVA);
+
+        // Assert
+        assertThat(results).hasSize(3);
+        assertThat(results).extracting(Book::getIsbn).contains("0-13-110362-8", "978-0-13-110362-7");
+    }
+
     @Test
     void findByTitleContainingIgnoreCase_ShouldReturnMatchingBooks() {
         // Act
@@ -101,6 +125,47 @@ class BookRepositoryTest {
         assertThat(results.get(0).getBorrower()).isEqualTo(testBorrower);
     }
 
+    @Test
+    void findAll_ShouldLoadBorrowersWithTheBooks() {
+        // Arrange
+        entityManager.clear();
+
+        // Act
+        List<Book> results = bookRepository.findAll();
+
+        // Assert
+        assertThat(results).hasSize(3);
+        Book borrowed = results.stream().filter(book -> book.getId().equals(testBook2.getId())).findFirst().orElseThrow();
+        assertThat(Hibernate.isInitialized(borrowed.getBorrower())).isTrue();
+        assertThat(borrowed.getBorrower().getName()).isEqualTo("John Doe");
+    }
+
+    @Test
+    void findAllResponses_ShouldSelectBooksWithTheirBorrowersInIdOrder() {
+        // Act
+        List<BookResponseDto> results = bookRepository.findAllResponses();
+
+        // Assert
+        assertThat(results).extracting(BookResponseDto::getId)
+                .containsExactly(testBook1.getId(), testBook2.getId(), testBook3.getId());
+        assertThat(results).extracting(BookResponseDto::isAvailable).containsExactly(true, false, true);
+        assertThat(results.get(1).getBorrower().getName()).isEqualTo("John Doe");
+        assertThat(results.get(0).getBorrower()).isNull();
+    }
+
+    @Test
+    void findPopularBookDetails_ShouldSelectRequestedBooksOnly() {
+        // Act
+        List<PopularBookDto> results = bookRepository.findPopularBookDetails(List.of(testBook3.getId(), testBook1.getId(), -1L));
+
+        // Assert
+        assertThat(results).extracting(PopularBookDto::getBookId)
+                .containsExactlyInAnyOrder(testBook1.getId(), testBook3.getId());
+        assertThat(results).extracting(PopularBookDto::getTitle)
+                .containsExactlyInAnyOrder(testBook1.getTitle(), testBook3.getTitle());
+        assertThat(results).allSatisfy(result -> assertThat(result.getBorrowCount()).isZero());
+    }
+
     @Test
     void findBooksByBorrowerId_ShouldReturnBooksForSpecificBorrower() {
         // Act
@@ -115,7 +180,7 @@ class BookRepositoryTest {
     @Test
     void findAvailableBooksByIsbn_ShouldReturnOnlyAvailableBooksWithIsbn() {
         // Act
-        List<Book> results = bookRepository.findAvailableBooksByIsbn("978-0-13-110362-7");
+        List<Book> results = bookRepository.findAvailableBooksByIsbn(EFFECTIVE_JAVA);
 
         // Assert
         assertThat(results).hasSize(1);
@@ -124,18 +189,18 @@ class BookRepositoryTest {
     }
 
     @Test
-    void existsByIsbn_ShouldReturnTrue_WhenIsbnExists() {
+    void existsByIsbn13_ShouldReturnTrue_WhenIsbnExists() {
         // Act
-        boolean exists = bookRepository.existsByIsbn("978-0-13-110362-7");
+        boolean exists = bookRepository.existsByIsbn13(EFFECTIVE_JAVA);
 
         // Assert
         assertThat(exists).isTrue();
     }
 
     @Test
-    void existsByIsbn_ShouldReturnFalse_WhenIsbnDoesNotExist() {
+    void existsByIsbn13_ShouldReturnFalse_WhenIsbnDoesNotExist() {
         // Act
-        boolean exists = bookRepository.existsByIsbn("978-0-00-000000-0");
+        boolean exists = bookRepository.existsByIsbn13(9780000000002L);
 
         // Assert
         assertThat(exists).isFalse();
@@ -144,7 +209,7 @@ class BookRepositoryTest {
     @Test
     void findFirstAvailableBookByIsbn_ShouldReturnAvailableBook() {
         // Act
-        Optional<Book> result = bookRepository.findFirstAvailableBookByIsbn("978-0-13-110362-7");
+        Optional<Book> result = bookRepository.findFirstAvailableBookByIsbn(EFFECTIVE_JAVA);
 
         // Assert
         assertThat(result).isPresent();
@@ -159,16 +224,70 @@ class BookRepositoryTest {
         entityManager.persistAndFlush(testBook1);
 
         // Act
-        Optional<Book> result = bookRepository.findFirstAvailableBookByIsbn("978-0-13-110362-7");
+        Optional<Book> result = bookRepository.findFirstAvailableBookByIsbn(EFFECTIVE_JAVA);
 
         // Assert
         assertThat(result).isEmpty();
     }
 
     @Test
-    void countByIsbn_ShouldReturnTotalCountForIsbn() {
+    void findFirstAvailableBookByIsbn_ShouldReturnLowestId_WhenSeveralCopiesAvailable() {
+        // Arrange
+        Book extraCopy = new Book("978-0-13-110362-7", "Effective Java", "Joshua Bloch");
+        entityManager.persistAndFlush(extraCopy);
+
         // Act
-        long count = bookRepository.countByIsbn("978-0-13-110362-7");
+        Optional<Book> result = bookRepository.findFirstAvailableBookByIsbn(EFFECTIVE_JAVA);
+
+        // Assert
+        assertThat(result).contains(testBook1);
+    }
+
+    @Test
+    void lockAvailableBooksByIsbn_ShouldReturnAvailableCopiesUpToLimit() {
+        // Arrange
+        Book extraCopy = new Book("978-0-13-110362-7", "Effective Java", "Joshua Bloch");
+        entityManager.persistAndFlush(extraCopy);
+
+        // Act
+        List<Book> results = bookRepository.lockAvailableBooksByIsbn(EFFECTIVE_JAVA, Limit.of(1));
+
+        // Assert
+        assertThat(results).containsExactly(testBook1);
+    }
+
+    @Test
+    void findByIdForUpdate_ShouldReturnBook() {
+        // Act
+        Optional<Book> result = bookRepository.findByIdForUpdate(testBook2.getId());
+
+        // Assert
+        assertThat(result).contains(testBook2);
+    }
+
+    @Test
+    void countCopiesGroupedByIsbn_ShouldReturnTotalAndAvailableCountsPerIsbn() {
+        // Act
+        List<Object[]> rows = bookRepository.countCopiesGroupedByIsbn();
+
+        // Assert
+        assertThat(rows).hasSize(2);
+        assertThat(rows).anySatisfy(row -> {
+            assertThat(row[0]).isEqualTo(EFFECTIVE_JAVA);
+            assertThat(((Number) row[1]).longValue()).isEqualTo(2);
+            assertThat(((Number) row[2]).longValue()).isEqualTo(1);
+        });
+        assertThat(rows).anySatisfy(row -> {
+            assertThat(row[0]).isEqualTo(CLEAN_CODE);
+            assertThat(((Number) row[1]).longValue()).isEqualTo(1);
+            assertThat(((Number) row[2]).longValue()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void countByIsbn13_ShouldReturnTotalCountForIsbn() {
+        // Act
+        long count = bookRepository.countByIsbn13(EFFECTIVE_JAVA);
 
         // Assert
         assertThat(count).isEqualTo(2);
@@ -177,7 +296,7 @@ class BookRepositoryTest {
     @Test
     void countAvailableBooksByIsbn_ShouldReturnAvailableCountForIsbn() {
         // Act
-        long count = bookRepository.countAvailableBooksByIsbn("978-0-13-110362-7");
+        long count = bookRepository.countAvailableBooksByIsbn(EFFECTIVE_JAVA);
 
         // Assert
         assertThat(count).isEqualTo(1);
@@ -187,7 +306,7 @@ class BookRepositoryTest {
     void findInconsistentBooksByIsbn_ShouldReturnEmpty_WhenBooksAreConsistent() {
         // Act
         List<Book> results = bookRepository.findInconsistentBooksByIsbn(
-                "978-0-13-110362-7", "Effective Java", "Joshua Bloch"
+                EFFECTIVE_JAVA, "Effective Java", "Joshua Bloch"
         );
 
         // Assert
@@ -202,7 +321,7 @@ class BookRepositoryTest {
 
         // Act
         List<Book> results = bookRepository.findInconsistentBooksByIsbn(
-                "978-0-13-110362-7", "Effective Java", "Joshua Bloch"
+                EFFECTIVE_JAVA, "Effective Java", "Joshua Bloch"
         );
 
         // Assert
@@ -221,10 +340,80 @@ class BookRepositoryTest {
         // Assert
         assertThat(saved.getId()).isNotNull();
         assertThat(saved.getIsbn()).isEqualTo("978-0-123-45678-9");
+        assertThat(saved.getIsbn13()).isEqualTo(9780123456789L);
         assertThat(saved.getTitle()).isEqualTo("Test Book");
         assertThat(saved.getAuthor()).isEqualTo("Test Author");
         assertThat(saved.getCreatedAt()).isNotNull();
         assertThat(saved.getUpdatedAt()).isNotNull();
         assertThat(saved.isAvailable()).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void findPageAfterId_ShouldWalkAllBooksInIdOrder() {
+        // Act
+        List<BookResponseDto> firstPage = bookRepository.findPageAfterId(0L, Limit.of(2));
+        List<BookResponseDto> secondPage = bookRepository.findPageAfterId(firstPage.get(1).getId(), Limit.of(2));
+
+        // Assert
+        assertThat(firstPage).extracting(BookResponseDto::getId).containsExactly(testBook1.getId(), testBook2.getId());
+        assertThat(secondPage).extracting(BookResponseDto::getId).containsExactly(testBook3.getId());
+    }
+
+    @Test
+    void findAvailablePageAfterId_ShouldSkipBorrowedBooks() {
+        // Act
+        List<BookResponseDto> firstPage = bookRepository.findAvailablePageAfterId(0L, Limit.of(1));
+        List<BookResponseDto> secondPage = bookRepository.findAvailablePageAfterId(firstPage.get(0).getId(), Limit.of(1));
+
+        // Assert
+        assertThat(firstPage).extracting(BookResponseDto::getId).containsExactly(testBook1.getId());
+        assertThat(secondPage).extracting(BookResponseDto::getId).containsExactly(testBook3.getId());
+    }
+
+    @Test
+    void findBorrowedPageAfterId_ShouldReturnOnlyBorrowedBooks() {
+        // Act
+        List<BookResponseDto> firstPage = bookRepository.findBorrowedPageAfterId(0L, Limit.of(10));
+        List<BookResponseDto> afterLast = bookRepository.findBorrowedPageAfterId(testBook2.getId(), Limit.of(10));
+
+        // Assert
+        assertThat(firstPage).extracting(BookResponseDto::getId).containsExactly(testBook2.getId());
+        assertThat(firstPage.get(0).getBorrower().getId()).isEqualTo(testBorrower.getId());
+        assertThat(firstPage.get(0).isAvailable()).isFalse();
+        assertThat(afterLast).isEmpty();
+    }
+
+    @Test
+    void findCatalogueEntriesByIsbnIn_ShouldReturnOneEntryPerExistingIsbn() {
+        // Act
+        List<Object[]> entries = bookRepository.findCatalogueEntriesByIsbnIn(
+                List.of(EFFECTIVE_JAVA, CLEAN_CODE, 9780000000002L));
+
+        // Assert
+        assertThat(entries).hasSize(2);
+        assertThat(entries).anySatisfy(entry -> assertThat(entry)
+                .containsExactly(EFFECTIVE_JAVA, "978-0-13-110362-7", "Effective Java", "Joshua Bloch"));
+        assertThat(entries).anySatisfy(entry -> assertThat(entry)
+                .containsExactly(CLEAN_CODE, "978-0-321-35668-0", "Clean Code", "Robert C. Martin"));
+    }
+
+    @Test
+    void findAllCatalogueEntries_ShouldReturnOneEntryPerIsbn() {
+        // Act
+        List<Object[]> entries = bookRepository.findAllCatalogueEntries();
+
+        // Assert
+        assertThat(entries).hasSize(2);
+        assertThat(entries).anySatisfy(entry -> assertThat(entry)
+                .containsExactly(EFFECTIVE_JAVA, "978-0-13-110362-7", "Effective Java", "Joshua Bloch"));
+    }
+
+    @Test
+    void findByIsbn13InOrderByIdAsc_ShouldReturnEveryCopyOfTheIsbns() {
+        // Act
+        List<Book> results = bookRepository.findByIsbn13InOrderByIdAsc(List.of(EFFECTIVE_JAVA, 9780000000002L));
+
+        // Assert
+        assertThat(results).extracting(Book::getId).containsExactly(testBook1.getId(), testBook2.getId());
+    }
+}
@@ -1,20 +1,32 @@
 package com.library.repository;
 
+import com.library.config.CacheConfig;
+import com.library.dto.ActiveBorrowerDto;
+import com.library.dto.BorrowerResponseDto;
+import com.library.dto.BorrowerStatisticsDto;
+import com.library.entity.Book;
 import com.library.entity.Borrower;
+import com.library.entity.BorrowingHistory;
+import com.library.entity.OpenLoan;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @ActiveProfiles("test")
+@Import(CacheConfig.class)
 class BorrowerRepositoryTest {
 
     @Autowired
@@ -152,4 +164,60 @@ class BorrowerRepositoryTest {
         Optional<Borrower> result = borrowerRepository.findById(borrowerId);
         assertThat(result).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByIdGreaterThanOrderByIdAsc_ShouldReturnNextPageOfBorrowers() {
+        // Act
+        List<BorrowerResponseDto> firstPage = borrowerRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(1));
+        List<BorrowerResponseDto> secondPage = borrowerRepository.findByIdGreaterThanOrderByIdAsc(firstPage.get(0).getId(), Limit.of(1));
+        List<BorrowerResponseDto> thirdPage = borrowerRepository.findByIdGreaterThanOrderByIdAsc(secondPage.get(0).getId(), Limit.of(1));
+
+        // Assert
+        assertThat(firstPage).extracting(BorrowerResponseDto::getId).containsExactly(testBorrower1.getId());
+        assertThat(secondPage).extracting(BorrowerResponseDto::getId).containsExactly(testBorrower2.getId());
+        assertThat(thirdPage).isEmpty();
+    }
+
+    @Test
+    void findActiveBorrowerDetails_ShouldSelectRequestedBorrowersOnly() {
+        // Act
+        List<ActiveBorrowerDto> results = borrowerRepository.findActiveBorrowerDetails(List.of(testBorrower2.getId()));
+
+        // Assert
+        assertThat(results).extracting(ActiveBorrowerDto::getBorrowerId, ActiveBorrowerDto::getName, ActiveBorrowerDto::getEmail)
+                .containsExactly(tuple(testBorrower2.getId(), "Jane Smith", "jane.smith@email.com"));
+    }
+
+    @Test
+    void findStatisticsById_ShouldCountTotalCurrentAndOverdueBorrowings() {
+        // Arrange
+        Book returned = entityManager.persistAndFlush(new Book("9780131103627", "Effective Java", "Joshua Bloch"));
+        Book current = entityManager.persistAndFlush(new Book("9780134685991", "Effective Java", "Joshua Bloch"));
+        Book overdue = entityManager.persistAndFlush(new Book("9780321356680", "Effective Java", "Joshua Bloch"));
+        entityManager.persist(new BorrowingHistory(returned, testBorrower1, BorrowingHistory.ActionType.BORROWED));
+        entityManager.persist(new BorrowingHistory(returned, testBorrower1, BorrowingHistory.ActionType.RETURNED));
+        entityManager.persist(new OpenLoan(entityManager.persist(
+                new BorrowingHistory(current, testBorrower1, BorrowingHistory.ActionType.BORROWED))));
+        entityManager.persist(new OpenLoan(entityManager.persist(
+                new BorrowingHistory(overdue, testBorrower1, BorrowingHistory.ActionType.BORROWED,
+                        LocalDateTime.now().minusDays(1)))));
+        entityManager.flush();
+
+        // Act
+        Optional<BorrowerStatisticsDto> statistics = borrowerRepository.findStatisticsById(testBorrower1.getId(), LocalDateTime.now());
+        Optional<BorrowerStatisticsDto> idle = borrowerRepository.findStatisticsById(testBorrower2.getId(), LocalDateTime.now());
+
+        // Assert
+        assertThat(statistics).hasValueSatisfying(result -> {
+            assertThat(result.getTotalBorrowings()).isEqualTo(3L);
+            assertThat(result.getCurrentBorrowings()).isEqualTo(2L);
+            assertThat(result.getOverdueBorrowings()).isEqualTo(1L);
+            assertThat(result.getHasOverdueBooks()).isTrue();
+        });
+        assertThat(idle).hasValueSatisfying(result -> {
+            assertThat(result.getTotalBorrowings()).isZero();
+            assertThat(result.getHasOverdueBooks()).isFalse();
+        });
+        assertThat(borrowerRepository.findStatisticsById(-1L, LocalDateTime.now())).isEmpty();
+    }
+}
@@ -1,5 +1,7 @@
 package com.library.repository;
 
+import com.library.config.CacheConfig;
+import com.library.dto.BorrowingHistoryResponseDto;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
 import com.library.entity.BorrowingHistory;
@@ -8,17 +10,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
 @ActiveProfiles("test")
+@Import(CacheConfig.class)
 class BorrowingHistoryRepositoryTest {
 
     @Autowired
@@ -56,20 +62,33 @@ class BorrowingHistoryRepositoryTest {
 
     @Test
     void findByBookIdOrderByActionDateDesc_ShouldReturnHistoryForBook() {
-        List<BorrowingHistory> history = borrowingHistoryRepository.findByBookIdOrderByActionDateDesc(testBook.getId());
+        List<BorrowingHistoryResponseDto> history = borrowingHistoryRepository.findByBookIdOrderByActionDateDesc(testBook.getId());
 
         assertThat(history).hasSize(2);
-        assertThat(history.get(0).getActionType()).isEqualTo(BorrowingHistory.ActionType.RETURNED);
-        assertThat(history.get(1).getActionType()).isEqualTo(BorrowingHistory.ActionType.BORROWED);
+        assertThat(history.get(0).getActionType()).isEqualTo("RETURNED");
+        assertThat(history.get(1).getActionType()).isEqualTo("BORROWED");
     }
 
     @Test
     void findByBorrowerIdOrderByActionDateDesc_ShouldReturnHistoryForBorrower() {
-        List<BorrowingHistory> history = borrowingHistoryRepository.findByBorrowerIdOrderByActionDateDesc(testBorrower.getId());
+        List<BorrowingHistoryResponseDto> history = borrowingHistoryRepository.findByBorrowerIdOrderByActionDateDesc(testBorrower.getId());
 
         assertThat(history).hasSize(2);
-        assertThat(history.get(0).getActionType()).isEqualTo(BorrowingHistory.ActionType.RETURNED);
-        assertThat(history.get(1).getActionType()).isEqualTo(BorrowingHistory.ActionType.BORROWED);
+        assertThat(history.get(0).getActionType()).isEqualTo("RETURNED");
+        assertThat(history.get(1).getActionType()).isEqualTo("BORROWED");
+    }
+
+    @Test
+    void findByBorrowerIdOrderByActionDateDesc_ShouldLoadBookAndBorrowerWithTheHistory() {
+        entityManager.clear();
+
+        List<BorrowingHistoryResponseDto> history = borrowingHistoryRepository.findByBorrowerIdOrderByActionDateDesc(
+                testBorrower.getId(), PageRequest.of(0, 10)).getContent();
+
+        assertThat(history).hasSize(2).allSatisfy(record -> {
+            assertThat(record.getBook().getTitle()).isEqualTo(testBook.getTitle());
+            assertThat(record.getBorrower().getEmail()).isEqualTo(testBorrower.getEmail());
+        });
     }
 
     @Test
@@ -158,11 +177,70 @@ class BorrowingHistoryRepositoryTest {
         LocalDateTime startDate = LocalDateTime.now().minusDays(10);
         LocalDateTime endDate = LocalDateTime.now();
 
-        List<BorrowingHistory> historyInRange = borrowingHistoryRepository.findByActionDateBetweenOrderByActionDateDesc(startDate, endDate);
+        List<BorrowingHistoryResponseDto> historyInRange = borrowingHistoryRepository.findByActionDateBetweenOrderByActionDateDesc(startDate, endDate);
 
         assertThat(historyInRange).hasSize(2);
     }
 
+    @Test
+    void streamByActionDateBetween_ShouldStreamHistoryOldestFirst() {
+        LocalDateTime startDate = LocalDateTime.now().minusDays(10);
+        LocalDateTime endDate = LocalDateTime.now();
+
+        List<BorrowingHistory> streamed;
+        try (Stream<BorrowingHistory> history = borrowingHistoryRepository.streamByActionDateBetween(startDate, endDate)) {
+            streamed = history.toList();
+        }
+
+        assertThat(streamed).containsExactly(borrowingHistory, returnHistory);
+        assertThat(streamed.get(0).getBook().getTitle()).isEqualTo("Effective Java");
+        assertThat(streamed.get(0).getBorrower().getName()).isEqualTo("John Doe");
+    }
+
+    @Test
+    void streamByActionDateBetween_ShouldExcludeHistoryOutsideRange() {
+        LocalDateTime startDate = LocalDateTime.now().minusDays(3);
+        LocalDateTime endDate = LocalDateTime.now();
+
+        try (Stream<BorrowingHistory> history = borrowingHistoryRepository.streamByActionDateBetween(startDate, endDate)) {
+            assertThat(history).containsExactly(returnHistory);
+        }
+    }
+
+    @Test
+    void streamByActionDateFromUntil_ShouldExcludeTheUpperBound() {
+        // Arrange - bounds are compared with stored values, which have the database's timestamp precision
+        entityManager.clear();
+        LocalDateTime returnedAt = borrowingHistoryRepository.findById(returnHistory.getId()).orElseThrow().getActionDate();
+
+        // Act & Assert
+        try (Stream<BorrowingHistory> history = borrowingHistoryRepository.streamByActionDateFromUntil(
+                LocalDateTime.now().minusDays(10), returnedAt)) {
+            assertThat(history).containsExactly(borrowingHistory);
+        }
+    }
+
+    @Test
+    void deleteByActionDateFromUntil_ShouldDeleteOnlyHistoryInRange() {
+        // Act
+        int deleted = borrowingHistoryRepository.deleteByActionDateFromUntil(
+                LocalDateTime.now().minusDays(10), LocalDateTime.now().minusDays(3));
+
+        // Assert
+        assertThat(deleted).isEqualTo(1);
+        assertThat(borrowingHistoryRepository.findAll()).containsExactly(returnHistory);
+    }
+
+    @Test
+    void findEarliestActionDate_ShouldReturnTheOldestRecordsDate() {
+        // Arrange
+        entityManager.clear();
+        LocalDateTime borrowedAt = borrowingHistoryRepository.findById(borrowingHistory.getId()).orElseThrow().getActionDate();
+
+        // Act & Assert
+        assertThat(borrowingHistoryRepository.findEarliestActionDate()).isEqualTo(borrowedAt);
+    }
+
     @Test
     void findByBorrowerIdAndActionDateBetweenOrderByActionDateDesc_ShouldReturnFilteredHistory() {
         LocalDateTime startDate = LocalDateTime.now().minusDays(10);
@@ -242,6 +320,31 @@ class BorrowingHistoryRepositoryTest {
         assertThat(firstResult[1]).isEqualTo(3L);
     }
 
+    @Test
+    void countBorrowingsPerBookAndDaySince_ShouldGroupBorrowingsByBookAndDay() {
+        LocalDateTime day = borrowingHistory.getActionDate();
+        BorrowingHistory sameDay = new BorrowingHistory(testBook, testBorrower, BorrowingHistory.ActionType.BORROWED);
+        sameDay.setActionDate(day.toLocalDate().atStartOfDay());
+        entityManager.persistAndFlush(sameDay);
+
+        BorrowingHistory tooOld = new BorrowingHistory(testBook, testBorrower, BorrowingHistory.ActionType.BORROWED);
+        tooOld.setActionDate(LocalDateTime.now().minusDays(40));
+        entityManager.persistAndFlush(tooOld);
+
+        List<Object[]> counts = borrowingHistoryRepository.countBorrowingsPerBookAndDaySince(LocalDateTime.now().minusDays(30));
+
+        assertThat(counts).hasSize(1);
+        assertThat(counts.get(0)).containsExactly(testBook.getId(), day.toLocalDate(), 2L);
+    }
+
+    @Test
+    void countBorrowingsPerBorrowerAndDaySince_ShouldIgnoreReturns() {
+        List<Object[]> counts = borrowingHistoryRepository.countBorrowingsPerBorrowerAndDaySince(LocalDateTime.now().minusDays(30));
+
+        assertThat(counts).hasSize(1);
+        assertThat(counts.get(0)).containsExactly(testBorrower.getId(), borrowingHistory.getActionDate().toLocalDate(), 1L);
+    }
+
     @Test
     void save_ShouldPersistBorrowingHistory() {
         Book newBook = new Book("9781491950371", "Learning Java", "Patrick Niemeyer");
@@ -282,4 +385,60 @@ class BorrowingHistoryRepositoryTest {
         assertThat(returnedHistory.isOverdue()).isFalse();
         assertThat(returnedHistory.getDaysUntilDue()).isEqualTo(0L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findPageByBorrowerIdBefore_ShouldContinueAfterCursorNewestFirst() {
+        // Arrange - a second record with the same action date as the return, so the ID breaks the tie
+        BorrowingHistory sameInstant = new BorrowingHistory(testBook, testBorrower, BorrowingHistory.ActionType.BORROWED);
+        sameInstant.setActionDate(returnHistory.getActionDate());
+        entityManager.persistAndFlush(sameInstant);
+        entityManager.clear();
+
+        // Act
+        List<BorrowingHistoryResponseDto> firstPage = borrowingHistoryRepository.findFirstPageByBorrowerId(testBorrower.getId(), Limit.of(2));
+        BorrowingHistoryResponseDto last = firstPage.get(1);
+        List<BorrowingHistoryResponseDto> secondPage = borrowingHistoryRepository.findPageByBorrowerIdBefore(
+                testBorrower.getId(), last.getActionDate(), last.getId(), Limit.of(2));
+
+        // Assert
+        assertThat(firstPage).extracting(BorrowingHistoryResponseDto::getId).containsExactly(sameInstant.getId(), returnHistory.getId());
+        assertThat(secondPage).extracting(BorrowingHistoryResponseDto::getId).containsExactly(borrowingHistory.getId());
+    }
+
+    @Test
+    void findPageByBookIdBefore_ShouldReturnOlderRecords() {
+        // Arrange - cursors are built from stored values, which have the database's timestamp precision
+        entityManager.clear();
+
+        // Act
+        List<BorrowingHistoryResponseDto> firstPage = borrowingHistoryRepository.findFirstPageByBookId(testBook.getId(), Limit.of(1));
+        BorrowingHistoryResponseDto last = firstPage.get(0);
+        List<BorrowingHistoryResponseDto> secondPage = borrowingHistoryRepository.findPageByBookIdBefore(
+                testBook.getId(), last.getActionDate(), last.getId(), Limit.of(1));
+
+        // Assert
+        assertThat(firstPage).extracting(BorrowingHistoryResponseDto::getId).containsExactly(returnHistory.getId());
+        assertThat(secondPage).extracting(BorrowingHistoryResponseDto::getId).containsExactly(borrowingHistory.getId());
+    }
+
+    @Test
+    void findPageByActionDateBetweenBefore_ShouldStayWithinRange() {
+        // Arrange
+        LocalDateTime startDate = LocalDateTime.now().minusDays(10);
+        LocalDateTime endDate = LocalDateTime.now();
+        entityManager.clear();
+
+        // Act
+        List<BorrowingHistoryResponseDto> firstPage = borrowingHistoryRepository.findFirstPageByActionDateBetween(startDate, endDate, Limit.of(1));
+        BorrowingHistoryResponseDto last = firstPage.get(0);
+        List<BorrowingHistoryResponseDto> secondPage = borrowingHistoryRepository.findPageByActionDateBetweenBefore(
+                startDate, endDate, last.getActionDate(), last.getId(), Limit.of(5));
+        List<BorrowingHistoryResponseDto> outsideRange = borrowingHistoryRepository.findFirstPageByActionDateBetween(
+                startDate, LocalDateTime.now().minusDays(6), Limit.of(5));
+
+        // Assert
+        assertThat(firstPage).extracting(BorrowingHistoryResponseDto::getId).containsExactly(returnHistory.getId());
+        assertThat(secondPage).extracting(BorrowingHistoryResponseDto::getId).containsExactly(borrowingHistory.getId());
+        assertThat(outsideRange).isEmpty();
+    }
+}
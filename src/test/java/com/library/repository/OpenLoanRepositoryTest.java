@@ -0,0 +1,140 @@
+package com.library.repository;
+
+import com.library.config.CacheConfig;
+import com.library.dto.BorrowingHistoryResponseDto;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.entity.BorrowingHistory;
+import com.library.entity.OpenLoan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(CacheConfig.class)
+class OpenLoanRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OpenLoanRepository openLoanRepository;
+
+    private Borrower testBorrower;
+    private Borrower otherBorrower;
+    private BorrowingHistory currentBorrowing;
+    private BorrowingHistory overdueBorrowing;
+    private Book overdueBook;
+
+    @BeforeEach
+    void setUp() {
+        testBorrower = new Borrower("John Doe", "john.doe@email.com");
+        otherBorrower = new Borrower("Jane Smith", "jane.smith@email.com");
+        entityManager.persist(testBorrower);
+        entityManager.persist(otherBorrower);
+
+        Book currentBook = new Book("9780131103627", "Effective Java", "Joshua Bloch");
+        overdueBook = new Book("9780321356680", "Clean Code", "Robert C. Martin");
+        Book otherBook = new Book("9780201633610", "Design Patterns", "Erich Gamma");
+        entityManager.persist(currentBook);
+        entityManager.persist(overdueBook);
+        entityManager.persist(otherBook);
+
+        currentBorrowing = borrow(currentBook, testBorrower, LocalDateTime.now().plusDays(7));
+        overdueBorrowing = borrow(overdueBook, testBorrower, LocalDateTime.now().minusDays(2));
+        borrow(otherBook, otherBorrower, LocalDateTime.now().minusDays(1));
+        entityManager.flush();
+    }
+
+    private BorrowingHistory borrow(Book book, Borrower borrower, LocalDateTime dueDate) {
+        book.borrowBy(borrower);
+        BorrowingHistory history = new BorrowingHistory(book, borrower, BorrowingHistory.ActionType.BORROWED, dueDate);
+        entityManager.persist(history);
+        entityManager.persist(new OpenLoan(history));
+        return history;
+    }
+
+    @Test
+    void findCurrentBorrowingsByBorrower_ShouldReturnOnlyThatBorrowersLoans() {
+        // Act
+        List<BorrowingHistoryResponseDto> result = openLoanRepository.findCurrentBorrowingsByBorrower(testBorrower.getId());
+
+        // Assert
+        assertThat(result).extracting(BorrowingHistoryResponseDto::getId)
+                .containsExactlyInAnyOrder(currentBorrowing.getId(), overdueBorrowing.getId());
+    }
+
+    @Test
+    void countByBorrowerId_ShouldCountOpenLoans() {
+        assertThat(openLoanRepository.countByBorrowerId(testBorrower.getId())).isEqualTo(2);
+        assertThat(openLoanRepository.countByBorrowerId(otherBorrower.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void findEarliestBorrowedAt_ShouldReturnWhenTheOldestLoanWasBorrowed() {
+        // Arrange
+        entityManager.clear();
+        LocalDateTime oldest = openLoanRepository.findAll().stream()
+                .map(OpenLoan::getBorrowedAt)
+                .min(LocalDateTime::compareTo)
+                .orElseThrow();
+
+        // Act & Assert
+        assertThat(openLoanRepository.findEarliestBorrowedAt()).isEqualTo(oldest);
+    }
+
+    @Test
+    void deleteByBookId_ShouldCloseTheLoan() {
+        // Act
+        int deleted = openLoanRepository.deleteByBookId(overdueBook.getId());
+
+        // Assert
+        assertThat(deleted).isEqualTo(1);
+        assertThat(openLoanRepository.findBorrowingsByBookIdIn(List.of(overdueBook.getId()))).isEmpty();
+        assertThat(openLoanRepository.countByBorrowerId(testBorrower.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void findBorrowingsByBookIdIn_ShouldReturnLoansEarliestDueFirst() {
+        // Act
+        List<BorrowingHistoryResponseDto> result = openLoanRepository.findBorrowingsByBookIdIn(
+                List.of(currentBorrowing.getBook().getId(), overdueBook.getId()));
+
+        // Assert
+        assertThat(result).extracting(BorrowingHistoryResponseDto::getId)
+                .containsExactly(overdueBorrowing.getId(), currentBorrowing.getId());
+    }
+
+    @Test
+    void findLoansFallingDue_ShouldPageLoansDueBeforeTheGivenDate() {
+        // Arrange - keysets are built from stored values, which have the database's timestamp precision
+        entityManager.clear();
+
+        // Act
+        List<Object[]> firstBatch = openLoanRepository.findLoansFallingDue(LocalDateTime.now().minusDays(30),
+                Long.MIN_VALUE, LocalDateTime.now(), Limit.of(1));
+        Object[] last = firstBatch.get(0);
+        List<Object[]> secondBatch = openLoanRepository.findLoansFallingDue((LocalDateTime) last[2], (Long) last[0],
+                LocalDateTime.now(), Limit.of(5));
+        List<Object[]> sinceYesterday = openLoanRepository.findLoansFallingDue(LocalDateTime.now().minusHours(36),
+                Long.MIN_VALUE, LocalDateTime.now(), Limit.of(5));
+
+        // Assert
+        assertThat(firstBatch).extracting(row -> row[0], row -> row[1])
+                .containsExactly(tuple(overdueBook.getId(), testBorrower.getId()));
+        assertThat(secondBatch).extracting(row -> row[1]).containsExactly(otherBorrower.getId());
+        assertThat(sinceYesterday).extracting(row -> row[1]).containsExactly(otherBorrower.getId());
+    }
+}
@@ -0,0 +1,177 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import com.library.service.impl.BookAvailabilityIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookAvailabilityIndexTest {
+
+    private static final long ISBN = 9780131103627L;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookAvailabilityIndex availabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        availabilityIndex = new BookAvailabilityIndex(bookRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rebuild_ShouldLoadCountsFromRepository() {
+        // Arrange
+        when(bookRepository.countCopiesGroupedByIsbn()).thenReturn(List.of(
+                new Object[]{ISBN, 3L, 1L},
+                new Object[]{9780321356680L, 2L, 0L}
+        ));
+
+        // Act
+        availabilityIndex.afterSingletonsInstantiated();
+
+        // Assert
+        assertThat(availabilityIndex.getTotalCopies(ISBN)).isEqualTo(3);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isEqualTo(1);
+        assertThat(availabilityIndex.hasAvailableCopy(9780321356680L)).isFalse();
+        assertThat(availabilityIndex.contains(9780321356680L)).isTrue();
+        assertThat(availabilityIndex.contains(9780000000002L)).isFalse();
+    }
+
+    @Test
+    void copyEvents_ShouldAdjustCounts_WhenNoTransactionIsActive() {
+        // Act
+        availabilityIndex.copyAdded(ISBN);
+        availabilityIndex.copyAdded(ISBN);
+        availabilityIndex.copyBorrowed(ISBN);
+
+        // Assert
+        assertThat(availabilityIndex.getTotalCopies(ISBN)).isEqualTo(2);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isEqualTo(1);
+
+        // Act
+        availabilityIndex.copyReturned(ISBN);
+        availabilityIndex.copyRemoved(ISBN, true);
+
+        // Assert
+        assertThat(availabilityIndex.getTotalCopies(ISBN)).isEqualTo(1);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isEqualTo(1);
+    }
+
+    @Test
+    void copiesAdded_ShouldAddTotalAndAvailableCopies() {
+        // Act
+        availabilityIndex.copyAdded(ISBN);
+        availabilityIndex.copiesAdded(ISBN, 500);
+
+        // Assert
+        assertThat(availabilityIndex.getTotalCopies(ISBN)).isEqualTo(501);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isEqualTo(501);
+    }
+
+    @Test
+    void copyEvents_ShouldGiveSameCounts_WhenReturnCommitsBeforeBorrow() {
+        // Arrange - one copy, borrowed, and a second borrow and the return committing in swapped order
+        availabilityIndex.copyAdded(ISBN);
+        availabilityIndex.copyBorrowed(ISBN);
+
+        // Act
+        availabilityIndex.copyReturned(ISBN);
+        availabilityIndex.copyReturned(ISBN);
+        availabilityIndex.copyBorrowed(ISBN);
+
+        // Assert
+        assertThat(availabilityIndex.getTotalCopies(ISBN)).isEqualTo(1);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isEqualTo(1);
+    }
+
+    @Test
+    void getAvailableCopies_ShouldReadZero_WhileABorrowIsAheadOfItsReturn() {
+        // Arrange
+        availabilityIndex.copyAdded(ISBN);
+        availabilityIndex.copyBorrowed(ISBN);
+
+        // Act - a second borrow of the same copy commits before the return that freed it
+        availabilityIndex.copyBorrowed(ISBN);
+
+        // Assert
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isZero();
+        assertThat(availabilityIndex.hasAvailableCopy(ISBN)).isFalse();
+
+        // Act
+        availabilityIndex.copyReturned(ISBN);
+
+        // Assert - the return cancels the early borrow, leaving the copy with its second borrower
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isZero();
+        assertThat(availabilityIndex.getTotalCopies(ISBN)).isEqualTo(1);
+    }
+
+    @Test
+    void rebuild_ShouldReplaceDriftedCountsAndDropRemovedIsbns() {
+        // Arrange
+        availabilityIndex.copyAdded(ISBN);
+        availabilityIndex.copyAdded(9780321356680L);
+        when(bookRepository.countCopiesGroupedByIsbn()).thenReturn(List.<Object[]>of(new Object[]{ISBN, 4L, 2L}));
+
+        // Act
+        availabilityIndex.rebuild();
+
+        // Assert
+        assertThat(availabilityIndex.getTotalCopies(ISBN)).isEqualTo(4);
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isEqualTo(2);
+        assertThat(availabilityIndex.contains(9780321356680L)).isFalse();
+    }
+
+    @Test
+    void copyEvents_ShouldApplyOnlyAfterCommit_WhenTransactionIsActive() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        availabilityIndex.copyAdded(ISBN);
+
+        // Assert
+        assertThat(availabilityIndex.contains(ISBN)).isFalse();
+
+        // Act
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isEqualTo(1);
+    }
+
+    @Test
+    void copyEvents_ShouldBeDiscarded_WhenTransactionRollsBack() {
+        // Arrange
+        availabilityIndex.copyAdded(ISBN);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        availabilityIndex.copyBorrowed(ISBN);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Assert
+        assertThat(availabilityIndex.getAvailableCopies(ISBN)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,180 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import com.library.service.impl.BookSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new BookSearchIndex(bookRepository);
+        when(bookRepository.findAllCatalogueEntries()).thenReturn(List.of(
+                new Object[]{9780131103627L, "9780131103627", "Effective Java", "Joshua Bloch"},
+                new Object[]{9780321356680L, "9780321356680", "Clean Code", "Robert C. Martin"},
+                new Object[]{9780134685991L, "9780134685991", "Java Concurrency in Practice", "Brian Goetz"},
+                new Object[]{9780596007126L, "9780596007126", "Head First Design Patterns", "Eric Freeman"},
+                new Object[]{9782070360024L, "9782070360024", "L'Étranger", "Albert Camus"}
+        ));
+        searchIndex.afterSingletonsInstantiated();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rebuild_ShouldIndexOneEntryPerIsbn() {
+        // Assert
+        assertThat(searchIndex.size()).isEqualTo(5);
+    }
+
+    @Test
+    void search_ShouldRankTitleAndWordStartMatchesFirst() {
+        // Act
+        List<BookSearchIndex.Match> matches = searchIndex.search("java", 10, isbn -> true);
+
+        // Assert
+        assertThat(matches).extracting(BookSearchIndex.Match::getTitle)
+                .containsExactly("Java Concurrency in Practice", "Effective Java");
+        assertThat(matches.get(0).getScore()).isGreaterThan(matches.get(1).getScore());
+    }
+
+    @Test
+    void search_ShouldRequireEveryTermInTitleOrAuthor() {
+        // Act
+        List<BookSearchIndex.Match> matches = searchIndex.search("JAVA bloch", 10, isbn -> true);
+
+        // Assert
+        assertThat(matches).extracting(BookSearchIndex.Match::getIsbn).containsExactly("9780131103627");
+    }
+
+    @Test
+    void search_ShouldIgnoreCaseAndDiacritics() {
+        // Act & Assert
+        assertThat(searchIndex.search("etranger", 10, isbn -> true))
+                .extracting(BookSearchIndex.Match::getTitle).containsExactly("L'Étranger");
+        assertThat(searchIndex.search("ÉTRANG", 10, isbn -> true)).hasSize(1);
+    }
+
+    @Test
+    void search_ShouldApplyLimitAndFilter() {
+        // Act & Assert
+        assertThat(searchIndex.search("java", 1, isbn -> true))
+                .extracting(BookSearchIndex.Match::getIsbn).containsExactly("9780134685991");
+        assertThat(searchIndex.search("java", 10, isbn13 -> isbn13 != 9780134685991L))
+                .extracting(BookSearchIndex.Match::getIsbn).containsExactly("9780131103627");
+    }
+
+    @Test
+    void search_ShouldDiscardTrigramFalsePositives() {
+        // Every trigram of "rencurr" occurs in "concurrency", but the term itself does not
+        assertThat(searchIndex.search("rencurr", 10, isbn -> true)).isEmpty();
+        assertThat(searchIndex.findIsbnsByTitle("rencurr")).isEmpty();
+        assertThat(searchIndex.search("oncurr", 10, isbn -> true)).hasSize(1);
+    }
+
+    @Test
+    void search_ShouldThrowException_WhenNoTermHasATrigram() {
+        // Act & Assert
+        assertThatThrownBy(() -> searchIndex.search("in c", 10, isbn -> true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Search text must contain a word of at least 3 characters");
+    }
+
+    @Test
+    void findIsbnsByTitleAndAuthor_ShouldMatchSubstringsOfThatFieldOnly() {
+        // Act & Assert
+        assertThat(searchIndex.findIsbnsByTitle("concurrency in")).containsExactly(9780134685991L);
+        assertThat(searchIndex.findIsbnsByTitle("Goetz")).isEmpty();
+        assertThat(searchIndex.findIsbnsByAuthor("goetz")).containsExactly(9780134685991L);
+    }
+
+    @Test
+    void entryChanges_ShouldBeVisible_WhenNoTransactionIsActive() {
+        // Act
+        searchIndex.entryAdded(9780201633610L, "9780201633610", "Design Patterns", "Erich Gamma");
+        searchIndex.entryAdded(9780131103627L, "9780131103627", "Effective Java 3rd Edition", "Joshua Bloch");
+        searchIndex.entryRemoved(9780321356680L);
+
+        // Assert
+        assertThat(searchIndex.size()).isEqualTo(5);
+        assertThat(searchIndex.findIsbnsByTitle("design patterns"))
+                .containsExactlyInAnyOrder(9780596007126L, 9780201633610L);
+        assertThat(searchIndex.findIsbnsByTitle("3rd edition")).containsExactly(9780131103627L);
+        assertThat(searchIndex.findIsbnsByTitle("clean")).isEmpty();
+    }
+
+    @Test
+    void search_ShouldReturnTheDisplayedIsbnWithItsIsbn13() {
+        // Arrange
+        searchIndex.entryAdded(9780201633610L, "0-201-63361-2", "Design Patterns", "Erich Gamma");
+
+        // Act
+        List<BookSearchIndex.Match> matches = searchIndex.search("gamma", 10, isbn13 -> true);
+
+        // Assert
+        assertThat(matches).singleElement().satisfies(match -> {
+            assertThat(match.getIsbn13()).isEqualTo(9780201633610L);
+            assertThat(match.getIsbn()).isEqualTo("0-201-63361-2");
+        });
+    }
+
+    @Test
+    void entryAdded_ShouldWaitForCommit_WhenTransactionIsActive() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        searchIndex.entryAdded(9780201633610L, "9780201633610", "Design Patterns", "Erich Gamma");
+
+        // Assert
+        assertThat(searchIndex.findIsbnsByAuthor("gamma")).isEmpty();
+
+        // Act
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertThat(searchIndex.findIsbnsByAuthor("gamma")).containsExactly(9780201633610L);
+    }
+
+    @Test
+    void entryRemoved_ShouldCompactIndex_WhenManyEntriesAreRemoved() {
+        // Arrange
+        for (int i = 0; i < 3000; i++) {
+            searchIndex.entryAdded(i, "isbn-" + i, "Generated Title " + i, "Generated Author");
+        }
+
+        // Act
+        for (int i = 0; i < 3000; i++) {
+            searchIndex.entryRemoved(i);
+        }
+
+        // Assert
+        assertThat(searchIndex.size()).isEqualTo(5);
+        assertThat(searchIndex.findIsbnsByTitle("generated")).isEmpty();
+        assertThat(searchIndex.search("java", 10, isbn -> true)).hasSize(2);
+    }
+}
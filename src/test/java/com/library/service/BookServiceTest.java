@@ -1,29 +1,50 @@
 package com.library.service;
 
+import com.library.dto.BatchLoanResultDto;
+import com.library.dto.BookImportResultDto;
+import com.library.dto.BookRequestDto;
+import com.library.dto.BookSearchResultDto;
+import com.library.dto.BookResponseDto;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
 import com.library.entity.BorrowingHistory;
+import com.library.entity.OpenLoan;
 import com.library.repository.BookRepository;
 import com.library.repository.BorrowerRepository;
 import com.library.repository.BorrowingHistoryRepository;
+import com.library.repository.OpenLoanRepository;
+import com.library.service.impl.BookAvailabilityIndex;
+import com.library.service.impl.BookSearchIndex;
 import com.library.service.impl.BookServiceImpl;
+import com.library.service.impl.BorrowingLeaderboard;
+import com.library.service.impl.LibraryMetrics;
+import com.library.service.impl.OverdueLoanIndex;
+import com.library.service.impl.LibraryMetrics.Rejection;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -31,6 +52,8 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class BookServiceTest {
 
+    private static final long ISBN13 = 9780131103627L;
+
     @Mock
     private BookRepository bookRepository;
 
@@ -40,6 +63,27 @@ class BookServiceTest {
     @Mock
     private BorrowingHistoryRepository borrowingHistoryRepository;
 
+    @Mock
+    private OpenLoanRepository openLoanRepository;
+
+    @Mock
+    private BookAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private BookSearchIndex searchIndex;
+
+    @Mock
+    private BorrowingLeaderboard leaderboard;
+
+    @Mock
+    private OverdueLoanIndex overdueLoans;
+
+    @Mock
+    private LibraryMetrics metrics;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -63,7 +107,7 @@ class BookServiceTest {
         String author = "Joshua Bloch";
         String normalizedIsbn = "9780131103627";
         
-        when(bookRepository.findByIsbn(normalizedIsbn)).thenReturn(Collections.emptyList());
+        when(bookRepository.findByIsbn13(ISBN13)).thenReturn(Collections.emptyList());
         when(bookRepository.save(any(Book.class))).thenReturn(testBook);
 
         // Act
@@ -74,8 +118,10 @@ class BookServiceTest {
         assertThat(result.getIsbn()).isEqualTo(normalizedIsbn);
         assertThat(result.getTitle()).isEqualTo(title);
         assertThat(result.getAuthor()).isEqualTo(author);
-        verify(bookRepository).findByIsbn(normalizedIsbn);
+        verify(bookRepository).findByIsbn13(ISBN13);
         verify(bookRepository).save(any(Book.class));
+        verify(availabilityIndex).copyAdded(ISBN13);
+        verify(searchIndex).entryAdded(ISBN13, normalizedIsbn, title, author);
     }
 
     @Test
@@ -87,7 +133,7 @@ class BookServiceTest {
         String normalizedIsbn = "9780131103627";
         
         Book existingBook = new Book(normalizedIsbn, title, author);
-        when(bookRepository.findByIsbn(normalizedIsbn)).thenReturn(Arrays.asList(existingBook));
+        when(bookRepository.findByIsbn13(ISBN13)).thenReturn(Arrays.asList(existingBook));
         when(bookRepository.save(any(Book.class))).thenReturn(testBook);
 
         // Act
@@ -96,6 +142,7 @@ class BookServiceTest {
         // Assert
         assertThat(result).isNotNull();
         verify(bookRepository).save(any(Book.class));
+        verify(searchIndex, never()).entryAdded(anyLong(), anyString(), anyString(), anyString());
     }
 
     @Test
@@ -107,7 +154,7 @@ class BookServiceTest {
         String normalizedIsbn = "9780131103627";
         
         Book existingBook = new Book(normalizedIsbn, "Effective Java", author);
-        when(bookRepository.findByIsbn(normalizedIsbn)).thenReturn(Arrays.asList(existingBook));
+        when(bookRepository.findByIsbn13(ISBN13)).thenReturn(Arrays.asList(existingBook));
 
         // Act & Assert
         assertThatThrownBy(() -> bookService.addBook(isbn, title, author))
@@ -117,6 +164,80 @@ class BookServiceTest {
         verify(bookRepository, never()).save(any(Book.class));
     }
 
+    @Test
+    void addBook_ShouldFindCopiesOfTheIsbn13_WhenIsbn10IsGiven() {
+        // Arrange
+        Book existingBook = new Book("9780131103627", "Effective Java", "Joshua Bloch");
+        when(bookRepository.findByIsbn13(ISBN13)).thenReturn(List.of(existingBook));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Book result = bookService.addBook("0-13-110362-8", "Effective Java", "Joshua Bloch");
+
+        // Assert - stored in its ISBN-10 form, looked up and counted under the ISBN-13
+        assertThat(result.getIsbn()).isEqualTo("0131103628");
+        assertThat(result.getIsbn13()).isEqualTo(ISBN13);
+        verify(availabilityIndex).copyAdded(ISBN13);
+        verify(searchIndex, never()).entryAdded(anyLong(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void importBooks_ShouldSaveValidRowsAndReportInvalidOnes() {
+        // Arrange
+        List<BookRequestDto> rows = Arrays.asList(
+                new BookRequestDto("978-0-13-110362-7", "Effective Java", "Joshua Bloch"),
+                new BookRequestDto("not-an-isbn", "Effective Java", "Joshua Bloch"),
+                new BookRequestDto("9780131103627", "  Effective Java ", "Joshua Bloch"),
+                new BookRequestDto("9780321356680", "", "Robert C. Martin"));
+        when(bookRepository.findCatalogueEntriesByIsbnIn(any())).thenReturn(Collections.emptyList());
+
+        // Act
+        BookImportResultDto result = bookService.importBooks(rows.iterator());
+
+        // Assert
+        assertThat(result.getReceived()).isEqualTo(4);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BookImportResultDto.RowError::getRow).containsExactly(2L, 4L);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Invalid ISBN format: not-an-isbn");
+        verify(bookRepository).saveAll(org.mockito.ArgumentMatchers.<List<Book>>argThat(books -> books.size() == 2
+                && books.stream().allMatch(book -> book.getIsbn().equals("9780131103627")
+                        && book.getTitle().equals("Effective Java"))));
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+        verify(availabilityIndex).copiesAdded(ISBN13, 2);
+    }
+
+    @Test
+    void importBooks_ShouldRejectRowsThatConflictWithExistingCopiesOrEarlierRows() {
+        // Arrange
+        List<BookRequestDto> rows = Arrays.asList(
+                new BookRequestDto("9780131103627", "Effective Java 3rd Edition", "Joshua Bloch"),
+                new BookRequestDto("9780321356680", "Clean Code", "Robert C. Martin"),
+                new BookRequestDto("9780321356680", "Clean Code", "Uncle Bob"));
+        List<Object[]> existing = Collections.singletonList(new Object[]{ISBN13, "9780131103627", "Effective Java", "Joshua Bloch"});
+        when(bookRepository.findCatalogueEntriesByIsbnIn(any())).thenReturn(existing);
+
+        // Act
+        BookImportResultDto result = bookService.importBooks(rows.iterator());
+
+        // Assert
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(BookImportResultDto.RowError::getRow).containsExactly(1L, 3L);
+        assertThat(result.getErrors()).allMatch(error -> error.getMessage().contains("already exists with different title/author"));
+        verify(bookRepository).findCatalogueEntriesByIsbnIn(any());
+        verify(availabilityIndex).copiesAdded(9780321356680L, 1);
+        verify(availabilityIndex, never()).copiesAdded(eq(ISBN13), anyInt());
+    }
+
+    @Test
+    void importBooks_ShouldThrowException_WhenBooksIsNull() {
+        // Act & Assert
+        assertThatThrownBy(() -> bookService.importBooks(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Books cannot be null");
+    }
+
     @Test
     void addBook_ShouldThrowException_WhenIsbnIsNull() {
         // Act & Assert
@@ -202,16 +323,15 @@ class BookServiceTest {
     void findBooksByIsbn_ShouldReturnBooks() {
         // Arrange
         String isbn = "978-0-13-110362-7";
-        String normalizedIsbn = "9780131103627";
         List<Book> expected = Arrays.asList(testBook);
-        when(bookRepository.findByIsbn(normalizedIsbn)).thenReturn(expected);
+        when(bookRepository.findByIsbn13(ISBN13)).thenReturn(expected);
 
         // Act
         List<Book> result = bookService.findBooksByIsbn(isbn);
 
         // Assert
         assertThat(result).isEqualTo(expected);
-        verify(bookRepository).findByIsbn(normalizedIsbn);
+        verify(bookRepository).findByIsbn13(ISBN13);
     }
 
     @Test
@@ -219,14 +339,42 @@ class BookServiceTest {
         // Arrange
         String titlePattern = "Effective";
         List<Book> expected = Arrays.asList(testBook);
-        when(bookRepository.findByTitleContainingIgnoreCase(titlePattern)).thenReturn(expected);
+        when(searchIndex.findIsbnsByTitle(titlePattern)).thenReturn(List.of(testBook.getIsbn13()));
+        when(bookRepository.findByIsbn13InOrderByIdAsc(List.of(testBook.getIsbn13()))).thenReturn(expected);
 
         // Act
         List<Book> result = bookService.searchBooksByTitle(titlePattern);
 
         // Assert
         assertThat(result).isEqualTo(expected);
-        verify(bookRepository).findByTitleContainingIgnoreCase(titlePattern);
+        verify(bookRepository, never()).findByTitleContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    void searchBooksByTitle_ShouldNotQueryBooks_WhenIndexHasNoMatch() {
+        // Arrange
+        when(searchIndex.findIsbnsByTitle("Missing")).thenReturn(List.of());
+
+        // Act
+        List<Book> result = bookService.searchBooksByTitle("Missing");
+
+        // Assert
+        assertThat(result).isEmpty();
+        verify(bookRepository, never()).findByIsbn13InOrderByIdAsc(any());
+    }
+
+    @Test
+    void searchBooksByTitle_ShouldFallBackToRepository_WhenPatternIsTooShortForIndex() {
+        // Arrange
+        List<Book> expected = Arrays.asList(testBook);
+        when(bookRepository.findByTitleContainingIgnoreCase("Ja")).thenReturn(expected);
+
+        // Act
+        List<Book> result = bookService.searchBooksByTitle(" Ja ");
+
+        // Assert
+        assertThat(result).isEqualTo(expected);
+        verify(searchIndex, never()).findIsbnsByTitle(anyString());
     }
 
     @Test
@@ -234,28 +382,59 @@ class BookServiceTest {
         // Arrange
         String authorPattern = "Bloch";
         List<Book> expected = Arrays.asList(testBook);
-        when(bookRepository.findByAuthorContainingIgnoreCase(authorPattern)).thenReturn(expected);
+        when(searchIndex.findIsbnsByAuthor(authorPattern)).thenReturn(List.of(testBook.getIsbn13()));
+        when(bookRepository.findByIsbn13InOrderByIdAsc(List.of(testBook.getIsbn13()))).thenReturn(expected);
 
         // Act
         List<Book> result = bookService.searchBooksByAuthor(authorPattern);
 
         // Assert
         assertThat(result).isEqualTo(expected);
-        verify(bookRepository).findByAuthorContainingIgnoreCase(authorPattern);
+        verify(bookRepository, never()).findByAuthorContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    void searchBooks_ShouldReturnRankedEntriesWithCopyCounts() {
+        // Arrange
+        BookSearchIndex.Match match = new BookSearchIndex.Match(ISBN13, "9780131103627", "Effective Java", "Joshua Bloch", 7);
+        when(searchIndex.search(eq("effective bloch"), eq(10), any())).thenReturn(List.of(match));
+        when(availabilityIndex.getTotalCopies(ISBN13)).thenReturn(3L);
+        when(availabilityIndex.getAvailableCopies(ISBN13)).thenReturn(1L);
+
+        // Act
+        List<BookSearchResultDto> result = bookService.searchBooks("effective bloch", 10);
+
+        // Assert
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getTitle()).isEqualTo("Effective Java");
+        assertThat(result.get(0).getTotalCopies()).isEqualTo(3);
+        assertThat(result.get(0).getAvailableCopies()).isEqualTo(1);
+        assertThat(result.get(0).getScore()).isEqualTo(7);
+    }
+
+    @Test
+    void searchBooks_ShouldThrowException_WhenLimitIsOutOfRange() {
+        // Act & Assert
+        assertThatThrownBy(() -> bookService.searchBooks("effective", 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Search limit must be between 1 and 100");
+        assertThatThrownBy(() -> bookService.searchBooks(" ", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Search query cannot be null or empty");
     }
 
     @Test
     void getAllBooks_ShouldReturnAllBooks() {
         // Arrange
-        List<Book> expected = Arrays.asList(testBook);
-        when(bookRepository.findAll()).thenReturn(expected);
+        List<BookResponseDto> expected = Arrays.asList(BookResponseDto.fromEntity(testBook));
+        when(bookRepository.findAllResponses()).thenReturn(expected);
 
         // Act
-        List<Book> result = bookService.getAllBooks();
+        List<BookResponseDto> result = bookService.getAllBooks();
 
         // Assert
         assertThat(result).isEqualTo(expected);
-        verify(bookRepository).findAll();
+        verify(bookRepository).findAllResponses();
     }
 
     @Test
@@ -286,20 +465,68 @@ class BookServiceTest {
         verify(bookRepository).findBorrowedBooks();
     }
 
+    @Test
+    void getBooksAfter_ShouldStartFromZero_WhenNoCursorGiven() {
+        // Arrange
+        List<BookResponseDto> expected = Arrays.asList(BookResponseDto.fromEntity(testBook));
+        when(bookRepository.findPageAfterId(0L, Limit.of(21))).thenReturn(expected);
+
+        // Act
+        List<BookResponseDto> result = bookService.getBooksAfter(null, 21);
+
+        // Assert
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    void getAvailableBooksAfter_ShouldContinueAfterGivenId() {
+        // Arrange
+        List<BookResponseDto> expected = Arrays.asList(BookResponseDto.fromEntity(testBook));
+        when(bookRepository.findAvailablePageAfterId(41L, Limit.of(10))).thenReturn(expected);
+
+        // Act
+        List<BookResponseDto> result = bookService.getAvailableBooksAfter(41L, 10);
+
+        // Assert
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    void getBorrowedBooksAfter_ShouldThrowException_WhenLimitIsNotPositive() {
+        // Act & Assert
+        assertThatThrownBy(() -> bookService.getBorrowedBooksAfter(null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Limit must be positive");
+        verify(bookRepository, never()).findBorrowedPageAfterId(anyLong(), any(Limit.class));
+    }
+
     @Test
     void getAvailableBooksByIsbn_ShouldReturnAvailableBooks() {
         // Arrange
         String isbn = "978-0-13-110362-7";
-        String normalizedIsbn = "9780131103627";
         List<Book> expected = Arrays.asList(testBook);
-        when(bookRepository.findAvailableBooksByIsbn(normalizedIsbn)).thenReturn(expected);
+        when(availabilityIndex.hasAvailableCopy(ISBN13)).thenReturn(true);
+        when(bookRepository.findAvailableBooksByIsbn(ISBN13)).thenReturn(expected);
 
         // Act
         List<Book> result = bookService.getAvailableBooksByIsbn(isbn);
 
         // Assert
         assertThat(result).isEqualTo(expected);
-        verify(bookRepository).findAvailableBooksByIsbn(normalizedIsbn);
+        verify(bookRepository).findAvailableBooksByIsbn(ISBN13);
+    }
+
+    @Test
+    void getAvailableBooksByIsbn_ShouldSkipQuery_WhenIndexHasNoAvailableCopy() {
+        // Arrange
+        when(availabilityIndex.hasAvailableCopy(ISBN13)).thenReturn(false);
+
+        // Act
+        List<Book> result = bookService.getAvailableBooksByIsbn("978-0-13-110362-7");
+
+        // Assert
+        assertThat(result).isEmpty();
+        verify(bookRepository, never()).findAvailableBooksByIsbn(anyLong());
     }
 
     @Test
@@ -320,13 +547,12 @@ class BookServiceTest {
     void borrowBook_ShouldBorrowBook_WhenValidData() {
         // Arrange
         String isbn = "978-0-13-110362-7";
-        String normalizedIsbn = "9780131103627";
         Long borrowerId = 1L;
         
         when(borrowerRepository.findById(borrowerId)).thenReturn(Optional.of(testBorrower));
-        when(bookRepository.findFirstAvailableBookByIsbn(normalizedIsbn)).thenReturn(Optional.of(testBook));
+        when(bookRepository.lockAvailableBooksByIsbn(ISBN13, Limit.of(1))).thenReturn(List.of(testBook));
         when(bookRepository.save(testBook)).thenReturn(testBook);
-        when(borrowingHistoryRepository.save(any(BorrowingHistory.class))).thenReturn(new BorrowingHistory());
+        when(borrowingHistoryRepository.save(any(BorrowingHistory.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         Book result = bookService.borrowBook(isbn, borrowerId);
@@ -336,8 +562,12 @@ class BookServiceTest {
         assertThat(result.getBorrower()).isEqualTo(testBorrower);
         assertThat(result.isAvailable()).isFalse();
         verify(borrowerRepository).findById(borrowerId);
-        verify(bookRepository).findFirstAvailableBookByIsbn(normalizedIsbn);
+        verify(bookRepository).lockAvailableBooksByIsbn(ISBN13, Limit.of(1));
         verify(bookRepository).save(testBook);
+        verify(availabilityIndex).copyBorrowed(ISBN13);
+        verify(openLoanRepository).save(any(OpenLoan.class));
+        verify(leaderboard).bookBorrowed(testBook.getId(), borrowerId);
+        verify(metrics).bookBorrowed();
     }
 
     @Test
@@ -353,7 +583,7 @@ class BookServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Borrower not found with ID: 99");
 
-        verify(bookRepository, never()).findFirstAvailableBookByIsbn(anyString());
+        verify(bookRepository, never()).lockAvailableBooksByIsbn(anyLong(), any(Limit.class));
     }
 
     @Test
@@ -364,7 +594,7 @@ class BookServiceTest {
         Long borrowerId = 1L;
         
         when(borrowerRepository.findById(borrowerId)).thenReturn(Optional.of(testBorrower));
-        when(bookRepository.findFirstAvailableBookByIsbn(normalizedIsbn)).thenReturn(Optional.empty());
+        when(bookRepository.lockAvailableBooksByIsbn(ISBN13, Limit.of(1))).thenReturn(List.of());
 
         // Act & Assert
         assertThatThrownBy(() -> bookService.borrowBook(isbn, borrowerId))
@@ -372,6 +602,25 @@ class BookServiceTest {
                 .hasMessage("No available books found with ISBN: " + normalizedIsbn);
 
         verify(bookRepository, never()).save(any(Book.class));
+        verify(metrics).rejected(Rejection.NO_AVAILABLE_COPIES);
+        verify(metrics, never()).bookBorrowed();
+    }
+
+    @Test
+    void borrowBook_ShouldBorrowReturnedCopy_WhenIndexHasNotSeenTheReturn() {
+        // Arrange - the copy was returned on another instance, so this instance's index still counts it as out
+        when(borrowerRepository.findById(1L)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.lockAvailableBooksByIsbn(ISBN13, Limit.of(1))).thenReturn(List.of(testBook));
+        when(bookRepository.save(testBook)).thenReturn(testBook);
+        when(borrowingHistoryRepository.save(any(BorrowingHistory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Book result = bookService.borrowBook("978-0-13-110362-7", 1L);
+
+        // Assert - the database decides, whatever the index holds
+        assertThat(result.getBorrower()).isEqualTo(testBorrower);
+        verify(availabilityIndex, never()).hasAvailableCopy(anyLong());
+        verify(availabilityIndex).copyBorrowed(ISBN13);
     }
 
     @Test
@@ -390,11 +639,44 @@ class BookServiceTest {
                 .hasMessage("Borrower ID cannot be null");
     }
 
+    @Test
+    void borrowBookById_ShouldBorrowBook_WhenAvailable() {
+        // Arrange
+        when(borrowerRepository.findById(1L)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBook));
+        when(bookRepository.save(testBook)).thenReturn(testBook);
+        when(borrowingHistoryRepository.save(any(BorrowingHistory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Book result = bookService.borrowBookById(1L, 1L);
+
+        // Assert
+        assertThat(result.getBorrower()).isEqualTo(testBorrower);
+        verify(bookRepository).findByIdForUpdate(1L);
+        verify(bookRepository).save(testBook);
+        verify(availabilityIndex).copyBorrowed(testBook.getIsbn13());
+    }
+
+    @Test
+    void borrowBookById_ShouldThrowException_WhenBookAlreadyBorrowed() {
+        // Arrange
+        testBook.borrowBy(testBorrower);
+        when(borrowerRepository.findById(1L)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBook));
+
+        // Act & Assert
+        assertThatThrownBy(() -> bookService.borrowBookById(1L, 1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Book with ID 1 is not available for borrowing");
+
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
     @Test
     void returnBook_ShouldReturnBook_WhenValidData() {
         // Arrange
         testBook.borrowBy(testBorrower);
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBook));
         when(bookRepository.save(testBook)).thenReturn(testBook);
         when(borrowingHistoryRepository.save(any(BorrowingHistory.class))).thenReturn(new BorrowingHistory());
 
@@ -405,14 +687,18 @@ class BookServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.isAvailable()).isTrue();
         assertThat(result.getBorrower()).isNull();
-        verify(bookRepository).findById(1L);
+        verify(bookRepository).findByIdForUpdate(1L);
         verify(bookRepository).save(testBook);
+        verify(availabilityIndex).copyReturned(testBook.getIsbn13());
+        verify(openLoanRepository).deleteByBookId(1L);
+        verify(overdueLoans).bookReturned(1L);
+        verify(metrics).bookReturned();
     }
 
     @Test
     void returnBook_ShouldThrowException_WhenBookNotFound() {
         // Arrange
-        when(bookRepository.findById(99L)).thenReturn(Optional.empty());
+        when(bookRepository.findByIdForUpdate(99L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThatThrownBy(() -> bookService.returnBook(99L))
@@ -423,7 +709,7 @@ class BookServiceTest {
     @Test
     void returnBook_ShouldThrowException_WhenBookNotBorrowed() {
         // Arrange
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBook));
 
         // Act & Assert
         assertThatThrownBy(() -> bookService.returnBook(1L))
@@ -431,6 +717,7 @@ class BookServiceTest {
                 .hasMessage("Book with ID 1 is not currently borrowed");
 
         verify(bookRepository, never()).save(any(Book.class));
+        verify(metrics).rejected(Rejection.BOOK_NOT_BORROWED);
     }
 
     @Test
@@ -441,12 +728,117 @@ class BookServiceTest {
                 .hasMessage("Book ID cannot be null");
     }
 
+    @Test
+    void borrowBooks_ShouldLendAvailableBooksAndReportTheRest() {
+        // Arrange
+        Book borrowedBook = new Book("9780134685991", "Effective Java", "Joshua Bloch");
+        borrowedBook.setId(2L);
+        borrowedBook.borrowBy(new Borrower("Jane Smith", "jane.smith@email.com"));
+        when(borrowerRepository.findById(1L)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testBook, borrowedBook));
+
+        // Act
+        BatchLoanResultDto result = bookService.borrowBooks(Arrays.asList(1L, 2L, 99L, 1L, null), 1L);
+
+        // Assert
+        assertThat(result.getRequested()).isEqualTo(5);
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getOutcomes()).extracting(BatchLoanResultDto.Outcome::getMessage).containsExactly(
+                null,
+                "Book with ID 2 is not available for borrowing",
+                "Book not found with ID: 99",
+                "Book with ID 1 is listed more than once",
+                "Book ID cannot be null");
+        assertThat(result.getOutcomes().get(0).getBook().getBorrower().getId()).isEqualTo(1L);
+        verify(bookRepository).lendBooks(eq(Set.of(1L)), eq(testBorrower), any(LocalDateTime.class));
+        verify(borrowingHistoryRepository).saveAll(anyList());
+        verify(openLoanRepository).saveAll(anyList());
+        verify(availabilityIndex).copyBorrowed(testBook.getIsbn13());
+        verify(leaderboard).bookBorrowed(1L, 1L);
+        verify(metrics).bookBorrowed();
+        verify(metrics).rejected(Rejection.BOOK_NOT_AVAILABLE);
+    }
+
+    @Test
+    void borrowBooks_ShouldChangeNothing_WhenNoBookCanBeLent() {
+        // Arrange
+        when(borrowerRepository.findById(1L)).thenReturn(Optional.of(testBorrower));
+        when(bookRepository.findAllByIdForUpdate(any())).thenReturn(List.of());
+
+        // Act
+        BatchLoanResultDto result = bookService.borrowBooks(List.of(99L), 1L);
+
+        // Assert
+        assertThat(result.getFailed()).isEqualTo(1);
+        verify(bookRepository, never()).lendBooks(any(), any(), any());
+        verify(borrowingHistoryRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void borrowBooks_ShouldThrowException_WhenBorrowerNotFound() {
+        // Arrange
+        when(borrowerRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> bookService.borrowBooks(List.of(1L), 99L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Borrower not found with ID: 99");
+        verify(bookRepository, never()).findAllByIdForUpdate(any());
+    }
+
+    @Test
+    void borrowBooks_ShouldThrowException_WhenTooManyBooksGiven() {
+        // Arrange
+        List<Long> bookIds = new ArrayList<>();
+        for (long id = 1; id <= BookService.MAX_BATCH_SIZE + 1; id++) {
+            bookIds.add(id);
+        }
+
+        // Act & Assert
+        assertThatThrownBy(() -> bookService.borrowBooks(bookIds, 1L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("At most 100 books can be processed at once");
+    }
+
+    @Test
+    void returnBooks_ShouldReleaseBorrowedBooksAndCloseTheirLoans() {
+        // Arrange
+        Book availableBook = new Book("9780134685991", "Effective Java", "Joshua Bloch");
+        availableBook.setId(2L);
+        testBook.borrowBy(testBorrower);
+        when(bookRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testBook, availableBook));
+
+        // Act
+        BatchLoanResultDto result = bookService.returnBooks(List.of(1L, 2L));
+
+        // Assert
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        assertThat(result.getOutcomes().get(0).getBook().isAvailable()).isTrue();
+        assertThat(result.getOutcomes().get(1).getMessage()).isEqualTo("Book with ID 2 is not currently borrowed");
+        verify(bookRepository).releaseBooks(eq(Set.of(1L)), any(LocalDateTime.class));
+        verify(openLoanRepository).deleteByBookIdIn(Set.of(1L));
+        verify(overdueLoans).booksReturned(Set.of(1L));
+        verify(borrowingHistoryRepository).saveAll(anyList());
+        verify(availabilityIndex).copyReturned(testBook.getIsbn13());
+        verify(metrics).bookReturned();
+        verify(metrics).rejected(Rejection.BOOK_NOT_BORROWED);
+    }
+
+    @Test
+    void returnBooks_ShouldThrowException_WhenNoBooksGiven() {
+        // Act & Assert
+        assertThatThrownBy(() -> bookService.returnBooks(List.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Book IDs cannot be null or empty");
+    }
+
     @Test
     void updateBook_ShouldUpdateTitle_WhenValidTitleProvided() {
         // Arrange
         String newTitle = "Effective Java 3rd Edition";
         when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(bookRepository.findInconsistentBooksByIsbn(testBook.getIsbn(), newTitle, testBook.getAuthor()))
+        when(bookRepository.findInconsistentBooksByIsbn(testBook.getIsbn13(), newTitle, testBook.getAuthor()))
                 .thenReturn(Collections.emptyList());
         when(bookRepository.save(testBook)).thenReturn(testBook);
 
@@ -456,6 +848,7 @@ class BookServiceTest {
         // Assert
         assertThat(result.getTitle()).isEqualTo(newTitle);
         verify(bookRepository).save(testBook);
+        verify(searchIndex).entryAdded(testBook.getIsbn13(), testBook.getIsbn(), newTitle, testBook.getAuthor());
     }
 
     @Test
@@ -463,7 +856,7 @@ class BookServiceTest {
         // Arrange
         String newAuthor = "Joshua Bloch Jr.";
         when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(bookRepository.findInconsistentBooksByIsbn(testBook.getIsbn(), testBook.getTitle(), newAuthor))
+        when(bookRepository.findInconsistentBooksByIsbn(testBook.getIsbn13(), testBook.getTitle(), newAuthor))
                 .thenReturn(Collections.emptyList());
         when(bookRepository.save(testBook)).thenReturn(testBook);
 
@@ -505,7 +898,7 @@ class BookServiceTest {
         String newTitle = "Different Title";
         Book inconsistentBook = new Book(testBook.getIsbn(), "Another Title", testBook.getAuthor());
         when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(bookRepository.findInconsistentBooksByIsbn(testBook.getIsbn(), newTitle, testBook.getAuthor()))
+        when(bookRepository.findInconsistentBooksByIsbn(testBook.getIsbn13(), newTitle, testBook.getAuthor()))
                 .thenReturn(Arrays.asList(inconsistentBook));
 
         // Act & Assert
@@ -526,6 +919,21 @@ class BookServiceTest {
 
         // Assert
         verify(bookRepository).delete(testBook);
+        verify(availabilityIndex).copyRemoved(testBook.getIsbn13(), true);
+        verify(searchIndex).entryRemoved(testBook.getIsbn13());
+    }
+
+    @Test
+    void deleteBook_ShouldKeepSearchEntry_WhenOtherCopiesRemain() {
+        // Arrange
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(bookRepository.countByIsbn13(testBook.getIsbn13())).thenReturn(1L);
+
+        // Act
+        bookService.deleteBook(1L);
+
+        // Assert
+        verify(searchIndex, never()).entryRemoved(anyLong());
     }
 
     @Test
@@ -595,15 +1003,14 @@ class BookServiceTest {
     void existsByIsbn_ShouldReturnTrue_WhenIsbnExists() {
         // Arrange
         String isbn = "978-0-13-110362-7";
-        String normalizedIsbn = "9780131103627";
-        when(bookRepository.existsByIsbn(normalizedIsbn)).thenReturn(true);
+        when(availabilityIndex.contains(ISBN13)).thenReturn(true);
 
         // Act
         boolean result = bookService.existsByIsbn(isbn);
 
         // Assert
         assertThat(result).isTrue();
-        verify(bookRepository).existsByIsbn(normalizedIsbn);
+        verify(availabilityIndex).contains(ISBN13);
     }
 
     @Test
@@ -650,38 +1057,35 @@ class BookServiceTest {
     void getBookCountByIsbn_ShouldReturnCount() {
         // Arrange
         String isbn = "978-0-13-110362-7";
-        String normalizedIsbn = "9780131103627";
-        when(bookRepository.countByIsbn(normalizedIsbn)).thenReturn(3L);
+        when(availabilityIndex.getTotalCopies(ISBN13)).thenReturn(3L);
 
         // Act
         long result = bookService.getBookCountByIsbn(isbn);
 
         // Assert
         assertThat(result).isEqualTo(3L);
-        verify(bookRepository).countByIsbn(normalizedIsbn);
+        verify(availabilityIndex).getTotalCopies(ISBN13);
     }
 
     @Test
     void getAvailableBookCountByIsbn_ShouldReturnCount() {
         // Arrange
         String isbn = "978-0-13-110362-7";
-        String normalizedIsbn = "9780131103627";
-        when(bookRepository.countAvailableBooksByIsbn(normalizedIsbn)).thenReturn(2L);
+        when(availabilityIndex.getAvailableCopies(ISBN13)).thenReturn(2L);
 
         // Act
         long result = bookService.getAvailableBookCountByIsbn(isbn);
 
         // Assert
         assertThat(result).isEqualTo(2L);
-        verify(bookRepository).countAvailableBooksByIsbn(normalizedIsbn);
+        verify(availabilityIndex).getAvailableCopies(ISBN13);
     }
 
     @Test
     void findFirstAvailableBookByIsbn_ShouldReturnBook_WhenAvailable() {
         // Arrange
         String isbn = "978-0-13-110362-7";
-        String normalizedIsbn = "9780131103627";
-        when(bookRepository.findFirstAvailableBookByIsbn(normalizedIsbn)).thenReturn(Optional.of(testBook));
+        when(bookRepository.findFirstAvailableBookByIsbn(ISBN13)).thenReturn(Optional.of(testBook));
 
         // Act
         Optional<Book> result = bookService.findFirstAvailableBookByIsbn(isbn);
@@ -689,7 +1093,7 @@ class BookServiceTest {
         // Assert
         assertThat(result).isPresent();
         assertThat(result.get()).isEqualTo(testBook);
-        verify(bookRepository).findFirstAvailableBookByIsbn(normalizedIsbn);
+        verify(bookRepository).findFirstAvailableBookByIsbn(ISBN13);
     }
 
     @Test
@@ -706,6 +1110,14 @@ class BookServiceTest {
                 .hasMessage("Invalid ISBN format: invalid-isbn");
     }
 
+    @Test
+    void validateBookData_ShouldThrowException_WhenCheckDigitIsWrong() {
+        // Act & Assert - well formed, but the last digit does not match the others
+        assertThatThrownBy(() -> bookService.validateBookData("978-0-13-110362-8", "Title", "Author"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid ISBN check digit: 978-0-13-110362-8");
+    }
+
     @Test
     void validateBookData_ShouldThrowException_WhenInvalidTitle() {
         // Act & Assert
@@ -726,12 +1138,11 @@ class BookServiceTest {
     void findInconsistentBooksByIsbn_ShouldReturnInconsistentBooks() {
         // Arrange
         String isbn = "978-0-13-110362-7";
-        String normalizedIsbn = "9780131103627";
         String expectedTitle = "Expected Title";
         String expectedAuthor = "Expected Author";
         List<Book> expected = Arrays.asList(testBook);
         
-        when(bookRepository.findInconsistentBooksByIsbn(normalizedIsbn, expectedTitle, expectedAuthor))
+        when(bookRepository.findInconsistentBooksByIsbn(ISBN13, expectedTitle, expectedAuthor))
                 .thenReturn(expected);
 
         // Act
@@ -739,7 +1150,7 @@ class BookServiceTest {
 
         // Assert
         assertThat(result).isEqualTo(expected);
-        verify(bookRepository).findInconsistentBooksByIsbn(normalizedIsbn, expectedTitle, expectedAuthor);
+        verify(bookRepository).findInconsistentBooksByIsbn(ISBN13, expectedTitle, expectedAuthor);
     }
 
     @Test
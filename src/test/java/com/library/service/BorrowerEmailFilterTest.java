@@ -0,0 +1,124 @@
+package com.library.service;
+
+import com.library.repository.BorrowerRepository;
+import com.library.service.impl.BorrowerEmailFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowerEmailFilterTest {
+
+    @Mock
+    private BorrowerRepository borrowerRepository;
+
+    private BorrowerEmailFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new BorrowerEmailFilter(borrowerRepository, 1000, 0.01);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rebuild_ShouldLoadTheEmailsOfAllBorrowers() {
+        // Arrange
+        when(borrowerRepository.count()).thenReturn(2L);
+        when(borrowerRepository.findEmailsAfter(eq(0L), any(Limit.class))).thenReturn(List.of(
+                new Object[]{1L, "john.doe@email.com"},
+                new Object[]{2L, "Jane.Smith@Email.com"}
+        ));
+
+        // Act
+        filter.afterSingletonsInstantiated();
+
+        // Assert
+        assertThat(filter.mightBeTaken("john.doe@email.com")).isTrue();
+        assertThat(filter.mightBeTaken(" JANE.SMITH@email.com ")).isTrue();
+        assertThat(filter.mightBeTaken("new.reader@email.com")).isFalse();
+    }
+
+    @Test
+    void mightBeTaken_ShouldRarelyReportFreeEmailsAsTaken() {
+        // Arrange
+        IntStream.range(0, 1000).forEach(i -> filter.emailAdded("reader" + i + "@email.com"));
+
+        // Act
+        long falsePositives = IntStream.range(1000, 11000)
+                .filter(i -> filter.mightBeTaken("reader" + i + "@email.com"))
+                .count();
+
+        // Assert - 1% expected; allow some variance
+        assertThat(IntStream.range(0, 1000).allMatch(i -> filter.mightBeTaken("reader" + i + "@email.com"))).isTrue();
+        assertThat(falsePositives).isLessThan(200);
+    }
+
+    @Test
+    void emailAdded_ShouldApplyOnlyAfterCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        filter.emailAdded("new.reader@email.com");
+        boolean beforeCommit = filter.mightBeTaken("new.reader@email.com");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertThat(beforeCommit).isFalse();
+        assertThat(filter.mightBeTaken("new.reader@email.com")).isTrue();
+    }
+
+    @Test
+    void rebuild_ShouldKeepEmailsAddedWhileItRuns() {
+        // Arrange - a registration commits after the rebuild has read past it
+        when(borrowerRepository.count()).thenReturn(1L);
+        when(borrowerRepository.findEmailsAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            filter.emailAdded("late.reader@email.com");
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{1L, "john.doe@email.com"});
+            return rows;
+        });
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        assertThat(filter.mightBeTaken("john.doe@email.com")).isTrue();
+        assertThat(filter.mightBeTaken("late.reader@email.com")).isTrue();
+    }
+
+    @Test
+    void constructor_ShouldRejectInvalidSizing() {
+        assertThatThrownBy(() -> new BorrowerEmailFilter(borrowerRepository, 0, 0.01))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected emails must be at least 1");
+        assertThatThrownBy(() -> new BorrowerEmailFilter(borrowerRepository, 1000, 1.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("False positive rate must be between 0 and 1");
+    }
+}
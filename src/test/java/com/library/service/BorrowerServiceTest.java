@@ -1,17 +1,34 @@
 package com.library.service;
 
 import com.library.entity.Book;
+import com.library.dto.BorrowerImportProgressDto;
+import com.library.dto.BorrowerRequestDto;
+import com.library.dto.BorrowerResponseDto;
 import com.library.entity.Borrower;
 import com.library.repository.BookRepository;
 import com.library.repository.BorrowerRepository;
+import com.library.service.impl.BorrowerEmailFilter;
 import com.library.service.impl.BorrowerServiceImpl;
+import com.library.service.impl.LibraryMetrics;
+import com.library.service.impl.LibraryMetrics.Rejection;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -22,6 +39,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -36,6 +54,21 @@ class BorrowerServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private LibraryMetrics metrics;
+
+    @Mock
+    private BorrowerEmailFilter emailFilter;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
     @InjectMocks
     private BorrowerServiceImpl borrowerService;
 
@@ -59,18 +92,74 @@ class BorrowerServiceTest {
         Borrower expectedBorrower = new Borrower(name, email);
         expectedBorrower.setId(2L);
 
-        when(borrowerRepository.existsByEmail(email.toLowerCase())).thenReturn(false);
         when(borrowerRepository.save(any(Borrower.class))).thenReturn(expectedBorrower);
 
         // Act
         Borrower result = borrowerService.registerBorrower(name, email);
 
-        // Assert
+        // Assert - the filter has not seen the email, so it is not looked up
         assertThat(result).isNotNull();
         assertThat(result.getName()).isEqualTo(name);
         assertThat(result.getEmail()).isEqualTo(email.toLowerCase());
-        verify(borrowerRepository).existsByEmail(email.toLowerCase());
+        verify(borrowerRepository, never()).existsByEmail(anyString());
         verify(borrowerRepository).save(any(Borrower.class));
+        verify(borrowerRepository).flush();
+        verify(emailFilter).emailAdded(email);
+    }
+
+    @Test
+    void registerBorrower_ShouldLookUpEmail_WhenFilterMayHaveSeenIt() {
+        // Arrange
+        String name = "Jane Smith";
+        String email = "jane.smith@email.com";
+        Borrower expectedBorrower = new Borrower(name, email);
+        expectedBorrower.setId(2L);
+
+        when(emailFilter.mightBeTaken(email)).thenReturn(true);
+        when(borrowerRepository.existsByEmail(email)).thenReturn(false);
+        when(borrowerRepository.save(any(Borrower.class))).thenReturn(expectedBorrower);
+
+        // Act
+        Borrower result = borrowerService.registerBorrower(name, email);
+
+        // Assert
+        assertThat(result).isEqualTo(expectedBorrower);
+        verify(borrowerRepository).existsByEmail(email);
+    }
+
+    @Test
+    void registerBorrower_ShouldThrowException_WhenUniqueConstraintIsViolated() {
+        // Arrange - the filter has not seen the email, but another registration has just taken it
+        String name = "Jane Smith";
+        String email = "jane.smith@email.com";
+
+        when(borrowerRepository.save(any(Borrower.class))).thenThrow(new DataIntegrityViolationException(
+                "Unique index or primary key violation", constraintViolation("PUBLIC.UK_BORROWERS_EMAIL_INDEX_2")));
+
+        // Act & Assert
+        assertThatThrownBy(() -> borrowerService.registerBorrower(name, email))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Email already exists: " + email);
+
+        verify(metrics).rejected(Rejection.EMAIL_TAKEN);
+        verify(emailFilter, never()).emailAdded(anyString());
+    }
+
+    @Test
+    void registerBorrower_ShouldRethrowException_WhenAnotherConstraintIsViolated() {
+        // Arrange
+        String name = "Jane Smith";
+        String email = "jane.smith@email.com";
+        DataIntegrityViolationException violation = new DataIntegrityViolationException(
+                "Check constraint violation", constraintViolation("ck_borrowers_name"));
+
+        when(borrowerRepository.save(any(Borrower.class))).thenThrow(violation);
+
+        // Act & Assert - left to the generic data conflict handling
+        assertThatThrownBy(() -> borrowerService.registerBorrower(name, email)).isSameAs(violation);
+
+        verify(metrics, never()).rejected(any(Rejection.class));
+        verify(emailFilter, never()).emailAdded(anyString());
     }
 
     @Test
@@ -79,6 +168,7 @@ class BorrowerServiceTest {
         String name = "Jane Smith";
         String email = "john.doe@email.com";
 
+        when(emailFilter.mightBeTaken(email)).thenReturn(true);
         when(borrowerRepository.existsByEmail(email.toLowerCase())).thenReturn(true);
 
         // Act & Assert
@@ -88,6 +178,59 @@ class BorrowerServiceTest {
 
         verify(borrowerRepository).existsByEmail(email.toLowerCase());
         verify(borrowerRepository, never()).save(any(Borrower.class));
+        verify(metrics).rejected(Rejection.EMAIL_TAKEN);
+    }
+
+    @Test
+    void importBorrowers_ShouldUpsertNewAndRenamedBorrowersAndReportInvalidRows() {
+        // Arrange
+        List<BorrowerRequestDto> rows = Arrays.asList(
+                new BorrowerRequestDto("New Reader", "New.Reader@email.com"),
+                new BorrowerRequestDto("John Doe", "john.doe@email.com"),
+                new BorrowerRequestDto("Jane Smith-Jones", "jane.smith@email.com"),
+                new BorrowerRequestDto("X", "short.name@email.com"));
+        List<Object[]> registered = Arrays.asList(
+                new Object[]{"john.doe@email.com", "John Doe"},
+                new Object[]{"jane.smith@email.com", "Jane Smith"});
+        when(emailFilter.mightBeTaken(anyString()))
+                .thenAnswer(invocation -> !"new.reader@email.com".equals(invocation.getArgument(0)));
+        when(borrowerRepository.findNamesByEmailIn(List.of("john.doe@email.com", "jane.smith@email.com")))
+                .thenReturn(registered);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Cache cache = mock(Cache.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        List<BorrowerImportProgressDto> reports = new ArrayList<>();
+
+        // Act
+        BorrowerImportProgressDto result = borrowerService.importBorrowers(rows.iterator(), reports::add);
+
+        // Assert
+        assertThat(reports).containsExactly(result);
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(4);
+            assertThat(error.getMessage()).isEqualTo("Name must be at least 2 characters long");
+        });
+        ArgumentCaptor<List<Object[]>> upserts = ArgumentCaptor.captor();
+        verify(jdbcTemplate).batchUpdate(anyString(), upserts.capture());
+        assertThat(upserts.getValue()).extracting(upsert -> upsert[1])
+                .containsExactly("new.reader@email.com", "jane.smith@email.com");
+        verify(emailFilter).emailAdded("new.reader@email.com");
+        verify(emailFilter, never()).emailAdded("jane.smith@email.com");
+        verify(cache).evictEntityData(Borrower.class);
+    }
+
+    @Test
+    void importBorrowers_ShouldThrowException_WhenBorrowersIsNull() {
+        // Act & Assert
+        assertThatThrownBy(() -> borrowerService.importBorrowers(null, progress -> { }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Borrowers cannot be null");
     }
 
     @Test
@@ -270,6 +413,27 @@ class BorrowerServiceTest {
         verify(borrowerRepository).findAll();
     }
 
+    @Test
+    void getBorrowersAfter_ShouldQueryNextPageById() {
+        // Arrange
+        List<BorrowerResponseDto> expected = Arrays.asList(BorrowerResponseDto.fromEntity(testBorrower));
+        when(borrowerRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(5))).thenReturn(expected);
+
+        // Act
+        List<BorrowerResponseDto> result = borrowerService.getBorrowersAfter(null, 5);
+
+        // Assert
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    void getBorrowersAfter_ShouldThrowException_WhenLimitIsNotPositive() {
+        // Act & Assert
+        assertThatThrownBy(() -> borrowerService.getBorrowersAfter(1L, -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Limit must be positive");
+    }
+
     @Test
     void getBorrowersWithBooks_ShouldReturnBorrowersWithBooks() {
         // Arrange
@@ -318,7 +482,6 @@ class BorrowerServiceTest {
         // Arrange
         String newEmail = "jane.doe@email.com";
         when(borrowerRepository.findById(1L)).thenReturn(Optional.of(testBorrower));
-        when(borrowerRepository.existsByEmail(newEmail)).thenReturn(false);
         when(borrowerRepository.save(testBorrower)).thenReturn(testBorrower);
 
         // Act
@@ -326,8 +489,9 @@ class BorrowerServiceTest {
 
         // Assert
         assertThat(result.getEmail()).isEqualTo(newEmail);
-        verify(borrowerRepository).existsByEmail(newEmail);
+        verify(borrowerRepository, never()).existsByEmail(anyString());
         verify(borrowerRepository).save(testBorrower);
+        verify(emailFilter).emailAdded(newEmail);
     }
 
     @Test
@@ -359,6 +523,7 @@ class BorrowerServiceTest {
         // Arrange
         String newEmail = "existing@email.com";
         when(borrowerRepository.findById(1L)).thenReturn(Optional.of(testBorrower));
+        when(emailFilter.mightBeTaken(newEmail)).thenReturn(true);
         when(borrowerRepository.existsByEmail(newEmail)).thenReturn(true);
 
         // Act & Assert
@@ -405,6 +570,7 @@ class BorrowerServiceTest {
                 .hasMessage("Cannot delete borrower with ID 1. They have 1 borrowed books.");
 
         verify(borrowerRepository, never()).deleteById(anyLong());
+        verify(metrics).rejected(Rejection.BORROWER_HAS_LOANS);
     }
 
     @Test
@@ -532,4 +698,9 @@ class BorrowerServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Email format is invalid: invalid-email");
     }
-}
\ No newline at end of file
+
+    private static ConstraintViolationException constraintViolation(String constraintName) {
+        return new ConstraintViolationException("could not execute statement",
+                new SQLException("constraint violation"), constraintName);
+    }
+}
@@ -1,31 +1,52 @@
 package com.library.service;
 
+import com.library.dto.ActiveBorrowerDto;
+import com.library.dto.BorrowerStatisticsDto;
+import com.library.dto.BorrowingHistoryResponseDto;
+import com.library.dto.PopularBookDto;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
 import com.library.entity.BorrowingHistory;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
 import com.library.repository.BorrowingHistoryRepository;
+import com.library.repository.OpenLoanRepository;
 import com.library.service.impl.BorrowingHistoryServiceImpl;
+import com.library.service.impl.BorrowingLeaderboard;
+import com.library.service.impl.BorrowingLeaderboard.Entry;
+import com.library.service.impl.BorrowingLeaderboard.Window;
+import com.library.service.impl.OverdueLoanIndex;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -35,6 +56,24 @@ class BorrowingHistoryServiceTest {
     @Mock
     private BorrowingHistoryRepository borrowingHistoryRepository;
 
+    @Mock
+    private OpenLoanRepository openLoanRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BorrowerRepository borrowerRepository;
+
+    @Mock
+    private BorrowingLeaderboard leaderboard;
+
+    @Mock
+    private OverdueLoanIndex overdueLoans;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private BorrowingHistoryServiceImpl borrowingHistoryService;
 
@@ -42,6 +81,8 @@ class BorrowingHistoryServiceTest {
     private Borrower testBorrower;
     private BorrowingHistory borrowingHistory;
     private BorrowingHistory returnHistory;
+    private BorrowingHistoryResponseDto borrowingResponse;
+    private BorrowingHistoryResponseDto returnResponse;
 
     @BeforeEach
     void setUp() {
@@ -59,17 +100,20 @@ class BorrowingHistoryServiceTest {
         returnHistory = new BorrowingHistory(testBook, testBorrower, BorrowingHistory.ActionType.RETURNED);
         returnHistory.setId(2L);
         returnHistory.setActionDate(LocalDateTime.now().minusDays(1));
+
+        borrowingResponse = BorrowingHistoryResponseDto.fromEntity(borrowingHistory);
+        returnResponse = BorrowingHistoryResponseDto.fromEntity(returnHistory);
     }
 
     @Test
     void getHistoryByBookId_ShouldReturnHistory_WhenValidBookId() {
         // Arrange
         Long bookId = 1L;
-        List<BorrowingHistory> expectedHistory = Arrays.asList(returnHistory, borrowingHistory);
+        List<BorrowingHistoryResponseDto> expectedHistory = Arrays.asList(returnResponse, borrowingResponse);
         when(borrowingHistoryRepository.findByBookIdOrderByActionDateDesc(bookId)).thenReturn(expectedHistory);
 
         // Act
-        List<BorrowingHistory> result = borrowingHistoryService.getHistoryByBookId(bookId);
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getHistoryByBookId(bookId);
 
         // Assert
         assertThat(result).isEqualTo(expectedHistory);
@@ -88,11 +132,11 @@ class BorrowingHistoryServiceTest {
     void getHistoryByBorrowerId_ShouldReturnHistory_WhenValidBorrowerId() {
         // Arrange
         Long borrowerId = 1L;
-        List<BorrowingHistory> expectedHistory = Arrays.asList(returnHistory, borrowingHistory);
+        List<BorrowingHistoryResponseDto> expectedHistory = Arrays.asList(returnResponse, borrowingResponse);
         when(borrowingHistoryRepository.findByBorrowerIdOrderByActionDateDesc(borrowerId)).thenReturn(expectedHistory);
 
         // Act
-        List<BorrowingHistory> result = borrowingHistoryService.getHistoryByBorrowerId(borrowerId);
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getHistoryByBorrowerId(borrowerId);
 
         // Assert
         assertThat(result).isEqualTo(expectedHistory);
@@ -112,12 +156,12 @@ class BorrowingHistoryServiceTest {
         // Arrange
         Long borrowerId = 1L;
         Pageable pageable = PageRequest.of(0, 10);
-        List<BorrowingHistory> historyList = Arrays.asList(returnHistory, borrowingHistory);
-        Page<BorrowingHistory> expectedPage = new PageImpl<>(historyList, pageable, historyList.size());
+        List<BorrowingHistoryResponseDto> historyList = Arrays.asList(returnResponse, borrowingResponse);
+        Page<BorrowingHistoryResponseDto> expectedPage = new PageImpl<>(historyList, pageable, historyList.size());
         when(borrowingHistoryRepository.findByBorrowerIdOrderByActionDateDesc(borrowerId, pageable)).thenReturn(expectedPage);
 
         // Act
-        Page<BorrowingHistory> result = borrowingHistoryService.getHistoryByBorrowerId(borrowerId, pageable);
+        Page<BorrowingHistoryResponseDto> result = borrowingHistoryService.getHistoryByBorrowerId(borrowerId, pageable);
 
         // Assert
         assertThat(result).isEqualTo(expectedPage);
@@ -135,6 +179,80 @@ class BorrowingHistoryServiceTest {
                 .hasMessage("Borrower ID cannot be null");
     }
 
+    @Test
+    void getHistoryByBorrowerIdBefore_ShouldQueryFirstPage_WhenNoCursorGiven() {
+        // Arrange
+        List<BorrowingHistoryResponseDto> expected = Arrays.asList(returnResponse, borrowingResponse);
+        when(borrowingHistoryRepository.findFirstPageByBorrowerId(1L, Limit.of(3))).thenReturn(expected);
+
+        // Act
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getHistoryByBorrowerIdBefore(1L, null, null, 3);
+
+        // Assert
+        assertThat(result).isEqualTo(expected);
+        verify(borrowingHistoryRepository, never()).findPageByBorrowerIdBefore(any(), any(), any(), any());
+    }
+
+    @Test
+    void getHistoryByBorrowerIdBefore_ShouldContinueAfterCursor() {
+        // Arrange
+        LocalDateTime before = LocalDateTime.of(2023, 7, 30, 14, 30);
+        List<BorrowingHistoryResponseDto> expected = Arrays.asList(borrowingResponse);
+        when(borrowingHistoryRepository.findPageByBorrowerIdBefore(1L, before, 7L, Limit.of(3))).thenReturn(expected);
+
+        // Act
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getHistoryByBorrowerIdBefore(1L, before, 7L, 3);
+
+        // Assert
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    void getHistoryByBookIdBefore_ShouldThrowException_WhenCursorIsIncomplete() {
+        // Act & Assert
+        assertThatThrownBy(() -> borrowingHistoryService.getHistoryByBookIdBefore(1L, LocalDateTime.now(), null, 3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor date and ID must be given together");
+    }
+
+    @Test
+    void getHistoryByDateRangeBefore_ShouldThrowException_WhenLimitIsNotPositive() {
+        // Act & Assert
+        assertThatThrownBy(() -> borrowingHistoryService.getHistoryByDateRangeBefore(
+                LocalDateTime.now().minusDays(1), LocalDateTime.now(), null, null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Limit must be positive");
+    }
+
+    @Test
+    void getOverdueBooksAfter_ShouldContinueAfterCursor() {
+        // Arrange
+        LocalDateTime dueDate = LocalDateTime.now().minusDays(3);
+        List<BorrowingHistoryResponseDto> expected = Arrays.asList(borrowingResponse);
+        when(overdueLoans.getOverdueBookIdsAfter(dueDate, 4L, 2)).thenReturn(List.of(1L));
+        when(openLoanRepository.findBorrowingsByBookIdIn(List.of(1L))).thenReturn(expected);
+
+        // Act
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getOverdueBooksAfter(dueDate, 4L, 2);
+
+        // Assert
+        assertThat(result).isEqualTo(expected);
+        verify(overdueLoans, never()).getOverdueBookIds(anyInt());
+    }
+
+    @Test
+    void getOverdueBooksAfter_ShouldStartWithEarliestDueLoans_WhenNoCursorGiven() {
+        // Arrange
+        when(overdueLoans.getOverdueBookIds(2)).thenReturn(List.of());
+
+        // Act
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getOverdueBooksAfter(null, null, 2);
+
+        // Assert
+        assertThat(result).isEmpty();
+        verify(openLoanRepository, never()).findBorrowingsByBookIdIn(any());
+    }
+
     @Test
     void getHistoryByBorrowerIdPaginated_ShouldThrowException_WhenPageableIsNull() {
         // Act & Assert
@@ -147,15 +265,15 @@ class BorrowingHistoryServiceTest {
     void getCurrentlyBorrowedBooksByBorrower_ShouldReturnCurrentBorrowings_WhenValidBorrowerId() {
         // Arrange
         Long borrowerId = 1L;
-        List<BorrowingHistory> currentBorrowings = Collections.singletonList(borrowingHistory);
-        when(borrowingHistoryRepository.findCurrentlyBorrowedBooksByBorrower(borrowerId)).thenReturn(currentBorrowings);
+        List<BorrowingHistoryResponseDto> currentBorrowings = Collections.singletonList(borrowingResponse);
+        when(openLoanRepository.findCurrentBorrowingsByBorrower(borrowerId)).thenReturn(currentBorrowings);
 
         // Act
-        List<BorrowingHistory> result = borrowingHistoryService.getCurrentlyBorrowedBooksByBorrower(borrowerId);
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getCurrentlyBorrowedBooksByBorrower(borrowerId);
 
         // Assert
         assertThat(result).isEqualTo(currentBorrowings);
-        verify(borrowingHistoryRepository).findCurrentlyBorrowedBooksByBorrower(borrowerId);
+        verify(openLoanRepository).findCurrentBorrowingsByBorrower(borrowerId);
     }
 
     @Test
@@ -172,17 +290,17 @@ class BorrowingHistoryServiceTest {
         Long borrowerId = 1L;
         BorrowingHistory overdueHistory = new BorrowingHistory(testBook, testBorrower, BorrowingHistory.ActionType.BORROWED);
         overdueHistory.setDueDate(LocalDateTime.now().minusDays(1)); // Overdue
-        List<BorrowingHistory> overdueBooks = Collections.singletonList(overdueHistory);
+        List<BorrowingHistoryResponseDto> overdueBooks = Collections.singletonList(BorrowingHistoryResponseDto.fromEntity(overdueHistory));
         
-        when(borrowingHistoryRepository.findOverdueBorrowingsByBorrower(eq(borrowerId), any(LocalDateTime.class)))
-                .thenReturn(overdueBooks);
+        when(overdueLoans.getOverdueBookIdsByBorrower(borrowerId)).thenReturn(List.of(1L));
+        when(openLoanRepository.findBorrowingsByBookIdIn(List.of(1L))).thenReturn(overdueBooks);
 
         // Act
-        List<BorrowingHistory> result = borrowingHistoryService.getOverdueBooksByBorrower(borrowerId);
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getOverdueBooksByBorrower(borrowerId);
 
         // Assert
         assertThat(result).isEqualTo(overdueBooks);
-        verify(borrowingHistoryRepository).findOverdueBorrowingsByBorrower(eq(borrowerId), any(LocalDateTime.class));
+        verify(openLoanRepository).findBorrowingsByBookIdIn(List.of(1L));
     }
 
     @Test
@@ -198,16 +316,33 @@ class BorrowingHistoryServiceTest {
         // Arrange
         BorrowingHistory overdueHistory = new BorrowingHistory(testBook, testBorrower, BorrowingHistory.ActionType.BORROWED);
         overdueHistory.setDueDate(LocalDateTime.now().minusDays(1)); // Overdue
-        List<BorrowingHistory> overdueBooks = Collections.singletonList(overdueHistory);
+        List<BorrowingHistoryResponseDto> overdueBooks = Collections.singletonList(BorrowingHistoryResponseDto.fromEntity(overdueHistory));
         
-        when(borrowingHistoryRepository.findAllOverdueBorrowings(any(LocalDateTime.class))).thenReturn(overdueBooks);
+        when(overdueLoans.getOverdueBookIds()).thenReturn(List.of(1L));
+        when(openLoanRepository.findBorrowingsByBookIdIn(List.of(1L))).thenReturn(overdueBooks);
 
         // Act
-        List<BorrowingHistory> result = borrowingHistoryService.getAllOverdueBooks();
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getAllOverdueBooks();
 
         // Assert
         assertThat(result).isEqualTo(overdueBooks);
-        verify(borrowingHistoryRepository).findAllOverdueBorrowings(any(LocalDateTime.class));
+    }
+
+    @Test
+    void getAllOverdueBooks_ShouldSelectRecordsInChunks_WhenManyLoansAreOverdue() {
+        // Arrange
+        List<Long> bookIds = LongStream.rangeClosed(1, 2500).boxed().toList();
+        when(overdueLoans.getOverdueBookIds()).thenReturn(bookIds);
+        when(openLoanRepository.findBorrowingsByBookIdIn(anyList())).thenReturn(List.of(borrowingResponse));
+
+        // Act
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getAllOverdueBooks();
+
+        // Assert
+        assertThat(result).hasSize(3);
+        verify(openLoanRepository).findBorrowingsByBookIdIn(bookIds.subList(0, 1000));
+        verify(openLoanRepository).findBorrowingsByBookIdIn(bookIds.subList(1000, 2000));
+        verify(openLoanRepository).findBorrowingsByBookIdIn(bookIds.subList(2000, 2500));
     }
 
     @Test
@@ -239,13 +374,13 @@ class BorrowingHistoryServiceTest {
         // Arrange
         LocalDateTime startDate = LocalDateTime.now().minusDays(10);
         LocalDateTime endDate = LocalDateTime.now();
-        List<BorrowingHistory> expectedHistory = Arrays.asList(returnHistory, borrowingHistory);
+        List<BorrowingHistoryResponseDto> expectedHistory = Arrays.asList(returnResponse, borrowingResponse);
         
         when(borrowingHistoryRepository.findByActionDateBetweenOrderByActionDateDesc(startDate, endDate))
                 .thenReturn(expectedHistory);
 
         // Act
-        List<BorrowingHistory> result = borrowingHistoryService.getHistoryByDateRange(startDate, endDate);
+        List<BorrowingHistoryResponseDto> result = borrowingHistoryService.getHistoryByDateRange(startDate, endDate);
 
         // Assert
         assertThat(result).isEqualTo(expectedHistory);
@@ -280,6 +415,49 @@ class BorrowingHistoryServiceTest {
                 .hasMessage("Start date cannot be after end date");
     }
 
+    @Test
+    void streamHistoryByDateRange_ShouldPassEveryRecordToConsumer() {
+        // Arrange
+        LocalDateTime startDate = LocalDateTime.now().minusDays(10);
+        LocalDateTime endDate = LocalDateTime.now();
+        when(borrowingHistoryRepository.streamByActionDateBetween(startDate, endDate))
+                .thenReturn(Stream.of(borrowingHistory, returnHistory));
+        List<BorrowingHistory> consumed = new ArrayList<>();
+
+        // Act
+        long count = borrowingHistoryService.streamHistoryByDateRange(startDate, endDate, consumed::add);
+
+        // Assert
+        assertThat(count).isEqualTo(2);
+        assertThat(consumed).containsExactly(borrowingHistory, returnHistory);
+        verify(entityManager, never()).clear();
+    }
+
+    @Test
+    void streamHistoryByDateRange_ShouldClearPersistenceContextPeriodically() {
+        // Arrange
+        LocalDateTime startDate = LocalDateTime.now().minusDays(10);
+        LocalDateTime endDate = LocalDateTime.now();
+        when(borrowingHistoryRepository.streamByActionDateBetween(startDate, endDate))
+                .thenReturn(Stream.generate(() -> borrowingHistory).limit(2500));
+
+        // Act
+        long count = borrowingHistoryService.streamHistoryByDateRange(startDate, endDate, history -> { });
+
+        // Assert
+        assertThat(count).isEqualTo(2500);
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void streamHistoryByDateRange_ShouldThrowException_WhenStartDateIsAfterEndDate() {
+        // Act & Assert
+        assertThatThrownBy(() -> borrowingHistoryService.streamHistoryByDateRange(
+                LocalDateTime.now(), LocalDateTime.now().minusDays(1), history -> { }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Start date cannot be after end date");
+    }
+
     @Test
     void getTotalBorrowingsByBorrower_ShouldReturnCount_WhenValidBorrowerId() {
         // Arrange
@@ -327,21 +505,61 @@ class BorrowingHistoryServiceTest {
     }
 
     @Test
-    void getMostPopularBooks_ShouldReturnPopularBooks_WhenValidLimit() {
+    void getMostPopularBooks_ShouldReturnRankedBooksWithDetails_WhenValidLimit() {
         // Arrange
         int limit = 10;
-        List<Object[]> expectedBooks = Arrays.asList(
-                new Object[]{1L, 5L},
-                new Object[]{2L, 3L}
-        );
-        when(borrowingHistoryRepository.findMostPopularBooks(any(PageRequest.class))).thenReturn(expectedBooks);
+        when(leaderboard.getMostPopularBooks(Window.ALL_TIME, limit))
+                .thenReturn(List.of(new Entry(1L, 5L), new Entry(2L, 3L), new Entry(3L, 1L)));
+        when(bookRepository.findPopularBookDetails(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new PopularBookDto(2L, "9780134685991", "Effective Java", "Joshua Bloch"),
+                new PopularBookDto(1L, "9780131103627", "The C Programming Language", "Kernighan and Ritchie")
+        ));
 
         // Act
-        List<Object[]> result = borrowingHistoryService.getMostPopularBooks(limit);
+        List<PopularBookDto> result = borrowingHistoryService.getMostPopularBooks(limit);
+
+        // Assert - book 3 was deleted since the leaderboard was last reconciled
+        assertThat(result).extracting(PopularBookDto::getBookId, PopularBookDto::getTitle, PopularBookDto::getBorrowCount)
+                .containsExactly(
+                        tuple(1L, "The C Programming Language", 5L),
+                        tuple(2L, "Effective Java", 3L));
+        verify(borrowingHistoryRepository, never()).findMostPopularBooks(any(Pageable.class));
+    }
+
+    @Test
+    void getMostPopularBooks_ShouldReadWindowedRanking_WhenDaysGiven() {
+        // Arrange
+        when(leaderboard.getMostPopularBooks(Window.LAST_7_DAYS, 5)).thenReturn(List.of(new Entry(2L, 4L)));
+        when(bookRepository.findPopularBookDetails(List.of(2L))).thenReturn(List.of(
+                new PopularBookDto(2L, "9780134685991", "Effective Java", "Joshua Bloch")));
+
+        // Act
+        List<PopularBookDto> result = borrowingHistoryService.getMostPopularBooks(5, 7);
 
         // Assert
-        assertThat(result).isEqualTo(expectedBooks);
-        verify(borrowingHistoryRepository).findMostPopularBooks(any(PageRequest.class));
+        assertThat(result).extracting(PopularBookDto::getBookId, PopularBookDto::getBorrowCount)
+                .containsExactly(tuple(2L, 4L));
+    }
+
+    @Test
+    void getMostPopularBooks_ShouldNotQueryDetails_WhenNothingBorrowed() {
+        // Arrange
+        when(leaderboard.getMostPopularBooks(Window.ALL_TIME, 10)).thenReturn(List.of());
+
+        // Act
+        List<PopularBookDto> result = borrowingHistoryService.getMostPopularBooks(10);
+
+        // Assert
+        assertThat(result).isEmpty();
+        verify(bookRepository, never()).findPopularBookDetails(any());
+    }
+
+    @Test
+    void getMostPopularBooks_ShouldThrowException_WhenDaysNotSupported() {
+        // Act & Assert
+        assertThatThrownBy(() -> borrowingHistoryService.getMostPopularBooks(10, 14))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Days must be 7 or 30");
     }
 
     @Test
@@ -361,21 +579,38 @@ class BorrowingHistoryServiceTest {
     }
 
     @Test
-    void getMostActiveBorrowers_ShouldReturnActiveBorrowers_WhenValidLimit() {
+    void getMostActiveBorrowers_ShouldReturnRankedBorrowersWithDetails_WhenValidLimit() {
         // Arrange
         int limit = 10;
-        List<Object[]> expectedBorrowers = Arrays.asList(
-                new Object[]{1L, 8L},
-                new Object[]{2L, 5L}
-        );
-        when(borrowingHistoryRepository.findMostActiveBorrowers(any(PageRequest.class))).thenReturn(expectedBorrowers);
+        when(leaderboard.getMostActiveBorrowers(Window.ALL_TIME, limit))
+                .thenReturn(List.of(new Entry(1L, 8L), new Entry(2L, 5L)));
+        when(borrowerRepository.findActiveBorrowerDetails(List.of(1L, 2L))).thenReturn(List.of(
+                new ActiveBorrowerDto(2L, "Jane Smith", "jane.smith@email.com"),
+                new ActiveBorrowerDto(1L, "John Doe", "john.doe@email.com")
+        ));
+
+        // Act
+        List<ActiveBorrowerDto> result = borrowingHistoryService.getMostActiveBorrowers(limit);
+
+        // Assert
+        assertThat(result).extracting(ActiveBorrowerDto::getName, ActiveBorrowerDto::getBorrowCount)
+                .containsExactly(tuple("John Doe", 8L), tuple("Jane Smith", 5L));
+        verify(borrowingHistoryRepository, never()).findMostActiveBorrowers(any(Pageable.class));
+    }
+
+    @Test
+    void getMostActiveBorrowers_ShouldReadWindowedRanking_WhenDaysGiven() {
+        // Arrange
+        when(leaderboard.getMostActiveBorrowers(Window.LAST_30_DAYS, 10)).thenReturn(List.of(new Entry(1L, 2L)));
+        when(borrowerRepository.findActiveBorrowerDetails(List.of(1L))).thenReturn(List.of(
+                new ActiveBorrowerDto(1L, "John Doe", "john.doe@email.com")));
 
         // Act
-        List<Object[]> result = borrowingHistoryService.getMostActiveBorrowers(limit);
+        List<ActiveBorrowerDto> result = borrowingHistoryService.getMostActiveBorrowers(10, 30);
 
         // Assert
-        assertThat(result).isEqualTo(expectedBorrowers);
-        verify(borrowingHistoryRepository).findMostActiveBorrowers(any(PageRequest.class));
+        assertThat(result).extracting(ActiveBorrowerDto::getBorrowerId, ActiveBorrowerDto::getBorrowCount)
+                .containsExactly(tuple(1L, 2L));
     }
 
     @Test
@@ -386,37 +621,67 @@ class BorrowingHistoryServiceTest {
                 .hasMessage("Limit must be positive");
     }
 
+    @Test
+    void getBorrowerStatistics_ShouldReturnCountsFromSingleQuery() {
+        // Arrange
+        BorrowerStatisticsDto statistics = new BorrowerStatisticsDto(1L, 25L, 3L, 1L);
+        when(borrowerRepository.findStatisticsById(eq(1L), any(LocalDateTime.class))).thenReturn(Optional.of(statistics));
+
+        // Act
+        BorrowerStatisticsDto result = borrowingHistoryService.getBorrowerStatistics(1L);
+
+        // Assert
+        assertThat(result).isSameAs(statistics);
+        assertThat(result.getHasOverdueBooks()).isTrue();
+        verify(borrowingHistoryRepository, never()).countBorrowingsByBorrower(any());
+        verify(openLoanRepository, never()).countByBorrowerId(any());
+    }
+
+    @Test
+    void getBorrowerStatistics_ShouldThrowException_WhenBorrowerNotFound() {
+        // Arrange
+        when(borrowerRepository.findStatisticsById(eq(999L), any(LocalDateTime.class))).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> borrowingHistoryService.getBorrowerStatistics(999L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Borrower not found with ID: 999");
+    }
+
+    @Test
+    void getBorrowerStatistics_ShouldThrowException_WhenBorrowerIdIsNull() {
+        // Act & Assert
+        assertThatThrownBy(() -> borrowingHistoryService.getBorrowerStatistics(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Borrower ID cannot be null");
+    }
+
     @Test
     void hasOverdueBooks_ShouldReturnTrue_WhenBorrowerHasOverdueBooks() {
         // Arrange
         Long borrowerId = 1L;
-        BorrowingHistory overdueHistory = new BorrowingHistory(testBook, testBorrower, BorrowingHistory.ActionType.BORROWED);
-        List<BorrowingHistory> overdueBooks = Collections.singletonList(overdueHistory);
-        
-        when(borrowingHistoryRepository.findOverdueBorrowingsByBorrower(eq(borrowerId), any(LocalDateTime.class)))
-                .thenReturn(overdueBooks);
+        when(overdueLoans.hasOverdueLoans(borrowerId)).thenReturn(true);
 
         // Act
         boolean result = borrowingHistoryService.hasOverdueBooks(borrowerId);
 
         // Assert
         assertThat(result).isTrue();
-        verify(borrowingHistoryRepository).findOverdueBorrowingsByBorrower(eq(borrowerId), any(LocalDateTime.class));
+        verify(overdueLoans).hasOverdueLoans(borrowerId);
     }
 
     @Test
     void hasOverdueBooks_ShouldReturnFalse_WhenBorrowerHasNoOverdueBooks() {
         // Arrange
         Long borrowerId = 1L;
-        when(borrowingHistoryRepository.findOverdueBorrowingsByBorrower(eq(borrowerId), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
+        when(overdueLoans.hasOverdueLoans(borrowerId)).thenReturn(false);
 
         // Act
         boolean result = borrowingHistoryService.hasOverdueBooks(borrowerId);
 
         // Assert
         assertThat(result).isFalse();
-        verify(borrowingHistoryRepository).findOverdueBorrowingsByBorrower(eq(borrowerId), any(LocalDateTime.class));
+        verify(overdueLoans).hasOverdueLoans(borrowerId);
     }
 
     @Test
@@ -431,15 +696,14 @@ class BorrowingHistoryServiceTest {
     void getCurrentBorrowingCount_ShouldReturnCount_WhenValidBorrowerId() {
         // Arrange
         Long borrowerId = 1L;
-        List<BorrowingHistory> currentBorrowings = Arrays.asList(borrowingHistory, borrowingHistory);
-        when(borrowingHistoryRepository.findCurrentlyBorrowedBooksByBorrower(borrowerId)).thenReturn(currentBorrowings);
+        when(openLoanRepository.countByBorrowerId(borrowerId)).thenReturn(2L);
 
         // Act
         long result = borrowingHistoryService.getCurrentBorrowingCount(borrowerId);
 
         // Assert
         assertThat(result).isEqualTo(2L);
-        verify(borrowingHistoryRepository).findCurrentlyBorrowedBooksByBorrower(borrowerId);
+        verify(openLoanRepository).countByBorrowerId(borrowerId);
     }
 
     @Test
@@ -0,0 +1,147 @@
+package com.library.service;
+
+import com.library.MutableClock;
+import com.library.repository.BorrowingHistoryRepository;
+import com.library.service.impl.BorrowingLeaderboard;
+import com.library.service.impl.BorrowingLeaderboard.Entry;
+import com.library.service.impl.BorrowingLeaderboard.Window;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowingLeaderboardTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+
+    @Mock
+    private BorrowingHistoryRepository borrowingHistoryRepository;
+
+    private MutableClock clock;
+    private BorrowingLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC));
+        leaderboard = new BorrowingLeaderboard(borrowingHistoryRepository, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reconcile_ShouldLoadAllTimeAndWindowedCountsFromRepository() {
+        // Arrange
+        when(borrowingHistoryRepository.findMostPopularBooks(any(Pageable.class))).thenReturn(List.of(
+                new Object[]{1L, 10L},
+                new Object[]{2L, 4L},
+                new Object[]{3L, 6L}
+        ));
+        when(borrowingHistoryRepository.countBorrowingsPerBookAndDaySince(TODAY.minusDays(29).atStartOfDay()))
+                .thenReturn(List.of(
+                        new Object[]{2L, TODAY, 3L},
+                        new Object[]{2L, TODAY.minusDays(10), 1L},
+                        new Object[]{3L, TODAY.minusDays(20), 2L}
+                ));
+        when(borrowingHistoryRepository.findMostActiveBorrowers(any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{7L, 3L}));
+
+        // Act
+        leaderboard.afterSingletonsInstantiated();
+
+        // Assert
+        assertThat(leaderboard.getMostPopularBooks(Window.ALL_TIME, 10))
+                .containsExactly(new Entry(1L, 10L), new Entry(3L, 6L), new Entry(2L, 4L));
+        assertThat(leaderboard.getMostPopularBooks(Window.LAST_7_DAYS, 10)).containsExactly(new Entry(2L, 3L));
+        assertThat(leaderboard.getMostPopularBooks(Window.LAST_30_DAYS, 10))
+                .containsExactly(new Entry(2L, 4L), new Entry(3L, 2L));
+        assertThat(leaderboard.getMostActiveBorrowers(Window.ALL_TIME, 10)).containsExactly(new Entry(7L, 3L));
+        assertThat(leaderboard.getMostActiveBorrowers(Window.LAST_7_DAYS, 10)).isEmpty();
+    }
+
+    @Test
+    void bookBorrowed_ShouldMoveBookAndBorrowerUpEveryRanking() {
+        // Act
+        leaderboard.bookBorrowed(1L, 7L);
+        leaderboard.bookBorrowed(2L, 7L);
+        leaderboard.bookBorrowed(2L, 8L);
+
+        // Assert
+        for (Window window : Window.values()) {
+            assertThat(leaderboard.getMostPopularBooks(window, 10))
+                    .containsExactly(new Entry(2L, 2L), new Entry(1L, 1L));
+            assertThat(leaderboard.getMostActiveBorrowers(window, 1)).containsExactly(new Entry(7L, 2L));
+        }
+    }
+
+    @Test
+    void bookBorrowed_ShouldOnlyCountAfterCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        leaderboard.bookBorrowed(1L, 7L);
+
+        // Assert
+        assertThat(leaderboard.getMostPopularBooks(Window.ALL_TIME, 10)).isEmpty();
+
+        // Act
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertThat(leaderboard.getMostPopularBooks(Window.ALL_TIME, 10)).containsExactly(new Entry(1L, 1L));
+    }
+
+    @Test
+    void windowedRankings_ShouldDropBorrowingsOnceTheirDayLeavesTheWindow() {
+        // Arrange
+        leaderboard.bookBorrowed(1L, 7L);
+        clock.advanceDays(3);
+        leaderboard.bookBorrowed(2L, 7L);
+
+        // Act
+        clock.advanceDays(4);
+
+        // Assert
+        assertThat(leaderboard.getMostPopularBooks(Window.LAST_7_DAYS, 10)).containsExactly(new Entry(2L, 1L));
+        assertThat(leaderboard.getMostPopularBooks(Window.LAST_30_DAYS, 10))
+                .containsExactly(new Entry(1L, 1L), new Entry(2L, 1L));
+
+        // Act
+        clock.advanceDays(30);
+
+        // Assert
+        assertThat(leaderboard.getMostPopularBooks(Window.LAST_7_DAYS, 10)).isEmpty();
+        assertThat(leaderboard.getMostPopularBooks(Window.LAST_30_DAYS, 10)).isEmpty();
+        assertThat(leaderboard.getMostActiveBorrowers(Window.ALL_TIME, 10)).containsExactly(new Entry(7L, 2L));
+    }
+
+    @Test
+    void windowOfDays_ShouldRejectUnsupportedPeriods() {
+        // Act & Assert
+        assertThat(Window.ofDays(7)).isEqualTo(Window.LAST_7_DAYS);
+        assertThat(Window.ofDays(30)).isEqualTo(Window.LAST_30_DAYS);
+        assertThatThrownBy(() -> Window.ofDays(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Days must be 7 or 30");
+    }
+}
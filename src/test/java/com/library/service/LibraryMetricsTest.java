@@ -0,0 +1,91 @@
+package com.library.service;
+
+import com.library.repository.OpenLoanRepository;
+import com.library.service.impl.LibraryMetrics;
+import com.library.service.impl.LibraryMetrics.Rejection;
+import com.library.service.impl.OverdueLoanIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LibraryMetricsTest {
+
+    @Mock
+    private OpenLoanRepository openLoanRepository;
+
+    @Mock
+    private OverdueLoanIndex overdueLoans;
+
+    private MeterRegistry registry;
+    private LibraryMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new LibraryMetrics(registry, openLoanRepository, overdueLoans);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rejected_ShouldCountEachReasonSeparately() {
+        // Act
+        metrics.rejected(Rejection.NO_AVAILABLE_COPIES);
+        metrics.rejected(Rejection.NO_AVAILABLE_COPIES);
+        metrics.rejected(Rejection.EMAIL_TAKEN);
+
+        // Assert
+        assertThat(registry.get("library.rejections").tag("reason", "no_available_copies").counter().count()).isEqualTo(2);
+        assertThat(registry.get("library.rejections").tag("reason", "email_taken").counter().count()).isEqualTo(1);
+        assertThat(registry.get("library.rejections").tag("reason", "book_not_borrowed").counter().count()).isZero();
+    }
+
+    @Test
+    void bookBorrowed_ShouldCountOnlyAfterCommit_WhenTransactionIsActive() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        metrics.bookBorrowed();
+        metrics.bookReturned();
+
+        // Assert
+        assertThat(registry.get("library.books.borrowed").counter().count()).isZero();
+
+        // Act
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertThat(registry.get("library.books.borrowed").counter().count()).isEqualTo(1);
+        assertThat(registry.get("library.books.returned").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void loanGauges_ShouldReadOpenAndOverdueLoansWhenSampled() {
+        // Arrange
+        when(openLoanRepository.count()).thenReturn(7L);
+        when(overdueLoans.getOverdueLoanCount()).thenReturn(2);
+        when(overdueLoans.getBorrowerCount()).thenReturn(1);
+
+        // Act & Assert
+        assertThat(registry.get("library.loans.open").gauge().value()).isEqualTo(7);
+        assertThat(registry.get("library.loans.overdue").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("library.loans.overdue.borrowers").gauge().value()).isEqualTo(1);
+    }
+}
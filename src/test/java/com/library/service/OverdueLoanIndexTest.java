@@ -0,0 +1,197 @@
+package com.library.service;
+
+import com.library.MutableClock;
+import com.library.repository.OpenLoanRepository;
+import com.library.service.impl.OverdueLoanIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueLoanIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 15, 12, 0);
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Mock
+    private OpenLoanRepository openLoanRepository;
+
+    private MutableClock clock;
+    private OverdueLoanIndex index;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW.toInstant(ZoneOffset.UTC));
+        index = new OverdueLoanIndex(openLoanRepository, 2, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reconcile_ShouldLoadOverdueLoansInBatchesEarliestDueFirst() {
+        // Arrange
+        when(openLoanRepository.findLoansFallingDue(BEGINNING, Long.MIN_VALUE, NOW, Limit.of(2))).thenReturn(List.of(
+                new Object[]{3L, 7L, NOW.minusDays(5)},
+                new Object[]{1L, 8L, NOW.minusDays(2)}
+        ));
+        when(openLoanRepository.findLoansFallingDue(NOW.minusDays(2), 1L, NOW, Limit.of(2)))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, 7L, NOW.minusDays(1)}));
+        when(openLoanRepository.existsByBorrowerIdAndDueDateBefore(8L, NOW)).thenReturn(true);
+
+        // Act
+        index.afterSingletonsInstantiated();
+
+        // Assert
+        assertThat(index.getOverdueBookIds()).containsExactly(3L, 1L, 2L);
+        assertThat(index.getOverdueBookIds(2)).containsExactly(3L, 1L);
+        assertThat(index.getOverdueBookIdsByBorrower(7L)).containsExactly(3L, 2L);
+        assertThat(index.getOverdueBookIdsByBorrower(9L)).isEmpty();
+        assertThat(index.hasOverdueLoans(8L)).isTrue();
+        assertThat(index.hasOverdueLoans(9L)).isFalse();
+        assertThat(index.getOverdueLoanCount()).isEqualTo(3);
+        assertThat(index.getBorrowerCount()).isEqualTo(2);
+    }
+
+    @Test
+    void sweep_ShouldOnlyReadLoansThatFellDueSinceThePreviousSweep() {
+        // Arrange
+        when(openLoanRepository.findLoansFallingDue(BEGINNING, Long.MIN_VALUE, NOW, Limit.of(2)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 7L, NOW.minusDays(2)}));
+        index.reconcile();
+        clock.advanceMinutes(5);
+        when(openLoanRepository.findLoansFallingDue(NOW, Long.MIN_VALUE, NOW.plusMinutes(5), Limit.of(2)))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, 8L, NOW.plusMinutes(1)}));
+
+        // Act
+        index.sweep();
+
+        // Assert
+        assertThat(index.getOverdueBookIds()).containsExactly(1L, 2L);
+        verify(openLoanRepository).findLoansFallingDue(NOW, Long.MIN_VALUE, NOW.plusMinutes(5), Limit.of(2));
+    }
+
+    @Test
+    void reconcile_ShouldDropLoansNoLongerOverdue() {
+        // Arrange
+        when(openLoanRepository.findLoansFallingDue(eq(BEGINNING), eq(Long.MIN_VALUE), any(LocalDateTime.class), eq(Limit.of(2))))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 7L, NOW.minusDays(2)}))
+                .thenReturn(List.of());
+        index.reconcile();
+
+        // Act
+        index.reconcile();
+
+        // Assert
+        assertThat(index.getOverdueBookIds()).isEmpty();
+        assertThat(index.hasOverdueLoans(7L)).isFalse();
+    }
+
+    @Test
+    void hasOverdueLoans_ShouldDropLoans_WhenReturnedOnAnotherInstance() {
+        // Arrange
+        when(openLoanRepository.findLoansFallingDue(BEGINNING, Long.MIN_VALUE, NOW, Limit.of(2)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 7L, NOW.minusDays(2)}));
+        index.reconcile();
+        when(openLoanRepository.existsByBorrowerIdAndDueDateBefore(7L, NOW)).thenReturn(false);
+
+        // Act & Assert
+        assertThat(index.hasOverdueLoans(7L)).isFalse();
+        assertThat(index.getOverdueBookIds()).isEmpty();
+        assertThat(index.getBorrowerCount()).isZero();
+
+        // Act & Assert - the borrower is no longer looked up
+        assertThat(index.hasOverdueLoans(7L)).isFalse();
+        verify(openLoanRepository).existsByBorrowerIdAndDueDateBefore(7L, NOW);
+    }
+
+    @Test
+    void bookReturned_ShouldRemoveTheLoanOnlyAfterCommit() {
+        // Arrange
+        when(openLoanRepository.findLoansFallingDue(BEGINNING, Long.MIN_VALUE, NOW, Limit.of(2))).thenReturn(List.of(
+                new Object[]{1L, 7L, NOW.minusDays(2)},
+                new Object[]{2L, 7L, NOW.minusDays(1)}
+        ));
+        when(openLoanRepository.findLoansFallingDue(NOW.minusDays(1), 2L, NOW, Limit.of(2))).thenReturn(List.of());
+        index.reconcile();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        index.bookReturned(1L);
+
+        // Assert
+        assertThat(index.getOverdueBookIds()).containsExactly(1L, 2L);
+
+        // Act
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        index.booksReturned(List.of(2L));
+
+        // Assert
+        assertThat(index.getOverdueBookIds()).isEmpty();
+        assertThat(index.hasOverdueLoans(7L)).isFalse();
+        assertThat(index.getBorrowerCount()).isZero();
+    }
+
+    @Test
+    void sweep_ShouldNotAddBackLoansReturnedWhileItRuns() {
+        // Arrange
+        when(openLoanRepository.findLoansFallingDue(BEGINNING, Long.MIN_VALUE, NOW, Limit.of(2))).thenAnswer(invocation -> {
+            index.bookReturned(1L);
+            return List.<Object[]>of(new Object[]{1L, 7L, NOW.minusDays(2)});
+        });
+
+        // Act
+        index.reconcile();
+
+        // Assert
+        assertThat(index.getOverdueBookIds()).isEmpty();
+    }
+
+    @Test
+    void getOverdueBookIdsAfter_ShouldContinueAfterTheGivenLoan() {
+        // Arrange
+        when(openLoanRepository.findLoansFallingDue(BEGINNING, Long.MIN_VALUE, NOW, Limit.of(2))).thenReturn(List.of(
+                new Object[]{3L, 7L, NOW.minusDays(2)},
+                new Object[]{1L, 8L, NOW.minusDays(2)}
+        ));
+        when(openLoanRepository.findLoansFallingDue(NOW.minusDays(2), 1L, NOW, Limit.of(2)))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, 9L, NOW.minusDays(1)}));
+        index.reconcile();
+
+        // Act & Assert - loans due at the same time are ordered by book ID
+        assertThat(index.getOverdueBookIds()).containsExactly(1L, 3L, 2L);
+        assertThat(index.getOverdueBookIdsAfter(NOW.minusDays(2), 1L, 5)).containsExactly(3L, 2L);
+        assertThat(index.getOverdueBookIdsAfter(NOW.minusDays(2), 3L, 5)).containsExactly(2L);
+        assertThat(index.getOverdueBookIdsAfter(NOW.minusDays(2), 1L, 1)).containsExactly(3L);
+    }
+
+    @Test
+    void constructor_ShouldRejectNonPositiveBatchSize() {
+        // Act & Assert
+        assertThatThrownBy(() -> new OverdueLoanIndex(openLoanRepository, 0, clock))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sweep batch size must be at least 1");
+    }
+}
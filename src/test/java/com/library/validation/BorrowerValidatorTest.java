@@ -0,0 +1,76 @@
+package com.library.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BorrowerValidatorTest {
+
+    // The expressions the validator replaced; it must accept exactly what they matched
+    private static final Pattern FORMER_EMAIL_PATTERN = Pattern.compile(
+            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$");
+    private static final Pattern FORMER_NAME_PATTERN = Pattern.compile("^[a-zA-Z\\s'-]+$");
+
+    private static final List<String> EMAILS = List.of(
+            "john.doe@email.com", "JOHN.DOE@EMAIL.COM", "a@b.co", "first+tag@sub.domain.org", "o&brien*1@x-y.museum",
+            "a_b-c@d.e.info", "x@y.abcdefgh", "x@y.c", "x@y.c1", "x@.com", "x@y..com", "x@y.com.", "@y.com", "x@",
+            "x.@y.com", ".x@y.com", "x..y@z.com", "x@@y.com", "x y@z.com", "x@y_z.com", "xyz", "x@com",
+            "x@1.com", "x@-.com", "é@x.com", "x@y.cöm");
+    private static final List<String> NAMES = List.of(
+            "John Doe", "Mary O'Brien", "Jean-Luc Picard", "Al", "A", "  Jo  ", "John\tDoe", "John3", "Zoë",
+            "Dr. Who", "--", "' '");
+
+    @Test
+    void validateEmail_ShouldAcceptExactlyWhatTheFormerPatternMatched() {
+        for (String email : EMAILS) {
+            boolean formerlyValid = FORMER_EMAIL_PATTERN.matcher(email.trim().toLowerCase()).matches();
+            if (formerlyValid) {
+                assertThatCode(() -> BorrowerValidator.validateEmail(email)).as(email).doesNotThrowAnyException();
+            } else {
+                assertThatThrownBy(() -> BorrowerValidator.validateEmail(email)).as(email)
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("Email format is invalid: " + email);
+            }
+        }
+    }
+
+    @Test
+    void validateName_ShouldAcceptExactlyWhatTheFormerPatternMatched() {
+        for (String name : NAMES) {
+            String trimmed = name.trim();
+            boolean formerlyValid = trimmed.length() >= 2 && FORMER_NAME_PATTERN.matcher(trimmed).matches();
+            if (formerlyValid) {
+                assertThatCode(() -> BorrowerValidator.validateName(name)).as(name).doesNotThrowAnyException();
+            } else {
+                assertThatThrownBy(() -> BorrowerValidator.validateName(name)).as(name)
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+
+    @Test
+    void validateEmail_ShouldRejectBlankAndOverlongEmails() {
+        assertThatThrownBy(() -> BorrowerValidator.validateEmail(" "))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Email cannot be null or empty");
+        assertThatThrownBy(() -> BorrowerValidator.validateEmail("a".repeat(141) + "@email.com"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Email cannot exceed 150 characters");
+    }
+
+    @Test
+    void validateName_ShouldReportTheRuleThatFailed() {
+        assertThatThrownBy(() -> BorrowerValidator.validateName(null))
+                .hasMessage("Name cannot be null or empty");
+        assertThatThrownBy(() -> BorrowerValidator.validateName(" A "))
+                .hasMessage("Name must be at least 2 characters long");
+        assertThatThrownBy(() -> BorrowerValidator.validateName("A".repeat(101)))
+                .hasMessage("Name cannot exceed 100 characters");
+        assertThatThrownBy(() -> BorrowerValidator.validateName("R2-D2"))
+                .hasMessage("Name can only contain letters, spaces, hyphens, and apostrophes");
+    }
+}
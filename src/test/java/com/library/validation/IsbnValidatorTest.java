@@ -0,0 +1,91 @@
+package com.library.validation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IsbnValidatorTest {
+
+    @Test
+    void normalize_ShouldReturnCanonicalIsbnAsIs() {
+        // Arrange
+        String isbn = "9780131103627";
+
+        // Act
+        String normalized = IsbnValidator.normalize(isbn);
+
+        // Assert - no copy is made
+        assertThat(normalized).isSameAs(isbn);
+    }
+
+    @Test
+    void normalize_ShouldStripSeparatorsAndPrefixes() {
+        assertThat(IsbnValidator.normalize("978-0-13-110362-7")).isEqualTo("9780131103627");
+        assertThat(IsbnValidator.normalize("978 0 13 110362 7")).isEqualTo("9780131103627");
+        assertThat(IsbnValidator.normalize("ISBN 978-0-13-110362-7")).isEqualTo("9780131103627");
+        assertThat(IsbnValidator.normalize("ISBN-13: 978-0-13-110362-7")).isEqualTo("9780131103627");
+        assertThat(IsbnValidator.normalize("isbn-10: 0-13-110362-8")).isEqualTo("0131103628");
+        assertThat(IsbnValidator.normalize("979-10-90636-07-1")).isEqualTo("9791090636071");
+    }
+
+    @Test
+    void normalize_ShouldAcceptIsbn10WithCheckCharacterX() {
+        assertThat(IsbnValidator.normalize("0-8044-2957-X")).isEqualTo("080442957X");
+        assertThat(IsbnValidator.normalize("0-8044-2957-x")).isEqualTo("080442957X");
+        assertThat(IsbnValidator.normalize("080442957X")).isEqualTo("080442957X");
+    }
+
+    @Test
+    void normalize_ShouldRejectWrongCheckDigits() {
+        assertThatThrownBy(() -> IsbnValidator.normalize("978-0-13-110362-8"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid ISBN check digit: 978-0-13-110362-8");
+        assertThatThrownBy(() -> IsbnValidator.normalize("0-13-110362-7"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid ISBN check digit: 0-13-110362-7");
+    }
+
+    @Test
+    void normalize_ShouldRejectMalformedIsbns() {
+        for (String isbn : new String[]{"invalid-isbn", "123456789", "97801311036270", "9770131103627",
+                "0-8044-X957-2", "9780131103627X", "978_0131103627", "ISBN"}) {
+            assertThatThrownBy(() -> IsbnValidator.normalize(isbn))
+                    .as(isbn)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid ISBN format: " + isbn);
+        }
+        assertThatThrownBy(() -> IsbnValidator.normalize("  "))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("ISBN cannot be null or empty");
+        assertThatThrownBy(() -> IsbnValidator.normalize(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("ISBN cannot be null or empty");
+    }
+
+    @Test
+    void strip_ShouldMatchNormalizeForValidIsbnsAndKeepDigitsOtherwise() {
+        assertThat(IsbnValidator.strip("ISBN-13: 978-0-13-110362-7")).isEqualTo("9780131103627");
+        assertThat(IsbnValidator.strip("0-8044-2957-x")).isEqualTo("080442957X");
+        assertThat(IsbnValidator.strip("not an isbn 42")).isEqualTo("42");
+        assertThat(IsbnValidator.strip(null)).isNull();
+    }
+
+    @Test
+    void toIsbn13_ShouldGiveTheSameNumberForEveryFormOfAnIsbn() {
+        assertThat(IsbnValidator.toIsbn13("9780131103627")).isEqualTo(9780131103627L);
+        assertThat(IsbnValidator.toIsbn13("ISBN-13: 978-0-13-110362-7")).isEqualTo(9780131103627L);
+        assertThat(IsbnValidator.toIsbn13("0-13-110362-8")).isEqualTo(9780131103627L);
+        assertThat(IsbnValidator.toIsbn13("0131103628")).isEqualTo(9780131103627L);
+        assertThat(IsbnValidator.toIsbn13("0-8044-2957-x")).isEqualTo(9780804429573L);
+        assertThat(IsbnValidator.toIsbn13("979-10-90636-07-1")).isEqualTo(9791090636071L);
+    }
+
+    @Test
+    void toIsbn13_ShouldReturnNoIsbn13_WhenValueCannotBeAnIsbn() {
+        for (String isbn : new String[]{null, "", "not-an-isbn", "123456789", "97801311036270", "0-8044-X957-2",
+                "080442957X1"}) {
+            assertThat(IsbnValidator.toIsbn13(isbn)).as(isbn).isEqualTo(IsbnValidator.NO_ISBN13);
+        }
+    }
+}